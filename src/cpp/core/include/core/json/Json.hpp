@@ -206,6 +206,15 @@ bool fillVectorString(const Array& array, std::vector<std::string>* pVector);
 bool fillVectorInt(const Array& array, std::vector<int>* pVector);
 bool fillMap(const Object& array, std::map< std::string, std::vector<std::string> >* pMap);
 
+// encode an array of records (objects) in the compact columnar form read
+// by the client's RpcColumnarList (one array per field, with string fields
+// stored as indexes into a shared string table and booleans as 0/1)
+Object toColumnar(const Array& records);
+
+// as above, for records already stored as one array per field (each of the
+// given length)
+Object toColumnar(const Object& columns, std::size_t length);
+
 bool parse(const std::string& input, Value* pValue);
 
 void write(const Value& value, std::ostream& os);
@@ -142,6 +142,15 @@ struct JsonRpcRequest
    bool isBackgroundConnection ;
 
    bool empty() const { return method.empty(); }
+
+   // did the client ask for list results in the columnar encoding?
+   bool wantsColumnar() const
+   {
+      json::Object::const_iterator it = kwparams.find("columnar");
+      return it != kwparams.end() &&
+             it->second.type() == json::BooleanType &&
+             it->second.get_bool();
+   }
    
    void clear() 
    {
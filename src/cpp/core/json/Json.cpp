@@ -16,6 +16,7 @@
 #include <core/json/Json.hpp>
 
 #include <cstdlib>
+#include <set>
 #include <sstream>
 
 #include <boost/format.hpp>
@@ -115,6 +116,130 @@ bool fillMap(const Object& object, std::map< std::string, std::vector<std::strin
    return true;
 }
 
+Object toColumnar(const Array& records)
+{
+   // gather the columns (in order of first appearance); records without a
+   // field get null for it
+   std::vector<std::string> names;
+   std::set<std::string> seen;
+   BOOST_FOREACH(const Value& record, records)
+   {
+      if (record.type() != ObjectType)
+         continue;
+
+      BOOST_FOREACH(const Member& member, record.get_obj())
+      {
+         if (seen.insert(member.first).second)
+            names.push_back(member.first);
+      }
+   }
+
+   Object columns;
+   BOOST_FOREACH(const std::string& name, names)
+   {
+      Array column;
+      BOOST_FOREACH(const Value& record, records)
+      {
+         Value value;
+         if (record.type() == ObjectType)
+         {
+            const Object& object = record.get_obj();
+            Object::const_iterator it = object.find(name);
+            if (it != object.end())
+               value = it->second;
+         }
+         column.push_back(value);
+      }
+      columns[name] = column;
+   }
+
+   return toColumnar(columns, records.size());
+}
+
+Object toColumnar(const Object& columns, std::size_t length)
+{
+   Object encodedColumns;
+   Object columnTypes;
+   Array strings;
+   std::map<std::string, int> stringIndexes;
+   BOOST_FOREACH(const Member& member, columns)
+   {
+      if (member.second.type() != ArrayType)
+         continue;
+      const Array& column = member.second.get_array();
+
+      // determine whether the column is uniformly string or boolean typed
+      // (nulls are allowed in both)
+      json_spirit::Value_type type = NullType;
+      BOOST_FOREACH(const Value& value, column)
+      {
+         if (value.type() == NullType)
+            continue;
+         else if (type == NullType)
+            type = value.type();
+         else if (value.type() != type)
+         {
+            // mixed types, encode as plain json values
+            type = ObjectType;
+            break;
+         }
+      }
+
+      if (type == StringType)
+      {
+         Array encoded;
+         BOOST_FOREACH(const Value& value, column)
+         {
+            if (value.type() != StringType)
+            {
+               encoded.push_back(-1);
+               continue;
+            }
+
+            const std::string& str = value.get_str();
+            std::map<std::string, int>::const_iterator it =
+                                                   stringIndexes.find(str);
+            if (it == stringIndexes.end())
+            {
+               int index = static_cast<int>(strings.size());
+               stringIndexes[str] = index;
+               strings.push_back(str);
+               encoded.push_back(index);
+            }
+            else
+            {
+               encoded.push_back(it->second);
+            }
+         }
+         encodedColumns[member.first] = encoded;
+         columnTypes[member.first] = "s";
+      }
+      else if (type == BooleanType)
+      {
+         Array encoded;
+         BOOST_FOREACH(const Value& value, column)
+         {
+            encoded.push_back(value.type() == BooleanType && value.get_bool() ?
+                                                                     1 : 0);
+         }
+         encodedColumns[member.first] = encoded;
+         columnTypes[member.first] = "b";
+      }
+      else
+      {
+         encodedColumns[member.first] = column;
+      }
+   }
+
+   Object columnar;
+   columnar["rs_columnar"] = 1;
+   columnar["length"] = static_cast<int>(length);
+   columnar["columns"] = encodedColumns;
+   columnar["types"] = columnTypes;
+   columnar["strings"] = strings;
+   return columnar;
+}
+
 bool parse(const std::string& input, Value* pValue)
 {
    // two threads simultaneously using the json parser has been observed
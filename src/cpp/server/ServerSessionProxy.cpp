@@ -156,6 +156,60 @@ void handleProxyResponse(
    ptrConnection->writeResponse(response);
 }
 
+bool isEventStream(const http::Response& response)
+{
+   return response.headerValue("Transfer-Encoding") == "chunked";
+}
+
+// the session writes the event stream for as long as the client stays
+// connected, so rather than reading the whole response we respond as soon
+// as we have its headers (and keep the connection open to relay the rest)
+class EventStreamAsyncClient : public http::LocalStreamAsyncClient
+{
+public:
+   EventStreamAsyncClient(boost::asio::io_service& ioService,
+                          const FilePath& streamPath)
+      : http::LocalStreamAsyncClient(ioService, streamPath)
+   {
+   }
+
+private:
+   virtual bool stopReadingAndRespond()
+   {
+      return isEventStream(response_);
+   }
+
+   virtual bool keepConnectionAlive()
+   {
+      return isEventStream(response_);
+   }
+};
+
+void handleEventStreamResponse(
+      boost::shared_ptr<core::http::AsyncConnection> ptrConnection,
+      boost::shared_ptr<EventStreamAsyncClient> ptrClient,
+      const http::Response& response)
+{
+   if (isEventStream(response))
+   {
+      // write the headers (and any of the stream read along with them)
+      // but don't close the connection
+      ptrConnection->writeResponse(response, false);
+
+      // relay the rest of the stream (as we do for websockets)
+      boost::shared_ptr<http::Socket> ptrBrowser =
+         boost::static_pointer_cast<http::Socket>(ptrConnection);
+      boost::shared_ptr<http::Socket> ptrSession =
+         boost::static_pointer_cast<http::Socket>(ptrClient);
+      http::SocketProxy::create(ptrBrowser, ptrSession);
+   }
+   else
+   {
+      // e.g. an error response
+      ptrConnection->writeResponse(response);
+   }
+}
+
 class LocalhostAsyncClient : public http::TcpIpAsyncClient
 {
 public:
@@ -500,6 +554,34 @@ void proxyRequest(
          errorHandler);
 }
 
+void proxyEventStream(
+      const r_util::SessionContext& context,
+      boost::shared_ptr<core::http::AsyncConnection> ptrConnection,
+      const http::ErrorHandler& errorHandler)
+{
+   // apply optional proxy filter
+   if (applyProxyFilter(ptrConnection, context))
+      return;
+
+   // create async client
+   std::string streamFile = r_util::sessionContextFile(context);
+   FilePath streamPath = session::local_streams::streamPath(streamFile);
+   boost::shared_ptr<EventStreamAsyncClient> pClient(
+         new EventStreamAsyncClient(ptrConnection->ioService(), streamPath));
+
+   // assign request
+   pClient->request().assign(ptrConnection->request());
+
+   // call request filter if we have one
+   if (s_proxyRequestFilter)
+      s_proxyRequestFilter(&(pClient->request()));
+
+   // execute
+   pClient->execute(
+         boost::bind(handleEventStreamResponse, ptrConnection, pClient, _1),
+         errorHandler);
+}
+
 // function used to periodically validate that the user is valid (has an
 // account on the system and belongs to the required group if specified)
 // we used to do this on every request but now do it on client_init and
@@ -610,6 +692,16 @@ void proxyEventsRequest(
    if (!sessionContextForRequest(ptrConnection, username, &context))
       return;
 
+   // the event stream is relayed as it arrives
+   if (boost::algorithm::ends_with(ptrConnection->request().uri(),
+                                   "events/stream_events"))
+   {
+      proxyEventStream(context,
+                       ptrConnection,
+                       boost::bind(handleEventsError, ptrConnection, _1));
+      return;
+   }
+
    proxyRequest(context,
                 ptrConnection,
                 boost::bind(handleEventsError, ptrConnection, _1),
@@ -137,6 +137,7 @@ const int kRmdParamsEdit = 112;
 const int kRmdParamsReady = 113;
 const int kRegisterUserCommand = 114;
 const int kRmdRSConnectDeploymentFailed = 115;
+const int kSessionInfoPart = 116;
 }
 
 void ClientEvent::init(int type, const json::Value& data)
@@ -370,6 +371,8 @@ std::string ClientEvent::typeName() const
          return "rmd_params_ready";
       case client_events::kRegisterUserCommand:
          return "register_user_command";
+      case client_events::kSessionInfoPart:
+         return "session_info_part";
       default:
          LOG_WARNING_MESSAGE("unexpected event type: " + 
                              safe_convert::numberToString(type_));
@@ -15,12 +15,16 @@
 
 #include "SessionClientEventQueue.hpp"
 
+#include <algorithm>
+#include <set>
+
 #include <boost/foreach.hpp>
 
 
 #include <core/BoostThread.hpp>
 #include <core/Thread.hpp>
 #include <core/json/Json.hpp>
+#include <core/SafeConvert.hpp>
 #include <core/StringUtils.hpp>
 
 #include <r/session/RConsoleActions.hpp>
@@ -32,8 +36,66 @@ namespace session {
  
 namespace {
 ClientEventQueue* s_pClientEventQueue = NULL;
+
+// state events which only the most recent of need to reach the client
+// (file changes are superseded by changes of the same type to the same
+// path). returns an empty key for events which are never superseded.
+std::string supersededKey(const ClientEvent& event)
+{
+   int type = event.type();
+   if (type == client_events::kPlotsStateChanged ||
+       type == client_events::kEnvironmentRefresh)
+   {
+      return safe_convert::numberToString(type);
+   }
+   else if (type == client_events::kFileChanged &&
+            event.data().type() == json::ObjectType)
+   {
+      const json::Object& fileChange = event.data().get_obj();
+      json::Object::const_iterator changeType = fileChange.find("type");
+      json::Object::const_iterator file = fileChange.find("file");
+      if (changeType == fileChange.end() ||
+          changeType->second.type() != json::IntegerType ||
+          file == fileChange.end() ||
+          file->second.type() != json::ObjectType)
+      {
+         return std::string();
+      }
+
+      const json::Object& fileObject = file->second.get_obj();
+      json::Object::const_iterator path = fileObject.find("path");
+      if (path == fileObject.end() ||
+          path->second.type() != json::StringType)
+      {
+         return std::string();
+      }
+
+      return safe_convert::numberToString(type) + ":" +
+             safe_convert::numberToString(changeType->second.get_int()) +
+             ":" + path->second.get_str();
+   }
+   else
+   {
+      return std::string();
+   }
 }
 
+std::size_t consoleChars(const ClientEvent& event)
+{
+   if ((event.type() == client_events::kConsoleWriteOutput ||
+        event.type() == client_events::kConsoleWriteError) &&
+       event.data().type() == json::StringType)
+   {
+      return event.data().get_str().length();
+   }
+   else
+   {
+      return 0;
+   }
+}
+
+} // anonymous namespace
+
 void initializeClientEventQueue()
 {
    BOOST_ASSERT(s_pClientEventQueue == NULL);
@@ -99,6 +161,9 @@ void ClientEventQueue::remove(std::vector<ClientEvent>* pEvents)
       // flush any pending output
       flushPendingConsoleOutput();
       
+      // drop superseded state events
+      coalescePendingEvents();
+      
       // copy the events to the caller
       pEvents->insert(pEvents->begin(), 
                       pendingEvents_.begin(), 
@@ -110,6 +175,35 @@ void ClientEventQueue::remove(std::vector<ClientEvent>* pEvents)
    END_LOCK_MUTEX
 }
    
+void ClientEventQueue::remove(std::vector<ClientEvent>* pEvents,
+                              std::size_t maxEvents,
+                              std::size_t maxConsoleChars)
+{
+   LOCK_MUTEX(*pMutex_)
+   {
+      flushPendingConsoleOutput();
+      coalescePendingEvents();
+      
+      // take events until we reach either limit; the rest are left for
+      // the next request
+      std::size_t count = 0;
+      std::size_t chars = 0;
+      while (count < pendingEvents_.size() &&
+             (count == 0 || (count < maxEvents && chars < maxConsoleChars)))
+      {
+         chars += consoleChars(pendingEvents_[count]);
+         count++;
+      }
+      
+      pEvents->insert(pEvents->end(),
+                      pendingEvents_.begin(),
+                      pendingEvents_.begin() + count);
+      pendingEvents_.erase(pendingEvents_.begin(),
+                           pendingEvents_.begin() + count);
+   }
+   END_LOCK_MUTEX
+}
+   
 void ClientEventQueue::clear()
 {
    LOCK_MUTEX(*pMutex_)
@@ -175,5 +269,28 @@ void ClientEventQueue::flushPendingConsoleOutput()
    }
 }
 
+void ClientEventQueue::coalescePendingEvents()
+{
+   // NOTE: private helper so no lock required (mutex is not recursive)
+   
+   // keep the last of each superseded event (in its position) by walking
+   // the events from the newest back
+   std::set<std::string> seen;
+   std::vector<ClientEvent> events;
+   for (std::vector<ClientEvent>::reverse_iterator it =
+           pendingEvents_.rbegin(); it != pendingEvents_.rend(); ++it)
+   {
+      std::string key = supersededKey(*it);
+      if (key.empty() || seen.insert(key).second)
+         events.push_back(*it);
+   }
+   
+   if (events.size() < pendingEvents_.size())
+   {
+      std::reverse(events.begin(), events.end());
+      pendingEvents_.swap(events);
+   }
+}
+
 } // namespace session
 } // namespace rstudio
@@ -52,6 +52,12 @@ public:
    // remove all available events
    void remove(std::vector<ClientEvent>* pEvents);
    
+   // remove available events (in order) up to a maximum number of events
+   // and characters of console output (at least one event is removed)
+   void remove(std::vector<ClientEvent>* pEvents,
+               std::size_t maxEvents,
+               std::size_t maxConsoleChars);
+   
    // are there any events pending?
    bool hasEvents();
    
@@ -66,6 +72,7 @@ public:
       
 private:   
    void flushPendingConsoleOutput();
+   void coalescePendingEvents();
  
 private:
    // synchronization objects. heap based so they are never destructed
@@ -16,6 +16,7 @@
 #include "SessionClientEventService.hpp"
 
 #include <algorithm>
+#include <sstream>
 
 #include <boost/function.hpp>
 
@@ -29,7 +30,9 @@
 
 
 #include <core/http/Request.hpp>
+#include <core/http/Response.hpp>
 
+#include <session/SessionConstants.hpp>
 #include <session/SessionOptions.hpp>
 #include <session/SessionHttpConnectionListener.hpp>
 
@@ -44,12 +47,84 @@ namespace {
 
 const int kLastChanceWaitSeconds = 4;
 
+// limits on the events sent to a client which reports that it hasn't yet
+// dispatched all of the events it was previously sent: enough events for
+// about a second of dispatching (but at least kMinEventsWhenBehind), and
+// no more than kMaxConsoleCharsWhenBehind of console output
+const int kMinEventsWhenBehind = 50;
+const std::size_t kMaxConsoleCharsWhenBehind = 64 * 1024;
+
+// event streams are polled for acks (and for newer requests for events,
+// which end the stream) at this interval, and send an empty batch as a
+// heartbeat if nothing else has been written for kStreamHeartbeatSeconds
+const int kStreamPollMs = 250;
+const int kStreamHeartbeatSeconds = 20;
+
+const char * const kStreamEvents = "stream_events";
+const char * const kAckEvents = "ack_events";
+
 bool hasEventIdLessThanOrEqualTo(const json::Value& event, int targetId)
 {
    const json::Object& eventJSON = event.get_obj();
    int eventId = eventJSON.find("id")->second.get_int();
    return eventId <= targetId;
 }
+
+// read the params common to get_events, stream_events and ack_events: the
+// last event id seen by the client, along with the number of events it has
+// yet to dispatch and the rate it dispatches them at (events per second, 0
+// if unknown). the latter two are optional so we default to sending
+// everything
+Error readEventsParams(const json::JsonRpcRequest& request,
+                       int* pLastClientEventIdSeen,
+                       int* pClientBacklog,
+                       int* pClientEventsPerSecond)
+{
+   Error error = json::readParam(request.params, 0, pLastClientEventIdSeen);
+   if (error)
+      return error;
+
+   *pClientBacklog = 0;
+   *pClientEventsPerSecond = 0;
+   if (request.params.size() >= 3)
+   {
+      error = json::readParam(request.params, 1, pClientBacklog);
+      if (!error)
+         error = json::readParam(request.params, 2, pClientEventsPerSecond);
+      if (error)
+         LOG_ERROR(error);
+   }
+
+   return Success();
+}
+
+// deque the events to send. if the client is falling behind then limit
+// what we send it; the rest stay queued (where superseded state events
+// continue to be coalesced) until it catches up
+void removeClientEvents(int clientBacklog,
+                        int clientEventsPerSecond,
+                        std::vector<ClientEvent>* pEvents)
+{
+   if (clientBacklog > 0)
+   {
+      int maxEvents = std::max(kMinEventsWhenBehind, clientEventsPerSecond);
+      clientEventQueue().remove(pEvents,
+                                maxEvents,
+                                kMaxConsoleCharsWhenBehind);
+   }
+   else
+   {
+      clientEventQueue().remove(pEvents);
+   }
+}
+
+std::string asStreamLine(const json::JsonRpcResponse& response)
+{
+   std::ostringstream ostr;
+   response.write(ostr);
+   ostr << std::endl;
+   return ostr.str();
+}
          
 } // anonymous namespace
 
@@ -265,11 +340,15 @@ void ClientEventService::run()
             continue;
          }
 
-         // get the last event id seen by the client
+         // get the last event id seen by the client, its backlog and
+         // dispatch rate
          int lastClientEventIdSeen = -1;
-         Error paramError = json::readParam(request.params, 
-                                            0, 
-                                            &lastClientEventIdSeen);
+         int clientBacklog = 0;
+         int clientEventsPerSecond = 0;
+         Error paramError = readEventsParams(request,
+                                             &lastClientEventIdSeen,
+                                             &clientBacklog,
+                                             &clientEventsPerSecond);
          if (paramError)
          {
             ptrConnection->sendJsonRpcError(paramError);
@@ -285,6 +364,26 @@ void ClientEventService::run()
          // would never see any events!)
          nextEventId = std::max(nextEventId, lastClientEventIdSeen + 1);
 
+         // an ack arriving when there is no stream (e.g. one which was
+         // superseded) has done all it needs to
+         if (request.method == kAckEvents)
+         {
+            ptrConnection->sendJsonRpcResponse();
+            continue;
+         }
+
+         // hold the connection open and stream events over it
+         if (request.method == kStreamEvents)
+         {
+            streamEvents(ptrConnection,
+                         request.clientId,
+                         clientBacklog,
+                         clientEventsPerSecond,
+                         &nextEventId,
+                         &stopServer);
+            continue;
+         }
+
          // check for events (and wait a specified internal if there are none)
          try
          {
@@ -323,7 +422,7 @@ void ClientEventService::run()
          {
             // deque the events
             std::vector<ClientEvent> events;
-            clientEventQueue.remove(&events);
+            removeClientEvents(clientBacklog, clientEventsPerSecond, &events);
             
             // convert to json and add event id
             for (std::vector<ClientEvent>::const_iterator 
@@ -351,6 +450,179 @@ void ClientEventService::run()
    }
    CATCH_UNEXPECTED_EXCEPTION
 }
+
+// stream events to the client over a single chunked response, one json-rpc
+// response (carrying a batch of events) per line. the client acknowledges
+// the events it has dispatched out-of-band with ack_events, which we handle
+// here while the stream is open. any other request for events supersedes
+// the stream: we end it and leave the request for the accept loop
+void ClientEventService::streamEvents(
+                     boost::shared_ptr<HttpConnection> ptrConnection,
+                     const std::string& streamClientId,
+                     int clientBacklog,
+                     int clientEventsPerSecond,
+                     int* pNextEventId,
+                     bool* pStopServer)
+{
+   using namespace boost::posix_time;
+   time_duration pollInterval = milliseconds(kStreamPollMs);
+   time_duration batchDelay = milliseconds(20);
+   time_duration maxTotalBatchDelay = milliseconds(250);
+
+   HttpConnectionQueue& connectionQueue =
+                     httpConnectionListener().eventsConnectionQueue();
+   ClientEventQueue& clientEventQueue = session::clientEventQueue();
+
+   // start the response. connections which can't stream reply with an
+   // error instead (the client then falls back to get_events)
+   http::Response response;
+   response.setContentType(json::kJsonContentType);
+   if (!ptrConnection->beginStreamingResponse(response))
+   {
+      ptrConnection->sendJsonRpcError(
+                     Error(json::errc::MethodNotFound, ERROR_LOCATION));
+      return;
+   }
+
+   // the first batch also carries any events which were delivered but
+   // not acknowledged. while the client is behind we send it one batch
+   // per ack (the rest stay queued, as for get_events)
+   bool firstBatch = true;
+   bool canSendBatch = true;
+   boost::system_time lastWriteTime = boost::get_system_time();
+
+   while (true)
+   {
+      try
+      {
+         // handle acks, waiting for one if we can't send until we get it
+         boost::shared_ptr<HttpConnection> ptrNext = canSendBatch ?
+                  connectionQueue.dequeConnection() :
+                  connectionQueue.dequeConnection(pollInterval);
+         for ( ; ptrNext; ptrNext = connectionQueue.dequeConnection())
+         {
+            json::JsonRpcRequest request;
+            int lastClientEventIdSeen = -1;
+            Error error = json::parseJsonRpcRequest(ptrNext->request().body(),
+                                                    &request);
+            if (!error && request.method == kAckEvents &&
+                request.clientId == streamClientId)
+            {
+               error = readEventsParams(request,
+                                        &lastClientEventIdSeen,
+                                        &clientBacklog,
+                                        &clientEventsPerSecond);
+            }
+            else
+            {
+               // superseded: leave the request for the accept loop
+               connectionQueue.enqueConnection(ptrNext);
+               ptrConnection->endStreamingResponse();
+               return;
+            }
+
+            if (error)
+            {
+               ptrNext->sendJsonRpcError(error);
+               continue;
+            }
+
+            erasePreviouslyDeliveredEvents(lastClientEventIdSeen);
+            canSendBatch = true;
+            ptrNext->sendJsonRpcResponse();
+         }
+
+         // wait (briefly, so we keep up with acks) for events, and then
+         // for any which follow in rapid succession
+         if (canSendBatch && (clientEventQueue.hasEvents() ||
+                              clientEventQueue.waitForEvent(pollInterval)))
+         {
+            boost::system_time maxBatchDelayTime =
+                           boost::get_system_time() + maxTotalBatchDelay;
+
+            while ( clientEventQueue.waitForEvent(batchDelay) &&
+                    (boost::get_system_time() < maxBatchDelayTime) )
+            {
+            }
+         }
+      }
+      catch(const boost::thread_interrupted&)
+      {
+         // send what we have (e.g. the quit event) and then end the stream
+         *pStopServer = true;
+      }
+
+      // end the stream if another client has taken over
+      if (clientId() != streamClientId)
+      {
+         json::JsonRpcResponse errorResponse;
+         errorResponse.setError(Error(json::errc::InvalidClientId,
+                                      ERROR_LOCATION));
+         ptrConnection->sendResponseChunk(asStreamLine(errorResponse));
+         ptrConnection->endStreamingResponse();
+         return;
+      }
+
+      bool written = true;
+      boost::system_time now = boost::get_system_time();
+      if ((canSendBatch || *pStopServer) &&
+          (firstBatch || clientEventQueue.hasEvents()))
+      {
+         std::vector<ClientEvent> events;
+         removeClientEvents(clientBacklog, clientEventsPerSecond, &events);
+
+         json::Array batch;
+         for (std::vector<ClientEvent>::const_iterator
+              it = events.begin(); it != events.end(); ++it)
+         {
+            json::Object event ;
+            it->asJsonObject((*pNextEventId)++, &event);
+            addClientEvent(event);
+            batch.push_back(event);
+         }
+
+         json::JsonRpcResponse batchResponse;
+         if (firstBatch)
+            setClientEventResult(&batchResponse);
+         else
+            batchResponse.setResult(batch);
+         batchResponse.setField(kEventsPending, "false");
+         written = ptrConnection->sendResponseChunk(
+                                          asStreamLine(batchResponse));
+
+         firstBatch = false;
+         if (clientBacklog > 0)
+            canSendBatch = false;
+         lastWriteTime = now;
+      }
+      else if (now > lastWriteTime + seconds(kStreamHeartbeatSeconds))
+      {
+         json::JsonRpcResponse heartbeatResponse;
+         heartbeatResponse.setResult(json::Array());
+         heartbeatResponse.setField(kEventsPending, "false");
+         written = ptrConnection->sendResponseChunk(
+                                          asStreamLine(heartbeatResponse));
+         lastWriteTime = now;
+      }
+
+      // the client went away (undelivered events stay in clientEvents_
+      // until it asks for them again)
+      if (!written)
+      {
+         ptrConnection->close();
+         return;
+      }
+
+      if (*pStopServer)
+      {
+         ptrConnection->endStreamingResponse();
+         return;
+      }
+
+      // an open stream counts as a connected client
+      connectionQueue.updateLastConnectionTime();
+   }
+}
       
 } // namespace session
 } // namespace rstudio
@@ -19,6 +19,7 @@
 #include <string>
 
 #include <boost/utility.hpp>
+#include <boost/shared_ptr.hpp>
 
 #include <core/BoostThread.hpp>
 
@@ -34,6 +35,8 @@ namespace core {
 namespace rstudio {
 namespace session {
 
+class HttpConnection;
+
 // singleton
 class ClientEventService;
 ClientEventService& clientEventService();
@@ -57,6 +60,12 @@ private:
    std::string clientId();
 
    void run();
+   void streamEvents(boost::shared_ptr<HttpConnection> ptrConnection,
+                     const std::string& streamClientId,
+                     int clientBacklog,
+                     int clientEventsPerSecond,
+                     int* pNextEventId,
+                     bool* pStopServer);
 
    void erasePreviouslyDeliveredEvents(int lastClientEventIdSeen);
    bool havePendingClientEvents();
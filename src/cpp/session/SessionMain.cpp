@@ -23,6 +23,7 @@
 #include <vector>
 #include <queue>
 #include <map>
+#include <set>
 #include <algorithm>
 #include <cstdlib>
 #include <csignal>
@@ -238,6 +239,7 @@ const char * const kHandleUnsavedChangesCompleted = "handle_unsaved_changes_comp
 const char * const kQuitSession = "quit_session" ;   
 const char * const kSuspendSession = "suspend_session";
 const char * const kInterrupt = "interrupt";
+const char * const kBatchRequests = "batch_requests";
 
 // convenience function for disallowing suspend (note still doesn't override
 // the presence of s_forceSuspend = 1)
@@ -394,6 +396,42 @@ FilePath getInitialWorkingDirectory()
 }
 
 
+// sections of the session info which aren't needed to render the
+// workbench. these are sent after the client_init response (as
+// session_info_part events) so that the client can show the workbench
+// without waiting to receive and parse them.
+const char * const kDeferredSessionInfoParts[] = {
+   "console_history",
+   "console_actions",
+   "lists",
+   "find_in_files_state",
+   "markers_state",
+   "build_state"
+};
+
+void deferSessionInfoParts(json::Object* pSessionInfo, json::Array* pParts)
+{
+   json::Array deferredParts;
+   std::size_t count = sizeof(kDeferredSessionInfoParts) /
+                       sizeof(kDeferredSessionInfoParts[0]);
+   for (std::size_t i = 0; i < count; i++)
+   {
+      std::string name(kDeferredSessionInfoParts[i]);
+      json::Object::iterator it = pSessionInfo->find(name);
+      if (it == pSessionInfo->end())
+         continue;
+
+      json::Object part;
+      part["name"] = name;
+      part["value"] = it->second;
+      pParts->push_back(part);
+
+      deferredParts.push_back(name);
+      pSessionInfo->erase(it);
+   }
+   (*pSessionInfo)["deferred_parts"] = deferredParts;
+}
+
 void handleClientInit(const boost::function<void()>& initFunction,
                       boost::shared_ptr<HttpConnection> ptrConnection)
 {
@@ -457,9 +495,23 @@ void handleClientInit(const boost::function<void()>& initFunction,
    rstudio::r::session::clientState().currentState(&clientStateObject);
    sessionInfo["client_state"] = clientStateObject;
    
-   // source documents
+   // source documents (omitting the contents of those the client has
+   // cached, whose keys it lists in the first parameter of client_init)
+   std::set<std::string> cachedKeys;
+   json::JsonRpcRequest request;
+   Error parseError = json::parseJsonRpcRequest(
+                                 ptrConnection->request().body(), &request);
+   if (!parseError && request.params.size() > 0 &&
+       json::isType<json::Array>(request.params[0]))
+   {
+      BOOST_FOREACH(const json::Value& key, request.params[0].get_array())
+      {
+         if (json::isType<std::string>(key))
+            cachedKeys.insert(key.get_str());
+      }
+   }
    json::Array jsonDocs;
-   error = modules::source::clientInitDocuments(&jsonDocs);
+   error = modules::source::clientInitDocuments(cachedKeys, &jsonDocs);
    if (error)
       LOG_ERROR(error);
    sessionInfo["source_documents"] = jsonDocs;
@@ -657,6 +709,13 @@ void handleClientInit(const boost::function<void()>& initFunction,
 
    sessionInfo["multi_session"] = options.multiSession();
 
+   sessionInfo["rpc_batching_available"] = true;
+
+   // events can be streamed through rserver (desktop connections can't
+   // stream, and long-polling is cheap there in any case)
+   sessionInfo["event_streaming_available"] =
+           options.programMode() == kSessionProgramModeServer;
+
    json::Object rVersionsJson;
    rVersionsJson["r_version"] = module_context::rVersion();
    rVersionsJson["r_home_dir"] = module_context::rHomeDir();
@@ -664,6 +723,10 @@ void handleClientInit(const boost::function<void()>& initFunction,
 
    module_context::events().onSessionInfo(&sessionInfo);
 
+   // split off the parts of the session info which can be sent later
+   json::Array deferredParts;
+   deferSessionInfoParts(&sessionInfo, &deferredParts);
+
    // send response  (we always set kEventsPending to false so that the client
    // won't poll for events until it is ready)
    json::JsonRpcResponse jsonRpcResponse ;
@@ -671,6 +734,17 @@ void handleClientInit(const boost::function<void()>& initFunction,
    jsonRpcResponse.setResult(sessionInfo) ;
    ptrConnection->sendJsonRpcResponse(jsonRpcResponse);
 
+   // send the deferred parts of the session info (these are queued ahead
+   // of any events generated by the rest of initialization, so e.g. the
+   // console actions are replayed before any new console output)
+   for (json::Array::const_iterator it = deferredParts.begin();
+        it != deferredParts.end();
+        ++it)
+   {
+      ClientEvent event(client_events::kSessionInfoPart, *it);
+      module_context::enqueClientEvent(event);
+   }
+
    // complete initialization of session
    ensureSessionInitialized();
    
@@ -803,6 +877,158 @@ void handleRpcRequest(const core::json::JsonRpcRequest& request,
 
 }
 
+// state for a batch_requests call (a set of direct-return json-rpc requests
+// multiplexed by the client into a single http request). the combined
+// response is sent once every request in the batch has completed.
+struct BatchRpcState
+{
+   BatchRpcState(boost::shared_ptr<HttpConnection> ptrConnection,
+                 std::size_t count)
+      : ptrConnection(ptrConnection),
+        responses(count),
+        succeeded(count, false),
+        remaining(count),
+        executeStartTime(boost::posix_time::microsec_clock::universal_time())
+   {
+   }
+
+   boost::shared_ptr<HttpConnection> ptrConnection;
+   std::vector<json::JsonRpcResponse> responses;
+   std::vector<bool> succeeded;
+   std::size_t remaining;
+   boost::posix_time::ptime executeStartTime;
+};
+
+void endHandleBatchRpcRequestItem(boost::shared_ptr<BatchRpcState> pState,
+                                  std::size_t index,
+                                  const core::Error& executeError,
+                                  json::JsonRpcResponse* pJsonRpcResponse)
+{
+   if (executeError)
+   {
+      pState->responses[index].setError(executeError);
+   }
+   else if (pJsonRpcResponse)
+   {
+      pState->responses[index] = *pJsonRpcResponse;
+      pState->succeeded[index] = true;
+   }
+
+   if (--pState->remaining > 0)
+      return;
+
+   // allow modules to detect changes after rpc calls (once for the batch,
+   // unless every request which succeeded asked us not to -- as when they
+   // are handled individually, failed requests don't detect changes)
+   bool detect = false;
+   for (std::size_t i = 0; i < pState->responses.size(); i++)
+   {
+      if (pState->succeeded[i] &&
+          !pState->responses[i].suppressDetectChanges())
+      {
+         detect = true;
+      }
+   }
+   if (detect)
+      detectChanges(module_context::ChangeSourceRPC);
+
+   // are there (or will there likely be) events pending? (the client
+   // dispatches each response individually so we mark each of them)
+   bool eventsPending =
+            clientEventQueue().eventAddedSince(pState->executeStartTime);
+
+   json::Array results;
+   BOOST_FOREACH(json::JsonRpcResponse& response, pState->responses)
+   {
+      if (!eventsPending && !response.hasAfterResponse())
+         response.setField(kEventsPending, "false");
+      results.push_back(response.getRawResponse());
+   }
+
+   json::JsonRpcResponse batchResponse;
+   batchResponse.setResult(results);
+   batchResponse.setField(kEventsPending, "false");
+   pState->ptrConnection->sendJsonRpcResponse(batchResponse);
+
+   // run any after response hooks (then detect changes again)
+   bool detectAfterResponse = false;
+   BOOST_FOREACH(json::JsonRpcResponse& response, pState->responses)
+   {
+      if (response.hasAfterResponse())
+      {
+         response.runAfterResponse();
+         if (!response.suppressDetectChanges())
+            detectAfterResponse = true;
+      }
+   }
+   if (detectAfterResponse)
+      detectChanges(module_context::ChangeSourceRPC);
+}
+
+void handleBatchRpcRequest(const core::json::JsonRpcRequest& request,
+                           boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   json::Array requests;
+   Error error = json::readParam(request.params, 0, &requests);
+   if (error)
+   {
+      ptrConnection->sendJsonRpcError(error);
+      return;
+   }
+
+   if (requests.empty())
+   {
+      json::JsonRpcResponse response;
+      response.setResult(json::Array());
+      ptrConnection->sendJsonRpcResponse(response);
+      return;
+   }
+
+   boost::shared_ptr<BatchRpcState> pState(
+                           new BatchRpcState(ptrConnection, requests.size()));
+   for (std::size_t i = 0; i < requests.size(); i++)
+   {
+      json::JsonRpcFunctionContinuation continuation =
+            boost::bind(endHandleBatchRpcRequestItem, pState, i, _1, _2);
+
+      // each request inherits the client id, source window, etc. of the
+      // batch request which carried it
+      json::JsonRpcRequest itemRequest = request;
+      itemRequest.kwparams.clear();
+      if (!json::isType<json::Object>(requests[i]))
+      {
+         continuation(Error(json::errc::InvalidRequest, ERROR_LOCATION), NULL);
+         continue;
+      }
+      const json::Object& itemJson = requests[i].get_obj();
+      Error itemError = json::readObject(itemJson,
+                                         "method", &itemRequest.method,
+                                         "params", &itemRequest.params);
+      if (itemError)
+      {
+         continuation(itemError, NULL);
+         continue;
+      }
+      json::Object::const_iterator kwIt = itemJson.find("kwparams");
+      if (kwIt != itemJson.end() && json::isType<json::Object>(kwIt->second))
+         itemRequest.kwparams = kwIt->second.get_obj();
+
+      // only direct-return methods may be batched (we need the result to
+      // compose the batch response)
+      json::JsonRpcAsyncMethods::const_iterator it =
+                                 s_jsonRpcMethods.find(itemRequest.method);
+      if (it == s_jsonRpcMethods.end() || !it->second.first)
+      {
+         Error methodError(json::errc::MethodNotFound, ERROR_LOCATION);
+         methodError.addProperty("method", itemRequest.method);
+         continuation(methodError, NULL);
+         continue;
+      }
+
+      it->second.second(itemRequest, continuation);
+   }
+}
+
 bool isMethod(const std::string& uri, const std::string& method)
 {
    return boost::algorithm::ends_with(uri, method);
@@ -1049,6 +1275,12 @@ void handleConnection(boost::shared_ptr<HttpConnection> ptrConnection,
                rstudio::r::exec::setInterruptsPending(true);
          }
 
+         // multiple requests in a single http request
+         else if ( jsonRpcRequest.method == kBatchRequests )
+         {
+            handleBatchRpcRequest(jsonRpcRequest, ptrConnection);
+         }
+
          // other rpc method, handle it
          else
          {
@@ -17,6 +17,8 @@
 #define SESSION_HTTP_CONNECTION_IMPL_HPP
 
 
+#include <sstream>
+
 #include <boost/array.hpp>
 
 #include <boost/utility.hpp>
@@ -43,6 +45,13 @@
 namespace rstudio {
 namespace session {
 
+namespace {
+
+const char * const kCrLf = "\r\n";
+const char * const kLastChunk = "0\r\n\r\n";
+
+} // anonymous namespace
+
 template <typename ProtocolType>
 class HttpConnectionImpl :
    public HttpConnection,
@@ -80,26 +89,54 @@ public:
 
    virtual void sendResponse(const core::http::Response &response)
    {
+      // write the response
+      write(response.toBuffers(core::http::Header::connectionClose()));
+
+      // always close connection
       try
       {
-         // write the response
-         boost::asio::write(socket_,
-                            response.toBuffers(
-                                  core::http::Header::connectionClose()));
-      }
-      catch(const boost::system::system_error& e)
-      {
-         // establish error
-         core::Error error = core::Error(e.code(), ERROR_LOCATION);
-         error.addProperty("request-uri", request_.uri());
-
-         // log the error if it wasn't connection terminated
-         if (!core::http::isConnectionTerminatedError(error))
-            LOG_ERROR(error);
+         close();
       }
       CATCH_UNEXPECTED_EXCEPTION
+   }
+
+   virtual bool beginStreamingResponse(const core::http::Response& response)
+   {
+      // the body is sent in chunks of unknown number and size, so it has
+      // no content length and mustn't be cached
+      core::http::Response streamResponse;
+      streamResponse.assign(response);
+      streamResponse.removeHeader("Content-Length");
+      streamResponse.setNoCacheHeaders();
+      streamResponse.setHeader("Transfer-Encoding", "chunked");
+
+      return write(streamResponse.toBuffers(
+                                  core::http::Header::connectionClose()));
+   }
+
+   virtual bool sendResponseChunk(const std::string& data)
+   {
+      // an empty chunk would signal the end of the response
+      if (data.empty())
+         return true;
+
+      std::ostringstream sizeStream;
+      sizeStream << std::hex << data.size() << "\r\n";
+      std::string size = sizeStream.str();
+
+      std::vector<boost::asio::const_buffer> buffers;
+      buffers.push_back(boost::asio::buffer(size));
+      buffers.push_back(boost::asio::buffer(data));
+      buffers.push_back(boost::asio::buffer(kCrLf, 2));
+      return write(buffers);
+   }
+
+   virtual void endStreamingResponse()
+   {
+      std::vector<boost::asio::const_buffer> buffers;
+      buffers.push_back(boost::asio::buffer(kLastChunk, 5));
+      write(buffers);
 
-      // always close connection
       try
       {
          close();
@@ -133,6 +170,29 @@ public:
 
 private:
 
+   // synchronously write to the connection (returns false on error)
+   bool write(const std::vector<boost::asio::const_buffer>& buffers)
+   {
+      try
+      {
+         boost::asio::write(socket_, buffers);
+         return true;
+      }
+      catch(const boost::system::system_error& e)
+      {
+         // establish error
+         core::Error error = core::Error(e.code(), ERROR_LOCATION);
+         error.addProperty("request-uri", request_.uri());
+
+         // log the error if it wasn't connection terminated
+         if (!core::http::isConnectionTerminatedError(error))
+            LOG_ERROR(error);
+      }
+      CATCH_UNEXPECTED_EXCEPTION
+
+      return false;
+   }
+
    // async request reading interface
    void readSome()
    {
@@ -137,5 +137,15 @@ boost::posix_time::ptime HttpConnectionQueue::lastConnectionTime()
     return boost::posix_time::ptime();
 }
 
+void HttpConnectionQueue::updateLastConnectionTime()
+{
+   LOCK_MUTEX(*pMutex_)
+   {
+      lastConnectionTime_ =
+                  boost::posix_time::second_clock::universal_time();
+   }
+   END_LOCK_MUTEX
+}
+
 } // namespace session
 } // namespace rstudio
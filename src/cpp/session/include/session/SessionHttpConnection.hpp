@@ -68,6 +68,24 @@ public:
                   const core::json::JsonRpcResponse& jsonRpcResponse);
 
 
+   // streaming (chunked) responses: beginStreamingResponse writes the
+   // headers, each call to sendResponseChunk writes a chunk, and
+   // endStreamingResponse writes the final chunk and closes. the begin and
+   // send methods return false if the write failed (or if the connection
+   // doesn't support streaming, as is the default)
+   virtual bool beginStreamingResponse(const core::http::Response& response)
+   {
+      return false;
+   }
+   virtual bool sendResponseChunk(const std::string& data)
+   {
+      return false;
+   }
+   virtual void endStreamingResponse()
+   {
+      close();
+   }
+
    // close (occurs automatically after writeResponse, here in case it
    // need to be closed in other circumstances
    virtual void close() = 0;
@@ -55,6 +55,10 @@ public:
 
    boost::posix_time::ptime lastConnectionTime();
 
+   // note activity on a connection which is being held open (e.g. an
+   // event stream) so that it counts as a connection
+   void updateLastConnectionTime();
+
 private:
    boost::shared_ptr<HttpConnection> doDequeConnection();
    bool waitForConnection(const boost::posix_time::time_duration& waitDuration);
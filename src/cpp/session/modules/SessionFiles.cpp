@@ -231,7 +231,10 @@ Error listFiles(const json::JsonRpcRequest& request, json::JsonRpcResponse* pRes
          return error;
    }
 
-   result["files"] = jsonFiles;
+   if (request.wantsColumnar())
+      result["files"] = json::toColumnar(jsonFiles);
+   else
+      result["files"] = jsonFiles;
 
    bool browseable = true;
 
@@ -197,16 +197,20 @@ class GrepOperation : public boost::enable_shared_from_this<GrepOperation>
 {
 public:
    static boost::shared_ptr<GrepOperation> create(const std::string& encoding,
-                                                  const FilePath& tempFile)
+                                                  const FilePath& tempFile,
+                                                  bool columnar)
    {
       return boost::shared_ptr<GrepOperation>(new GrepOperation(encoding,
-                                                                tempFile));
+                                                                tempFile,
+                                                                columnar));
    }
 
 private:
    GrepOperation(const std::string& encoding,
-                 const FilePath& tempFile)
-      : firstDecodeError_(true), encoding_(encoding), tempFile_(tempFile)
+                 const FilePath& tempFile,
+                 bool columnar)
+      : firstDecodeError_(true), encoding_(encoding), tempFile_(tempFile),
+        columnar_(columnar)
    {
       handle_ = core::system::generateUuid(false);
    }
@@ -374,7 +378,13 @@ private:
          results["lineValue"] = contents;
          results["matchOn"] = matchOns;
          results["matchOff"] = matchOffs;
-         result["results"] = results;
+
+         // the client that began the find may have asked for the results
+         // in the columnar encoding (which stores each file name once)
+         if (columnar_)
+            result["results"] = json::toColumnar(results, files.size());
+         else
+            result["results"] = results;
 
          findResults().addResult(handle(),
                                  files,
@@ -410,6 +420,7 @@ private:
    FilePath tempFile_;
    std::string stdOutBuf_;
    std::string handle_;
+   bool columnar_;
 };
 
 } // namespace
@@ -469,8 +480,10 @@ core::Error beginFind(const json::JsonRpcRequest& request,
    *pStream << encodedString << std::endl;
    pStream.reset(); // release file handle
 
-   boost::shared_ptr<GrepOperation> ptrGrepOp = GrepOperation::create(encoding,
-                                                                      tempFile);
+   boost::shared_ptr<GrepOperation> ptrGrepOp = GrepOperation::create(
+                                                     encoding,
+                                                     tempFile,
+                                                     request.wantsColumnar());
    core::system::ProcessCallbacks callbacks =
                                        ptrGrepOp->createProcessCallbacks();
 
@@ -524,7 +524,15 @@ Error getPackageState(const json::JsonRpcRequest& request,
    if (error) 
       LOG_ERROR(error);
    else
+   {
+      if (request.wantsColumnar())
+      {
+         json::Value& list = result["package_list"];
+         if (list.type() == json::ArrayType)
+            list = json::toColumnar(list.get_array());
+      }
       pResponse->setResult(result);
+   }
    return error;
 }
 
@@ -329,6 +329,33 @@ SEXP rs_getActiveFrame(SEXP depthSEXP)
    return context->cloenv;
 }
 
+// the values bound in the global environment when it was last indexed for
+// completions (compared by address only, as the environment monitor does)
+std::map<std::string, SEXP> s_indexedGlobals;
+
+SEXP rs_listChangedGlobals()
+{
+   // list the bindings without forcing promises or active bindings
+   r::sexp::Protect protect;
+   std::vector<r::sexp::Variable> vars;
+   r::sexp::listEnvironment(R_GlobalEnv, true, false, &protect, &vars);
+
+   std::map<std::string, SEXP> globals;
+   std::vector<std::string> changed;
+   BOOST_FOREACH(const r::sexp::Variable& var, vars)
+   {
+      globals[var.first] = var.second;
+
+      std::map<std::string, SEXP>::const_iterator it =
+            s_indexedGlobals.find(var.first);
+      if (it == s_indexedGlobals.end() || it->second != var.second)
+         changed.push_back(var.first);
+   }
+   s_indexedGlobals.swap(globals);
+
+   return r::sexp::create(changed, &protect);
+}
+
 SEXP rs_getNAMESPACEImportedSymbols(SEXP documentIdSEXP)
 {
    std::string documentId = r::sexp::asString(documentIdSEXP);
@@ -497,6 +524,7 @@ Error initialize() {
    RS_REGISTER_CALL_METHOD(rs_scanFiles, 4);
    RS_REGISTER_CALL_METHOD(rs_isSubsequence, 2);
    RS_REGISTER_CALL_METHOD(rs_getActiveFrame, 1);
+   RS_REGISTER_CALL_METHOD(rs_listChangedGlobals, 0);
    RS_REGISTER_CALL_METHOD(rs_listInferredPackages, 1);
    RS_REGISTER_CALL_METHOD(rs_getInferredCompletions, 1);
    RS_REGISTER_CALL_METHOD(rs_getNAMESPACEImportedSymbols, 1);
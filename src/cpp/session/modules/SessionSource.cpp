@@ -17,6 +17,7 @@
 
 #include <string>
 #include <map>
+#include <set>
 
 #include <boost/bind.hpp>
 #include <boost/foreach.hpp>
@@ -30,6 +31,7 @@
 #include <core/FilePath.hpp>
 #include <core/FileInfo.hpp>
 #include <core/FileSerializer.hpp>
+#include <core/SafeConvert.hpp>
 #include <core/StringUtils.hpp>
 #include <core/text/TemplateFilter.hpp>
 #include <core/r_util/RPackageInfo.hpp>
@@ -1068,9 +1070,19 @@ SEXP rs_fileEdit(SEXP fileSEXP)
    return R_NilValue;
 }
 
+// the key under which the client caches a document's contents. like the
+// dirty check we compare the length as well as the (32-bit) hash, so that
+// a hash collision doesn't pass off another document's contents as these
+std::string contentsCacheKey(boost::shared_ptr<SourceDocument> pDoc)
+{
+   return pDoc->hash() + ":" +
+          safe_convert::numberToString(pDoc->contents().length());
+}
+
 } // anonymous namespace
 
-Error clientInitDocuments(core::json::Array* pJsonDocs)
+Error clientInitDocuments(const std::set<std::string>& cachedKeys,
+                          core::json::Array* pJsonDocs)
 {
    source_database::events().onRemoveAll();
 
@@ -1102,6 +1114,15 @@ Error clientInitDocuments(core::json::Array* pJsonDocs)
 
       json::Object jsonDoc ;
       writeDocToJson(pDoc, &jsonDoc);
+
+      // don't send contents the client already has (it restores them from
+      // its document cache using the hash)
+      if (cachedKeys.count(contentsCacheKey(pDoc)) > 0)
+      {
+         jsonDoc["contents"] = json::Value();
+         jsonDoc["contents_cached"] = true;
+      }
+
       pJsonDocs->push_back(jsonDoc);
 
       source_database::events().onDocUpdated(pDoc);
@@ -16,6 +16,8 @@
 #ifndef SESSION_SOURCE_HPP
 #define SESSION_SOURCE_HPP
 
+#include <set>
+#include <string>
 #include <vector>
 
 #include <boost/shared_ptr.hpp>
@@ -36,7 +38,8 @@ namespace session {
 namespace modules { 
 namespace source {
    
-core::Error clientInitDocuments(core::json::Array* pJsonDocs) ;
+core::Error clientInitDocuments(const std::set<std::string>& cachedKeys,
+                                core::json::Array* pJsonDocs) ;
 
 core::Error initialize();
                        
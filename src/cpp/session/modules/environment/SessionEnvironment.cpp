@@ -821,11 +821,18 @@ Error setContextDepth(boost::shared_ptr<int> pContextDepth,
 
 Error getEnvironmentState(boost::shared_ptr<int> pContextDepth,
                           boost::shared_ptr<LineDebugState> pLineDebugState,
-                          const json::JsonRpcRequest&,
+                          const json::JsonRpcRequest& request,
                           json::JsonRpcResponse* pResponse)
 {
-   pResponse->setResult(commonEnvironmentStateData(*pContextDepth,
-                                                   pLineDebugState.get()));
+   json::Object state = commonEnvironmentStateData(*pContextDepth,
+                                                   pLineDebugState.get());
+   if (request.wantsColumnar())
+   {
+      json::Value& list = state["environment_list"];
+      if (list.type() == json::ArrayType)
+         list = json::toColumnar(list.get_array());
+   }
+   pResponse->setResult(state);
    return Success();
 }
 
@@ -38,6 +38,26 @@ var lastHeight = 0;
 var detachedHandlers = [];
 var lastScrollPos = 0;
 
+// the object being viewed (sent with each request for data)
+var dataSource = {};
+
+// cached blocks of rows, keyed by query and block index, and the keys in
+// order of use (least recently used first)
+var blockCache = {};
+var blockCacheKeys = [];
+
+// the request for rows currently in flight, if any
+var pendingFetch = null;
+
+// the first row requested by the last draw (used to decide which direction
+// to prefetch in)
+var lastDrawStart = 0;
+
+// number of rows in each block fetched from the server, and the number of
+// blocks to keep
+var blockRows = 250;
+var maxCachedBlocks = 40;
+
 var isHeaderWidthMismatched = function() {
   // find the elements to measure (they may not exist)
   var rs = document.getElementById("rsGridData");
@@ -77,6 +97,233 @@ var debounce = function(func, wait) {
 	};
 };
 
+var showDataError = function(jqXHR) {
+  if (jqXHR.responseText[0] !== "{")
+    showError(jqXHR.responseText);
+  else
+  {
+    var result = $.parseJSON(jqXHR.responseText);
+    if (result.error) {
+      showError(result.error);
+    } else {
+      showError("The data could not be displayed.");
+    }
+  }
+};
+
+// Row data pipeline ---------------------------------------------------------
+//
+// Rows are fetched from the server in fixed size blocks which are kept in a
+// least recently used cache keyed by the query (global search, column
+// filters and ordering) and the block's index, so scrolling back over rows
+// already seen (or returning to a previous search) doesn't go back to the
+// server. A request which is superseded by a draw needing different rows is
+// aborted, and once a draw has been served the next block in the direction
+// of scrolling is prefetched.
+
+// the part of the DataTables request which determines which rows match
+var queryKey = function(data) {
+  var filters = [];
+  for (var i = 0; i < data.columns.length; i++) {
+    filters.push(data.columns[i].search.value);
+  }
+  return JSON.stringify([data.search.value, filters, data.order]);
+};
+
+var getCachedBlock = function(key) {
+  var block = blockCache[key];
+  if (block) {
+    // mark as most recently used
+    blockCacheKeys.splice(blockCacheKeys.indexOf(key), 1);
+    blockCacheKeys.push(key);
+  }
+  return block;
+};
+
+var cacheBlock = function(key, block) {
+  if (!blockCache.hasOwnProperty(key)) {
+    blockCacheKeys.push(key);
+    while (blockCacheKeys.length > maxCachedBlocks) {
+      delete blockCache[blockCacheKeys.shift()];
+    }
+  }
+  blockCache[key] = block;
+};
+
+var clearBlockCache = function() {
+  if (pendingFetch) {
+    pendingFetch.xhr.abort();
+    pendingFetch = null;
+  }
+  blockCache = {};
+  blockCacheKeys = [];
+};
+
+var firstBlock = function(data) {
+  return Math.floor(data.start / blockRows);
+};
+
+var lastBlock = function(data) {
+  return Math.floor((data.start + Math.max(data.length, 1) - 1) / blockRows);
+};
+
+// assembles the response to a DataTables request from cached blocks; returns
+// null if any of the blocks needed aren't cached
+var responseFromCache = function(query, data) {
+  var first = firstBlock(data);
+  var last = lastBlock(data);
+  var rows = [];
+  var block = null;
+  for (var b = first; b <= last; b++) {
+    block = getCachedBlock(query + ":" + b);
+    if (!block) 
+      return null;
+    rows = rows.concat(block.rows);
+
+    // a short block is the last one
+    if (block.rows.length < blockRows)
+      break;
+  }
+
+  var offset = data.start - (first * blockRows);
+  return {
+    "draw":            data.draw,
+    "recordsTotal":    block.recordsTotal,
+    "recordsFiltered": block.recordsFiltered,
+    "data":            rows.slice(offset, offset + data.length)
+  };
+};
+
+// fetches blocks [first, last] for the query; onFetched is invoked with
+// true if the blocks were fetched (and false on error or if the request was
+// aborted, in which case its second argument is true)
+var fetchBlocks = function(query, data, first, last, onFetched) {
+  var fetch = {
+    query:     query,
+    first:     first,
+    last:      last,
+    callbacks: onFetched ? [onFetched] : []
+  };
+
+  var params = $.extend({}, data, dataSource, {
+    "start":  first * blockRows,
+    "length": (last - first + 1) * blockRows,
+    "show":   "data"
+  });
+
+  fetch.xhr = $.ajax({
+      url:      "../grid_data",
+      type:     "POST",
+      data:     params,
+      dataType: "json"})
+    .done(function(result) {
+      for (var b = first; b <= last; b++) {
+        var offset = (b - first) * blockRows;
+        var rows = result.data.slice(offset, offset + blockRows);
+        cacheBlock(query + ":" + b, {
+          rows:            rows,
+          recordsTotal:    result.recordsTotal,
+          recordsFiltered: result.recordsFiltered
+        });
+        if (rows.length < blockRows)
+          break;
+      }
+      for (var i = 0; i < fetch.callbacks.length; i++)
+        fetch.callbacks[i](true);
+    })
+    .fail(function(jqXHR, textStatus) {
+      // superseded requests are aborted deliberately; the draws waiting on
+      // them still need to be completed, but not until the draw which
+      // superseded them has been issued (abort() fails the request
+      // synchronously)
+      if (textStatus === "abort") {
+        window.setTimeout(function() {
+          for (var i = 0; i < fetch.callbacks.length; i++)
+            fetch.callbacks[i](false, true);
+        }, 0);
+        return;
+      }
+      for (var i = 0; i < fetch.callbacks.length; i++)
+        fetch.callbacks[i](false);
+      if (fetch.callbacks.length > 0)
+        showDataError(jqXHR);
+    })
+    .always(function() {
+      if (pendingFetch === fetch)
+        pendingFetch = null;
+    });
+
+  pendingFetch = fetch;
+};
+
+// fetches the block beyond those just drawn (in the direction of scrolling)
+// if it isn't already cached
+var prefetch = function(query, data, forward) {
+  if (pendingFetch)
+    return;
+
+  var block = forward ? lastBlock(data) + 1 : firstBlock(data) - 1;
+  if (block < 0 || blockCache.hasOwnProperty(query + ":" + block))
+    return;
+
+  var drawn = blockCache[query + ":" + lastBlock(data)];
+  if (!drawn || block * blockRows >= drawn.recordsFiltered)
+    return;
+
+  fetchBlocks(query, data, block, block, null);
+};
+
+// DataTables ajax function; serves draws from the block cache when possible
+var fetchData = function(data, callback) {
+  var query = queryKey(data);
+  var forward = data.start >= lastDrawStart;
+  lastDrawStart = data.start;
+
+  var serve = function(fetched, aborted) {
+    // DataTables discards responses to draws older than the latest one, so
+    // an aborted draw is completed with no rows
+    if (aborted) {
+      callback({
+        "draw":            data.draw,
+        "recordsTotal":    0,
+        "recordsFiltered": 0,
+        "data":            []
+      });
+      return;
+    }
+
+    var response = fetched ? responseFromCache(query, data) : null;
+    if (response === null) 
+      return;
+    callback(response);
+    window.setTimeout(function() {
+      prefetch(query, data, forward);
+    }, 0);
+  };
+
+  if (responseFromCache(query, data) !== null) {
+    serve(true);
+    return;
+  }
+
+  // if the rows are already on their way (e.g. being prefetched), wait for
+  // them; otherwise whatever is in flight has been superseded
+  var first = firstBlock(data);
+  var last = lastBlock(data);
+  if (pendingFetch) {
+    if (pendingFetch.query === query &&
+        pendingFetch.first <= first &&
+        pendingFetch.last >= last) {
+      pendingFetch.callbacks.push(serve);
+      return;
+    }
+    pendingFetch.xhr.abort();
+    pendingFetch = null;
+  }
+
+  fetchBlocks(query, data, first, last, serve);
+};
+
 // used to determine the step precision for a number--e.g.:
 // "10.4" has a step precision of 0.1
 // "12.44" has a step precision of 0.01
@@ -671,6 +918,12 @@ var initDataTable = function(result) {
   }
   var scrollHeight = window.innerHeight - (thead.clientHeight + 2);
 
+  dataSource = {
+    "env":       env,
+    "obj":       obj,
+    "cache_key": cacheKey
+  };
+
   // activate the data table
   $("#rsGridData").dataTable({
     "processing": true,
@@ -698,29 +951,7 @@ var initDataTable = function(result) {
       "targets": "_all",
       "width": "4em"
       }],
-    "ajax": {
-      "url": "../grid_data", 
-      "type": "POST",
-      "data": function(d) {
-        d.env = env;
-        d.obj = obj;
-        d.cache_key = cacheKey;
-        d.show = "data";
-      },
-      "error": function(jqXHR) {
-        if (jqXHR.responseText[0] !== "{")
-          showError(jqXHR.responseText);
-        else
-        {
-          var result = $.parseJSON(jqXHR.responseText);
-          if (result.error) {
-            showError(result.error);
-          } else {
-            showError("The data could not be displayed.");
-          }
-        }
-      },
-     }
+    "ajax": fetchData
   });
 
   table = $("#rsGridData").DataTable();
@@ -766,7 +997,10 @@ var bootstrap = function() {
   cachedFilterValues = [];
   lastHeight = 0;
   lastScrollPos = 0;
+  lastDrawStart = 0;
   detachedHandlers = [];
+  dataSource = {};
+  clearBlockCache();
 
   // when datatables is initialized on an element, it adds a bunch of goo 
   // around the element to handle scrolling, etc.--we need to pull the whole
@@ -870,7 +1104,8 @@ window.refreshData = function(structureChanged, sizeChanged) {
     var pos = $(".dataTables_scrollBody").scrollTop();
     var row = s.scroller().pixelsToRow(pos);
 
-    // reload data, then snap to that row
+    // the cached rows are stale; reload data, then snap to that row
+    clearBlockCache();
     table.ajax.reload(function() {
       s.scrollToRow(row, false);
       if (sizeChanged) {
@@ -0,0 +1,225 @@
+/*
+ * BenchmarkCorpus.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.Random;
+
+// Generates the inputs the benchmarks run against. The corpora are built
+// from fixed seeds so every run (and every machine) measures the same
+// input, and are shaped like what the client sees in practice: R source
+// with strings and comments, console output, git diffs of R packages,
+// completion lists of package symbols, and so on.
+public class BenchmarkCorpus
+{
+   // a line of R code (roughly a third contain string literals)
+   public static String rLine(Random random)
+   {
+      String name = identifier(random);
+      switch (random.nextInt(6))
+      {
+      case 0:
+         return name + " <- function(x, y = " + random.nextInt(100) + ") {";
+      case 1:
+         return "   " + name + " <- paste(\"" + words(random, 3) +
+                "\", x, sep = \"\\\"\")";
+      case 2:
+         return "   if (is.null(" + name + ")) stop('" + words(random, 4) + "')";
+      case 3:
+         return "   # " + words(random, 6);
+      case 4:
+         return "}";
+      default:
+         return "   " + name + "$" + identifier(random) + " <- " +
+                identifier(random) + "(" + name + ", " + random.nextInt(1000) + ")";
+      }
+   }
+
+   // lines of R source
+   public static String[] rSource(int lines, long seed)
+   {
+      Random random = new Random(seed);
+      String[] source = new String[lines];
+      for (int i = 0; i < lines; i++)
+         source[i] = rLine(random);
+      return source;
+   }
+
+   // lines of console output of the sort produced by printing data and
+   // running long jobs (mostly similar lines, with a common prefix)
+   public static String[] consoleLog(int lines, long seed)
+   {
+      Random random = new Random(seed);
+      String[] log = new String[lines];
+      for (int i = 0; i < lines; i++)
+      {
+         switch (random.nextInt(4))
+         {
+         case 0:
+            log[i] = "[" + (i + 1) + "] " + random.nextDouble() + " " +
+                     random.nextDouble() + " " + random.nextDouble();
+            break;
+         case 1:
+            log[i] = "Warning message: In " + identifier(random) +
+                     "(x) : \"" + words(random, 5) + "\"";
+            break;
+         default:
+            log[i] = "## " + words(random, 8);
+            break;
+         }
+      }
+      return log;
+   }
+
+   // R-style symbol names (e.g. for completion and code search), with
+   // the separators and mixed case found in package namespaces
+   public static String[] symbols(int count, long seed)
+   {
+      Random random = new Random(seed);
+      String[] symbols = new String[count];
+      for (int i = 0; i < count; i++)
+      {
+         StringBuilder symbol = new StringBuilder(identifier(random));
+         int parts = random.nextInt(3);
+         for (int j = 0; j < parts; j++)
+         {
+            symbol.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            String part = identifier(random);
+            if (random.nextBoolean())
+               part = Character.toUpperCase(part.charAt(0)) + part.substring(1);
+            symbol.append(part);
+         }
+         symbols[i] = symbol.toString();
+      }
+      return symbols;
+   }
+
+   // a (git) unified diff of a number of files, each with a number of
+   // hunks of context, deletions and insertions
+   public static String unifiedDiff(int files, int hunksPerFile, long seed)
+   {
+      Random random = new Random(seed);
+      StringBuilder diff = new StringBuilder();
+      for (int f = 0; f < files; f++)
+      {
+         String path = "R/" + identifier(random) + ".R";
+         diff.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+         diff.append("index ").append(Integer.toHexString(random.nextInt()))
+             .append("..").append(Integer.toHexString(random.nextInt()))
+             .append(" 100644\n");
+         diff.append("--- a/").append(path).append('\n');
+         diff.append("+++ b/").append(path).append('\n');
+
+         int line = 1;
+         for (int h = 0; h < hunksPerFile; h++)
+         {
+            line += 10 + random.nextInt(40);
+            int context = 6;
+            int deleted = random.nextInt(10);
+            int inserted = random.nextInt(10);
+            diff.append("@@ -").append(line).append(',').append(context + deleted)
+                .append(" +").append(line).append(',').append(context + inserted)
+                .append(" @@ ").append(identifier(random)).append(" <- function(x)\n");
+            for (int i = 0; i < context / 2; i++)
+               diff.append(' ').append(rLine(random)).append('\n');
+            for (int i = 0; i < deleted; i++)
+               diff.append('-').append(rLine(random)).append('\n');
+            for (int i = 0; i < inserted; i++)
+               diff.append('+').append(rLine(random)).append('\n');
+            for (int i = 0; i < context - context / 2; i++)
+               diff.append(' ').append(rLine(random)).append('\n');
+         }
+      }
+      return diff.toString();
+   }
+
+   // CSV data with a mix of plain, quoted and multi-line values
+   public static String[][] table(int rows, int columns, long seed)
+   {
+      Random random = new Random(seed);
+      String[][] table = new String[rows][columns];
+      for (int r = 0; r < rows; r++)
+      {
+         for (int c = 0; c < columns; c++)
+         {
+            switch (random.nextInt(8))
+            {
+            case 0:
+               table[r][c] = words(random, 3) + ", " + words(random, 2);
+               break;
+            case 1:
+               table[r][c] = words(random, 2) + "\n" + words(random, 2);
+               break;
+            case 2:
+               table[r][c] = "\"" + words(random, 2) + "\"";
+               break;
+            default:
+               table[r][c] = String.valueOf(random.nextInt(100000));
+               break;
+            }
+         }
+      }
+      return table;
+   }
+
+   // YAML front matter with nested output format options
+   public static String yamlFrontMatter(int formats, long seed)
+   {
+      Random random = new Random(seed);
+      StringBuilder yaml = new StringBuilder();
+      yaml.append("title: \"").append(words(random, 4)).append("\"\n");
+      yaml.append("author: \"").append(words(random, 2)).append("\"\n");
+      yaml.append("date: \"").append(random.nextInt(28) + 1).append("/10/2015\"\n");
+      yaml.append("output:\n");
+      for (int i = 0; i < formats; i++)
+      {
+         yaml.append("  ").append(identifier(random)).append("_document:\n");
+         yaml.append("    toc: ").append(random.nextBoolean()).append('\n');
+         yaml.append("    fig_width: ").append(random.nextInt(10) + 4).append('\n');
+         yaml.append("    includes:\n");
+         yaml.append("      in_header: ").append(identifier(random)).append(".html\n");
+      }
+      return yaml.toString();
+   }
+
+   public static String identifier(Random random)
+   {
+      return WORDS[random.nextInt(WORDS.length)] +
+             (random.nextInt(4) == 0 ? String.valueOf(random.nextInt(10)) : "");
+   }
+
+   public static String words(Random random, int count)
+   {
+      StringBuilder words = new StringBuilder();
+      for (int i = 0; i < count; i++)
+      {
+         if (i > 0)
+            words.append(' ');
+         words.append(WORDS[random.nextInt(WORDS.length)]);
+      }
+      return words.toString();
+   }
+
+   private static final String[] SEPARATORS = { ".", "_", "" };
+
+   private static final String[] WORDS = {
+      "data", "frame", "model", "fit", "plot", "summary", "value", "names",
+      "list", "vector", "matrix", "apply", "read", "write", "table", "file",
+      "path", "result", "index", "count", "group", "filter", "select",
+      "mutate", "arrange", "join", "format", "parse", "eval", "env", "call",
+      "args", "options", "level", "factor", "string", "split", "merge",
+      "sample", "seed", "test", "check", "render", "output", "input", "html",
+      "knit", "chunk", "source", "package", "install", "library", "cache"
+   };
+}
@@ -0,0 +1,76 @@
+/*
+ * CsvBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Reading and writing CSV of the size exchanged with the session (e.g.
+// recently used lists, import previews).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvBenchmark
+{
+   @Param({"1000", "20000"})
+   public int rows;
+
+   @Setup
+   public void setup()
+   {
+      table_ = BenchmarkCorpus.table(rows, COLUMNS, 1);
+      csv_ = write();
+   }
+
+   @Benchmark
+   public String write()
+   {
+      CsvWriter writer = new CsvWriter();
+      for (String[] row : table_)
+      {
+         for (String value : row)
+            writer.writeValue(value);
+         writer.endLine();
+      }
+      return writer.getValue();
+   }
+
+   @Benchmark
+   public void read(Blackhole blackhole)
+   {
+      for (String[] row : new CsvReader(csv_))
+         blackhole.consume(row);
+   }
+
+   private static final int COLUMNS = 12;
+
+   private String[][] table_;
+   private String csv_;
+}
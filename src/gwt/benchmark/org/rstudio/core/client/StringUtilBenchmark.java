@@ -0,0 +1,113 @@
+/*
+ * StringUtilBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// The string helpers used when filtering completions (isSubsequence,
+// subsequenceIndices), commenting and reindenting selections
+// (getCommonPrefix) and scanning lines of code (maskStrings).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringUtilBenchmark
+{
+   @Param({"50000"})
+   public int symbolCount;
+
+   @Param({"100000"})
+   public int lineCount;
+
+   @Setup
+   public void setup()
+   {
+      symbols_ = BenchmarkCorpus.symbols(symbolCount, 1);
+      lowerSymbols_ = new String[symbols_.length];
+      for (int i = 0; i < symbols_.length; i++)
+         lowerSymbols_[i] = symbols_[i].toLowerCase();
+
+      source_ = BenchmarkCorpus.rSource(lineCount, 2);
+      commented_ = new String[lineCount];
+      for (int i = 0; i < lineCount; i++)
+         commented_[i] = "#' " + source_[i];
+      log_ = BenchmarkCorpus.consoleLog(lineCount, 3);
+   }
+
+   // filter a completion list as a short query is typed
+   @Benchmark
+   public int isSubsequence()
+   {
+      int matches = 0;
+      for (String symbol : symbols_)
+      {
+         if (StringUtil.isSubsequence(symbol, QUERY, true))
+            matches++;
+      }
+      return matches;
+   }
+
+   @Benchmark
+   public void subsequenceIndices(Blackhole blackhole)
+   {
+      for (String symbol : lowerSymbols_)
+      {
+         if (StringUtil.isSubsequence(symbol, QUERY))
+            blackhole.consume(StringUtil.subsequenceIndices(symbol, QUERY));
+      }
+   }
+
+   @Benchmark
+   public String getCommonPrefixOfSource()
+   {
+      return StringUtil.getCommonPrefix(commented_, true, true);
+   }
+
+   @Benchmark
+   public String getCommonPrefixOfConsoleLog()
+   {
+      return StringUtil.getCommonPrefix(log_, false, false);
+   }
+
+   @Benchmark
+   public void maskStrings(Blackhole blackhole)
+   {
+      for (String line : source_)
+         blackhole.consume(StringUtil.maskStrings(line));
+   }
+
+   private static final String QUERY = "dafr";
+
+   private String[] symbols_;
+   private String[] lowerSymbols_;
+   private String[] source_;
+   private String[] commented_;
+   private String[] log_;
+}
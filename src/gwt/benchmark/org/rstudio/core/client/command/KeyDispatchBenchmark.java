@@ -0,0 +1,160 @@
+/*
+ * KeyDispatchBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.command;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Walking the KeyDispatchTrie the way ShortcutManager.handleKeyDown does
+// for a stream of keystrokes. The trie holds a binding set of roughly the
+// size of Commands.cmd.xml plus emacs-style two key chords, and the
+// keystrokes are mostly unbound keys (i.e. typing). Dispatch shouldn't
+// allocate; run with -prof gc (see benchmark.extra.args) to check.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyDispatchBenchmark
+{
+   @Param({"100000"})
+   public int keystrokeCount;
+
+   @Setup
+   public void setup()
+   {
+      trie_ = createTrie();
+      keystrokes_ = createKeystrokes(keystrokeCount);
+   }
+
+   @Benchmark
+   public int dispatch()
+   {
+      int dispatched = 0;
+      int editorMode = KeyboardShortcut.MODE_VIM;
+      KeyDispatchTrie.Node<Object> root = trie_.getRoot();
+      KeyDispatchTrie.Node<Object> current = root;
+      for (int i = 0; i < keystrokes_.length; i++)
+      {
+         KeyDispatchTrie.Node<Object> node = current.getChild(keystrokes_[i]);
+         if (node == null)
+         {
+            current = root;
+            continue;
+         }
+
+         if (node.hasChildren())
+         {
+            current = node;
+            continue;
+         }
+
+         current = root;
+         if (node.getTargetCount(editorMode) > 0 &&
+             node.getTarget(editorMode, 0) != null)
+         {
+            dispatched++;
+         }
+      }
+      return dispatched;
+   }
+
+   private static KeyDispatchTrie<Object> createTrie()
+   {
+      KeyDispatchTrie<Object> trie = new KeyDispatchTrie<Object>();
+      Random random = new Random(1);
+
+      // single chords with modifiers
+      int[] modifiers = {
+         KeyboardShortcut.CTRL,
+         KeyboardShortcut.CTRL | KeyboardShortcut.SHIFT,
+         KeyboardShortcut.ALT,
+         KeyboardShortcut.CTRL | KeyboardShortcut.ALT,
+         KeyboardShortcut.META,
+         KeyboardShortcut.META | KeyboardShortcut.SHIFT
+      };
+      for (int m = 0; m < modifiers.length; m++)
+      {
+         for (int keyCode = 48; keyCode < 91; keyCode++)
+         {
+            if (random.nextInt(2) == 0)
+               continue;
+            int disableModes = random.nextInt(4) == 0 ?
+                                     KeyboardShortcut.MODE_VIM :
+                                     KeyboardShortcut.MODE_NONE;
+            trie.add(new int[] { KeyDispatchTrie.pack(keyCode, modifiers[m]) },
+                     disableModes,
+                     new Object());
+         }
+      }
+
+      // emacs style Ctrl+X chords
+      int ctrlX = KeyDispatchTrie.pack(88, KeyboardShortcut.CTRL);
+      for (int keyCode = 65; keyCode < 91; keyCode++)
+      {
+         trie.add(new int[] { ctrlX,
+                              KeyDispatchTrie.pack(keyCode, KeyboardShortcut.CTRL) },
+                  KeyboardShortcut.MODE_NONE,
+                  new Object());
+      }
+
+      // function keys
+      for (int keyCode = 112; keyCode < 124; keyCode++)
+      {
+         trie.add(new int[] { KeyDispatchTrie.pack(keyCode, KeyboardShortcut.NONE) },
+                  KeyboardShortcut.MODE_NONE,
+                  new Object());
+      }
+
+      return trie;
+   }
+
+   // mostly plain typing, with occasional shortcuts and chords
+   private static int[] createKeystrokes(int count)
+   {
+      Random random = new Random(2);
+      int[] stream = new int[count];
+      for (int i = 0; i < count; i++)
+      {
+         int roll = random.nextInt(100);
+         int keyCode = 65 + random.nextInt(26);
+         if (roll < 90)
+            stream[i] = KeyDispatchTrie.pack(keyCode, random.nextInt(10) == 0 ?
+                                                      KeyboardShortcut.SHIFT :
+                                                      KeyboardShortcut.NONE);
+         else if (roll < 97)
+            stream[i] = KeyDispatchTrie.pack(keyCode, KeyboardShortcut.CTRL);
+         else
+            stream[i] = KeyDispatchTrie.pack(88, KeyboardShortcut.CTRL);
+      }
+      return stream;
+   }
+
+   private KeyDispatchTrie<Object> trie_;
+   private int[] keystrokes_;
+}
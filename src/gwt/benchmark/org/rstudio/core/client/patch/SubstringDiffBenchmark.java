@@ -0,0 +1,91 @@
+/*
+ * SubstringDiffBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.patch;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.BenchmarkCorpus;
+
+// Diffing (and patching) a document against a slightly edited copy of
+// itself, as is done when syncing the editor with the contents of a file
+// changed on disk.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstringDiffBenchmark
+{
+   @Param({"1000", "50000"})
+   public int lines;
+
+   @Setup
+   public void setup()
+   {
+      StringBuilder document = new StringBuilder();
+      for (String line : BenchmarkCorpus.rSource(lines, 1))
+         document.append(line).append('\n');
+      original_ = document.toString();
+
+      int middle = original_.length() / 2;
+      editedMiddle_ = original_.substring(0, middle) + "x <- 1\n" +
+                      original_.substring(middle);
+      editedStart_ = "# header\n" + original_.substring(10);
+      appended_ = original_ + "print(x)\n";
+      identical_ = new String(original_);
+   }
+
+   @Benchmark
+   public String editInMiddle()
+   {
+      return new SubstringDiff(original_, editedMiddle_).patch(original_);
+   }
+
+   @Benchmark
+   public String editAtStart()
+   {
+      return new SubstringDiff(original_, editedStart_).patch(original_);
+   }
+
+   @Benchmark
+   public String append()
+   {
+      return new SubstringDiff(original_, appended_).patch(original_);
+   }
+
+   @Benchmark
+   public boolean identical()
+   {
+      return new SubstringDiff(original_, identical_).isEmpty();
+   }
+
+   private String original_;
+   private String editedMiddle_;
+   private String editedStart_;
+   private String appended_;
+   private String identical_;
+}
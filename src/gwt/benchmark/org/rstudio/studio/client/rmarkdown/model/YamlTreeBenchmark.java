@@ -0,0 +1,81 @@
+/*
+ * YamlTreeBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.rmarkdown.model;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.BenchmarkCorpus;
+
+// Reading and rewriting R Markdown front matter, as is done when the
+// output format is changed from the toolbar or options dialog.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YamlTreeBenchmark
+{
+   @Param({"3", "50"})
+   public int formats;
+
+   @Setup
+   public void setup()
+   {
+      yaml_ = BenchmarkCorpus.yamlFrontMatter(formats, 1);
+   }
+
+   @Benchmark
+   public YamlTree parse()
+   {
+      return new YamlTree(yaml_);
+   }
+
+   @Benchmark
+   public String reorderOutputFormats()
+   {
+      YamlTree tree = new YamlTree(yaml_);
+      List<String> formats = tree.getChildKeys("output");
+      if (formats != null && formats.size() > 1)
+      {
+         formats.add(0, formats.remove(formats.size() - 1));
+         tree.reorder(formats);
+      }
+      return tree.toString();
+   }
+
+   @Benchmark
+   public String setValue()
+   {
+      YamlTree tree = new YamlTree(yaml_);
+      tree.setKeyValue("title", "\"Benchmark\"");
+      tree.addYamlValue(null, "runtime", "shiny");
+      return tree.toString();
+   }
+
+   private String yaml_;
+}
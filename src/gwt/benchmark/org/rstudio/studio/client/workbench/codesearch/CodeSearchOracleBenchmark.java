@@ -0,0 +1,74 @@
+/*
+ * CodeSearchOracleBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.codesearch;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.BenchmarkCorpus;
+import org.rstudio.core.client.StringUtil;
+
+// Scoring the candidates for a "Go to File/Function" query, as is done
+// for every candidate on each keystroke once results are cached.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeSearchOracleBenchmark
+{
+   @Param({"50000"})
+   public int symbolCount;
+
+   @Param({"df", "readtab"})
+   public String query;
+
+   @Setup
+   public void setup()
+   {
+      // (scoreMatch is only asked to score subsequence matches)
+      String[] symbols = BenchmarkCorpus.symbols(symbolCount, 1);
+      int count = 0;
+      for (String symbol : symbols)
+      {
+         if (StringUtil.isSubsequence(symbol, query, true))
+            symbols[count++] = symbol;
+      }
+      candidates_ = new String[count];
+      System.arraycopy(symbols, 0, candidates_, 0, count);
+   }
+
+   @Benchmark
+   public long scoreMatch()
+   {
+      long total = 0;
+      for (String candidate : candidates_)
+         total += CodeSearchOracle.scoreMatch(candidate, query, false);
+      return total;
+   }
+
+   private String[] candidates_;
+}
@@ -0,0 +1,93 @@
+/*
+ * UnifiedParserBenchmark.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.vcs.common.diff;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rstudio.core.client.BenchmarkCorpus;
+
+// Parsing the diffs shown in the review changes and history views, from
+// a small commit up to one touching a couple of hundred files.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnifiedParserBenchmark
+{
+   @Param({"10", "200"})
+   public int files;
+
+   @Setup
+   public void setup()
+   {
+      diff_ = BenchmarkCorpus.unifiedDiff(files, HUNKS_PER_FILE, 1);
+
+      Random random = new Random(2);
+      ArrayList<String> headers = new ArrayList<String>();
+      for (int i = 0; i < files * HUNKS_PER_FILE; i++)
+      {
+         int line = random.nextInt(5000);
+         headers.add(random.nextInt(10) == 0 ?
+               "@@@ -" + line + ",4 -" + line + ",3 +" + line + ",5 @@@" :
+               "@@ -" + line + "," + random.nextInt(40) +
+               " +" + line + "," + random.nextInt(40) + " @@");
+      }
+      chunkHeaders_ = headers.toArray(new String[headers.size()]);
+   }
+
+   @Benchmark
+   public int parse(Blackhole blackhole)
+   {
+      int lines = 0;
+      UnifiedParser parser = new UnifiedParser(diff_);
+      DiffFileHeader header;
+      while (null != (header = parser.nextFilePair()))
+      {
+         blackhole.consume(header);
+         DiffChunk chunk;
+         while (null != (chunk = parser.nextChunk()))
+            lines += chunk.getLines().size();
+      }
+      return lines;
+   }
+
+   @Benchmark
+   public void parseChunkHeaders(Blackhole blackhole)
+   {
+      for (String header : chunkHeaders_)
+         blackhole.consume(new ChunkHeaderParser(header).parse());
+   }
+
+   private static final int HUNKS_PER_FILE = 20;
+
+   private String diff_;
+   private String[] chunkHeaders_;
+}
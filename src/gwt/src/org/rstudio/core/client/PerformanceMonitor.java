@@ -0,0 +1,413 @@
+/*
+ * PerformanceMonitor.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Collects measurements of where client time goes: main thread long tasks
+ * (and how late timers run, i.e. event loop lag), frame times, how long
+ * events take to dispatch (by type), Scheduler backlogs, and marks from
+ * Stopwatch. Nothing is collected unless the monitor is started (see
+ * PerformanceHud), so the instrumentation points cost only a flag check
+ * otherwise.
+ */
+public class PerformanceMonitor
+{
+   public static class EventStats
+   {
+      private EventStats(String type)
+      {
+         type_ = type;
+      }
+
+      public String getType() { return type_; }
+      public int getCount() { return count_; }
+      public double getTotalMs() { return totalMs_; }
+      public double getMaxMs() { return maxMs_; }
+
+      private final String type_;
+      private int count_;
+      private double totalMs_;
+      private double maxMs_;
+   }
+
+   public static class Span
+   {
+      private Span(String label, double start, double duration)
+      {
+         label_ = label;
+         start_ = start;
+         duration_ = duration;
+      }
+
+      public String getLabel() { return label_; }
+      public double getStart() { return start_; }
+      public double getDuration() { return duration_; }
+
+      private final String label_;
+      private final double start_;
+      private final double duration_;
+   }
+
+   public static boolean isEnabled()
+   {
+      return enabled_;
+   }
+
+   public static void start()
+   {
+      if (enabled_)
+         return;
+
+      reset();
+      enabled_ = true;
+
+      lastTick_ = now();
+      lagTimer_.scheduleRepeating(LAG_INTERVAL_MS);
+      observeLongTasks();
+      requestFrame();
+   }
+
+   public static void stop()
+   {
+      enabled_ = false;
+      lagTimer_.cancel();
+      disconnectLongTasks();
+   }
+
+   public static void reset()
+   {
+      startTime_ = now();
+      events_.clear();
+      backlogs_.clear();
+      longTasks_.clear();
+      marks_.clear();
+      frameTimes_.clear();
+      lastFrame_ = 0;
+      maxLagMs_ = 0;
+      recentLagMs_ = 0;
+   }
+
+   // milliseconds since the page was loaded (with sub-millisecond
+   // precision where the browser supports it)
+   public static native double now() /*-{
+      if ($wnd.performance && $wnd.performance.now)
+         return $wnd.performance.now();
+      return new Date().getTime();
+   }-*/;
+
+   public static void recordEvent(String type, double ms)
+   {
+      if (!enabled_)
+         return;
+
+      EventStats stats = events_.get(type);
+      if (stats == null)
+      {
+         stats = new EventStats(type);
+         events_.put(type, stats);
+      }
+      stats.count_++;
+      stats.totalMs_ += ms;
+      stats.maxMs_ = Math.max(stats.maxMs_, ms);
+   }
+
+   public static void recordMark(String label, double ms)
+   {
+      if (!enabled_)
+         return;
+
+      addSpan(marks_, new Span(label, now() - ms, ms));
+   }
+
+   public static void recordBacklog(String name, int size)
+   {
+      if (!enabled_)
+         return;
+
+      backlogs_.put(name, size);
+   }
+
+   public static double getElapsedMs()
+   {
+      return now() - startTime_;
+   }
+
+   // the events which have taken longest to dispatch, in all
+   public static List<EventStats> getEventStats()
+   {
+      ArrayList<EventStats> stats = new ArrayList<EventStats>(events_.values());
+      Collections.sort(stats, new Comparator<EventStats>()
+      {
+         @Override
+         public int compare(EventStats a, EventStats b)
+         {
+            return Double.compare(b.totalMs_, a.totalMs_);
+         }
+      });
+      return stats;
+   }
+
+   public static List<Span> getLongTasks()
+   {
+      return new ArrayList<Span>(longTasks_);
+   }
+
+   public static List<Span> getMarks()
+   {
+      return new ArrayList<Span>(marks_);
+   }
+
+   // the event loop lag over the last interval, and the most since started
+   public static double getRecentLagMs()
+   {
+      return recentLagMs_;
+   }
+
+   public static double getMaxLagMs()
+   {
+      return maxLagMs_;
+   }
+
+   public static double getMeanFrameMs()
+   {
+      if (frameTimes_.isEmpty())
+         return 0;
+
+      double total = 0;
+      for (Double frameTime : frameTimes_)
+         total += frameTime;
+      return total / frameTimes_.size();
+   }
+
+   public static double getMaxFrameMs()
+   {
+      double max = 0;
+      for (Double frameTime : frameTimes_)
+         max = Math.max(max, frameTime);
+      return max;
+   }
+
+   // the number of commands waiting to be run by the Scheduler, by kind,
+   // and any other backlogs recorded
+   public static HashMap<String, Integer> getBacklogs()
+   {
+      HashMap<String, Integer> backlogs = new HashMap<String, Integer>(backlogs_);
+      backlogs.put("deferred", getSchedulerQueueLength("deferred"));
+      backlogs.put("incremental", getSchedulerQueueLength("incremental"));
+      backlogs.put("finally", getSchedulerQueueLength("finally"));
+      return backlogs;
+   }
+
+   // used JS heap in bytes, or -1 if the browser doesn't tell us
+   public static native double getUsedHeapSize() /*-{
+      var memory = $wnd.performance && $wnd.performance.memory;
+      return memory ? memory.usedJSHeapSize : -1;
+   }-*/;
+
+   public static native double getHeapSizeLimit() /*-{
+      var memory = $wnd.performance && $wnd.performance.memory;
+      return memory ? memory.jsHeapSizeLimit : -1;
+   }-*/;
+
+   // everything collected, as JSON (to attach to bug reports)
+   public static JSONObject getSnapshot()
+   {
+      JSONObject snapshot = new JSONObject();
+      snapshot.put("elapsed_ms", new JSONNumber(getElapsedMs()));
+      snapshot.put("user_agent", new JSONString(getUserAgent()));
+      snapshot.put("used_heap_size", new JSONNumber(getUsedHeapSize()));
+      snapshot.put("heap_size_limit", new JSONNumber(getHeapSizeLimit()));
+      snapshot.put("max_lag_ms", new JSONNumber(maxLagMs_));
+      snapshot.put("mean_frame_ms", new JSONNumber(getMeanFrameMs()));
+      snapshot.put("max_frame_ms", new JSONNumber(getMaxFrameMs()));
+
+      JSONObject backlogs = new JSONObject();
+      HashMap<String, Integer> backlogCounts = getBacklogs();
+      for (String name : backlogCounts.keySet())
+         backlogs.put(name, new JSONNumber(backlogCounts.get(name)));
+      snapshot.put("backlogs", backlogs);
+
+      JSONArray events = new JSONArray();
+      for (EventStats stats : getEventStats())
+      {
+         JSONObject event = new JSONObject();
+         event.put("type", new JSONString(stats.type_));
+         event.put("count", new JSONNumber(stats.count_));
+         event.put("total_ms", new JSONNumber(stats.totalMs_));
+         event.put("max_ms", new JSONNumber(stats.maxMs_));
+         events.set(events.size(), event);
+      }
+      snapshot.put("events", events);
+      snapshot.put("long_tasks", toJson(longTasks_));
+      snapshot.put("marks", toJson(marks_));
+      return snapshot;
+   }
+
+   private static JSONArray toJson(List<Span> spans)
+   {
+      JSONArray array = new JSONArray();
+      for (Span span : spans)
+      {
+         JSONObject object = new JSONObject();
+         object.put("label", new JSONString(span.label_));
+         object.put("start_ms", new JSONNumber(span.start_ - startTime_));
+         object.put("duration_ms", new JSONNumber(span.duration_));
+         array.set(array.size(), object);
+      }
+      return array;
+   }
+
+   private static void addSpan(LinkedList<Span> spans, Span span)
+   {
+      spans.add(span);
+      while (spans.size() > MAX_SPANS)
+         spans.removeFirst();
+   }
+
+   private static void onTick()
+   {
+      // how much later than scheduled did the timer run?
+      double tick = now();
+      double lag = Math.max(0, tick - lastTick_ - LAG_INTERVAL_MS);
+      lastTick_ = tick;
+
+      recentLagMs_ = lag;
+      maxLagMs_ = Math.max(maxLagMs_, lag);
+
+      // if the browser can't tell us about long tasks then infer them
+      if (!longTaskObserverActive_ && lag >= LONG_TASK_MS)
+         addSpan(longTasks_, new Span("event loop lag", tick - lag, lag));
+   }
+
+   private static void onLongTask(double start, double duration)
+   {
+      addSpan(longTasks_, new Span("long task", start, duration));
+   }
+
+   private static void onFrame(double time)
+   {
+      if (!enabled_)
+         return;
+
+      if (lastFrame_ > 0)
+      {
+         frameTimes_.add(time - lastFrame_);
+         while (frameTimes_.size() > MAX_FRAMES)
+            frameTimes_.removeFirst();
+      }
+      lastFrame_ = time;
+      requestFrame();
+   }
+
+   private static native void requestFrame() /*-{
+      if (!$wnd.requestAnimationFrame)
+         return;
+      $wnd.requestAnimationFrame($entry(function() {
+         @org.rstudio.core.client.PerformanceMonitor::onFrame(D)(
+            @org.rstudio.core.client.PerformanceMonitor::now()());
+      }));
+   }-*/;
+
+   private static native void observeLongTasks() /*-{
+      if (!$wnd.PerformanceObserver)
+         return;
+      try {
+         var observer = new $wnd.PerformanceObserver($entry(function(list) {
+            var entries = list.getEntries();
+            for (var i = 0; i < entries.length; i++) {
+               @org.rstudio.core.client.PerformanceMonitor::onLongTask(DD)(
+                  entries[i].startTime, entries[i].duration);
+            }
+         }));
+         observer.observe({ entryTypes: ["longtask"] });
+         @org.rstudio.core.client.PerformanceMonitor::longTaskObserver_ = observer;
+         @org.rstudio.core.client.PerformanceMonitor::longTaskObserverActive_ = true;
+      } catch (e) {
+         // long tasks aren't supported; we'll infer them from lag
+      }
+   }-*/;
+
+   private static native void disconnectLongTasks() /*-{
+      var observer = @org.rstudio.core.client.PerformanceMonitor::longTaskObserver_;
+      if (observer)
+         observer.disconnect();
+      @org.rstudio.core.client.PerformanceMonitor::longTaskObserver_ = null;
+      @org.rstudio.core.client.PerformanceMonitor::longTaskObserverActive_ = false;
+   }-*/;
+
+   private static native int getSchedulerQueueLength(String kind) /*-{
+      var scheduler = @com.google.gwt.core.client.impl.SchedulerImpl::INSTANCE;
+      var queue = null;
+      if (kind === "deferred")
+         queue = scheduler.@com.google.gwt.core.client.impl.SchedulerImpl::deferredCommands;
+      else if (kind === "incremental")
+         queue = scheduler.@com.google.gwt.core.client.impl.SchedulerImpl::incrementalCommands;
+      else if (kind === "finally")
+         queue = scheduler.@com.google.gwt.core.client.impl.SchedulerImpl::finallyCommands;
+      return queue ? queue.length : 0;
+   }-*/;
+
+   private static native String getUserAgent() /*-{
+      return $wnd.navigator.userAgent;
+   }-*/;
+
+   private static boolean enabled_ = false;
+   private static double startTime_ = 0;
+
+   private static final HashMap<String, EventStats> events_ =
+         new HashMap<String, EventStats>();
+   private static final HashMap<String, Integer> backlogs_ =
+         new HashMap<String, Integer>();
+   private static final LinkedList<Span> longTasks_ = new LinkedList<Span>();
+   private static final LinkedList<Span> marks_ = new LinkedList<Span>();
+
+   private static final LinkedList<Double> frameTimes_ = new LinkedList<Double>();
+   private static double lastFrame_ = 0;
+
+   private static double lastTick_ = 0;
+   private static double recentLagMs_ = 0;
+   private static double maxLagMs_ = 0;
+   private static final Timer lagTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         onTick();
+      }
+   };
+
+   @SuppressWarnings("unused")
+   private static JavaScriptObject longTaskObserver_ = null;
+   private static boolean longTaskObserverActive_ = false;
+
+   private static final int LAG_INTERVAL_MS = 100;
+   private static final int LONG_TASK_MS = 50;
+   private static final int MAX_SPANS = 200;
+   private static final int MAX_FRAMES = 120;
+}
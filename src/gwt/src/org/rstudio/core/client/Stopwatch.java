@@ -30,6 +30,7 @@ public class Stopwatch
    {
       long stopTime = System.currentTimeMillis();
       Debug.log("[Stopwatch] " + label + ": " + (stopTime - startTime_) + " ms");
+      PerformanceMonitor.recordMark(label, stopTime - startTime_);
    }
 
    private long startTime_;
@@ -64,7 +64,7 @@ public class StringUtil
       if (date == null)
          return "";
 
-      return DATE_FORMAT.format(date);
+      return Formats.DATE_FORMAT.format(date);
    }
 
    public static String formatFileSize(long size)
@@ -98,7 +98,7 @@ public class StringUtil
          divisor *= 1024;
       }
 
-      return FORMAT.format((double)size / divisor) + " " + LABELS[i];
+      return Formats.FORMAT.format((double)size / divisor) + " " + LABELS[i];
    }
    
    // Peform an integer division and return the result. GWT's division operator
@@ -110,7 +110,7 @@ public class StringUtil
    
    public static String prettyFormatNumber(double number)
    {
-      return PRETTY_NUMBER_FORMAT.format(number);
+      return Formats.PRETTY_NUMBER_FORMAT.format(number);
    }
 
    public static String formatGeneralNumber(long number)
@@ -443,7 +443,7 @@ public class StringUtil
       return prefix;
    }
 
-   private static boolean isWhitespace(char c)
+   public static boolean isWhitespace(char c)
    {
       switch (c)
       {
@@ -995,16 +995,22 @@ public class StringUtil
    
    public static final String getIndent(String line)
    {
-      return RE_INDENT.match(line, 0).getGroup(0);
+      return Formats.RE_INDENT.match(line, 0).getGroup(0);
    }
    
    public static final HashMap<String, String> COMPLEMENTS =
          makeComplementsMap();
    
-   private static final NumberFormat FORMAT = NumberFormat.getFormat("0.#");
-   private static final NumberFormat PRETTY_NUMBER_FORMAT = NumberFormat.getFormat("#,##0.#####");
-   private static final DateTimeFormat DATE_FORMAT
-                          = DateTimeFormat.getFormat("MMM d, yyyy, h:mm a");
-   private static final Pattern RE_INDENT = Pattern.create("^\\s*", "");
+   // formats and patterns are created on first use (rather than when the
+   // class is loaded) so that the plain string helpers above can also run
+   // outside the browser (e.g. in the benchmarks)
+   private static class Formats
+   {
+      static final NumberFormat FORMAT = NumberFormat.getFormat("0.#");
+      static final NumberFormat PRETTY_NUMBER_FORMAT = NumberFormat.getFormat("#,##0.#####");
+      static final DateTimeFormat DATE_FORMAT
+                             = DateTimeFormat.getFormat("MMM d, yyyy, h:mm a");
+      static final Pattern RE_INDENT = Pattern.create("^\\s*", "");
+   }
 
 }
@@ -0,0 +1,173 @@
+/*
+ * KeyDispatchTrie.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.command;
+
+// Prefix tree of key bindings used by ShortcutManager to dispatch key
+// presses. Each edge is a key combination packed into an int (see pack),
+// children are held in sorted arrays, and the targets bound to a sequence
+// are precomputed for each editor mode (in the order they were added,
+// which is their precedence). Walking the trie and reading targets does
+// no allocation; all of the work happens when the trie is (re)built.
+class KeyDispatchTrie<T>
+{
+   public static class Node<T>
+   {
+      // the child for the packed key combination, or null if none
+      public Node<T> getChild(int key)
+      {
+         int lo = 0;
+         int hi = childCount_ - 1;
+         while (lo <= hi)
+         {
+            int mid = (lo + hi) >>> 1;
+            int midKey = keys_[mid];
+            if (midKey < key)
+               lo = mid + 1;
+            else if (midKey > key)
+               hi = mid - 1;
+            else
+               return children_[mid];
+         }
+         return null;
+      }
+
+      // is this sequence a prefix of a longer binding?
+      public boolean hasChildren()
+      {
+         return childCount_ > 0;
+      }
+
+      public int getTargetCount(int editorMode)
+      {
+         Object[] targets = targets_[modeIndex(editorMode)];
+         return targets == null ? 0 : targets.length;
+      }
+
+      @SuppressWarnings("unchecked")
+      public T getTarget(int editorMode, int index)
+      {
+         return (T) targets_[modeIndex(editorMode)][index];
+      }
+
+      private Node<T> getOrAddChild(int key)
+      {
+         Node<T> child = getChild(key);
+         if (child != null)
+            return child;
+
+         if (childCount_ == keys_.length)
+         {
+            int capacity = Math.max(4, childCount_ * 2);
+            int[] keys = new int[capacity];
+            @SuppressWarnings("unchecked")
+            Node<T>[] children = new Node[capacity];
+            System.arraycopy(keys_, 0, keys, 0, childCount_);
+            System.arraycopy(children_, 0, children, 0, childCount_);
+            keys_ = keys;
+            children_ = children;
+         }
+
+         int index = childCount_;
+         while (index > 0 && keys_[index - 1] > key)
+         {
+            keys_[index] = keys_[index - 1];
+            children_[index] = children_[index - 1];
+            index--;
+         }
+
+         child = new Node<T>();
+         keys_[index] = key;
+         children_[index] = child;
+         childCount_++;
+         return child;
+      }
+
+      private void addTarget(int disableModes, T target)
+      {
+         for (int i = 0; i < MODE_COUNT; i++)
+         {
+            if ((disableModes & (1 << i)) != 0)
+               continue;
+
+            Object[] targets = targets_[i];
+            if (targets == null)
+            {
+               targets_[i] = new Object[] { target };
+            }
+            else
+            {
+               Object[] extended = new Object[targets.length + 1];
+               System.arraycopy(targets, 0, extended, 0, targets.length);
+               extended[targets.length] = target;
+               targets_[i] = extended;
+            }
+         }
+      }
+
+      private int[] keys_ = new int[0];
+      @SuppressWarnings("unchecked")
+      private Node<T>[] children_ = new Node[0];
+      private int childCount_ = 0;
+      private final Object[][] targets_ = new Object[MODE_COUNT][];
+   }
+
+   public static int pack(int keyCode, int modifiers)
+   {
+      return (modifiers << 16) | (keyCode & 0xFFFF);
+   }
+
+   public Node<T> getRoot()
+   {
+      return root_;
+   }
+
+   public void clear()
+   {
+      root_ = new Node<T>();
+      size_ = 0;
+   }
+
+   public int size()
+   {
+      return size_;
+   }
+
+   // bind a target to a sequence of packed key combinations; disableModes
+   // is a mask of the editor modes (KeyboardShortcut.MODE_*) in which the
+   // binding is inactive
+   public void add(int[] keys, int disableModes, T target)
+   {
+      if (keys.length == 0)
+         return;
+
+      Node<T> node = root_;
+      for (int i = 0; i < keys.length; i++)
+         node = node.getOrAddChild(keys[i]);
+      node.addTarget(disableModes, target);
+      size_++;
+   }
+
+   // editor modes are single bits (MODE_DEFAULT, MODE_VIM, MODE_EMACS)
+   private static int modeIndex(int editorMode)
+   {
+      int index = Integer.numberOfTrailingZeros(editorMode);
+      return index < MODE_COUNT ? index : 0;
+   }
+
+   private Node<T> root_ = new Node<T>();
+   private int size_ = 0;
+
+   private static final int MODE_COUNT = 3;
+}
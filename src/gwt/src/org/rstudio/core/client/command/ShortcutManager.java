@@ -18,7 +18,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,10 +26,12 @@ import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.command.KeyboardShortcut.KeyCombination;
 import org.rstudio.core.client.command.KeyboardShortcut.KeySequence;
+import org.rstudio.core.client.command.UserCommandManager.UserCommand;
 import org.rstudio.core.client.events.NativeKeyDownEvent;
 import org.rstudio.core.client.events.NativeKeyDownHandler;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.server.remote.RegisterUserCommandEvent;
 import org.rstudio.studio.client.workbench.commands.RStudioCommandExecutedFromShortcutEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceKeyboardActivityEvent;
 
@@ -57,13 +58,12 @@ public class ShortcutManager implements NativePreviewHandler,
 
    private ShortcutManager()
    {
-      keyBuffer_ = new KeySequence();
       keyTimer_ = new Timer()
       {
          @Override
          public void run()
          {
-            keyBuffer_.clear();
+            resetKeyBuffer();
          }
       };
       
@@ -84,7 +84,17 @@ public class ShortcutManager implements NativePreviewHandler,
                      public void onAceKeyboardActivity(AceKeyboardActivityEvent event)
                      {
                         if (!event.isChainEvent())
-                           keyBuffer_.clear();
+                           resetKeyBuffer();
+                     }
+                  });
+            events_.addHandler(
+                  RegisterUserCommandEvent.TYPE,
+                  new RegisterUserCommandEvent.Handler()
+                  {
+                     @Override
+                     public void onRegisterUserCommand(RegisterUserCommandEvent event)
+                     {
+                        invalidateDispatchTrie();
                      }
                   });
          }
@@ -113,6 +123,7 @@ public class ShortcutManager implements NativePreviewHandler,
       editorCommands_ = editorCommands;
       userCommands_ = userCommands;
       events_ = events;
+      invalidateDispatchTrie();
    }
 
    public boolean isEnabled()
@@ -139,16 +150,16 @@ public class ShortcutManager implements NativePreviewHandler,
    
    public void addCustomBinding(KeySequence keys, AppCommand command)
    {
-      updateKeyPrefixes(keys);
       customBindings_.addCommandBinding(keys, command);
       maskedCommands_.put(command, true);
+      invalidateDispatchTrie();
    }
    
    public void clearCustomBindings()
    {
       customBindings_.clear();
       maskedCommands_.clear();
-      refreshKeyPrefixes();
+      invalidateDispatchTrie();
    }
    
    public void register(int modifiers, 
@@ -189,32 +200,72 @@ public class ShortcutManager implements NativePreviewHandler,
       register(keys, command, "", "", "");
    }
    
-   private void refreshKeyPrefixes()
+   private void invalidateDispatchTrie()
    {
-      prefixes_.clear();
-      for (KeySequence keys : commands_.keySet())
-         updateKeyPrefixes(keys);
-      
-      for (KeySequence keys : customBindings_.keySet())
-         updateKeyPrefixes(keys);
+      dispatchTrieDirty_ = true;
    }
    
-   private void updateKeyPrefixes(KeyboardShortcut shortcut)
+   // Compile all bindings into the dispatch trie. Targets are added in
+   // order of precedence: user commands, then custom bindings, then
+   // RStudio AppCommands (less those masked by a custom binding).
+   private void rebuildDispatchTrie()
    {
-      updateKeyPrefixes(shortcut.getKeySequence());
+      dispatchTrie_.clear();
+      
+      if (userCommands_ != null)
+      {
+         for (Map.Entry<KeyboardShortcut, UserCommand> entry :
+                                          userCommands_.getCommands().entrySet())
+         {
+            dispatchTrie_.add(toPackedKeys(entry.getKey().getKeySequence()),
+                              KeyboardShortcut.MODE_NONE,
+                              entry.getValue());
+         }
+      }
+      
+      for (Map.Entry<KeySequence, List<AppCommandBinding>> entry :
+                                                   customBindings_.entrySet())
+      {
+         int[] keys = toPackedKeys(entry.getKey());
+         for (AppCommandBinding binding : entry.getValue())
+            dispatchTrie_.add(keys,
+                              binding.getShortcut().getDisableModes(),
+                              binding.getCommand());
+      }
+      
+      for (Map.Entry<KeySequence, List<AppCommandBinding>> entry :
+                                                   commands_.entrySet())
+      {
+         int[] keys = toPackedKeys(entry.getKey());
+         for (AppCommandBinding binding : entry.getValue())
+         {
+            if (maskedCommands_.containsKey(binding.getCommand()))
+               continue;
+            dispatchTrie_.add(keys,
+                              binding.getShortcut().getDisableModes(),
+                              binding.getCommand());
+         }
+      }
+      
+      dispatchNode_ = dispatchTrie_.getRoot();
+      dispatchTrieDirty_ = false;
    }
    
-   private void updateKeyPrefixes(KeySequence keys)
+   private static int[] toPackedKeys(KeySequence keys)
    {
-      if (keys.size() <= 1)
-         return;
-      
-      KeySequence prefixes = new KeySequence();
-      for (int i = 0; i < keys.size() - 1; i++)
+      int[] packed = new int[keys.size()];
+      for (int i = 0; i < keys.size(); i++)
       {
-         prefixes.add(keys.get(i));
-         prefixes_.add(prefixes.clone());
+         KeyCombination combination = keys.get(i);
+         packed[i] = KeyDispatchTrie.pack(combination.getKeyCode(),
+                                          combination.getModifier());
       }
+      return packed;
+   }
+   
+   private void resetKeyBuffer()
+   {
+      dispatchNode_ = dispatchTrie_.getRoot();
    }
    
    public void register(KeySequence keys,
@@ -227,7 +278,7 @@ public class ShortcutManager implements NativePreviewHandler,
             new KeyboardShortcut(keys, groupName, title, disableModes);
       
       // Update state related to key dispatch.
-      updateKeyPrefixes(shortcut);
+      invalidateDispatchTrie();
       
       if (command == null)
       {
@@ -369,69 +420,67 @@ public class ShortcutManager implements NativePreviewHandler,
       return info;
    }
 
+   // NOTE: this runs on every key press (including those typed into the
+   // editor) so it should not allocate; see KeyDispatchTrie
    private boolean handleKeyDown(NativeEvent e)
    {
       // Don't dispatch on bare modifier keypresses.
-      if (KeyboardHelper.isModifierKey(e.getKeyCode()))
+      int keyCode = e.getKeyCode();
+      if (KeyboardHelper.isModifierKey(keyCode))
          return false;
       
-      keyBuffer_.add(e);
-      KeyboardShortcut shortcut = new KeyboardShortcut(keyBuffer_.clone());
+      if (dispatchTrieDirty_)
+         rebuildDispatchTrie();
+      
+      KeyDispatchTrie.Node<Object> node = dispatchNode_.getChild(
+            KeyDispatchTrie.pack(keyCode, KeyboardShortcut.getModifierValue(e)));
+      
+      // No binding starts with this key sequence.
+      if (node == null)
+      {
+         resetKeyBuffer();
+         return false;
+      }
       
       // If this matches a prefix key, return false early.
-      if (prefixes_.contains(shortcut.getKeySequence()))
+      if (node.hasChildren())
+      {
+         dispatchNode_ = node;
          return false;
+      }
       
-      // Clear the key buffer (we've reached a 'leaf' for the
+      // Reset the key buffer (we've reached a 'leaf' for the
       // key sequence chain; there may or may not be a command)
-      keyBuffer_.clear();
-      
-      // Check for user-defined commands.
-      if (userCommands_.dispatch(shortcut))
-         return true;
+      resetKeyBuffer();
       
-      // Check for custom bindings for RStudio AppCommands.
-      if (dispatch(shortcut, customBindings_, e))
-         return true;
-      
-      // Check for RStudio AppCommands.
-      if (dispatch(shortcut, commands_, e, maskedCommands_))
-         return true;
+      int count = node.getTargetCount(editorMode_);
+      for (int i = 0; i < count; i++)
+      {
+         Object target = node.getTarget(editorMode_, i);
+         
+         // User-defined commands take precedence.
+         if (target instanceof UserCommand)
+         {
+            ((UserCommand) target).execute();
+            return true;
+         }
+         
+         // If the shortcut manager is disabled, bail
+         if (!isEnabled())
+            return false;
+         
+         AppCommand command = (AppCommand) target;
+         if (command.isEnabled())
+         {
+            e.preventDefault();
+            command.executeFromShortcut();
+            return true;
+         }
+      }
       
       return false;
    }
    
-   private boolean dispatch(KeyboardShortcut shortcut,
-                            AppCommandBindings bindings,
-                            NativeEvent event)
-   {
-      return dispatch(shortcut, bindings, event, null);
-   }
-   
-   private boolean dispatch(KeyboardShortcut shortcut,
-                            AppCommandBindings bindings,
-                            NativeEvent event,
-                            Map<AppCommand, Boolean> maskedCommandsMap)
-   {
-      KeySequence keys = shortcut.getKeySequence();
-      
-      // If the shortcut manager is disabled, bail
-      if (!isEnabled())
-         return false;
-      
-      // If we have no binding, bail
-      if (!bindings.containsKey(keys))
-         return false;
-      
-      AppCommand command = bindings.getCommand(keys, editorMode_, maskedCommandsMap);
-      if (command == null)
-         return false;
-      
-      event.preventDefault();
-      command.executeFromShortcut();
-      return true;
-   }
-   
    private void swallowEvents(Object object)
    {
       NativeEvent event = (NativeEvent) object;
@@ -456,7 +505,6 @@ public class ShortcutManager implements NativePreviewHandler,
    private int disableCount_ = 0;
    private int editorMode_ = KeyboardShortcut.MODE_DEFAULT;
    
-   private final KeySequence keyBuffer_;
    private final Timer keyTimer_;
    
    private static class AppCommandBinding
@@ -558,8 +606,12 @@ public class ShortcutManager implements NativePreviewHandler,
    private List<KeyboardShortcut> unboundShortcuts_ =
          new ArrayList<KeyboardShortcut>();
    
-   private Set<KeySequence> prefixes_ =
-         new HashSet<KeySequence>();
+   private final KeyDispatchTrie<Object> dispatchTrie_ =
+         new KeyDispatchTrie<Object>();
+   
+   // current position in the trie for multi-key sequences
+   private KeyDispatchTrie.Node<Object> dispatchNode_ = dispatchTrie_.getRoot();
+   private boolean dispatchTrieDirty_ = true;
    
    // Injected ----
    private UserCommandManager userCommands_;
@@ -0,0 +1,130 @@
+/*
+ * RpcColumnarList.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayBoolean;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayString;
+
+// Compact encoding of a list of records (like RpcObjectList, one array per
+// field) in which string fields are stored as indexes into a string table
+// shared by all columns and boolean fields as 0/1. For example:
+//
+//   { "rs_columnar": 1,
+//     "length": 2,
+//     "columns": { "name": [0, 1], "size": [120, 4096], "is_dir": [0, 1] },
+//     "types":   { "name": "s", "is_dir": "b" },
+//     "strings": [ "analysis.R", "data" ] }
+//
+// Columns without an entry in "types" hold plain json values. A null
+// string is encoded as index -1.
+//
+// The server only emits this encoding for methods where the client asked
+// for it (by passing the "columnar" kwparam); see RemoteServer. Result
+// types either read the columns directly with the typed accessors below
+// (see DirectoryListing and Completions) or, where callers need records,
+// expand it into records when they are first accessed (see PackageState).
+public class RpcColumnarList<T extends JavaScriptObject> extends JavaScriptObject
+{
+   protected RpcColumnarList()
+   {
+   }
+
+   public static final native boolean isColumnar(JavaScriptObject obj) /*-{
+      return obj != null && obj.rs_columnar === 1;
+   }-*/;
+
+   public final native int getLength() /*-{
+      return this.length;
+   }-*/;
+
+   public final native boolean hasColumn(String column) /*-{
+      return this.columns[column] != null;
+   }-*/;
+
+   public final native String getString(String column, int row) /*-{
+      var col = this.columns[column];
+      var index = col ? col[row] : null;
+      return (index == null || index < 0) ? null : this.strings[index];
+   }-*/;
+
+   public final native double getNumber(String column, int row) /*-{
+      var col = this.columns[column];
+      return col ? col[row] : 0;
+   }-*/;
+
+   public final native boolean getBoolean(String column, int row) /*-{
+      var col = this.columns[column];
+      return !!(col && col[row]);
+   }-*/;
+
+   // the value of a column holding plain json values
+   public final native JavaScriptObject getObject(String column, int row) /*-{
+      var col = this.columns[column];
+      var value = col ? col[row] : null;
+      return value == null ? null : value;
+   }-*/;
+
+   // whole columns, decoded (for callers which want arrays of values rather
+   // than records)
+   public final native JsArrayString getStringColumn(String column) /*-{
+      var col = this.columns[column] || [];
+      var strings = this.strings;
+      var values = new Array(col.length);
+      for (var i = 0; i < col.length; i++)
+         values[i] = (col[i] == null || col[i] < 0) ? null : strings[col[i]];
+      return values;
+   }-*/;
+
+   public final native JsArrayBoolean getBooleanColumn(String column) /*-{
+      var col = this.columns[column] || [];
+      var values = new Array(col.length);
+      for (var i = 0; i < col.length; i++)
+         values[i] = !!col[i];
+      return values;
+   }-*/;
+
+   public final native JsArrayInteger getIntegerColumn(String column) /*-{
+      return this.columns[column] || [];
+   }-*/;
+
+   // materialize all records (as consumed by overlay types written against
+   // the row-oriented encoding)
+   public final native JsArray<T> toJsArray() /*-{
+      var rows = new Array(this.length);
+      for (var i = 0; i < this.length; i++)
+         rows[i] = @org.rstudio.core.client.jsonrpc.RpcColumnarList::getRow(Lcom/google/gwt/core/client/JavaScriptObject;I)(this, i);
+      return rows;
+   }-*/;
+
+   private static final native JavaScriptObject getRow(JavaScriptObject list,
+                                                       int row) /*-{
+      var types = list.types || {};
+      var el = {};
+      for (var key in list.columns)
+      {
+         var value = list.columns[key][row];
+         var type = types[key];
+         if (type === "s")
+            value = (value == null || value < 0) ? null : list.strings[value];
+         else if (type === "b")
+            value = !!value;
+         el[key] = value;
+      }
+      return el;
+   }-*/;
+}
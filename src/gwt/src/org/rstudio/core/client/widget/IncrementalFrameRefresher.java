@@ -0,0 +1,277 @@
+/*
+ * IncrementalFrameRefresher.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.widget;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.dom.WindowEx;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.Command;
+
+// Refreshes an HTML document shown in a frame (e.g. after it is re-rendered)
+// by fetching the new version and patching only the parts of the page that
+// changed, rather than reloading it. This keeps the scroll position and the
+// state of anything that didn't change, and avoids re-parsing (and
+// re-running) the rest of the document.
+//
+// The new source is compared to the source of the version being shown
+// (remembered from the last fetch), not to the live DOM, since scripts in
+// the page may have changed the DOM after it loaded. Changed elements are
+// replaced in the live DOM by id, so the refresh falls back to a reload
+// when:
+//
+//  - we don't have the source of the version being shown;
+//  - anything in the head changed (styles, scripts, dependencies);
+//  - a change can't be attributed to an element with an id;
+//  - a changed element contains scripts or HTML widgets (which wouldn't
+//    run or render if inserted into the page).
+public class IncrementalFrameRefresher
+{
+   // remember the source of the document just navigated to at url, so that
+   // the next refresh of it can be applied in place
+   public void onNavigated(String url)
+   {
+      source_ = null;
+      url_ = stripAnchor(url);
+      fetch(url_, new SourceCallback()
+      {
+         @Override
+         public void onSource(String url, String source)
+         {
+            if (url.equals(url_) && source_ == null)
+               source_ = source;
+         }
+
+         @Override
+         public void onError()
+         {
+         }
+      });
+   }
+
+   // refresh the document at url shown in frame; reload is invoked if the
+   // refresh can't be done in place (and should reload the frame)
+   public void refresh(final RStudioFrame frame,
+                       String url,
+                       final Command reload)
+   {
+      final String fetchUrl = stripAnchor(url);
+      final String previous = fetchUrl.equals(url_) ? source_ : null;
+      url_ = fetchUrl;
+      source_ = null;
+
+      fetch(fetchUrl, new SourceCallback()
+      {
+         @Override
+         public void onSource(String url, String source)
+         {
+            if (!url.equals(url_))
+               return;
+            source_ = source;
+
+            boolean patched = false;
+            if (previous != null && isShowing(frame, url))
+            {
+               try
+               {
+                  patched = patch(frame.getWindow(), previous, source);
+               }
+               catch (Exception e)
+               {
+                  Debug.logException(e);
+               }
+            }
+
+            if (!patched)
+               reload.execute();
+         }
+
+         @Override
+         public void onError()
+         {
+            reload.execute();
+         }
+      });
+   }
+
+   private interface SourceCallback
+   {
+      void onSource(String url, String source);
+      void onError();
+   }
+
+   private void fetch(final String url, final SourceCallback callback)
+   {
+      RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, url);
+      try
+      {
+         builder.sendRequest(null, new RequestCallback()
+         {
+            @Override
+            public void onResponseReceived(Request request, Response response)
+            {
+               if (response.getStatusCode() == Response.SC_OK)
+                  callback.onSource(url, response.getText());
+               else
+                  callback.onError();
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception)
+            {
+               callback.onError();
+            }
+         });
+      }
+      catch (RequestException e)
+      {
+         callback.onError();
+      }
+   }
+
+   private static boolean isShowing(RStudioFrame frame, String url)
+   {
+      if (frame == null || frame.getIFrame() == null)
+         return false;
+      WindowEx window = frame.getWindow();
+      if (window == null)
+         return false;
+
+      // (reading the location of a frame from another origin throws)
+      try
+      {
+         return stripAnchor(window.getLocationHref()).equals(
+                                                      resolveUrl(url));
+      }
+      catch (Exception e)
+      {
+         return false;
+      }
+   }
+
+   // resolves a url relative to this document
+   private static native String resolveUrl(String url) /*-{
+      var a = $doc.createElement("a");
+      a.href = url;
+      return a.href;
+   }-*/;
+
+   private static String stripAnchor(String url)
+   {
+      int anchor = url.indexOf('#');
+      return anchor == -1 ? url : url.substring(0, anchor);
+   }
+
+   // applies the differences between the previous and next sources to the
+   // document in the window; returns false (having changed nothing) if they
+   // can't be applied in place
+   private static native boolean patch(WindowEx win,
+                                       String previous,
+                                       String next) /*-{
+      var doc = win.document;
+      if (!doc || !doc.body || typeof win.DOMParser === "undefined")
+         return false;
+
+      var parser = new win.DOMParser();
+      var prev = parser.parseFromString(previous, "text/html");
+      var curr = parser.parseFromString(next, "text/html");
+      if (!prev || !curr || !prev.body || !curr.body)
+         return false;
+
+      if (!prev.head.isEqualNode(curr.head))
+         return false;
+
+      // is everything about the element other than its child elements'
+      // contents (i.e. its attributes, text, and the tags and ids of its
+      // children) the same?
+      var sameShape = function(a, b) {
+         if (!a.cloneNode(false).isEqualNode(b.cloneNode(false)))
+            return false;
+         var an = a.childNodes, bn = b.childNodes;
+         if (an.length !== bn.length)
+            return false;
+         for (var i = 0; i < an.length; i++) {
+            var x = an[i], y = bn[i];
+            if (x.nodeType !== y.nodeType)
+               return false;
+            if (x.nodeType === 1) {
+               if (x.tagName !== y.tagName || x.id !== y.id)
+                  return false;
+            } else if (!x.isEqualNode(y)) {
+               return false;
+            }
+         }
+         return true;
+      };
+
+      // collect the ids of the elements to replace so that a and b are the
+      // same; returns false if that can't be done below a
+      var changes = [];
+      var collect = function(a, b) {
+         if (a.isEqualNode(b))
+            return true;
+         if (!sameShape(a, b))
+            return false;
+         var ac = a.children, bc = b.children;
+         for (var i = 0; i < ac.length; i++) {
+            if (ac[i].isEqualNode(bc[i]))
+               continue;
+            if (!collect(ac[i], bc[i])) {
+               if (!bc[i].id)
+                  return false;
+               changes.push(bc[i]);
+            }
+         }
+         return true;
+      };
+
+      if (!collect(prev.body, curr.body))
+         return false;
+
+      // find the live elements to replace, and make sure the replacements
+      // don't need anything run to display
+      var targets = [];
+      for (var i = 0; i < changes.length; i++) {
+         var node = changes[i];
+         var target = doc.getElementById(node.id);
+         if (!target)
+            return false;
+         if (node.tagName === "SCRIPT" ||
+             node.getElementsByTagName("script").length > 0 ||
+             node.getElementsByClassName("html-widget").length > 0)
+            return false;
+         targets.push(target);
+      }
+
+      for (var i = 0; i < changes.length; i++) {
+         var replacement = doc.importNode(changes[i], true);
+         targets[i].parentNode.replaceChild(replacement, targets[i]);
+         if (win.MathJax && win.MathJax.Hub)
+            win.MathJax.Hub.Queue(["Typeset", win.MathJax.Hub, replacement]);
+      }
+
+      if (doc.title !== curr.title)
+         doc.title = curr.title;
+
+      return true;
+   }-*/;
+
+   private String url_;
+   private String source_;
+}
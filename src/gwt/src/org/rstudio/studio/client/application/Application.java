@@ -298,6 +298,12 @@ public class Application implements ApplicationEventHandlers
       });
    }
 
+   @Handler
+   public void onDebugDumpHandlers()
+   {
+      Debug.log(events_.getHandlerReport(20));
+   }
+
    @Handler
    public void onLogFocusedElement()
    {
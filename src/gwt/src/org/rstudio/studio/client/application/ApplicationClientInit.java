@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.application;
 
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
 import com.google.inject.Inject;
@@ -24,15 +25,18 @@ import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
 import org.rstudio.studio.client.workbench.model.SessionInfo;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocumentCache;
 
 public class ApplicationClientInit
 {
    @Inject
    public ApplicationClientInit(ApplicationServerOperations server,
-                                GlobalDisplay globalDisplay)
+                                GlobalDisplay globalDisplay,
+                                SourceDocumentCache documentCache)
    {
       server_ = server;
       globalDisplay_ = globalDisplay;
+      documentCache_ = documentCache;
    }
    
    public void execute(final ServerRequestCallback<SessionInfo> requestCallback)
@@ -42,6 +46,14 @@ public class ApplicationClientInit
    
    public void execute(final ServerRequestCallback<SessionInfo> requestCallback,
                        final boolean retryOnTransmissionError)
+   {
+      execute(requestCallback, retryOnTransmissionError, true);
+   }
+   
+   private void execute(
+                     final ServerRequestCallback<SessionInfo> requestCallback,
+                     final boolean retryOnTransmissionError,
+                     final boolean useDocumentCache)
    {
       // reset internal state 
       timedOut_ = false;
@@ -56,6 +68,17 @@ public class ApplicationClientInit
             if (!timedOut_)
             {
                cancelTimeoutTimer();
+               
+               // restore the contents of the source documents the server
+               // didn't send; if any have gone from the cache (e.g. evicted
+               // by another window) then start over without the cache
+               if (!documentCache_.restoreContents(
+                                       sessionInfo.getSourceDocuments()))
+               {
+                  execute(requestCallback, retryOnTransmissionError, false);
+                  return;
+               }
+               
                requestCallback.onResponseReceived(sessionInfo);
             }
          }
@@ -77,7 +100,7 @@ public class ApplicationClientInit
                      public void run()
                      {
                         // retry (specify flag to ensure we only retry once)
-                        execute(requestCallback, false);
+                        execute(requestCallback, false, useDocumentCache);
                      }
                   }.schedule(1000);
                }
@@ -88,7 +111,10 @@ public class ApplicationClientInit
             }
          }                                    
       };
-      server_.clientInit(rpcRequestCallback);
+      JsArrayString cachedKeys = useDocumentCache ?
+            documentCache_.getCachedKeys() :
+            JsArrayString.createArray().<JsArrayString>cast();
+      server_.clientInit(cachedKeys, rpcRequestCallback);
                                     
       
       // wait for 60 seconds then ask the user if they want to issue an 
@@ -189,6 +215,7 @@ public class ApplicationClientInit
    
    private final ApplicationServerOperations server_;
    private final GlobalDisplay globalDisplay_ ;
+   private final SourceDocumentCache documentCache_;
    private Timer timeoutTimer_ = null;
    private boolean timedOut_ = false;
 }
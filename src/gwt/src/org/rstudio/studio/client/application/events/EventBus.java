@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.application.events;
 
+import org.rstudio.core.client.PerformanceMonitor;
 import org.rstudio.core.client.dom.WindowEx;
 import org.rstudio.core.client.js.JavaScriptSerializer;
 import org.rstudio.studio.client.application.Desktop;
@@ -51,7 +52,23 @@ public class EventBus extends HandlerManager
    @Override
    public void fireEvent(GwtEvent<?> event)
    {
-      fireEvent(event, false);
+      if (!PerformanceMonitor.isEnabled())
+      {
+         fireEvent(event, false);
+         return;
+      }
+
+      // time the dispatch (including that of any events the handlers fire)
+      double start = PerformanceMonitor.now();
+      try
+      {
+         fireEvent(event, false);
+      }
+      finally
+      {
+         PerformanceMonitor.recordEvent(event.getClass().getName(),
+                                        PerformanceMonitor.now() - start);
+      }
    }
    
    private void fireEvent(GwtEvent<?> event, boolean fromOtherWindow)
@@ -107,6 +124,67 @@ public class EventBus extends HandlerManager
             pSatellite_.get().getSatelliteName());
    }
 
+   @Override
+   public <H extends EventHandler> HandlerRegistration addHandler(
+         Type<H> type, H handler)
+   {
+      HandlerRegistration reg = super.addHandler(type, handler);
+      return handlers_ != null ? handlers_.track(type, handler, reg) : reg;
+   }
+   
+   /**
+    * Returns a name for a component which owns handlers (unique to this
+    * instance of it), see beginOwner.
+    */
+   public String createOwnerName(String kind)
+   {
+      return kind + " #" + (++ownerCount_);
+   }
+   
+   /**
+    * Attributes the handlers added until the matching endOwner to the named
+    * component (for getHandlerReport). Call ownerDismissed when the
+    * component is done with, so any of its handlers which haven't been
+    * removed are reported as leaked.
+    */
+   public void beginOwner(String owner)
+   {
+      if (handlers_ != null)
+         handlers_.beginOwner(owner);
+   }
+   
+   public void endOwner(String owner)
+   {
+      if (handlers_ != null)
+         handlers_.endOwner(owner);
+   }
+   
+   public void ownerDismissed(String owner)
+   {
+      if (handlers_ != null)
+         handlers_.ownerDismissed(owner);
+   }
+   
+   /**
+    * Describes the handlers which haven't been removed: the (at most) max
+    * event types and owners with the most handlers, and the owners which
+    * have been dismissed but still have handlers.
+    * 
+    * Tracking handlers costs an allocation per registration, so it's off
+    * until the first report is asked for; that report is empty, and later
+    * ones cover the handlers added since.
+    */
+   public String getHandlerReport(int max)
+   {
+      if (handlers_ == null)
+      {
+         handlers_ = new HandlerTracker();
+         return "Tracking event handlers from now on (dump them again to " +
+                "see those added since)";
+      }
+      return handlers_.getReport(max);
+   }
+
    /**
     * Similar to 2-arg form of addHandler, but automatically removes handler
     * when the HasAttachHandlers object detaches.
@@ -160,4 +238,6 @@ public class EventBus extends HandlerManager
    private Provider<Satellite> pSatellite_;
    private Provider<SatelliteManager> pManager_;
    private JavaScriptSerializer serializer_;
+   private HandlerTracker handlers_ = null;
+   private int ownerCount_ = 0;
 }
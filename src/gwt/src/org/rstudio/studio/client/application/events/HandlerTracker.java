@@ -0,0 +1,206 @@
+/*
+ * HandlerTracker.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rstudio.core.client.Debug;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent.Type;
+import com.google.gwt.event.shared.HandlerRegistration;
+
+// Keeps track of the handlers registered with the EventBus which haven't
+// been removed, by event type and by owner, so that handlers which leak
+// (and the components they retain) can be found. The owner of a handler
+// is the component named by the innermost beginOwner/endOwner scope it was
+// added in, or failing that the class the handler was declared in (when
+// class names are available; production builds are compiled without them).
+// Owners are tracked by name (rather than reference) so the tracker doesn't
+// itself retain them, and a dismissed owner is only remembered while it
+// still has live handlers.
+class HandlerTracker
+{
+   private static class Entry
+   {
+      Entry(String type, String owner)
+      {
+         type_ = type;
+         owner_ = owner;
+      }
+
+      final String type_;
+      final String owner_;
+   }
+
+   public void beginOwner(String owner)
+   {
+      owners_.add(owner);
+   }
+
+   // ends the scope of the owner (and any left open within it)
+   public void endOwner(String owner)
+   {
+      int index = owners_.lastIndexOf(owner);
+      while (index != -1 && owners_.size() > index)
+         owners_.remove(owners_.size() - 1);
+   }
+
+   public void ownerDismissed(String owner)
+   {
+      Integer live = liveByOwner_.get(owner);
+      if (live == null)
+         return;
+
+      dismissed_.add(owner);
+      Debug.log(live + " event handler(s) outlived " + owner);
+   }
+
+   public <H extends EventHandler> HandlerRegistration track(
+                                             Type<H> type,
+                                             H handler,
+                                             final HandlerRegistration reg)
+   {
+      final Integer id = ++entryCount_;
+      final String owner = getOwner(handler);
+      entries_.put(id, new Entry(getTypeName(type, handler), owner));
+      increment(liveByOwner_, owner);
+      return new HandlerRegistration()
+      {
+         @Override
+         public void removeHandler()
+         {
+            if (entries_.remove(id) != null)
+               onEntryRemoved(owner);
+            reg.removeHandler();
+         }
+      };
+   }
+
+   // the live handlers by type and by owner (the most first), and those
+   // whose owners have been dismissed
+   public String getReport(int max)
+   {
+      HashMap<String, Integer> byType = new HashMap<String, Integer>();
+      HashMap<String, Integer> leaked = new HashMap<String, Integer>();
+      for (Entry entry : entries_.values())
+      {
+         increment(byType, entry.type_);
+         if (dismissed_.contains(entry.owner_))
+            increment(leaked, entry.owner_);
+      }
+
+      StringBuilder report = new StringBuilder();
+      report.append("Live event handlers: " + entries_.size() + "\n");
+      appendCounts(report, "By event type", byType, max);
+      appendCounts(report, "By owner", liveByOwner_, max);
+      appendCounts(report, "Outliving their (dismissed) owner", leaked, max);
+      return report.toString();
+   }
+
+   private void onEntryRemoved(String owner)
+   {
+      int live = liveByOwner_.get(owner) - 1;
+      if (live > 0)
+      {
+         liveByOwner_.put(owner, live);
+      }
+      else
+      {
+         liveByOwner_.remove(owner);
+         dismissed_.remove(owner);
+      }
+   }
+
+   private String getOwner(EventHandler handler)
+   {
+      if (!owners_.isEmpty())
+         return owners_.get(owners_.size() - 1);
+      else if (!HAVE_CLASS_NAMES)
+         return "(no owner)";
+
+      // handlers are usually anonymous classes declared by their owner
+      String name = handler.getClass().getName();
+      int index = name.indexOf('$');
+      return index == -1 ? name : name.substring(0, index);
+   }
+
+   private String getTypeName(Type<?> type, EventHandler handler)
+   {
+      // types don't have names, so describe them by the class of the first
+      // handler registered for them
+      String name = typeNames_.get(type);
+      if (name == null)
+      {
+         name = "Type #" + (typeNames_.size() + 1);
+         if (HAVE_CLASS_NAMES)
+            name += " (first handled by " + handler.getClass().getName() + ")";
+         typeNames_.put(type, name);
+      }
+      return name;
+   }
+
+   private static void increment(HashMap<String, Integer> counts, String key)
+   {
+      Integer count = counts.get(key);
+      counts.put(key, count == null ? 1 : count + 1);
+   }
+
+   private static void appendCounts(StringBuilder report,
+                                    String title,
+                                    HashMap<String, Integer> counts,
+                                    int max)
+   {
+      ArrayList<Map.Entry<String, Integer>> sorted =
+            new ArrayList<Map.Entry<String, Integer>>(counts.entrySet());
+      Collections.sort(sorted, new Comparator<Map.Entry<String, Integer>>()
+      {
+         @Override
+         public int compare(Map.Entry<String, Integer> a,
+                            Map.Entry<String, Integer> b)
+         {
+            return b.getValue() - a.getValue();
+         }
+      });
+
+      report.append("\n" + title + ":\n");
+      for (int i = 0; i < Math.min(max, sorted.size()); i++)
+      {
+         report.append("  " + sorted.get(i).getValue() + "\t" +
+                       sorted.get(i).getKey() + "\n");
+      }
+   }
+
+   private final LinkedHashMap<Integer, Entry> entries_ =
+         new LinkedHashMap<Integer, Entry>();
+   private final HashMap<Type<?>, String> typeNames_ =
+         new HashMap<Type<?>, String>();
+   private final ArrayList<String> owners_ = new ArrayList<String>();
+   private final HashMap<String, Integer> liveByOwner_ =
+         new HashMap<String, Integer>();
+   private final HashSet<String> dismissed_ = new HashSet<String>();
+   private int entryCount_ = 0;
+
+   // false when compiled with -XdisableClassMetadata (as production builds
+   // are), in which case class names are meaningless
+   private static final boolean HAVE_CLASS_NAMES =
+         HandlerTracker.class.getName().endsWith(".HandlerTracker");
+}
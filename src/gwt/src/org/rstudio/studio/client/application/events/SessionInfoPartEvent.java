@@ -0,0 +1,75 @@
+/*
+ * SessionInfoPartEvent.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application.events;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+
+// A part of the session info which the server sends after client_init (see
+// SessionInfo.isPartDeferred)
+public class SessionInfoPartEvent extends GwtEvent<SessionInfoPartEvent.Handler>
+{
+   public interface Handler extends EventHandler
+   {
+      void onSessionInfoPart(SessionInfoPartEvent event);
+   }
+
+   public static class Data extends JavaScriptObject
+   {
+      protected Data()
+      {
+      }
+
+      public final native String getName() /*-{
+         return this.name;
+      }-*/;
+
+      public final native <T extends JavaScriptObject> T getValue() /*-{
+         return this.value;
+      }-*/;
+   }
+
+   public SessionInfoPartEvent(Data data)
+   {
+      data_ = data;
+   }
+
+   public String getName()
+   {
+      return data_.getName();
+   }
+
+   public <T extends JavaScriptObject> T getValue()
+   {
+      return data_.<T>getValue();
+   }
+
+   @Override
+   public Type<Handler> getAssociatedType()
+   {
+      return TYPE;
+   }
+
+   @Override
+   protected void dispatch(Handler handler)
+   {
+      handler.onSessionInfoPart(this);
+   }
+
+   private final Data data_;
+
+   public static final Type<Handler> TYPE = new Type<Handler>();
+}
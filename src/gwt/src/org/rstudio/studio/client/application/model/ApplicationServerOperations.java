@@ -22,11 +22,15 @@ import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.prefs.model.PrefsServerOperations;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 
 public interface ApplicationServerOperations extends PrefsServerOperations
 {    
    // establish new session for this client
-   void clientInit(ServerRequestCallback<SessionInfo> requestCallback);
+   // cachedKeys: the keys (hash:length) of the source document contents
+   // the client has cached (see SourceDocumentCache)
+   void clientInit(JsArrayString cachedKeys,
+                   ServerRequestCallback<SessionInfo> requestCallback);
 
    // interrupt the current session
    void interrupt(ServerRequestCallback<Void> requestCallback);
@@ -0,0 +1,287 @@
+/*
+ * PerformanceHud.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application.ui;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.rstudio.core.client.PerformanceMonitor;
+import org.rstudio.core.client.PerformanceMonitor.EventStats;
+import org.rstudio.core.client.PerformanceMonitor.Span;
+import org.rstudio.core.client.widget.ModalDialog;
+import org.rstudio.core.client.widget.OperationWithInput;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style;
+import com.google.gwt.dom.client.Style.Position;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.logical.shared.CloseEvent;
+import com.google.gwt.event.logical.shared.CloseHandler;
+import com.google.gwt.event.logical.shared.HasCloseHandlers;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.i18n.client.NumberFormat;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.ui.Anchor;
+import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.HTML;
+import com.google.gwt.user.client.ui.TextArea;
+import com.google.gwt.user.client.ui.Widget;
+
+// An overlay showing what the PerformanceMonitor has collected, and the
+// DOM cost of the given workbench panes; the monitor runs while it's shown
+public class PerformanceHud extends Composite
+   implements HasCloseHandlers<PerformanceHud>
+{
+   private class SnapshotDialog extends ModalDialog<Void>
+   {
+      private SnapshotDialog(String snapshot)
+      {
+         super("Performance Snapshot", (OperationWithInput<Void>) null);
+         textArea_ = new TextArea();
+         textArea_.setSize("500px", "350px");
+         textArea_.setReadOnly(true);
+         textArea_.setText(snapshot);
+      }
+
+      @Override
+      protected Void collectInput()
+      {
+         return null;
+      }
+
+      @Override
+      protected boolean validate(Void input)
+      {
+         return true;
+      }
+
+      @Override
+      protected Widget createMainWidget()
+      {
+         return textArea_;
+      }
+
+      @Override
+      protected void onDialogShown()
+      {
+         textArea_.setFocus(true);
+         textArea_.selectAll();
+      }
+
+      private final TextArea textArea_;
+   }
+
+   public PerformanceHud(LinkedHashMap<String, Widget> panes)
+   {
+      panes_ = panes;
+
+      FlowPanel panel = new FlowPanel();
+      Style style = panel.getElement().getStyle();
+      style.setPosition(Position.FIXED);
+      style.setTop(40, Unit.PX);
+      style.setRight(10, Unit.PX);
+      style.setWidth(340, Unit.PX);
+      style.setPadding(6, Unit.PX);
+      style.setZIndex(500);
+      style.setOpacity(0.9);
+      style.setBackgroundColor("#222");
+      style.setColor("#EEE");
+      style.setFontSize(11, Unit.PX);
+      style.setProperty("fontFamily", "monospace");
+      style.setProperty("pointerEvents", "auto");
+
+      Anchor export = new Anchor("Export");
+      export.addClickHandler(new ClickHandler()
+      {
+         public void onClick(ClickEvent event)
+         {
+            new SnapshotDialog(getSnapshot()).showModal();
+         }
+      });
+      Anchor reset = new Anchor("Reset");
+      reset.addClickHandler(new ClickHandler()
+      {
+         public void onClick(ClickEvent event)
+         {
+            PerformanceMonitor.reset();
+            refresh();
+         }
+      });
+      Anchor close = new Anchor("Close");
+      close.addClickHandler(new ClickHandler()
+      {
+         public void onClick(ClickEvent event)
+         {
+            CloseEvent.fire(PerformanceHud.this, PerformanceHud.this);
+         }
+      });
+
+      FlowPanel links = new FlowPanel();
+      for (Anchor anchor : new Anchor[] { export, reset, close })
+      {
+         anchor.getElement().getStyle().setColor("#9CF");
+         anchor.getElement().getStyle().setMarginRight(8, Unit.PX);
+         links.add(anchor);
+      }
+
+      content_ = new HTML();
+      panel.add(links);
+      panel.add(content_);
+      initWidget(panel);
+
+      timer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            refresh();
+         }
+      };
+   }
+
+   public HandlerRegistration addCloseHandler(CloseHandler<PerformanceHud> handler)
+   {
+      return addHandler(handler, CloseEvent.getType());
+   }
+
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+      PerformanceMonitor.start();
+      refresh();
+      timer_.scheduleRepeating(REFRESH_MILLIS);
+   }
+
+   @Override
+   protected void onUnload()
+   {
+      timer_.cancel();
+      PerformanceMonitor.stop();
+      super.onUnload();
+   }
+
+   private void refresh()
+   {
+      SafeHtmlBuilder sb = new SafeHtmlBuilder();
+
+      appendHeader(sb, "Main thread");
+      appendLine(sb, "Event loop lag",
+                 ms(PerformanceMonitor.getRecentLagMs()) + " (max " +
+                 ms(PerformanceMonitor.getMaxLagMs()) + ")");
+      appendLine(sb, "Frame time",
+                 ms(PerformanceMonitor.getMeanFrameMs()) + " (max " +
+                 ms(PerformanceMonitor.getMaxFrameMs()) + ")");
+      List<Span> longTasks = PerformanceMonitor.getLongTasks();
+      double longest = 0;
+      for (Span span : longTasks)
+         longest = Math.max(longest, span.getDuration());
+      appendLine(sb, "Long tasks",
+                 longTasks.size() + " (longest " + ms(longest) + ")");
+      appendLine(sb, "JS heap", getHeapText());
+
+      appendHeader(sb, "Backlogs");
+      HashMap<String, Integer> backlogs = PerformanceMonitor.getBacklogs();
+      for (String name : backlogs.keySet())
+         appendLine(sb, name, String.valueOf(backlogs.get(name)));
+
+      appendHeader(sb, "DOM nodes");
+      for (String name : panes_.keySet())
+         appendLine(sb, name, String.valueOf(getNodeCount(panes_.get(name))));
+
+      appendHeader(sb, "Event dispatch (total, count, max)");
+      List<EventStats> events = PerformanceMonitor.getEventStats();
+      for (int i = 0; i < Math.min(events.size(), MAX_EVENTS_SHOWN); i++)
+      {
+         EventStats stats = events.get(i);
+         appendLine(sb, stats.getType(),
+                    ms(stats.getTotalMs()) + ", " + stats.getCount() + ", " +
+                    ms(stats.getMaxMs()));
+      }
+
+      content_.setHTML(sb.toSafeHtml());
+   }
+
+   private String getSnapshot()
+   {
+      JSONObject snapshot = PerformanceMonitor.getSnapshot();
+
+      JSONObject nodes = new JSONObject();
+      for (String name : panes_.keySet())
+         nodes.put(name, new JSONNumber(getNodeCount(panes_.get(name))));
+      snapshot.put("dom_nodes", nodes);
+      Element root = Document.get().getDocumentElement();
+      snapshot.put("total_dom_nodes", new JSONNumber(getNodeCount(root)));
+      return snapshot.toString();
+   }
+
+   private static String getHeapText()
+   {
+      double used = PerformanceMonitor.getUsedHeapSize();
+      if (used < 0)
+         return "(not available)";
+
+      double limit = PerformanceMonitor.getHeapSizeLimit();
+      return MB_FORMAT.format(used / MB) + " MB of " +
+             MB_FORMAT.format(limit / MB) + " MB";
+   }
+
+   private static void appendHeader(SafeHtmlBuilder sb, String text)
+   {
+      sb.appendHtmlConstant("<div style=\"margin-top: 4px; color: #9CF\">");
+      sb.appendEscaped(text);
+      sb.appendHtmlConstant("</div>");
+   }
+
+   private static void appendLine(SafeHtmlBuilder sb, String label, String value)
+   {
+      sb.appendHtmlConstant("<div style=\"white-space: nowrap; " +
+                            "overflow: hidden; text-overflow: ellipsis\">");
+      sb.appendEscaped(label + ": " + value);
+      sb.appendHtmlConstant("</div>");
+   }
+
+   private static String ms(double ms)
+   {
+      return MS_FORMAT.format(ms) + " ms";
+   }
+
+   private static int getNodeCount(Widget widget)
+   {
+      return widget == null ? 0 : getNodeCount(widget.getElement());
+   }
+
+   private static native int getNodeCount(Element element) /*-{
+      return element.getElementsByTagName("*").length;
+   }-*/;
+
+   private final LinkedHashMap<String, Widget> panes_;
+   private final HTML content_;
+   private final Timer timer_;
+
+   private static final int REFRESH_MILLIS = 1000;
+   private static final int MAX_EVENTS_SHOWN = 10;
+   private static final double MB = 1024 * 1024;
+   private static final NumberFormat MS_FORMAT = NumberFormat.getFormat("0.0");
+   private static final NumberFormat MB_FORMAT = NumberFormat.getFormat("0");
+}
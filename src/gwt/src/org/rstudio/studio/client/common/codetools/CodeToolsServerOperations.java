@@ -49,6 +49,11 @@ public interface CodeToolsServerOperations extends HelpServerOperations,
          String documentId,
          ServerRequestCallback<Completions> completions);
    
+   void getCompletionIndex(
+         JsArrayString knownPackages,
+         boolean includePackages,
+         ServerRequestCallback<CompletionIndexData> callback);
+   
    void getDplyrJoinCompletions(
          String token,
          String leftDataName,
@@ -71,6 +76,10 @@ public interface CodeToolsServerOperations extends HelpServerOperations,
                 String source,
                 ServerRequestCallback<String> callback);
    
+   void getSignatures(JsArrayString names,
+                      JsArrayString sources,
+                      ServerRequestCallback<JsArray<FunctionSignature>> callback);
+   
    void extractChunkOptions(
          String chunkText,
          ServerRequestCallback<JsObject> callback);
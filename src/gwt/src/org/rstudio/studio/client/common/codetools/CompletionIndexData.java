@@ -0,0 +1,101 @@
+/*
+ * CompletionIndexData.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.codetools;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayString;
+
+// The symbols known to R which can be completed without asking R (see
+// get_completion_index)
+public class CompletionIndexData extends JavaScriptObject
+{
+   protected CompletionIndexData()
+   {
+   }
+
+   public static class PackageExports extends JavaScriptObject
+   {
+      protected PackageExports()
+      {
+      }
+
+      public static native PackageExports create(String name,
+                                                 String version,
+                                                 JsArrayString exports,
+                                                 JsArrayInteger types) /*-{
+         return {
+            name: name,
+            version: version,
+            exports: exports,
+            types: types
+         };
+      }-*/;
+
+      public final native String getName() /*-{
+         return this.name;
+      }-*/;
+
+      public final native String getVersion() /*-{
+         return this.version;
+      }-*/;
+
+      public final String getKey()
+      {
+         return getName() + "@" + getVersion();
+      }
+
+      // false if the client already has the exports for this version
+      public final native boolean hasExports() /*-{
+         return !!this.exports;
+      }-*/;
+
+      public final native JsArrayString getExports() /*-{
+         return this.exports;
+      }-*/;
+
+      public final native JsArrayInteger getTypes() /*-{
+         return this.types;
+      }-*/;
+   }
+
+   // the attached packages, in search path order (null unless the packages
+   // were requested, as are the installed packages)
+   public final native JsArray<PackageExports> getPackages() /*-{
+      return this.packages;
+   }-*/;
+
+   public final native JsArrayString getGlobals() /*-{
+      return this.globals;
+   }-*/;
+
+   public final native JsArrayInteger getGlobalTypes() /*-{
+      return this.global_types;
+   }-*/;
+
+   // the objects in the active frame (if it isn't the global environment)
+   public final native JsArrayString getFrame() /*-{
+      return this.frame;
+   }-*/;
+
+   public final native JsArrayInteger getFrameTypes() /*-{
+      return this.frame_types;
+   }-*/;
+
+   public final native JsArrayString getInstalledPackages() /*-{
+      return this.installed;
+   }-*/;
+}
@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.common.codetools;
 
+import org.rstudio.core.client.jsonrpc.RpcColumnarList;
+
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArrayBoolean;
 import com.google.gwt.core.client.JsArrayInteger;
@@ -52,11 +54,23 @@ public class Completions extends JavaScriptObject
       return this.token[0] ;
    }-*/;
    
-   public final native JsArrayString getCompletions() /*-{
+   public final JsArrayString getCompletions()
+   {
+      decodeColumns();
+      return getCompletionsNative();
+   }
+   
+   private final native JsArrayString getCompletionsNative() /*-{
       return this.results ;
    }-*/;
    
-   public final native JsArrayString getPackages() /*-{
+   public final JsArrayString getPackages()
+   {
+      decodeColumns();
+      return getPackagesNative();
+   }
+   
+   private final native JsArrayString getPackagesNative() /*-{
       // Packages end up as arrays of arrays because I suck at R.
       //   results: [["base"], null, null, ["graphics"], null]
       //         => ["base", null, null, "graphics", null]
@@ -90,14 +104,57 @@ public class Completions extends JavaScriptObject
       return this.insertParens;
    }-*/;
    
-   public final native JsArrayBoolean getQuote() /*-{
+   public final JsArrayBoolean getQuote()
+   {
+      decodeColumns();
+      return getQuoteNative();
+   }
+   
+   private final native JsArrayBoolean getQuoteNative() /*-{
       return this.quote;
    }-*/;
    
-   public final native JsArrayInteger getType() /*-{
+   public final JsArrayInteger getType()
+   {
+      decodeColumns();
+      return getTypeNative();
+   }
+   
+   private final native JsArrayInteger getTypeNative() /*-{
       return this.type;
    }-*/;
    
+   // completions requested in the columnar encoding (see RemoteServer)
+   // arrive as the rows of a single columnar list; its columns are decoded
+   // into the usual arrays when first read
+   private final void decodeColumns()
+   {
+      JavaScriptObject rows = getRowsNative();
+      if (!RpcColumnarList.isColumnar(rows))
+         return;
+      
+      RpcColumnarList<JavaScriptObject> columns = rows.cast();
+      setColumns(columns.getStringColumn("results"),
+                 columns.getStringColumn("packages"),
+                 columns.getBooleanColumn("quote"),
+                 columns.getIntegerColumn("type"));
+   }
+   
+   private final native JavaScriptObject getRowsNative() /*-{
+      return this.rows;
+   }-*/;
+   
+   private final native void setColumns(JsArrayString results,
+                                        JsArrayString packages,
+                                        JsArrayBoolean quote,
+                                        JsArrayInteger type) /*-{
+      this.results = results;
+      this.packages = packages;
+      this.quote = quote;
+      this.type = type;
+      delete this.rows;
+   }-*/;
+   
 
    public final native boolean getSuggestOnAccept() /*-{
       return !!this.suggestOnAccept;
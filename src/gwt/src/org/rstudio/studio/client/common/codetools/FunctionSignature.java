@@ -0,0 +1,53 @@
+/*
+ * FunctionSignature.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.codetools;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+public class FunctionSignature extends JavaScriptObject
+{
+   protected FunctionSignature()
+   {
+   }
+
+   public final native String getName() /*-{
+      return this.name;
+   }-*/;
+
+   // the source the function was requested from (empty for the search path)
+   public final native String getSource() /*-{
+      return this.source;
+   }-*/;
+
+   // the formals, e.g. "(x, ...)"
+   public final native String getSignature() /*-{
+      return this.signature;
+   }-*/;
+
+   public final native JsArrayString getArgs() /*-{
+      return this.args;
+   }-*/;
+
+   // the package whose namespace the function is defined in (empty for
+   // functions defined elsewhere, e.g. in the global environment)
+   public final native String getPackage() /*-{
+      return this.package;
+   }-*/;
+
+   public final native String getVersion() /*-{
+      return this.version;
+   }-*/;
+}
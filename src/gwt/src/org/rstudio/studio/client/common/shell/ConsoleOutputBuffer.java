@@ -0,0 +1,283 @@
+/*
+ * ConsoleOutputBuffer.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.shell;
+
+import java.util.ArrayList;
+
+// Console scrollback which is no longer kept in the DOM. Lines are stored
+// as runs of text with a style (class name), in fixed size chunks so that
+// a line can be found by index, and lines can be trimmed from the front,
+// without copying the rest of the buffer.
+//
+// To lay out the buffer without rendering it, each line is assumed to wrap
+// to ceil(length / charsPerRow) rows (the console uses a monospace font);
+// chunks cache the number of rows they occupy at a given width.
+public class ConsoleOutputBuffer
+{
+   public int getLineCount()
+   {
+      return lineCount_;
+   }
+
+   public boolean isEmpty()
+   {
+      return lineCount_ == 0;
+   }
+
+   public void clear()
+   {
+      chunks_.clear();
+      firstLineOffset_ = 0;
+      lineCount_ = 0;
+      lastLineOpen_ = false;
+   }
+
+   // append text with the given style; each newline ends a line (text
+   // after the last newline is continued by the next append)
+   public void append(String className, String text)
+   {
+      int start = 0;
+      while (start <= text.length())
+      {
+         int newline = text.indexOf('\n', start);
+         int end = newline == -1 ? text.length() : newline;
+         if (end > start || (newline != -1 && !lastLineOpen_))
+            addRun(className, text.substring(start, end));
+         if (newline == -1)
+            break;
+         lastLineOpen_ = false;
+         start = newline + 1;
+      }
+   }
+
+   // remove lines from the start of the buffer
+   public void trimLines(int count)
+   {
+      count = Math.min(count, lineCount_);
+      lineCount_ -= count;
+      firstLineOffset_ += count;
+      while (firstLineOffset_ >= CHUNK_LINES && !chunks_.isEmpty())
+      {
+         chunks_.remove(0);
+         firstLineOffset_ -= CHUNK_LINES;
+      }
+      if (lineCount_ == 0)
+         clear();
+      else if (!chunks_.isEmpty())
+         chunks_.get(0).rowsCharsPerRow = -1;
+   }
+
+   public int getRunCount(int line)
+   {
+      Chunk chunk = getChunk(line);
+      int index = getIndex(line);
+      return chunk.runEnd[index] - chunk.runStart(index);
+   }
+
+   public String getRunText(int line, int run)
+   {
+      Chunk chunk = getChunk(line);
+      return chunk.runText.get(chunk.runStart(getIndex(line)) + run);
+   }
+
+   public String getRunClass(int line, int run)
+   {
+      Chunk chunk = getChunk(line);
+      return chunk.runClass.get(chunk.runStart(getIndex(line)) + run);
+   }
+
+   public int getLineLength(int line)
+   {
+      return getChunk(line).length[getIndex(line)];
+   }
+
+   public String getLine(int line)
+   {
+      StringBuilder text = new StringBuilder();
+      int runs = getRunCount(line);
+      for (int i = 0; i < runs; i++)
+         text.append(getRunText(line, i));
+      return text.toString();
+   }
+
+   // the text from (startLine, startColumn) up to (endLine, endColumn), with
+   // lines separated by newlines
+   public String getText(int startLine, int startColumn,
+                         int endLine, int endColumn)
+   {
+      StringBuilder text = new StringBuilder();
+      for (int line = startLine; line <= endLine && line < lineCount_; line++)
+      {
+         String lineText = getLine(line);
+         int start = line == startLine ?
+                        Math.min(startColumn, lineText.length()) : 0;
+         int end = line == endLine ?
+                        Math.min(endColumn, lineText.length()) :
+                        lineText.length();
+         if (end > start)
+            text.append(lineText.substring(start, end));
+         if (line != endLine && (line < lineCount_ - 1 || !lastLineOpen_))
+            text.append('\n');
+      }
+      return text.toString();
+   }
+
+   // the number of rows the line occupies when wrapped at charsPerRow
+   public static int getRows(int length, int charsPerRow)
+   {
+      return Math.max(1, (length + charsPerRow - 1) / charsPerRow);
+   }
+
+   public int getRowCount(int charsPerRow)
+   {
+      int rows = 0;
+      for (int i = 0; i < chunks_.size(); i++)
+         rows += getChunkRows(i, charsPerRow);
+      return rows;
+   }
+
+   // the row at which the line starts
+   public int getRowOffset(int line, int charsPerRow)
+   {
+      int chunkIndex = (line + firstLineOffset_) / CHUNK_LINES;
+      int rows = 0;
+      for (int i = 0; i < chunkIndex; i++)
+         rows += getChunkRows(i, charsPerRow);
+
+      Chunk chunk = chunks_.get(chunkIndex);
+      int first = chunkIndex == 0 ? firstLineOffset_ : 0;
+      int index = getIndex(line);
+      for (int i = first; i < index; i++)
+         rows += getRows(chunk.length[i], charsPerRow);
+      return rows;
+   }
+
+   // the line which occupies the row (the last line if row is past the end)
+   public int getLineAtRow(int row, int charsPerRow)
+   {
+      if (lineCount_ == 0)
+         return 0;
+
+      int line = 0;
+      for (int i = 0; i < chunks_.size(); i++)
+      {
+         Chunk chunk = chunks_.get(i);
+         int first = i == 0 ? firstLineOffset_ : 0;
+         int chunkRows = getChunkRows(i, charsPerRow);
+         if (row >= chunkRows && i < chunks_.size() - 1)
+         {
+            row -= chunkRows;
+            line += chunk.lineCount - first;
+            continue;
+         }
+
+         for (int index = first; index < chunk.lineCount; index++)
+         {
+            row -= getRows(chunk.length[index], charsPerRow);
+            if (row < 0)
+               return line;
+            line++;
+         }
+         break;
+      }
+      return lineCount_ - 1;
+   }
+
+   private int getChunkRows(int chunkIndex, int charsPerRow)
+   {
+      Chunk chunk = chunks_.get(chunkIndex);
+      if (chunk.rowsCharsPerRow != charsPerRow)
+      {
+         int rows = 0;
+         int first = chunkIndex == 0 ? firstLineOffset_ : 0;
+         for (int i = first; i < chunk.lineCount; i++)
+            rows += getRows(chunk.length[i], charsPerRow);
+         chunk.rows = rows;
+         chunk.rowsCharsPerRow = charsPerRow;
+      }
+      return chunk.rows;
+   }
+
+   private void addRun(String className, String text)
+   {
+      Chunk chunk;
+      if (lastLineOpen_)
+      {
+         chunk = chunks_.get(chunks_.size() - 1);
+      }
+      else
+      {
+         // start a new line
+         if (chunks_.isEmpty() ||
+             chunks_.get(chunks_.size() - 1).lineCount == CHUNK_LINES)
+         {
+            chunks_.add(new Chunk());
+         }
+         chunk = chunks_.get(chunks_.size() - 1);
+         int index = chunk.lineCount++;
+         chunk.runEnd[index] = chunk.runText.size();
+         lineCount_++;
+         lastLineOpen_ = true;
+      }
+
+      int index = chunk.lineCount - 1;
+      chunk.runText.add(text);
+      chunk.runClass.add(className);
+      chunk.runEnd[index]++;
+      chunk.length[index] += text.length();
+      chunk.rowsCharsPerRow = -1;
+   }
+
+   private Chunk getChunk(int line)
+   {
+      return chunks_.get((line + firstLineOffset_) / CHUNK_LINES);
+   }
+
+   private int getIndex(int line)
+   {
+      return (line + firstLineOffset_) % CHUNK_LINES;
+   }
+
+   private static class Chunk
+   {
+      int runStart(int index)
+      {
+         return index == 0 ? 0 : runEnd[index - 1];
+      }
+
+      int lineCount = 0;
+
+      // the runs of each line i are [runEnd[i - 1], runEnd[i])
+      final int[] runEnd = new int[CHUNK_LINES];
+      final int[] length = new int[CHUNK_LINES];
+      final ArrayList<String> runText = new ArrayList<String>();
+      final ArrayList<String> runClass = new ArrayList<String>();
+
+      // cached row count (for the given width)
+      int rows = 0;
+      int rowsCharsPerRow = -1;
+   }
+
+   private final ArrayList<Chunk> chunks_ = new ArrayList<Chunk>();
+
+   // lines removed from the first chunk
+   private int firstLineOffset_ = 0;
+   private int lineCount_ = 0;
+
+   // does the last line continue (i.e. has it not yet ended in a newline)?
+   private boolean lastLineOpen_ = false;
+
+   private static final int CHUNK_LINES = 1024;
+}
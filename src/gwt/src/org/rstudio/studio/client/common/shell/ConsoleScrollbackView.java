@@ -0,0 +1,283 @@
+/*
+ * ConsoleScrollbackView.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.shell;
+
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.PreElement;
+import com.google.gwt.dom.client.SpanElement;
+import com.google.gwt.dom.client.Style.Overflow;
+import com.google.gwt.dom.client.Style.Position;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.ScrollPanel;
+
+// Shows the console scrollback (a ConsoleOutputBuffer) above the live
+// console output. The view is sized to hold every line of the buffer, but
+// only the lines in (or near) the visible part of the scroll panel are
+// rendered, so the size of the DOM doesn't depend on the amount of
+// scrollback. Copying a selection which starts in the scrollback reads
+// the text from the buffer rather than the DOM.
+public class ConsoleScrollbackView extends FlowPanel
+{
+   public ConsoleScrollbackView(ScrollPanel scrollPanel,
+                                String outputClassName)
+   {
+      scrollPanel_ = scrollPanel;
+      outputClassName_ = outputClassName;
+
+      getElement().getStyle().setPosition(Position.RELATIVE);
+      getElement().getStyle().setOverflow(Overflow.HIDDEN);
+
+      view_ = Document.get().createPreElement();
+      view_.setClassName(outputClassName);
+      view_.getStyle().setPosition(Position.ABSOLUTE);
+      view_.getStyle().setLeft(0, Unit.PX);
+      view_.getStyle().setRight(0, Unit.PX);
+      view_.getStyle().setMargin(0, Unit.PX);
+      getElement().appendChild(view_);
+
+      setVisible(false);
+      addCopyHandler(getElement());
+   }
+
+   public ConsoleOutputBuffer getBuffer()
+   {
+      return buffer_;
+   }
+
+   // the width of the console in characters (see
+   // ShellDisplay.getCharacterWidth)
+   public void setCharsPerRow(int charsPerRow)
+   {
+      if (charsPerRow > 0 && charsPerRow != charsPerRow_)
+      {
+         charsPerRow_ = charsPerRow;
+         invalidate();
+      }
+   }
+
+   // the font size (and so the line height) may have changed
+   public void invalidateMetrics()
+   {
+      lineHeight_ = 0;
+      invalidate();
+   }
+
+   // call when the buffer has changed; lays out the view immediately (so
+   // the scroll height is kept in step with the live output)
+   public void refresh()
+   {
+      invalidate();
+      render();
+   }
+
+   // call when the scroll position has changed; renders in the next frame
+   public void scheduleRender()
+   {
+      if (renderScheduled_)
+         return;
+
+      renderScheduled_ = true;
+      AnimationScheduler.get().requestAnimationFrame(new AnimationCallback()
+      {
+         @Override
+         public void execute(double timestamp)
+         {
+            renderScheduled_ = false;
+            render();
+         }
+      });
+   }
+
+   private void invalidate()
+   {
+      renderedFirstLine_ = -1;
+      renderedLastLine_ = -1;
+   }
+
+   private void render()
+   {
+      if (buffer_.isEmpty())
+      {
+         if (isVisible())
+         {
+            view_.setInnerText("");
+            getElement().getStyle().setHeight(0, Unit.PX);
+            setVisible(false);
+         }
+         invalidate();
+         return;
+      }
+
+      setVisible(true);
+      if (lineHeight_ <= 0)
+      {
+         view_.setInnerText("x");
+         lineHeight_ = view_.getOffsetHeight();
+         view_.setInnerText("");
+         invalidate();
+         if (lineHeight_ <= 0)
+            return;
+      }
+
+      int totalRows = buffer_.getRowCount(charsPerRow_);
+      int height = totalRows * lineHeight_;
+      getElement().getStyle().setHeight(height, Unit.PX);
+
+      // the part of the view which is visible in the scroll panel
+      int viewTop = scrollPanel_.getAbsoluteTop() - getAbsoluteTop();
+      int viewBottom = viewTop + scrollPanel_.getOffsetHeight();
+      if (viewBottom <= 0 || viewTop >= height)
+      {
+         if (renderedFirstLine_ != -1)
+            view_.setInnerText("");
+         invalidate();
+         return;
+      }
+
+      int firstRow = Math.max(0, viewTop / lineHeight_ - OVERSCAN_ROWS);
+      int lastRow = Math.min(totalRows - 1,
+                             viewBottom / lineHeight_ + OVERSCAN_ROWS);
+      int firstLine = buffer_.getLineAtRow(firstRow, charsPerRow_);
+      int lastLine = buffer_.getLineAtRow(lastRow, charsPerRow_);
+      if (firstLine == renderedFirstLine_ && lastLine == renderedLastLine_)
+         return;
+
+      Element content = Document.get().createDivElement();
+      for (int line = firstLine; line <= lastLine; line++)
+         content.appendChild(renderLine(line));
+
+      view_.setInnerText("");
+      while (content.hasChildNodes())
+         view_.appendChild(content.getFirstChild());
+      view_.getStyle().setTop(
+            buffer_.getRowOffset(firstLine, charsPerRow_) * lineHeight_,
+            Unit.PX);
+
+      renderedFirstLine_ = firstLine;
+      renderedLastLine_ = lastLine;
+   }
+
+   private Element renderLine(int line)
+   {
+      SpanElement lineElement = Document.get().createSpanElement();
+      lineElement.setAttribute(LINE_ATTRIBUTE, String.valueOf(line));
+
+      int runs = buffer_.getRunCount(line);
+      for (int run = 0; run < runs; run++)
+      {
+         String className = buffer_.getRunClass(line, run);
+         String text = buffer_.getRunText(line, run);
+         if (className.equals(outputClassName_))
+         {
+            lineElement.appendChild(Document.get().createTextNode(text));
+         }
+         else
+         {
+            SpanElement span = Document.get().createSpanElement();
+            span.setClassName(className);
+            span.setInnerText(text);
+            lineElement.appendChild(span);
+         }
+      }
+
+      lineElement.appendChild(Document.get().createTextNode("\n"));
+      return lineElement;
+   }
+
+   // the text to copy if the selection starts in the scrollback (otherwise
+   // null, and the browser copies the selection)
+   private String getSelectedText()
+   {
+      JsArrayInteger start = getSelectionPosition(true);
+      if (start == null)
+         return null;
+
+      JsArrayInteger end = getSelectionPosition(false);
+      if (end != null)
+         return buffer_.getText(start.get(0), start.get(1), 
+                                end.get(0), end.get(1));
+
+      // the selection continues into the live output
+      return buffer_.getText(start.get(0), start.get(1), 
+                             buffer_.getLineCount(), 0) +
+             getSelectedTextAfterView();
+   }
+
+   // the line and column of the start (or end) of the selection, if it's
+   // in the scrollback
+   private native JsArrayInteger getSelectionPosition(boolean start) /*-{
+      var view = this.@org.rstudio.studio.client.common.shell.ConsoleScrollbackView::view_;
+      var attribute = @org.rstudio.studio.client.common.shell.ConsoleScrollbackView::LINE_ATTRIBUTE;
+      var selection = $wnd.getSelection();
+      if (!selection || selection.rangeCount === 0 || selection.isCollapsed)
+         return null;
+
+      var range = selection.getRangeAt(0);
+      var node = start ? range.startContainer : range.endContainer;
+      var offset = start ? range.startOffset : range.endOffset;
+
+      var line = node.nodeType === 1 ? node : node.parentNode;
+      while (line && line !== view &&
+             !(line.nodeType === 1 && line.hasAttribute(attribute)))
+         line = line.parentNode;
+      if (!line || line === view)
+         return null;
+
+      var prefix = $doc.createRange();
+      prefix.setStart(line, 0);
+      prefix.setEnd(node, offset);
+      return [parseInt(line.getAttribute(attribute), 10),
+              prefix.toString().length];
+   }-*/;
+
+   private native String getSelectedTextAfterView() /*-{
+      var selection = $wnd.getSelection();
+      var range = selection.getRangeAt(0);
+      var rest = $doc.createRange();
+      rest.setStartAfter(this.@com.google.gwt.user.client.ui.UIObject::getElement()());
+      rest.setEnd(range.endContainer, range.endOffset);
+      return rest.toString();
+   }-*/;
+
+   private native void addCopyHandler(Element element) /*-{
+      var self = this;
+      element.addEventListener("copy", $entry(function(e) {
+         var text = self.@org.rstudio.studio.client.common.shell.ConsoleScrollbackView::getSelectedText()();
+         if (text != null && e.clipboardData) {
+            e.clipboardData.setData("text/plain", text);
+            e.preventDefault();
+         }
+      }), false);
+   }-*/;
+
+   private final ScrollPanel scrollPanel_;
+   private final String outputClassName_;
+   private final PreElement view_;
+   private final ConsoleOutputBuffer buffer_ = new ConsoleOutputBuffer();
+
+   private int charsPerRow_ = 80;
+   private int lineHeight_ = 0;
+   private int renderedFirstLine_ = -1;
+   private int renderedLastLine_ = -1;
+   private boolean renderScheduled_ = false;
+
+   private static final int OVERSCAN_ROWS = 50;
+   private static final String LINE_ATTRIBUTE = "data-line";
+}
@@ -14,9 +14,14 @@
  */
 package org.rstudio.studio.client.common.shell;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
 
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationHandle;
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
@@ -28,12 +33,12 @@ import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.dom.client.Text;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.*;
 
 import org.rstudio.core.client.ElementIds;
 import org.rstudio.core.client.FilePosition;
 import org.rstudio.core.client.StringUtil;
-import org.rstudio.core.client.TimeBufferedCommand;
 import org.rstudio.core.client.VirtualConsole;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.files.FileSystemItem;
@@ -173,17 +178,19 @@ public class ShellWidget extends Composite implements ShellDisplay,
       scrollPanel_.addClickHandler(secondaryInputHandler);
       scrollPanel_.addKeyDownHandler(secondaryInputHandler);
 
-      secondaryInputHandler.setInput(editor);
-
-      scrollToBottomCommand_ = new TimeBufferedCommand(5)
+      // older output is moved out of the DOM into the scrollback view
+      scrollback_ = new ConsoleScrollbackView(scrollPanel_, styles_.output());
+      verticalPanel_.insert(scrollback_, 0);
+      scrollPanel_.addScrollHandler(new ScrollHandler()
       {
          @Override
-         protected void performAction(boolean shouldSchedulePassive)
+         public void onScroll(ScrollEvent event)
          {
-            if (!DomUtils.selectionExists())
-               scrollPanel_.scrollToBottom();
+            scrollback_.scheduleRender();
          }
-      };
+      });
+
+      secondaryInputHandler.setInput(editor);
 
       initWidget(scrollPanel_) ;
 
@@ -246,8 +253,11 @@ public class ShellWidget extends Composite implements ShellDisplay,
    public void consoleWriteError(final String error)
    {
       clearPendingInput();
-      output(error, getErrorClass(), false);
-
+      queueWrite(new PendingWrite(error, getErrorClass(), PendingWrite.ERROR));
+   }
+   
+   private void onErrorWritten(String error)
+   {
       // Pick up the last element emitted to the console. If we get extended
       // information for this error, we'll need to swap out the simple error
       // element for the extended error element. 
@@ -266,9 +276,20 @@ public class ShellWidget extends Composite implements ShellDisplay,
          final String error, UnhandledError traceInfo, 
          boolean expand, String command)
    {
+      // the error may not have been written yet
+      flushWrites();
+      
       if (errorNodes_.containsKey(error))
       {
          Node errorNode = errorNodes_.get(error);
+         
+         // the error may have been moved to the scrollback
+         if (errorNode.getParentNode() != output_.getElement())
+         {
+            errorNodes_.remove(error);
+            return;
+         }
+         
          clearPendingInput();
          ConsoleError errorWidget = new ConsoleError(
                traceInfo, getErrorClass(), this, command);
@@ -313,13 +334,15 @@ public class ShellWidget extends Composite implements ShellDisplay,
    public void consoleWriteOutput(final String output)
    {
       clearPendingInput();
-      output(output, styles_.output(), false);
+      queueWrite(new PendingWrite(output, styles_.output(), PendingWrite.OUTPUT));
    }
 
    public void consoleWriteInput(final String input)
    {
       clearPendingInput();
-      output(input, styles_.command() + KEYWORD_CLASS_NAME, false);
+      queueWrite(new PendingWrite(input, 
+                                  styles_.command() + KEYWORD_CLASS_NAME,
+                                  PendingWrite.OTHER));
    }
    
    private void clearPendingInput()
@@ -330,12 +353,16 @@ public class ShellWidget extends Composite implements ShellDisplay,
 
    public void consoleWritePrompt(final String prompt)
    {
-      output(prompt, styles_.prompt() + KEYWORD_CLASS_NAME, false);
-      clearErrors_ = true;
+      queueWrite(new PendingWrite(prompt, 
+                                  styles_.prompt() + KEYWORD_CLASS_NAME,
+                                  PendingWrite.PROMPT));
    }
 
    public void consolePrompt(String prompt, boolean showInput)
    {
+      // show everything written before the prompt along with it
+      flushWrites();
+      
       if (prompt != null)
          prompt = VirtualConsole.consolify(prompt);
 
@@ -363,23 +390,147 @@ public class ShellWidget extends Composite implements ShellDisplay,
              RStudioGinjector.INSTANCE.getUIPrefs().getThemeErrorClass();
    }
 
-   private boolean output(String text,
-                          String className,
-                          boolean addToTop)
+   // Writes to the bottom of the console are buffered and applied at most
+   // once per animation frame (within a time budget), so that when output
+   // arrives faster than the display refreshes we lay out, trim and scroll
+   // once per frame rather than once per write. Consecutive writes of plain
+   // output are applied as a single write. Animation frames aren't delivered
+   // (or are heavily throttled) while the page is hidden, so writes are also
+   // flushed by a timer, and immediately once too much output is pending.
+   private static class PendingWrite
+   {
+      PendingWrite(String text, String className, int type)
+      {
+         this.text = text;
+         this.className = className;
+         this.type = type;
+      }
+      
+      String text;
+      final String className;
+      final int type;
+      
+      static final int OUTPUT = 0;
+      static final int ERROR = 1;
+      static final int PROMPT = 2;
+      static final int OTHER = 3;
+   }
+   
+   private void queueWrite(PendingWrite write)
+   {
+      int count = pendingWrites_.size();
+      if (write.type == PendingWrite.OUTPUT && count > 0)
+      {
+         PendingWrite last = pendingWrites_.get(count - 1);
+         // (a form feed clears the console before the write containing it
+         // is applied, so it mustn't take earlier output with it)
+         if (last.type == PendingWrite.OUTPUT && 
+             last.className.equals(write.className) &&
+             write.text.indexOf('\f') < 0)
+         {
+            last.text += write.text;
+            onWriteQueued(write);
+            return;
+         }
+      }
+      
+      pendingWrites_.add(write);
+      onWriteQueued(write);
+   }
+   
+   private void onWriteQueued(PendingWrite write)
+   {
+      pendingChars_ += write.text.length();
+      if (pendingChars_ > MAX_PENDING_CHARS)
+         flushWrites();
+      else
+         scheduleFlush();
+   }
+   
+   private void scheduleFlush()
+   {
+      if (flushScheduled_)
+         return;
+      
+      flushScheduled_ = true;
+      flushFrame_ = AnimationScheduler.get().requestAnimationFrame(
+            new AnimationCallback()
+      {
+         @Override
+         public void execute(double timestamp)
+         {
+            flushScheduled_ = false;
+            flushFallbackTimer_.cancel();
+            flushWrites(FLUSH_BUDGET_MS);
+         }
+      });
+      flushFallbackTimer_.schedule(FLUSH_FALLBACK_MS);
+   }
+   
+   private void cancelFlush()
+   {
+      if (!flushScheduled_)
+         return;
+      
+      flushScheduled_ = false;
+      flushFrame_.cancel();
+      flushFallbackTimer_.cancel();
+   }
+   
+   private void flushWrites()
+   {
+      flushWrites(-1);
+   }
+   
+   // apply pending writes (for up to budget ms if budget is non-negative),
+   // then trim and scroll once
+   private void flushWrites(int budget)
+   {
+      if (pendingWrites_.isEmpty())
+         return;
+      
+      cancelFlush();
+      Duration duration = new Duration();
+      int applied = 0;
+      while (applied < pendingWrites_.size())
+      {
+         PendingWrite write = pendingWrites_.get(applied++);
+         pendingChars_ -= write.text.length();
+         appendOutput(write.text, write.className);
+         if (write.type == PendingWrite.ERROR)
+            onErrorWritten(write.text);
+         else if (write.type == PendingWrite.PROMPT)
+            clearErrors_ = true;
+         
+         if (budget >= 0 && duration.elapsedMillis() > budget)
+            break;
+      }
+      pendingWrites_.subList(0, applied).clear();
+      
+      // (this scrolls to the bottom if the console was scrolled there)
+      trimExcess();
+      scrollPanel_.onContentSizeChanged();
+      
+      // continue in the next frame
+      if (!pendingWrites_.isEmpty())
+         scheduleFlush();
+   }
+
+   private void appendOutput(String text, String className)
    {
       if (text.indexOf('\f') >= 0)
-         clearOutput();
+         clearOutputElement();
 
       Node node;
       boolean isOutput = StringUtil.isNullOrEmpty(className)
                          || className.equals(styles_.output());
 
-      if (isOutput && !addToTop && trailingOutput_ != null)
+      if (isOutput && trailingOutput_ != null)
       {
-         // Short-circuit the case where we're appending output to the
-         // bottom, and there's already some output there. We need to
-         // treat this differently in case the new output uses control
-         // characters to pound over parts of the previous output.
+         // Short-circuit the case where there's already some output at
+         // the bottom. We need to treat this differently in case the new
+         // output uses control characters to pound over parts of the
+         // previous output.
 
          int oldLineCount = DomUtils.countLines(trailingOutput_, true);
          trailingOutputConsole_.submit(text);
@@ -401,31 +552,14 @@ public class ShellWidget extends Composite implements ShellDisplay,
 
             // We use ensureNewLine to make sure that even if output
             // doesn't end with \n, a prompt will appear on its own line.
-            // However, if we call ensureNewLine indiscriminantly (i.e.
-            // on an output that's going to be followed by another output)
-            // we can end up inserting newlines where they don't belong.
-            //
-            // It's safe to add a newline when we're appending output to
-            // the end of the console, because if the next append is also
-            // output, we'll use the contents of VirtualConsole and the
-            // newline we add here will be plowed over.
-            //
-            // If we're prepending output to the top of the console, then
-            // it's safe to add a newline if the next chunk (which is already
-            // there) is something besides output.
-            if (!addToTop ||
-                (!outEl.hasChildNodes()
-                 || outEl.getFirstChild().getNodeType() != Node.TEXT_NODE))
-            {
-               consoleSnapshot = ensureNewLine(consoleSnapshot);
-            }
+            // This is safe because if the next append is also output,
+            // we'll use the contents of VirtualConsole and the newline we
+            // add here will be plowed over.
+            consoleSnapshot = ensureNewLine(consoleSnapshot);
 
             node = Document.get().createTextNode(consoleSnapshot);
-            if (!addToTop)
-            {
-               trailingOutput_ = (Text) node;
-               trailingOutputConsole_ = console;
-            }
+            trailingOutput_ = (Text) node;
+            trailingOutputConsole_ = console;
          }
          else
          {
@@ -433,27 +567,14 @@ public class ShellWidget extends Composite implements ShellDisplay,
             span.setClassName(className);
             span.setInnerText(text);
             node = span;
-            if (!addToTop)
-            {
-               trailingOutput_ = null;
-               trailingOutputConsole_ = null;
-            }
+            trailingOutput_ = null;
+            trailingOutputConsole_ = null;
          }
 
-         if (addToTop)
-            outEl.insertFirst(node);
-         else
-            outEl.appendChild(node);
+         outEl.appendChild(node);
 
          lines_ += DomUtils.countLines(node, true);
       }
-      boolean result = !trimExcess();
-
-      scrollPanel_.onContentSizeChanged();
-      if (scrollPanel_.isScrolledToBottom())
-         scrollToBottomCommand_.nudge();
-
-      return result;
    }
 
    private String ensureNewLine(String s)
@@ -464,75 +585,357 @@ public class ShellWidget extends Composite implements ShellDisplay,
          return s + '\n';
    }
 
+   // Moves output beyond the most recent LIVE_LINES lines into the
+   // scrollback, and trims the scrollback and output to maxLines_. Returns
+   // true if any lines were trimmed.
    private boolean trimExcess()
    {
-      if (maxLines_ <= 0)
-         return false;  // No limit in effect
+      boolean changed = false;
+      if (!playbackInProgress_ && lines_ > LIVE_LINES + LIVE_LINES_SLACK)
+      {
+         evictLines(lines_ - LIVE_LINES);
+         changed = true;
+      }
 
-      int linesToTrim = lines_ - maxLines_;
-      if (linesToTrim > 0)
+      boolean trimmed = false;
+      if (maxLines_ > 0)
       {
-         lines_ -= DomUtils.trimLines(output_.getElement(),
-                                      lines_ - maxLines_);
-         return true;
+         ConsoleOutputBuffer buffer = scrollback_.getBuffer();
+         int linesToTrim = buffer.getLineCount() + lines_ - maxLines_;
+         if (linesToTrim > 0)
+         {
+            int bufferLines = Math.min(linesToTrim, buffer.getLineCount());
+            buffer.trimLines(bufferLines);
+            linesToTrim -= bufferLines;
+            changed |= bufferLines > 0;
+
+            if (linesToTrim > 0)
+               lines_ -= DomUtils.trimLines(output_.getElement(), linesToTrim);
+            trimmed = true;
+         }
       }
 
-      return false;
+      if (changed)
+         scrollback_.refresh();
+      return trimmed;
    }
 
-   public void playbackActions(final RpcObjectList<ConsoleAction> actions)
+   // move the first count lines of the output element to the scrollback
+   private void evictLines(int count)
    {
-      Scheduler.get().scheduleIncremental(new RepeatingCommand()
+      Element outEl = output_.getElement();
+      ConsoleOutputBuffer buffer = scrollback_.getBuffer();
+      while (count > 0 && outEl.hasChildNodes())
       {
-         private int i = actions.length() - 1;
-         private int chunksize = 1000;
-
-         public boolean execute()
+         Node node = outEl.getFirstChild();
+         if (node.getNodeType() == Node.TEXT_NODE)
          {
-            int end = i - chunksize;
-            chunksize = 10;
-            for (; i > end && i >= 0; i--)
+            Text textNode = (Text) node;
+            String text = textNode.getData();
+            
+            // find the end of the last line to move
+            int end = -1;
+            int newlines = 0;
+            while (newlines < count)
             {
-               // User hit Ctrl+L at some point--we're done.
-               if (cleared_)
-                  return false;
-
-               boolean canContinue = false;
+               int next = text.indexOf('\n', end + 1);
+               if (next == -1)
+                  break;
+               end = next;
+               newlines++;
+            }
 
-               ConsoleAction action = actions.get(i);
-               switch (action.getType())
+            if (newlines < count || end == text.length() - 1)
+            {
+               buffer.append(styles_.output(), text);
+               textNode.removeFromParent();
+               if (textNode == trailingOutput_)
                {
-                  case ConsoleAction.INPUT:
-                     canContinue = output(action.getData() + "\n",
-                                          styles_.command() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
-                  case ConsoleAction.OUTPUT:
-                     canContinue = output(action.getData(),
-                                          styles_.output(),
-                                          true);
-                     break;
-                  case ConsoleAction.ERROR:
-                     canContinue = output(action.getData(),
-                                          styles_.error(),
-                                          true);
-                     break;
-                  case ConsoleAction.PROMPT:
-                     canContinue = output(action.getData(),
-                                          styles_.prompt() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
+                  trailingOutput_ = null;
+                  trailingOutputConsole_ = null;
                }
-               if (!canContinue)
-                  return false;
             }
-            if (!DomUtils.selectionExists())
-               scrollPanel_.scrollToBottom();
+            else
+            {
+               buffer.append(styles_.output(), text.substring(0, end + 1));
+               textNode.deleteData(0, end + 1);
+               if (textNode == trailingOutput_)
+                  resetTrailingOutputConsole();
+            }
+            lines_ -= newlines;
+            count -= newlines;
+         }
+         else if (node.getNodeType() == Node.ELEMENT_NODE)
+         {
+            // output, input and prompts are spans of text, which are split
+            // like text nodes; anything else (i.e. errors with a traceback)
+            // is moved as a whole
+            Element el = (Element) node;
+            String text = el.getInnerText();
+            int newlines = DomUtils.countLines(el, true);
+            int end = el.getFirstChildElement() == null && newlines > count ?
+                         nthNewLine(text, count) : -1;
+            if (end == -1)
+            {
+               buffer.append(el.getFirstChildElement() == null ?
+                                el.getClassName() : getErrorClass(),
+                             text);
+               el.removeFromParent();
+               lines_ -= newlines;
+               count -= newlines;
+            }
+            else
+            {
+               buffer.append(el.getClassName(), text.substring(0, end + 1));
+               el.setInnerText(text.substring(end + 1));
+               lines_ -= count;
+               count = 0;
+            }
+         }
+         else
+         {
+            node.removeFromParent();
+         }
+      }
+   }
 
-            return i >= 0;
+   // the index of the nth newline in text, or -1 if there are fewer
+   private static int nthNewLine(String text, int n)
+   {
+      int index = -1;
+      for (int i = 0; i < n; i++)
+      {
+         index = text.indexOf('\n', index + 1);
+         if (index == -1)
+            break;
+      }
+      return index;
+   }
+
+   // the trailing output node has been partially moved to the scrollback;
+   // start a new virtual console with what's left
+   private void resetTrailingOutputConsole()
+   {
+      String text = trailingOutput_.getData();
+      String previous = trailingOutputConsole_.toString();
+      if (!previous.endsWith("\n") && text.endsWith("\n"))
+         text = text.substring(0, text.length() - 1);
+
+      trailingOutputConsole_ = new VirtualConsole();
+      trailingOutputConsole_.submit(text);
+   }
+
+   public void playbackActions(final RpcObjectList<ConsoleAction> actions)
+   {
+      // played back output is prepended to the output element, so it's
+      // kept there (and not moved to the scrollback) until we're done
+      playbackInProgress_ = true;
+      Scheduler.get().scheduleIncremental(new PlaybackCommand(actions));
+   }
+   
+   // An action to be played back, consolified and ready to render
+   private static class PlaybackChunk
+   {
+      PlaybackChunk(String text, String className, boolean isOutput)
+      {
+         this.text = text;
+         this.className = className;
+         this.isOutput = isOutput;
+         lines = countNewLines(text);
+      }
+      
+      final String text;
+      final String className;
+      final boolean isOutput;
+      final int lines;
+   }
+   
+   // Plays back console actions in bulk: first works out (from the newest
+   // back) which actions survive maxLines_ (or the last form feed) and
+   // consolifies them in memory, then renders them from the oldest forward
+   // into a single fragment which is attached to the output at once. Lines
+   // older than those kept in the DOM go straight into the scrollback. Each
+   // step runs for at most PLAYBACK_BUDGET_MS per slice.
+   private class PlaybackCommand implements RepeatingCommand
+   {
+      PlaybackCommand(RpcObjectList<ConsoleAction> actions)
+      {
+         actions_ = actions;
+         next_ = actions.length() - 1;
+      }
+      
+      public boolean execute()
+      {
+         // User hit Ctrl+L at some point--we're done.
+         if (cleared_)
+         {
+            endPlayback();
+            return false;
          }
-      });
+         
+         Duration duration = new Duration();
+         while (duration.elapsedMillis() < PLAYBACK_BUDGET_MS)
+         {
+            if (next_ >= 0)
+            {
+               collect(actions_.get(next_--));
+               if (next_ < 0)
+                  startBuild();
+            }
+            else if (build_ >= 0)
+            {
+               build(chunks_.get(build_--));
+            }
+            else
+            {
+               attach();
+               endPlayback();
+               return false;
+            }
+         }
+         return true;
+      }
+      
+      private void collect(ConsoleAction action)
+      {
+         String text = action.getData();
+         String className;
+         switch (action.getType())
+         {
+            case ConsoleAction.INPUT:
+               text = text + "\n";
+               className = styles_.command() + " " + KEYWORD_CLASS_NAME;
+               break;
+            case ConsoleAction.OUTPUT:
+               className = styles_.output();
+               break;
+            case ConsoleAction.ERROR:
+               className = styles_.error();
+               break;
+            case ConsoleAction.PROMPT:
+               className = styles_.prompt() + " " + KEYWORD_CLASS_NAME;
+               break;
+            default:
+               return;
+         }
+         
+         // nothing before a form feed is shown
+         boolean formFeed = text.indexOf('\f') >= 0;
+         if (formFeed)
+            text = text.substring(text.lastIndexOf('\f') + 1);
+         
+         boolean isOutput = action.getType() == ConsoleAction.OUTPUT;
+         text = VirtualConsole.consolify(text);
+         
+         // make sure a prompt will appear on its own line (see appendOutput)
+         if (isOutput && !isNextChunkText())
+            text = ensureNewLine(text);
+         
+         PlaybackChunk chunk = new PlaybackChunk(text, className, isOutput);
+         chunks_.add(chunk);
+         collectedLines_ += chunk.lines;
+         
+         // this is the oldest action which will survive
+         if (formFeed || (maxLines_ > 0 && collectedLines_ >= maxLines_))
+            next_ = -1;
+      }
+      
+      // is the chunk which will follow the one being collected a text node?
+      private boolean isNextChunkText()
+      {
+         if (!chunks_.isEmpty())
+            return chunks_.get(chunks_.size() - 1).isOutput;
+         
+         Element outEl = output_.getElement();
+         return outEl.hasChildNodes() &&
+                outEl.getFirstChild().getNodeType() == Node.TEXT_NODE;
+      }
+      
+      private void startBuild()
+      {
+         build_ = chunks_.size() - 1;
+         remainingLines_ = collectedLines_;
+         
+         // the scrollback holds the oldest output, so it can only take
+         // played back output if it's empty
+         useScrollback_ = scrollback_.getBuffer().isEmpty();
+      }
+      
+      private void build(PlaybackChunk chunk)
+      {
+         remainingLines_ -= chunk.lines;
+         if (useScrollback_ && remainingLines_ >= LIVE_LINES)
+         {
+            scrollback_.getBuffer().append(chunk.className, chunk.text);
+            return;
+         }
+         
+         Node node;
+         if (chunk.isOutput)
+         {
+            node = Document.get().createTextNode(chunk.text);
+         }
+         else
+         {
+            SpanElement span = Document.get().createSpanElement();
+            span.setClassName(chunk.className);
+            span.setInnerText(chunk.text);
+            node = span;
+         }
+         fragment_.appendChild(node);
+         fragmentLines_ += chunk.lines;
+      }
+      
+      private void attach()
+      {
+         if (fragment_.hasChildNodes())
+            output_.getElement().insertFirst(fragment_);
+         lines_ += fragmentLines_;
+      }
+      
+      private void endPlayback()
+      {
+         playbackInProgress_ = false;
+         trimExcess();
+         scrollback_.refresh();
+         scrollPanel_.onContentSizeChanged();
+         if (!DomUtils.selectionExists())
+            scrollPanel_.scrollToBottom();
+      }
+      
+      private final RpcObjectList<ConsoleAction> actions_;
+      
+      // the index of the next action to collect
+      private int next_;
+      
+      // the collected actions, newest first
+      private final ArrayList<PlaybackChunk> chunks_ =
+                                             new ArrayList<PlaybackChunk>();
+      private int collectedLines_ = 0;
+      
+      // the index of the next chunk to build (-1 until all are collected)
+      private int build_ = -1;
+      private int remainingLines_;
+      private boolean useScrollback_;
+      private final Node fragment_ = createDocumentFragment();
+      private int fragmentLines_ = 0;
+   }
+   
+   private static int countNewLines(String text)
+   {
+      int count = 0;
+      int index = text.indexOf('\n');
+      while (index != -1)
+      {
+         count++;
+         index = text.indexOf('\n', index + 1);
+      }
+      return count;
    }
+   
+   private static native Node createDocumentFragment() /*-{
+      return $doc.createDocumentFragment();
+   }-*/;
 
    public void focus()
    {
@@ -639,9 +1042,19 @@ public class ShellWidget extends Composite implements ShellDisplay,
    }
 
    public void clearOutput()
+   {
+      cancelFlush();
+      pendingWrites_.clear();
+      pendingChars_ = 0;
+      clearOutputElement();
+   }
+   
+   private void clearOutputElement()
    {
       output_.setText("") ;
       lines_ = 0;
+      scrollback_.getBuffer().clear();
+      scrollback_.refresh();
       cleared_ = true;
       trailingOutput_ = null;
       trailingOutputConsole_ = null;
@@ -769,6 +1182,11 @@ public class ShellWidget extends Composite implements ShellDisplay,
    {
       if (getWidget() instanceof RequiresResize)
          ((RequiresResize)getWidget()).onResize();
+
+      // the width (and the font size) may have changed
+      scrollback_.setCharsPerRow(getCharacterWidth());
+      scrollback_.invalidateMetrics();
+      scrollback_.scheduleRender();
    }
 
    @Override
@@ -781,6 +1199,8 @@ public class ShellWidget extends Composite implements ShellDisplay,
    private int maxLines_ = -1;
    private boolean cleared_ = false;
    private final PreWidget output_ ;
+   private final ConsoleScrollbackView scrollback_;
+   private boolean playbackInProgress_ = false;
    private PreWidget pendingInput_ ;
    // Save a reference to the most recent output text node in case the
    // next bit of output contains \b or \r control characters
@@ -792,13 +1212,36 @@ public class ShellWidget extends Composite implements ShellDisplay,
    private final VerticalPanel verticalPanel_ ;
    protected final ClickableScrollPanel scrollPanel_ ;
    private ConsoleResources.ConsoleStyles styles_;
-   private final TimeBufferedCommand scrollToBottomCommand_;
    private boolean suppressPendingInput_;
    private final EventBus events_;
    
    // A list of errors that have occurred between console prompts. 
    private Map<String, Node> errorNodes_ = new TreeMap<String, Node>();
    private boolean clearErrors_ = false;
+   
+   private final ArrayList<PendingWrite> pendingWrites_ = 
+                                             new ArrayList<PendingWrite>();
+   private int pendingChars_ = 0;
+   private boolean flushScheduled_ = false;
+   private AnimationHandle flushFrame_;
+   private final Timer flushFallbackTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         flushWrites();
+      }
+   };
+   private static final int FLUSH_BUDGET_MS = 12;
+   private static final int FLUSH_FALLBACK_MS = 250;
+   private static final int MAX_PENDING_CHARS = 256 * 1024;
+   private static final int PLAYBACK_BUDGET_MS = 12;
+   
+   // the number of lines of output kept in the DOM (once there are more
+   // than LIVE_LINES + LIVE_LINES_SLACK, older lines are moved to the
+   // scrollback)
+   private static final int LIVE_LINES = 1000;
+   private static final int LIVE_LINES_SLACK = 500;
 
    private static final String KEYWORD_CLASS_NAME = ConsoleResources.KEYWORD_CLASS_NAME;
 }
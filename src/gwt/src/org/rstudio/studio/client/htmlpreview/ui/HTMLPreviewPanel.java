@@ -21,6 +21,7 @@ import com.google.gwt.event.dom.client.KeyCodes;
 import com.google.gwt.event.dom.client.KeyDownEvent;
 import com.google.gwt.event.dom.client.KeyDownHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.LayoutPanel;
 import com.google.gwt.user.client.ui.ResizeComposite;
 import com.google.gwt.user.client.ui.Widget;
@@ -32,6 +33,7 @@ import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.core.client.widget.CanFocus;
 import org.rstudio.core.client.widget.FindTextBox;
+import org.rstudio.core.client.widget.IncrementalFrameRefresher;
 import org.rstudio.core.client.widget.MessageDialog;
 import org.rstudio.core.client.widget.AnchorableFrame;
 import org.rstudio.core.client.widget.Toolbar;
@@ -241,7 +243,28 @@ public class HTMLPreviewPanel extends ResizeComposite
       publishButtonSeparator_.setVisible(publishButton_.isVisible());
       refreshButtonSeparator_.setVisible(enableRefresh);
       refreshButton_.setVisible(enableRefresh);
-      previewFrame_.navigate(url);
+      
+      // when showing a new version of the same document, patch the parts of
+      // the page that changed (falling back to a reload if that isn't 
+      // possible)
+      if (url.equals(previewUrl_))
+      {
+         final String reloadUrl = url;
+         frameRefresher_.refresh(previewFrame_, url, new Command()
+         {
+            @Override
+            public void execute()
+            {
+               previewFrame_.navigate(reloadUrl);
+            }
+         });
+      }
+      else
+      {
+         previewFrame_.navigate(url);
+         frameRefresher_.onNavigated(url);
+      }
+      previewUrl_ = url;
    }
    
    @Override
@@ -265,6 +288,9 @@ public class HTMLPreviewPanel extends ResizeComposite
    }
 
    private final AnchorableFrame previewFrame_;
+   private final IncrementalFrameRefresher frameRefresher_ =
+                                       new IncrementalFrameRefresher();
+   private String previewUrl_;
    private ToolbarLabel fileLabel_;
    private FindTextBox findTextBox_;
    private Widget saveHtmlPreviewAsSeparator_;
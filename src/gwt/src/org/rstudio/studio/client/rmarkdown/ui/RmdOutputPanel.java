@@ -24,6 +24,7 @@ import com.google.gwt.event.dom.client.KeyDownEvent;
 import com.google.gwt.event.dom.client.KeyDownHandler;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.Widget;
@@ -39,6 +40,7 @@ import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.core.client.widget.AnchorableFrame;
 import org.rstudio.core.client.widget.CanFocus;
 import org.rstudio.core.client.widget.FindTextBox;
+import org.rstudio.core.client.widget.IncrementalFrameRefresher;
 import org.rstudio.core.client.widget.MessageDialog;
 import org.rstudio.core.client.widget.Operation;
 import org.rstudio.core.client.widget.SatelliteFramePanel;
@@ -143,7 +145,30 @@ public class RmdOutputPanel extends SatelliteFramePanel<AnchorableFrame>
       if (anchor.length() > 0)
          url += "#" + anchor;
       
-      showUrl(url);
+      // when refreshing an HTML document, patch the parts of the page that
+      // changed (falling back to a reload if that isn't possible); slides
+      // are excluded since the presentation is built by script on load
+      boolean canPatch = !isShiny_ && 
+                         params.getResult().isHtml() &&
+                         !params.getResult().isHtmlPresentation();
+      if (refresh && canPatch && getFrame() != null)
+      {
+         final String reloadUrl = url;
+         frameRefresher_.refresh(getFrame(), url, new Command()
+         {
+            @Override
+            public void execute()
+            {
+               showUrl(reloadUrl);
+            }
+         });
+      }
+      else
+      {
+         showUrl(url);
+         if (canPatch)
+            frameRefresher_.onNavigated(url);
+      }
    }
    
    @Override
@@ -503,6 +528,8 @@ public class RmdOutputPanel extends SatelliteFramePanel<AnchorableFrame>
    private boolean isShiny_;
    private String shinyUrl_;
    private ShinyFrameHelper shinyFrame_;
+   private final IncrementalFrameRefresher frameRefresher_ = 
+                                       new IncrementalFrameRefresher();
    
    private HandlerManager handlerManager_ = new HandlerManager(this);
 }
@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.rsconnect.model;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
 
 public class RSConnectDeploymentFiles extends JavaScriptObject
@@ -27,6 +28,12 @@ public class RSConnectDeploymentFiles extends JavaScriptObject
       return this.dir_list;
    }-*/;
 
+   // sizes of the files in the directory list (in the same order), or null
+   // if not known
+   public final native JsArrayNumber getFileSizes() /*-{
+      return this.file_sizes || null;
+   }-*/;
+
    public final native int getDirSize() /*-{
       return this.dir_size;
    }-*/;
@@ -0,0 +1,336 @@
+/*
+ * RSConnectDeploymentManifest.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.rsconnect.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+// The files offered for deployment, organized as a tree of directories.
+// Files are looked up by path in a hash map, and each directory keeps the
+// number of files beneath it, how many of those are included in the
+// deployment, and their total size, so a directory can be summarized (and
+// drawn with the right check state) without visiting its contents.
+public class RSConnectDeploymentManifest
+{
+   public static class Node
+   {
+      private Node(Node parent, String name, String path, boolean directory)
+      {
+         parent_ = parent;
+         name_ = name;
+         path_ = path;
+         directory_ = directory;
+         depth_ = parent == null ? -1 : parent.depth_ + 1;
+      }
+
+      public String getName()
+      {
+         return name_;
+      }
+
+      // path relative to the deployment directory ('/' separated)
+      public String getPath()
+      {
+         return path_;
+      }
+
+      public boolean isDirectory()
+      {
+         return directory_;
+      }
+
+      public Node getParent()
+      {
+         return parent_;
+      }
+
+      public ArrayList<Node> getChildren()
+      {
+         return children_;
+      }
+
+      // depth below the top level (top level nodes have depth 0)
+      public int getDepth()
+      {
+         return depth_;
+      }
+
+      public boolean isExpanded()
+      {
+         return expanded_;
+      }
+
+      public boolean isPrimary()
+      {
+         return primary_;
+      }
+
+      // number of files at or beneath this node
+      public int getFileCount()
+      {
+         return fileCount_;
+      }
+
+      // number of files at or beneath this node included in the deployment
+      public int getIncludedCount()
+      {
+         return includedCount_;
+      }
+
+      // total size in bytes of the files at or beneath this node (files of
+      // unknown size count as zero)
+      public long getSize()
+      {
+         return size_;
+      }
+
+      public boolean isIncluded()
+      {
+         return fileCount_ > 0 && includedCount_ == fileCount_;
+      }
+
+      public boolean isPartiallyIncluded()
+      {
+         return includedCount_ > 0 && includedCount_ < fileCount_;
+      }
+
+      private Node parent_;
+      private String name_;
+      private final String path_;
+      private final boolean directory_;
+      private int depth_;
+      private final ArrayList<Node> children_ = new ArrayList<Node>();
+      private boolean expanded_ = false;
+      private boolean primary_ = false;
+      private int fileCount_ = 0;
+      private int includedCount_ = 0;
+      private long size_ = 0;
+   }
+
+   public RSConnectDeploymentManifest()
+   {
+      clear();
+   }
+
+   public void clear()
+   {
+      root_ = new Node(null, "", "", true);
+      root_.expanded_ = true;
+      paths_ = new ArrayList<String>();
+      files_ = new HashMap<String, Node>();
+      dirs_ = new HashMap<String, Node>();
+      visibleNodes_ = null;
+   }
+
+   public Node getRoot()
+   {
+      return root_;
+   }
+
+   public int getFileCount()
+   {
+      return root_.fileCount_;
+   }
+
+   public boolean contains(String path)
+   {
+      return files_.containsKey(path);
+   }
+
+   public boolean isIncluded(String path)
+   {
+      Node node = files_.get(path);
+      return node != null && node.isIncluded();
+   }
+
+   // adds a file (of size -1 if unknown); returns false if the file is
+   // already in the manifest
+   public boolean addFile(String path, long size, boolean included)
+   {
+      if (files_.containsKey(path))
+         return false;
+
+      Node parent = root_;
+      int sep = path.lastIndexOf('/');
+      if (sep > 0)
+         parent = getDirectory(path.substring(0, sep));
+
+      Node file = new Node(parent, path.substring(sep + 1), path, false);
+      parent.children_.add(file);
+      files_.put(path, file);
+      paths_.add(path);
+
+      adjustCounts(file, 1, included ? 1 : 0, Math.max(0, size));
+      visibleNodes_ = null;
+      return true;
+   }
+
+   // the primary file is always included, and is listed first; if it's in a
+   // subdirectory it's moved to the top level (and named by its path)
+   public void setPrimaryFile(String path)
+   {
+      Node file = files_.get(path);
+      if (file == null)
+         return;
+
+      setIncluded(file, true);
+      file.primary_ = true;
+
+      Node parent = file.parent_;
+      parent.children_.remove(file);
+      if (parent != root_)
+      {
+         adjustCounts(parent, -1, -1, -file.size_);
+         removeIfEmpty(parent);
+         file.parent_ = root_;
+         file.name_ = path;
+         file.depth_ = 0;
+         adjustCounts(root_, 1, 1, file.size_);
+      }
+      root_.children_.add(0, file);
+      paths_.remove(path);
+      paths_.add(0, path);
+      visibleNodes_ = null;
+   }
+
+   public void setIncluded(String path, boolean included)
+   {
+      Node file = files_.get(path);
+      if (file != null)
+         setIncluded(file, included);
+   }
+
+   // includes or excludes a file, or all of the files beneath a directory
+   // (except the primary file)
+   public void setIncluded(Node node, boolean included)
+   {
+      if (node.directory_)
+      {
+         for (Node child : node.children_)
+            setIncluded(child, included);
+      }
+      else if (!node.primary_ && node.isIncluded() != included)
+      {
+         adjustCounts(node, 0, included ? 1 : -1, 0);
+      }
+   }
+
+   // includes or excludes every file except the primary file and those whose
+   // (lower case) names are in the exempt set
+   public void setAllIncluded(boolean included, Set<String> exempt)
+   {
+      for (String path : paths_)
+      {
+         Node file = files_.get(path);
+         if (!exempt.contains(file.name_.toLowerCase()))
+            setIncluded(file, included);
+      }
+   }
+
+   // the paths of the files included (or excluded) in the order they were
+   // added (primary file first)
+   public ArrayList<String> getFiles(boolean included)
+   {
+      ArrayList<String> files = new ArrayList<String>();
+      for (String path : paths_)
+      {
+         if (files_.get(path).isIncluded() == included)
+            files.add(path);
+      }
+      return files;
+   }
+
+   public void setExpanded(Node node, boolean expanded)
+   {
+      if (!node.directory_ || node.expanded_ == expanded)
+         return;
+      node.expanded_ = expanded;
+      visibleNodes_ = null;
+   }
+
+   public void setAllExpanded(boolean expanded)
+   {
+      for (Node dir : dirs_.values())
+         dir.expanded_ = expanded;
+      visibleNodes_ = null;
+   }
+
+   // the nodes shown when the tree is drawn (i.e. those with no collapsed
+   // ancestors), in display order
+   public ArrayList<Node> getVisibleNodes()
+   {
+      if (visibleNodes_ == null)
+      {
+         visibleNodes_ = new ArrayList<Node>();
+         addVisibleNodes(root_, visibleNodes_);
+      }
+      return visibleNodes_;
+   }
+
+   private void addVisibleNodes(Node dir, ArrayList<Node> nodes)
+   {
+      for (Node child : dir.children_)
+      {
+         nodes.add(child);
+         if (child.directory_ && child.expanded_)
+            addVisibleNodes(child, nodes);
+      }
+   }
+
+   private Node getDirectory(String path)
+   {
+      Node dir = dirs_.get(path);
+      if (dir != null)
+         return dir;
+
+      Node parent = root_;
+      int sep = path.lastIndexOf('/');
+      if (sep > 0)
+         parent = getDirectory(path.substring(0, sep));
+
+      dir = new Node(parent, path.substring(sep + 1), path, true);
+      parent.children_.add(dir);
+      dirs_.put(path, dir);
+      return dir;
+   }
+
+   // removes a directory (and any ancestors) left with nothing beneath it
+   private void removeIfEmpty(Node dir)
+   {
+      while (dir != root_ && dir.children_.isEmpty())
+      {
+         dir.parent_.children_.remove(dir);
+         dirs_.remove(dir.path_);
+         dir = dir.parent_;
+      }
+   }
+
+   private void adjustCounts(Node node, int files, int included, long size)
+   {
+      for (; node != null; node = node.parent_)
+      {
+         node.fileCount_ += files;
+         node.includedCount_ += included;
+         node.size_ += size;
+      }
+   }
+
+   private Node root_;
+   private ArrayList<String> paths_;
+   private HashMap<String, Node> files_;
+   private HashMap<String, Node> dirs_;
+   private ArrayList<Node> visibleNodes_;
+}
@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.rsconnect.ui;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import org.rstudio.core.client.JsArrayUtil;
 import org.rstudio.core.client.StringUtil;
@@ -33,6 +34,7 @@ import org.rstudio.studio.client.rsconnect.RSConnect;
 import org.rstudio.studio.client.rsconnect.model.RSConnectAccount;
 import org.rstudio.studio.client.rsconnect.model.RSConnectApplicationInfo;
 import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentFiles;
+import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentManifest;
 import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentRecord;
 import org.rstudio.studio.client.rsconnect.model.RSConnectPublishResult;
 import org.rstudio.studio.client.rsconnect.model.RSConnectPublishSettings;
@@ -44,9 +46,9 @@ import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
-import com.google.gwt.dom.client.Style.FontWeight;
 import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.dom.client.ChangeEvent;
 import com.google.gwt.event.dom.client.ChangeHandler;
@@ -60,7 +62,6 @@ import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.Anchor;
-import com.google.gwt.user.client.ui.CheckBox;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.Grid;
 import com.google.gwt.user.client.ui.HTMLPanel;
@@ -88,6 +89,9 @@ public class RSConnectDeploy extends Composite
       String deployLabel();
       String descriptionPanel();
       String fileList();
+      String fileTreeDetail();
+      String fileTreeRow();
+      String fileTreeToggle();
       String firstControlLabel();
       String gridControl();
       String launchCheck();
@@ -348,7 +352,7 @@ public class RSConnectDeploy extends Composite
    
    public void addFileToList(String path)
    {
-      addFile(path, true);
+      addFile(path, -1, true);
    }
    
    public ArrayList<String> getFileList()
@@ -444,7 +448,7 @@ public class RSConnectDeploy extends Composite
       ArrayList<String> additionalFiles = new ArrayList<String>();
       for (String filePath: filesAddedManually_)
       {
-         if (deployFiles.contains(filePath))
+         if (manifest_.isIncluded(filePath))
          {
             additionalFiles.add(filePath);
          }
@@ -509,48 +513,30 @@ public class RSConnectDeploy extends Composite
    // Private methods --------------------------------------------------------
    
    private void setFileList(ArrayList<String> files,
+         JsArrayNumber fileSizes,
          ArrayList<String> additionalFiles, ArrayList<String> ignoredFiles)
    {
-      fileChecks_ = new ArrayList<CheckBox>();
+      HashSet<String> ignored = new HashSet<String>();
+      if (ignoredFiles != null)
+         ignored.addAll(ignoredFiles);
+      HashSet<String> additional = new HashSet<String>();
+      if (additionalFiles != null)
+         additional.addAll(additionalFiles);
       
       // clear existing file list
-      fileListPanel_.clear(); 
+      manifest_.clear();
       for (int i = 0; i < files.size(); i++)
       {
-         boolean checked = true;
-         boolean add = true;
-         
-         // if this file is marked ignored, uncheck it
-         if (ignoredFiles != null)
-         {
-            for (int j = 0; j < ignoredFiles.size(); j++)
-            {
-               if (ignoredFiles.get(j).equals(files.get(i)))
-               {
-                  checked = false; 
-                  break;
-               }
-            }
-         }
-
          // if this file is marked additional, don't add it twice (we're about
          // to add the additional files separately below)
-         if (additionalFiles != null)
-         {
-            for (int j = 0; j < additionalFiles.size(); j++)
-            {
-               if (additionalFiles.get(j).equals(files.get(i)))
-               {
-                  add = false; 
-                  break;
-               }
-            }
-         }
+         String file = files.get(i);
+         if (additional.contains(file))
+            continue;
 
-         if (add)
-         {
-            addFile(files.get(i), checked);
-         }
+         // if this file is marked ignored, uncheck it
+         long size = fileSizes != null && i < fileSizes.length() ?
+               (long)fileSizes.get(i) : -1;
+         manifest_.addFile(file, size, !ignored.contains(file));
       }
 
       // add any additional files 
@@ -558,12 +544,16 @@ public class RSConnectDeploy extends Composite
       {
          for (int i = 0; i < additionalFiles.size(); i++)
          {
-            addFile(additionalFiles.get(i), true);
+            manifest_.addFile(additionalFiles.get(i), -1, true);
          }
       }
       
+      // show the whole tree when it's small enough to take in at a glance
+      manifest_.setAllExpanded(manifest_.getFileCount() <= MAX_EXPANDED_FILES);
+      fileTree_.setManifest(manifest_);
+      
       // hide check/uncheck all button if there are only a few files
-      if (fileChecks_.size() < 3)
+      if (manifest_.getFileCount() < 3)
       {
          hideCheckUncheckAllButton();
       }
@@ -731,7 +721,7 @@ public class RSConnectDeploy extends Composite
          FileSystemItem selfContained = FileSystemItem.createFile(
                      source_.getDeployFile());
          files.add(selfContained.getName());
-         setFileList(files, null, null);
+         setFileList(files, null, null, null);
          setPrimaryFile(selfContained.getName());
          return;
       }
@@ -769,6 +759,7 @@ public class RSConnectDeploy extends Composite
                      }
                      setFileList(
                            JsArrayUtil.fromJsArrayString(files.getDirList()), 
+                           files.getFileSizes(),
                            fromPrevious_ != null ?
                                  fromPrevious_.getAdditionalFiles() : null, 
                            fromPrevious_ != null ? 
@@ -799,27 +790,15 @@ public class RSConnectDeploy extends Composite
       
    }
 
-   private void addFile(String path, boolean checked)
+   private void addFile(String path, long size, boolean checked)
    {
-      CheckBox fileCheck = new CheckBox(path);
-      fileCheck.setValue(checked);
-      fileListPanel_.add(fileCheck);
-      fileChecks_.add(fileCheck);
+      manifest_.addFile(path, size, checked);
+      fileTree_.refresh();
    }
    
    private ArrayList<String> getCheckedFileList(boolean checked)
    {
-      ArrayList<String> files = new ArrayList<String>();
-      if (fileChecks_ == null)
-         return files;
-      for (int i = 0; i < fileChecks_.size(); i++)
-      {
-         if (fileChecks_.get(i).getValue() == checked)
-         {
-            files.add(fileChecks_.get(i).getText());
-         }
-      }
-      return files;
+      return manifest_.getFiles(checked);
    }
    
    private void onAddFileClick()
@@ -852,16 +831,14 @@ public class RSConnectDeploy extends Composite
                      {
                         // see if the file is already in the list (we don't 
                         // want to duplicate an existing entry)
-                        ArrayList<String> files = getFileList();
-                        for (String file: files)
+                        if (manifest_.contains(path))
                         {
-                           if (file.equals(path))
-                           {
-                              indicator.onCompleted();
-                              return;
-                           }
+                           manifest_.setIncluded(path, true);
+                           fileTree_.refresh();
+                           indicator.onCompleted();
+                           return;
                         }
-                        addFileToList(path);
+                        addFile(path, input.getLength(), true);
                         filesAddedManually_.add(path);
                      }
                   }
@@ -872,23 +849,10 @@ public class RSConnectDeploy extends Composite
 
    private void setPrimaryFile(String path)
    {
-      if (fileChecks_ == null)
-         return;
-
-      for (int i = 0; i < fileChecks_.size(); i++)
-      {
-         CheckBox fileCheck = fileChecks_.get(i);
-         if (fileCheck.getText().equals(path))
-         {
-            // don't allow the user to unselect the primary file
-            fileCheck.setEnabled(false);
-            
-            // make this bold and move it to the top
-            fileCheck.getElement().getStyle().setFontWeight(FontWeight.BOLD);
-            fileListPanel_.remove(fileCheck);
-            fileListPanel_.insert(fileCheck, 0);
-         }
-      }
+      // the primary file can't be unselected, and is shown in bold at the
+      // top of the list
+      manifest_.setPrimaryFile(path);
+      fileTree_.refresh();
    }
    
    private void applySource()
@@ -1050,18 +1014,14 @@ public class RSConnectDeploy extends Composite
    private void checkUncheckAll()
    {
       allChecked_ = !allChecked_;
-      for (CheckBox box: fileChecks_)
-      {
-         // don't toggle state for disabled boxes, or common Shiny .R filenames
-         String file = box.getText().toLowerCase();
-         if (box.isEnabled() &&
-             file != "ui.r" &&
-             file != "server.r" &&
-             file != "app.r")
-         {
-            box.setValue(allChecked_);
-         }
-      }
+
+      // don't toggle state for the primary file, or common Shiny .R filenames
+      HashSet<String> exempt = new HashSet<String>();
+      exempt.add("ui.r");
+      exempt.add("server.r");
+      exempt.add("app.r");
+      manifest_.setAllIncluded(allChecked_, exempt);
+      fileTree_.refresh();
       checkUncheckAllButton_.setText(allChecked_ ? "Uncheck All" : "Check All");
    }
    
@@ -1085,12 +1045,13 @@ public class RSConnectDeploy extends Composite
    @UiField ThemedButton addFileButton_;
    @UiField ThemedButton checkUncheckAllButton_;
    @UiField ThemedButton previewButton_;
-   @UiField VerticalPanel fileListPanel_;
    @UiField VerticalPanel filePanel_;
    @UiField VerticalPanel descriptionPanel_;
    @UiField(provided=true) RSConnectAccountList accountList_;
+   @UiField RSConnectDeployFileTree fileTree_;
    
-   private ArrayList<CheckBox> fileChecks_;
+   private final RSConnectDeploymentManifest manifest_ = 
+         new RSConnectDeploymentManifest();
    private ArrayList<String> filesAddedManually_ = 
          new ArrayList<String>();
    
@@ -1109,4 +1070,6 @@ public class RSConnectDeploy extends Composite
 
    private final DeployStyle style_;
    private final boolean forDocument_;
+   
+   private final static int MAX_EXPANDED_FILES = 50;
 }
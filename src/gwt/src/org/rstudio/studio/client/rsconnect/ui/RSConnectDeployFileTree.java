@@ -0,0 +1,218 @@
+/*
+ * RSConnectDeployFileTree.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.rsconnect.ui;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentManifest;
+import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentManifest.Node;
+
+import com.google.gwt.dom.client.InputElement;
+import com.google.gwt.dom.client.Style.FontWeight;
+import com.google.gwt.dom.client.Style.Position;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.user.client.ui.CheckBox;
+import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.InlineLabel;
+import com.google.gwt.user.client.ui.ScrollPanel;
+
+// Draws an RSConnectDeploymentManifest as a collapsible tree of check boxes.
+// Only the rows in (or near) view exist as widgets; they're drawn into a
+// panel sized to hold every visible node and are rebound to different nodes
+// as the tree scrolls, so the cost of drawing (or of checking a directory)
+// doesn't depend on the number of files.
+public class RSConnectDeployFileTree extends Composite
+{
+   public RSConnectDeployFileTree()
+   {
+      style_ = RSConnectDeploy.RESOURCES.style();
+      style_.ensureInjected();
+
+      content_ = new FlowPanel();
+      content_.getElement().getStyle().setPosition(Position.RELATIVE);
+      scrollPanel_ = new ScrollPanel(content_);
+      scrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            render();
+         }
+      });
+      initWidget(scrollPanel_);
+   }
+
+   public void setManifest(RSConnectDeploymentManifest manifest)
+   {
+      manifest_ = manifest;
+      refresh();
+   }
+
+   // call when nodes have been added to the manifest (or its primary file
+   // has changed)
+   public void refresh()
+   {
+      if (manifest_ == null)
+         return;
+      ArrayList<Node> nodes = manifest_.getVisibleNodes();
+      content_.setHeight((nodes.size() * ROW_HEIGHT) + "px");
+      render();
+   }
+
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+      render();
+   }
+
+   private void render()
+   {
+      if (manifest_ == null)
+         return;
+
+      ArrayList<Node> nodes = manifest_.getVisibleNodes();
+      int viewportRows = scrollPanel_.getOffsetHeight() > 0 ?
+            scrollPanel_.getOffsetHeight() / ROW_HEIGHT + 1 :
+            DEFAULT_VIEWPORT_ROWS;
+      int first = Math.max(0,
+            scrollPanel_.getVerticalScrollPosition() / ROW_HEIGHT - OVERSCAN);
+      int last = Math.min(nodes.size(), first + viewportRows + 2 * OVERSCAN);
+
+      for (int i = 0; i < last - first; i++)
+      {
+         if (i == rows_.size())
+         {
+            Row row = new Row();
+            rows_.add(row);
+            content_.add(row.panel);
+         }
+         rows_.get(i).bind(nodes.get(first + i), first + i);
+      }
+
+      for (int i = last - first; i < rows_.size(); i++)
+         rows_.get(i).unbind();
+   }
+
+   private class Row
+   {
+      Row()
+      {
+         panel = new FlowPanel();
+         panel.setStyleName(style_.fileTreeRow());
+         panel.getElement().getStyle().setPosition(Position.ABSOLUTE);
+         panel.getElement().getStyle().setHeight(ROW_HEIGHT, Unit.PX);
+
+         toggle = new InlineLabel();
+         toggle.setStyleName(style_.fileTreeToggle());
+         toggle.addClickHandler(new ClickHandler()
+         {
+            @Override
+            public void onClick(ClickEvent event)
+            {
+               if (node == null || !node.isDirectory())
+                  return;
+               manifest_.setExpanded(node, !node.isExpanded());
+               refresh();
+            }
+         });
+         panel.add(toggle);
+
+         check = new CheckBox();
+         check.addValueChangeHandler(new ValueChangeHandler<Boolean>()
+         {
+            @Override
+            public void onValueChange(ValueChangeEvent<Boolean> event)
+            {
+               if (node == null)
+                  return;
+               manifest_.setIncluded(node, event.getValue());
+
+               // redraw, since the directories containing this node (and
+               // the nodes it contains) may have changed state
+               render();
+            }
+         });
+         panel.add(check);
+
+         detail = new InlineLabel();
+         detail.setStyleName(style_.fileTreeDetail());
+         panel.add(detail);
+      }
+
+      void bind(Node node, int index)
+      {
+         this.node = node;
+         panel.setVisible(true);
+         panel.getElement().getStyle().setTop(index * ROW_HEIGHT, Unit.PX);
+         panel.getElement().getStyle().setPaddingLeft(
+               node.getDepth() * INDENT, Unit.PX);
+
+         toggle.setText(!node.isDirectory() ? "" :
+                        node.isExpanded() ? "\u25BE" : "\u25B8");
+
+         check.setText(node.getName());
+         check.setValue(node.isIncluded());
+         check.setEnabled(!node.isPrimary());
+         check.getElement().getStyle().setFontWeight(
+               node.isPrimary() ? FontWeight.BOLD : FontWeight.NORMAL);
+         InputElement input = check.getElement().getFirstChildElement().cast();
+         input.setPropertyBoolean("indeterminate", node.isPartiallyIncluded());
+
+         if (node.isDirectory())
+         {
+            detail.setText(node.getFileCount() +
+                  (node.getFileCount() == 1 ? " file, " : " files, ") +
+                  StringUtil.formatFileSize(node.getSize()));
+         }
+         else
+         {
+            detail.setText(node.getSize() > 0 ?
+                  StringUtil.formatFileSize(node.getSize()) : "");
+         }
+      }
+
+      void unbind()
+      {
+         node = null;
+         panel.setVisible(false);
+      }
+
+      final FlowPanel panel;
+      final InlineLabel toggle;
+      final CheckBox check;
+      final InlineLabel detail;
+      Node node;
+   }
+
+   private final RSConnectDeploy.DeployStyle style_;
+   private final ScrollPanel scrollPanel_;
+   private final FlowPanel content_;
+   private final ArrayList<Row> rows_ = new ArrayList<Row>();
+   private RSConnectDeploymentManifest manifest_;
+
+   private static final int ROW_HEIGHT = 20;
+   private static final int INDENT = 14;
+   private static final int OVERSCAN = 10;
+   private static final int DEFAULT_VIEWPORT_ROWS = 10;
+}
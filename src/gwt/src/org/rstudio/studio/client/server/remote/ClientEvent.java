@@ -128,6 +128,7 @@ class ClientEvent extends JavaScriptObject
    public static final String RmdParamsEdit = "rmd_params_edit";
    public static final String RmdParamsReady = "rmd_params_ready";
    public static final String RegisterUserCommand = "register_user_command";
+   public static final String SessionInfoPart = "session_info_part";
    
    protected ClientEvent()
    {
@@ -15,12 +15,14 @@
 package org.rstudio.studio.client.server.remote;
 
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 
+import org.rstudio.core.client.PerformanceMonitor;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
@@ -161,19 +163,61 @@ public class ClientEventDispatcher
             public boolean execute()
             {
                final int MAX_EVENTS_AT_ONCE = 200;
-               for (int i = 0;
+               double sliceStart = Duration.currentTimeMillis();
+               int i;
+               for (i = 0;
                     i < MAX_EVENTS_AT_ONCE && pendingEvents_.size() > 0;
                     i++)
                {
                   ClientEvent currentEvent = pendingEvents_.remove(0);
-                  dispatchEvent(currentEvent);
+                  if (PerformanceMonitor.isEnabled())
+                  {
+                     double start = PerformanceMonitor.now();
+                     dispatchEvent(currentEvent);
+                     PerformanceMonitor.recordEvent(
+                           "server: " + currentEvent.getType(),
+                           PerformanceMonitor.now() - start);
+                  }
+                  else
+                  {
+                     dispatchEvent(currentEvent);
+                  }
                }
+               recordDispatchRate(i, Duration.currentTimeMillis() - sliceStart);
+               PerformanceMonitor.recordBacklog("server events",
+                                                pendingEvents_.size());
                return pendingEvents_.size() > 0;
             }
          });
       }
    }
    
+   // the number of events received but not yet dispatched
+   public int getBacklog()
+   {
+      return pendingEvents_.size();
+   }
+   
+   // the (smoothed) rate at which events are dispatched, in events per
+   // second of dispatching, or 0 if not yet known
+   public int getEventsPerSecond()
+   {
+      return (int) eventsPerSecond_;
+   }
+   
+   private void recordDispatchRate(int count, double elapsedMs)
+   {
+      // slices which are too short to time don't tell us much
+      if (count == 0 || elapsedMs < 1)
+         return;
+      
+      double rate = count * 1000 / elapsedMs;
+      if (eventsPerSecond_ == 0)
+         eventsPerSecond_ = rate;
+      else
+         eventsPerSecond_ = 0.8 * eventsPerSecond_ + 0.2 * rate;
+   }
+   
    private void dispatchEvent(ClientEvent event) 
    { 
       String type = event.getType();
@@ -396,7 +440,7 @@ public class ClientEventDispatcher
          {
             FindResultEvent.Data data = event.getData();
             eventBus_.fireEvent(new FindResultEvent(
-                  data.getHandle(), data.getResults().toArrayList()));
+                  data.getHandle(), data.getResults()));
          }
          else if (type.equals(ClientEvent.FindOperationEnded))
          {
@@ -704,6 +748,11 @@ public class ClientEventDispatcher
             RegisterUserCommandEvent.Data data = event.getData();
             eventBus_.fireEvent(new RegisterUserCommandEvent(data));
          }
+         else if (type.equals(ClientEvent.SessionInfoPart))
+         {
+            SessionInfoPartEvent.Data data = event.getData();
+            eventBus_.fireEvent(new SessionInfoPartEvent(data));
+         }
          else
          {
             GWT.log("WARNING: Server event not dispatched: " + type, null);
@@ -719,6 +768,7 @@ public class ClientEventDispatcher
    private final EventBus eventBus_;
 
    private final ArrayList<ClientEvent> pendingEvents_ = new ArrayList<ClientEvent>();
+   private double eventsPerSecond_ = 0;
    
 
 }
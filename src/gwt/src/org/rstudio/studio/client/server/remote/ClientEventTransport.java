@@ -0,0 +1,51 @@
+/*
+ * ClientEventTransport.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import org.rstudio.studio.client.server.ServerError;
+
+import com.google.gwt.core.client.JsArray;
+
+// A persistent channel over which the server pushes client events. When
+// a transport is available RemoteServerEventListener uses it in place of
+// get_events long-polling; when it fails the listener falls back to
+// long-polling for the remainder of the session.
+interface ClientEventTransport
+{
+   interface Observer
+   {
+      // a batch of events arrived (in id order)
+      void onEventsReceived(JsArray<ClientEvent> events);
+
+      // the server ended the channel normally (e.g. it recycled the
+      // connection); the observer should re-open from its last event id
+      void onTransportClosed();
+
+      // the channel could not be established or failed mid-stream
+      void onTransportError(ServerError error);
+   }
+
+   // open the channel, asking the server for all events after lastEventId
+   void open(int lastEventId, Observer observer);
+
+   // confirm receipt of all events up to and including lastEventId (lets
+   // the server release them). implementations are free to coalesce acks.
+   void acknowledge(int lastEventId);
+
+   // close the channel (no further observer callbacks will be made)
+   void close();
+
+   boolean isOpen();
+}
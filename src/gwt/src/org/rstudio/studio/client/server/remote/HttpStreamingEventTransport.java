@@ -0,0 +1,309 @@
+/*
+ * HttpStreamingEventTransport.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcResponse;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.server.Void;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Timer;
+
+// Receives client events over a single long-lived chunked HTTP response
+// (events/stream_events). The server writes one json-rpc response per line,
+// each of which carries a batch of events as its result (an empty batch is
+// a heartbeat). Receipt is confirmed out-of-band via events/ack_events,
+// throttled so that at most one ack is in flight per kAckIntervalMs. Acks
+// carry the dispatcher's backlog: while we're behind the server sends one
+// (limited) batch per ack.
+//
+// The server writes a first batch as soon as the stream opens. If it
+// doesn't arrive within kFirstLineTimeoutMs (e.g. a proxy is buffering the
+// response) the stream is treated as failed.
+//
+// Since the browser accumulates the entire response body in responseText
+// we recycle the connection (re-opening from the last event id) once it
+// has carried kMaxStreamChars worth of events.
+class HttpStreamingEventTransport implements ClientEventTransport
+{
+   public HttpStreamingEventTransport(RemoteServer server,
+                                      ClientEventDispatcher dispatcher)
+   {
+      server_ = server;
+      dispatcher_ = dispatcher;
+   }
+
+   @Override
+   public void open(int lastEventId, Observer observer)
+   {
+      close();
+
+      observer_ = observer;
+      readOffset_ = 0;
+      statusChecked_ = false;
+      ackedEventId_ = lastEventId;
+      pendingAckEventId_ = lastEventId;
+
+      xhr_ = openStream(server_.getEventStreamURL(),
+                        server_.getEventStreamRequest(
+                              lastEventId,
+                              dispatcher_.getBacklog(),
+                              dispatcher_.getEventsPerSecond()));
+      firstLineTimer_.schedule(kFirstLineTimeoutMs);
+   }
+
+   @Override
+   public void acknowledge(int lastEventId)
+   {
+      pendingAckEventId_ = lastEventId;
+      if (!ackTimer_.isRunning_ && !ackInFlight_)
+         ackTimer_.scheduleAck();
+   }
+
+   @Override
+   public void close()
+   {
+      ackTimer_.cancel();
+      ackTimer_.isRunning_ = false;
+      firstLineTimer_.cancel();
+      observer_ = null;
+      if (xhr_ != null)
+      {
+         abortStream(xhr_);
+         xhr_ = null;
+      }
+   }
+
+   @Override
+   public boolean isOpen()
+   {
+      return xhr_ != null;
+   }
+
+   private void onStreamProgress(int status, String responseText)
+   {
+      if (observer_ == null)
+         return;
+
+      if (!checkStatus(status))
+         return;
+
+      // dispatch each complete line received since the last progress event
+      int newline;
+      while ((newline = responseText.indexOf('\n', readOffset_)) != -1)
+      {
+         String line = responseText.substring(readOffset_, newline).trim();
+         readOffset_ = newline + 1;
+         if (line.length() > 0 && !processLine(line))
+            return;
+
+         // processing a line can result in us being closed (e.g. if
+         // a Quit or Suicide event was dispatched)
+         if (observer_ == null)
+            return;
+      }
+
+      // recycle the connection if it has grown too large
+      if (readOffset_ > kMaxStreamChars)
+      {
+         Observer observer = observer_;
+         close();
+         observer.onTransportClosed();
+      }
+   }
+
+   private void onStreamLoad(int status, String responseText)
+   {
+      if (observer_ == null)
+         return;
+
+      // consume anything that arrived with the final chunk
+      onStreamProgress(status, responseText);
+      if (observer_ == null)
+         return;
+
+      Observer observer = observer_;
+      xhr_ = null;
+      observer_ = null;
+      observer.onTransportClosed();
+   }
+
+   private void onStreamError()
+   {
+      if (observer_ == null)
+         return;
+
+      reportError(RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                  "Event stream connection failed"));
+   }
+
+   private boolean checkStatus(int status)
+   {
+      if (statusChecked_)
+         return true;
+
+      statusChecked_ = true;
+      if (status == 200)
+         return true;
+
+      String message = status == 0 ?
+            "Unable to establish event stream with R session" :
+            "Status code " + Integer.toString(status) + " returned";
+      int code = status == 503 ? RpcError.UNAVAILABLE :
+                                 RpcError.TRANSMISSION_ERROR;
+      reportError(RpcError.create(code, message));
+      return false;
+   }
+
+   private boolean processLine(String line)
+   {
+      firstLineTimer_.cancel();
+
+      RpcResponse response = RpcResponse.parse(line);
+      if (response == null)
+      {
+         reportError(RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                     "Unable to parse event stream"));
+         return false;
+      }
+
+      if (response.getError() != null)
+      {
+         reportError(response.getError());
+         return false;
+      }
+
+      JsArray<ClientEvent> events = response.getResult();
+      if (events != null && events.length() > 0)
+         observer_.onEventsReceived(events);
+
+      return true;
+   }
+
+   private void reportError(RpcError error)
+   {
+      Observer observer = observer_;
+      close();
+
+      // give the server first crack at errors it handles globally (e.g.
+      // unauthorized, invalid client id)
+      if (!server_.handleEventStreamError(error))
+         observer.onTransportError(new RemoteServerError(error));
+   }
+
+   private void sendAck()
+   {
+      final int eventId = pendingAckEventId_;
+      if (eventId <= ackedEventId_ || xhr_ == null)
+         return;
+
+      ackInFlight_ = true;
+      server_.acknowledgeEvents(eventId,
+                                dispatcher_.getBacklog(),
+                                dispatcher_.getEventsPerSecond(),
+                                new ServerRequestCallback<Void>() {
+         @Override
+         public void onResponseReceived(Void response)
+         {
+            ackInFlight_ = false;
+            ackedEventId_ = Math.max(ackedEventId_, eventId);
+            if (pendingAckEventId_ > ackedEventId_ && xhr_ != null)
+               ackTimer_.scheduleAck();
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            // not fatal: the server releases events on the next open
+            // or ack in any case
+            ackInFlight_ = false;
+         }
+      });
+   }
+
+   private class AckTimer extends Timer
+   {
+      public void scheduleAck()
+      {
+         isRunning_ = true;
+         schedule(kAckIntervalMs);
+      }
+
+      @Override
+      public void run()
+      {
+         isRunning_ = false;
+         sendAck();
+      }
+
+      private boolean isRunning_ = false;
+   }
+
+   private final Timer firstLineTimer_ = new Timer() {
+      @Override
+      public void run()
+      {
+         if (observer_ != null)
+         {
+            reportError(RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                        "Event stream not received"));
+         }
+      }
+   };
+
+   private native JavaScriptObject openStream(String url, String body) /*-{
+      var self = this;
+      var xhr = new XMLHttpRequest();
+      xhr.open("POST", url, true);
+      xhr.setRequestHeader("Content-Type", "application/json");
+      xhr.setRequestHeader("Accept", "application/json");
+      xhr.onprogress = $entry(function() {
+         self.@org.rstudio.studio.client.server.remote.HttpStreamingEventTransport::onStreamProgress(ILjava/lang/String;)(xhr.status, xhr.responseText || "");
+      });
+      xhr.onload = $entry(function() {
+         self.@org.rstudio.studio.client.server.remote.HttpStreamingEventTransport::onStreamLoad(ILjava/lang/String;)(xhr.status, xhr.responseText || "");
+      });
+      xhr.onerror = $entry(function() {
+         self.@org.rstudio.studio.client.server.remote.HttpStreamingEventTransport::onStreamError()();
+      });
+      xhr.send(body);
+      return xhr;
+   }-*/;
+
+   private native void abortStream(JavaScriptObject xhr) /*-{
+      xhr.onprogress = xhr.onload = xhr.onerror = null;
+      xhr.abort();
+   }-*/;
+
+   private final RemoteServer server_;
+   private final ClientEventDispatcher dispatcher_;
+   private final AckTimer ackTimer_ = new AckTimer();
+
+   private JavaScriptObject xhr_ = null;
+   private Observer observer_ = null;
+   private int readOffset_ = 0;
+   private boolean statusChecked_ = false;
+
+   private int ackedEventId_ = -1;
+   private int pendingAckEventId_ = -1;
+   private boolean ackInFlight_ = false;
+
+   private static final int kAckIntervalMs = 1000;
+   private static final int kFirstLineTimeoutMs = 10000;
+   private static final int kMaxStreamChars = 4 * 1024 * 1024;
+}
@@ -16,7 +16,9 @@
 package org.rstudio.studio.client.server.remote;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -48,7 +50,9 @@ import org.rstudio.studio.client.application.model.RVersionSpec;
 import org.rstudio.studio.client.application.model.SuspendOptions;
 import org.rstudio.studio.client.application.model.UpdateCheckResult;
 import org.rstudio.studio.client.common.JSONUtils;
+import org.rstudio.studio.client.common.codetools.CompletionIndexData;
 import org.rstudio.studio.client.common.codetools.Completions;
+import org.rstudio.studio.client.common.codetools.FunctionSignature;
 import org.rstudio.studio.client.common.console.ConsoleProcess;
 import org.rstudio.studio.client.common.console.ConsoleProcess.ConsoleProcessFactory;
 import org.rstudio.studio.client.common.console.ConsoleProcessInfo;
@@ -199,6 +203,7 @@ public class RemoteServer implements Server
       session_ = session;
       eventBus_ = eventBus;
       serverAuth_ = new RemoteServerAuth(this);
+      requestBatcher_ = new RpcRequestBatcher(this);
       
       // define external event listener if we are the main window
       // (so we can forward to the satellites)
@@ -276,11 +281,16 @@ public class RemoteServer implements Server
    }
     
    public void clientInit(
+                     JsArrayString cachedKeys,
                      final ServerRequestCallback<SessionInfo> requestCallback)
    {      
+      JSONArray params = new JSONArray();
+      setArrayString(params, 0, cachedKeys);
+      
       // send init request (record clientId and version contained in response)
       sendRequest(RPC_SCOPE, 
                   CLIENT_INIT, 
+                  params,
                   new ServerRequestCallback<SessionInfo>() {
 
          public void onResponseReceived(SessionInfo sessionInfo)
@@ -716,6 +726,17 @@ public class RemoteServer implements Server
             requestCallback);
    }
    
+   public void getSignatures(
+         JsArrayString names,
+         JsArrayString sources,
+         ServerRequestCallback<JsArray<FunctionSignature>> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      setArrayString(params, 0, names);
+      setArrayString(params, 1, sources);
+      sendRequest(RPC_SCOPE, GET_SIGNATURES, params, requestCallback);
+   }
+   
    public void extractChunkOptions(
          String chunkText,
          ServerRequestCallback<JsObject> requestCallback)
@@ -793,6 +814,20 @@ public class RemoteServer implements Server
                   requestCallback);
    }
    
+   public void getCompletionIndex(
+         JsArrayString knownPackages,
+         boolean includePackages,
+         ServerRequestCallback<CompletionIndexData> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      setArrayString(params, 0, knownPackages);
+      params.set(1, JSONBoolean.getInstance(includePackages));
+      sendRequest(RPC_SCOPE,
+                  GET_COMPLETION_INDEX,
+                  params,
+                  requestCallback);
+   }
+   
    public void getHelpAtCursor(String line, int cursorPos,
                                ServerRequestCallback<Void> requestCallback)
    {
@@ -2247,6 +2282,8 @@ public class RemoteServer implements Server
 
    RpcRequest getEvents(
                   int lastEventId,
+                  int backlog,
+                  int eventsPerSecond,
                   ServerRequestCallback<JsArray<ClientEvent>> requestCallback,
                   RetryHandler retryHandler)
    {
@@ -2259,6 +2296,8 @@ public class RemoteServer implements Server
       
       JSONArray params = new JSONArray();
       params.set(0, new JSONNumber(lastEventId));
+      params.set(1, new JSONNumber(backlog));
+      params.set(2, new JSONNumber(eventsPerSecond));
       return sendRequest(EVENTS_SCOPE,
                          "get_events",
                          params,
@@ -2267,6 +2306,62 @@ public class RemoteServer implements Server
                          retryHandler);
    }
 
+   boolean isEventStreamingAvailable()
+   {
+      SessionInfo sessionInfo = session_.getSessionInfo();
+      return sessionInfo != null && sessionInfo.getEventStreamingAvailable();
+   }
+   
+   String getEventStreamURL()
+   {
+      return getApplicationURL(EVENTS_SCOPE) + "/" + STREAM_EVENTS;
+   }
+   
+   // the event stream is opened with a raw XMLHttpRequest (rather than an
+   // RpcRequest) so we build its json-rpc request body here
+   String getEventStreamRequest(int lastEventId,
+                                int backlog,
+                                int eventsPerSecond)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONNumber(lastEventId));
+      params.set(1, new JSONNumber(backlog));
+      params.set(2, new JSONNumber(eventsPerSecond));
+      
+      JSONObject request = new JSONObject();
+      request.put("method", new JSONString(STREAM_EVENTS));
+      request.put("params", params);
+      if (clientId_ != null)
+         request.put("clientId", new JSONString(clientId_));
+      request.put("version", new JSONNumber(clientVersion_));
+      return request.toString();
+   }
+   
+   void acknowledgeEvents(int lastEventId,
+                          int backlog,
+                          int eventsPerSecond,
+                          ServerRequestCallback<Void> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONNumber(lastEventId));
+      params.set(1, new JSONNumber(backlog));
+      params.set(2, new JSONNumber(eventsPerSecond));
+      sendRequest(EVENTS_SCOPE, 
+                  ACK_EVENTS, 
+                  params, 
+                  false, 
+                  requestCallback, 
+                  null);
+   }
+   
+   boolean handleEventStreamError(RpcError error)
+   {
+      if (isDisconnected())
+         return true;
+      
+      return handleRpcErrorInternally(error);
+   }
+
    void handleUnauthorizedError()
    {
       // disconnect
@@ -2481,22 +2576,48 @@ public class RemoteServer implements Server
       // we may need to restart event listening.
       ensureListeningForEvents();
 
-      // create request
+      // ask for the compact columnar encoding of list results for those
+      // methods which return large lists of records
+      JSONObject kwparams = null;
+      if (COLUMNAR_METHODS.contains(method))
+      {
+         kwparams = new JSONObject();
+         kwparams.put("columnar", JSONBoolean.getInstance(true));
+      }
+      
+      // create request (idempotent reads go through the batcher so they
+      // can be coalesced with other reads issued at the same time)
       String rserverURL = getApplicationURL(scope) + "/" + method;
-      RpcRequest rpcRequest = new RpcRequest(rserverURL,
-                                             method,
-                                             params,
-                                             null,
-                                             redactLog,
-                                             sourceWindow,
-                                             clientId_,
-                                             clientVersion_);
+      boolean batchable = scope.equals(RPC_SCOPE) &&
+                          BATCHABLE_METHODS.contains(method);
+      RpcRequest rpcRequest;
+      if (batchable)
+      {
+         rpcRequest = requestBatcher_.createRequest(rserverURL,
+                                                    method,
+                                                    params,
+                                                    kwparams,
+                                                    redactLog,
+                                                    sourceWindow,
+                                                    clientId_,
+                                                    clientVersion_);
+      }
+      else
+      {
+         rpcRequest = new RpcRequest(rserverURL,
+                                     method,
+                                     params,
+                                     kwparams,
+                                     redactLog,
+                                     sourceWindow,
+                                     clientId_,
+                                     clientVersion_);
+      }
       
       if (isDisconnected())
          return rpcRequest;
 
-      // send the request
-      rpcRequest.send(new RpcRequestCallback() {
+      RpcRequestCallback rpcCallback = new RpcRequestCallback() {
          public void onError(RpcRequest request, RpcError error)
          {
             // ignore errors if we are disconnected
@@ -2560,12 +2681,62 @@ public class RemoteServer implements Server
                   serverEventListener_.ensureEvents();
             }
          }
-      });
+      };
+      
+      // send the request
+      if (batchable)
+      {
+         requestBatcher_.submit(method,
+                                params,
+                                kwparams,
+                                rpcRequest,
+                                rpcCallback,
+                                responseHandler,
+                                retryHandler != null);
+      }
+      else
+      {
+         rpcRequest.send(rpcCallback);
+      }
 
       // return the request
       return rpcRequest;
    }
    
+   // handles an error for a group of identical requests sent by the
+   // batcher once for the group (rather than once per request). returns
+   // false if the error should be delivered to each of the requests.
+   boolean resolveBatchedRpcError(RpcError error, RetryHandler retryHandler)
+   {
+      if (isDisconnected())
+         return true;
+      
+      if (resolveRpcErrorAndRetry(error, retryHandler))
+         return true;
+      
+      return handleRpcErrorInternally(error);
+   }
+   
+   boolean isRpcBatchingAvailable()
+   {
+      SessionInfo sessionInfo = session_.getSessionInfo();
+      return sessionInfo != null && sessionInfo.getRpcBatchingAvailable();
+   }
+   
+   RpcRequest createBatchRequest(JSONArray requests)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, requests);
+      return new RpcRequest(getApplicationURL(RPC_SCOPE) + "/" + BATCH_REQUESTS,
+                            BATCH_REQUESTS,
+                            params,
+                            null,
+                            false,
+                            null,
+                            clientId_,
+                            clientVersion_);
+   }
+   
    private void ensureListeningForEvents()
    {
       // don't do this if we are disconnected
@@ -4343,6 +4514,7 @@ public class RemoteServer implements Server
    private boolean disconnected_;
 
    private final RemoteServerAuth serverAuth_;
+   private final RpcRequestBatcher requestBatcher_;
    private final RemoteServerEventListener serverEventListener_ ;
 
    private final Provider<ConsoleProcessFactory> pConsoleProcessFactory_;
@@ -4362,6 +4534,43 @@ public class RemoteServer implements Server
    private static final String META_SCOPE = "meta";
    private static final String FILE_SHOW = "file_show";
 
+   // event methods
+   private static final String STREAM_EVENTS = "stream_events";
+   private static final String ACK_EVENTS = "ack_events";
+
+   // methods which return large lists of records; for these we request
+   // the columnar encoding (servers which don't support it just ignore
+   // the request and return ordinary json). the result types of these
+   // methods must accept either encoding (see RpcColumnarList). note that
+   // kwparams are passed through as arguments to methods implemented in R,
+   // so those (get_completions) must accept a 'columnar' argument. the
+   // results of begin_find are delivered as find_result events
+   private static final HashSet<String> COLUMNAR_METHODS = 
+         new HashSet<String>(Arrays.asList(new String[] {
+               LIST_FILES,
+               GET_PACKAGE_STATE,
+               GET_ENVIRONMENT_STATE,
+               GET_COMPLETIONS,
+               BEGIN_FIND
+         }));
+
+   // idempotent reads (all direct-return methods on the server) which may
+   // be batched with one another and de-duplicated while in flight
+   private static final HashSet<String> BATCHABLE_METHODS = 
+         new HashSet<String>(Arrays.asList(new String[] {
+               LIST_FILES,
+               LIST_ENVIRONMENT,
+               GET_ENVIRONMENT_NAMES,
+               GET_ENVIRONMENT_STATE,
+               GET_PACKAGE_STATE,
+               GET_R_PREFS,
+               GIT_ALL_STATUS,
+               GIT_FULL_STATUS,
+               SVN_STATUS,
+               LIST_GET
+         }));
+   private static final String BATCH_REQUESTS = "batch_requests";
+
    // session methods
    private static final String CLIENT_INIT = "client_init";
    private static final String ACCEPT_AGREEMENT = "accept_agreement";
@@ -4393,9 +4602,11 @@ public class RemoteServer implements Server
          "get_dplyr_join_completions_string";
    private static final String GET_DPLYR_JOIN_COMPLETIONS = "get_dplyr_join_completions";
    private static final String GET_ARGS = "get_args";
+   private static final String GET_SIGNATURES = "get_signatures";
    private static final String EXTRACT_CHUNK_OPTIONS = "extract_chunk_options";
    private static final String EXECUTE_USER_COMMAND = "execute_user_command";
    private static final String GET_COMPLETIONS = "get_completions";
+   private static final String GET_COMPLETION_INDEX = "get_completion_index";
    private static final String IS_FUNCTION = "is_function";
    private static final String GET_HELP_AT_CURSOR = "get_help_at_cursor";
 
@@ -20,6 +20,7 @@ import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.Window.ClosingEvent;
 import com.google.gwt.user.client.Window.ClosingHandler;
+import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.jsonrpc.RpcError;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
@@ -121,14 +122,23 @@ class RemoteServerEventListener
       // eliminate this scenario then
       lastEventId_ = -1;
       
-      // start listening
-      listen();
+      // start listening (over a persistent stream if we can, otherwise
+      // by long-polling get_events)
+      if (useEventTransport())
+         openEventTransport();
+      else
+         listen();
    }
      
    public void stop()
    {        
       isListening_ = false;
       listenCount_ = 0;
+      if (listenTimer_ != null)
+      {
+         listenTimer_.cancel();
+         listenTimer_ = null;
+      }
       if (activeRequestCallback_ != null)
       {
          activeRequestCallback_.cancel();
@@ -139,6 +149,11 @@ class RemoteServerEventListener
          activeRequest_.cancel();
          activeRequest_ = null;
       }
+      if (eventTransport_ != null)
+      {
+         eventTransport_.close();
+         eventTransport_ = null;
+      }
    }
    
    // ensure that we are actively listening for events (used to make 
@@ -205,6 +220,15 @@ class RemoteServerEventListener
    
    private void restart()
    {
+      // a persistent event channel is simply re-opened from the last event
+      // we processed (avoids the server replaying events which were 
+      // delivered but not yet acknowledged)
+      if (isListening_ && eventTransport_ != null)
+      {
+         openEventTransport();
+         return;
+      }
+      
       stop();
       start();
    }
@@ -231,18 +255,51 @@ class RemoteServerEventListener
       if (++listenCount_ == 2)
          bounceMs = kSecondListenBounceMs;
       
-      Timer listenTimer = new Timer() {
+      scheduleListen(new Timer() {
          @Override
          public void run()
          {
-            doListen();
+            listenWhenCaughtUp(kMaxBacklogWaitMs);
          }
-      };
-      listenTimer.schedule(bounceMs);
+      }, bounceMs);
+   }
+   
+   // if we still have a large backlog of events to dispatch then give it
+   // a chance to drain before asking for more (while we wait the server
+   // keeps coalescing the events it has for us), but not for so long that
+   // the watchdog gets involved
+   private void listenWhenCaughtUp(final int waitMs)
+   {
+      if (waitMs <= 0 || 
+          eventDispatcher_.getBacklog() <= kMaxBacklogBeforeListen)
+      {
+         doListen();
+         return;
+      }
+      
+      scheduleListen(new Timer() {
+         @Override
+         public void run()
+         {
+            listenWhenCaughtUp(waitMs - kBacklogPollMs);
+         }
+      }, kBacklogPollMs);
+   }
+   
+   // the timer is kept so that stop can cancel it (otherwise a restart
+   // while it's pending would leave two requests for events outstanding)
+   private void scheduleListen(Timer timer, int delayMs)
+   {
+      if (listenTimer_ != null)
+         listenTimer_.cancel();
+      listenTimer_ = timer;
+      listenTimer_.schedule(delayMs);
    }
    
    private void doListen()
    {  
+      listenTimer_ = null;
+      
       // abort if we are no longer running
       if (!isListening_)
          return;
@@ -261,20 +318,11 @@ class RemoteServerEventListener
                // only processs events if we are still listening
                if (isListening_ && (events != null))
                {
-                  for (int i=0; i<events.length(); i++)
-                  {
-                     // we can stop listening in the middle of dispatching
-                     // events (e.g. if we dispatch a Suicide event) so we 
-                     // need to check the listening_ flag before each event
-                     // is dispatched
-                     if (!isListening_)
-                        return;
-                     
-                     // disppatch event
-                     ClientEvent event = events.get(i);
-                     dispatchEvent(event);
-                     lastEventId_ = event.getId();
-                  }   
+                  processEvents(events);
+                  
+                  // processing may have stopped us (e.g. Suicide event)
+                  if (!isListening_)
+                     return;
                }
             }
             // catch all here to make sure that in all cases we call
@@ -351,11 +399,102 @@ class RemoteServerEventListener
       
       // send request
       activeRequest_ = server_.getEvents(lastEventId_, 
+                                         eventDispatcher_.getBacklog(),
+                                         eventDispatcher_.getEventsPerSecond(),
                                          activeRequestCallback_,
                                          retryHandler);                             
    }
    
    
+   private void processEvents(JsArray<ClientEvent> events)
+   {
+      for (int i=0; i<events.length(); i++)
+      {
+         // we can stop listening in the middle of dispatching
+         // events (e.g. if we dispatch a Suicide event) so we 
+         // need to check the listening_ flag before each event
+         // is dispatched
+         if (!isListening_)
+            return;
+         
+         // disppatch event
+         ClientEvent event = events.get(i);
+         dispatchEvent(event);
+         lastEventId_ = event.getId();
+      }
+   }
+   
+   private boolean useEventTransport()
+   {
+      return !eventTransportFailed_ && server_.isEventStreamingAvailable();
+   }
+   
+   // open (or re-open) the persistent event channel from lastEventId_. 
+   // note that unlike start() this preserves lastEventId_ so that a 
+   // recycled connection neither drops nor repeats events
+   private void openEventTransport()
+   {
+      if (eventTransport_ == null)
+         eventTransport_ = new HttpStreamingEventTransport(server_,
+                                                           eventDispatcher_);
+      
+      eventTransport_.open(lastEventId_, new ClientEventTransport.Observer()
+      {
+         @Override
+         public void onEventsReceived(JsArray<ClientEvent> events)
+         {
+            // keep watchdog appraised of successful receipt of events
+            watchdog_.notifyResponseReceived();
+            
+            try
+            {
+               if (isListening_)
+                  processEvents(events);
+            }
+            catch(Throwable e)
+            {
+               GWT.log("ERROR: Processing client events", e);
+            }
+            
+            // confirm receipt so the server can release these events
+            if (isListening_ && eventTransport_ != null)
+               eventTransport_.acknowledge(lastEventId_);
+         }
+         
+         @Override
+         public void onTransportClosed()
+         {
+            if (isListening_)
+               openEventTransport();
+         }
+         
+         @Override
+         public void onTransportError(ServerError error)
+         {
+            if (error.getCode() == ServerError.UNAVAILABLE)
+            {
+               stop();
+               server_.getEventBus().fireEvent(new ServerUnavailableEvent());
+               return;
+            }
+            
+            // the stream couldn't be established or broke mid-stream (e.g.
+            // a proxy which buffers chunked responses). fall back to 
+            // long-polling for the remainder of the session, picking up
+            // from the last event we processed
+            Debug.log("Falling back to event polling: " + error.getMessage());
+            eventTransportFailed_ = true;
+            if (eventTransport_ != null)
+            {
+               eventTransport_.close();
+               eventTransport_ = null;
+            }
+            if (isListening_)
+               listen();
+         }
+      });
+   }
+   
    private void dispatchEvent(ClientEvent event)
    {
       // do some special handling before calling the standard dispatcher
@@ -480,6 +619,11 @@ class RemoteServerEventListener
    // unnecessarily during a listen delay
    private final int kWatchdogIntervalMs = 1000;
    private final int kSecondListenBounceMs = 250;
+   
+   // similarly kMaxBacklogWaitMs must be less than kWatchdogIntervalMs
+   private final int kMaxBacklogBeforeListen = 200;
+   private final int kMaxBacklogWaitMs = 500;
+   private final int kBacklogPollMs = 50;
        
    private boolean isListening_;
    private int lastEventId_ ;
@@ -487,8 +631,12 @@ class RemoteServerEventListener
    private int listenErrorCount_ ;
    private boolean sessionWasQuit_ ;
    
+   private Timer listenTimer_ ;
    private RpcRequest activeRequest_ ;
    private ServerRequestCallback<JsArray<ClientEvent>> activeRequestCallback_;
+   
+   private ClientEventTransport eventTransport_ = null;
+   private boolean eventTransportFailed_ = false;
 
    private final ClientEventDispatcher eventDispatcher_;
    
@@ -0,0 +1,410 @@
+/*
+ * RpcRequestBatcher.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
+import org.rstudio.core.client.jsonrpc.RpcResponse;
+import org.rstudio.core.client.jsonrpc.RpcResponseHandler;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+
+// Coalesces idempotent read requests. Requests submitted during the same
+// event loop turn are sent together as a single batch_requests call (when
+// the server supports it), and a request identical to one which is already
+// queued or in flight shares its response rather than being sent again.
+// Callers still see one callback per request. Errors are resolved (and
+// retried) once per group of identical requests rather than once per
+// request, and cancelling a request only detaches it from its group (the
+// shared request is cancelled once no requests are left in the group).
+class RpcRequestBatcher
+{
+   // a request sent via the batcher (see createRequest)
+   class BatchedRequest extends RpcRequest
+   {
+      BatchedRequest(String url,
+                     String method,
+                     JSONArray params,
+                     JSONObject kwparams,
+                     boolean redactLog,
+                     String sourceWindow,
+                     String clientId,
+                     double clientVersion)
+      {
+         super(url,
+               method,
+               params,
+               kwparams,
+               redactLog,
+               sourceWindow,
+               clientId,
+               clientVersion);
+      }
+
+      @Override
+      public void cancel()
+      {
+         cancelCall(this);
+      }
+
+      private void cancelTransport()
+      {
+         super.cancel();
+      }
+
+      private Group group_ = null;
+   }
+
+   public RpcRequestBatcher(RemoteServer server)
+   {
+      server_ = server;
+   }
+
+   public RpcRequest createRequest(String url,
+                                   String method,
+                                   JSONArray params,
+                                   JSONObject kwparams,
+                                   boolean redactLog,
+                                   String sourceWindow,
+                                   String clientId,
+                                   double clientVersion)
+   {
+      return new BatchedRequest(url,
+                                method,
+                                params,
+                                kwparams,
+                                redactLog,
+                                sourceWindow,
+                                clientId,
+                                clientVersion);
+   }
+
+   // callback receives the response (or error response) for the request;
+   // responseHandler receives errors which have already been handled for
+   // the group. canRetry indicates whether errors may be resolved by
+   // retrying the request.
+   public void submit(String method,
+                      JSONArray params,
+                      JSONObject kwparams,
+                      RpcRequest request,
+                      RpcRequestCallback callback,
+                      RpcResponseHandler responseHandler,
+                      boolean canRetry)
+   {
+      String key = method + ":" +
+                   (params != null ? params.toString() : "") + ":" +
+                   (kwparams != null ? kwparams.toString() : "");
+      BatchedRequest batchedRequest = (BatchedRequest) request;
+      Call call = new Call(batchedRequest, callback, responseHandler);
+
+      // piggyback on an identical request
+      Group group = inFlight_.get(key);
+      if (group == null)
+         group = queued_.get(key);
+      if (group != null)
+      {
+         group.calls.add(call);
+         batchedRequest.group_ = group;
+         return;
+      }
+
+      group = new Group(key, method, params, kwparams, canRetry);
+      group.calls.add(call);
+      batchedRequest.group_ = group;
+      queued_.put(key, group);
+
+      if (!flushScheduled_)
+      {
+         flushScheduled_ = true;
+         Scheduler.get().scheduleFinally(new ScheduledCommand()
+         {
+            @Override
+            public void execute()
+            {
+               flush();
+            }
+         });
+      }
+   }
+
+   private void cancelCall(BatchedRequest request)
+   {
+      // nothing to do if the request has already completed (or was never
+      // submitted)
+      Group group = request.group_;
+      request.group_ = null;
+      if (group == null)
+         return;
+
+      for (int i = 0; i < group.calls.size(); i++)
+      {
+         if (group.calls.get(i).request == request)
+         {
+            group.calls.remove(i);
+            break;
+         }
+      }
+
+      // nobody is waiting on the group any more
+      if (group.calls.isEmpty())
+         group.cancel();
+   }
+
+   private void flush()
+   {
+      flushScheduled_ = false;
+
+      final ArrayList<Group> groups = new ArrayList<Group>(queued_.values());
+      queued_.clear();
+      for (Group group : groups)
+         inFlight_.put(group.key, group);
+
+      // send individually if there is nothing to batch or the server
+      // doesn't support batching
+      if (groups.size() == 1 || !server_.isRpcBatchingAvailable())
+      {
+         for (Group group : groups)
+            group.send();
+         return;
+      }
+
+      JSONArray requests = new JSONArray();
+      for (int i = 0; i < groups.size(); i++)
+         requests.set(i, groups.get(i).toJSON());
+
+      RpcRequest batchRequest = server_.createBatchRequest(requests);
+      batchRequest.send(new RpcRequestCallback()
+      {
+         @Override
+         public void onResponseReceived(RpcRequest request,
+                                        RpcResponse response)
+         {
+            // an error for the batch as a whole (e.g. unauthorized) is
+            // handled by each group (once disconnected the rest are
+            // ignored)
+            if (response.getError() != null)
+            {
+               for (Group group : groups)
+                  group.onResponseReceived(response);
+               return;
+            }
+
+            JsArray<RpcResponse> responses = response.getResult();
+            for (int i = 0; i < groups.size(); i++)
+            {
+               if (responses != null && i < responses.length())
+               {
+                  groups.get(i).onResponseReceived(responses.get(i));
+               }
+               else
+               {
+                  groups.get(i).onError(RpcError.create(
+                        RpcError.TRANSMISSION_ERROR,
+                        "Missing response in batch"));
+               }
+            }
+         }
+
+         @Override
+         public void onError(RpcRequest request, RpcError error)
+         {
+            for (Group group : groups)
+               group.onError(error);
+         }
+      });
+   }
+
+   private static class Call
+   {
+      Call(BatchedRequest request,
+           RpcRequestCallback callback,
+           RpcResponseHandler responseHandler)
+      {
+         this.request = request;
+         this.callback = callback;
+         this.responseHandler = responseHandler;
+      }
+
+      final BatchedRequest request;
+      final RpcRequestCallback callback;
+      final RpcResponseHandler responseHandler;
+   }
+
+   private class Group
+   {
+      Group(String key,
+            String method,
+            JSONArray params,
+            JSONObject kwparams,
+            boolean canRetry)
+      {
+         this.key = key;
+         this.method = method;
+         this.params = params;
+         this.kwparams = kwparams;
+         this.canRetry = canRetry;
+      }
+
+      JSONObject toJSON()
+      {
+         JSONObject json = new JSONObject();
+         json.put("method", new JSONString(method));
+         json.put("params", params != null ? params : new JSONArray());
+         if (kwparams != null)
+            json.put("kwparams", kwparams);
+         return json;
+      }
+
+      // send the group's request on its own (requests are immutable, so
+      // any of the group's requests will do)
+      void send()
+      {
+         transport = calls.get(0).request;
+         transport.send(new RpcRequestCallback()
+         {
+            @Override
+            public void onResponseReceived(RpcRequest request,
+                                           RpcResponse response)
+            {
+               Group.this.onResponseReceived(response);
+            }
+
+            @Override
+            public void onError(RpcRequest request, RpcError error)
+            {
+               Group.this.onError(error);
+            }
+         });
+      }
+
+      void cancel()
+      {
+         cancelled = true;
+         release();
+         if (transport != null)
+         {
+            transport.cancelTransport();
+            transport = null;
+         }
+      }
+
+      void onResponseReceived(RpcResponse response)
+      {
+         if (cancelled)
+            return;
+
+         if (response.getError() != null)
+         {
+            onError(response.getError(), response);
+            return;
+         }
+
+         release();
+         for (Call call : detachCalls())
+            call.callback.onResponseReceived(call.request, response);
+      }
+
+      void onError(RpcError error)
+      {
+         onError(error, RpcResponse.create(error));
+      }
+
+      private void onError(RpcError error, final RpcResponse response)
+      {
+         if (cancelled)
+            return;
+
+         release();
+
+         // resolve the error (retrying the request at most once) or
+         // report it globally once for the whole group; otherwise every
+         // request receives it
+         RetryHandler retryHandler = null;
+         if (canRetry)
+         {
+            retryHandler = new RetryHandler()
+            {
+               public void onRetry()
+               {
+                  canRetry = false;
+                  if (cancelled || calls.isEmpty())
+                     return;
+                  if (!inFlight_.containsKey(key))
+                     inFlight_.put(key, Group.this);
+                  send();
+               }
+
+               public void onError(RpcError error)
+               {
+                  deliverError(RpcResponse.create(error));
+               }
+            };
+         }
+
+         if (!server_.resolveBatchedRpcError(error, retryHandler))
+            deliverError(response);
+      }
+
+      private void deliverError(RpcResponse response)
+      {
+         for (Call call : detachCalls())
+            call.responseHandler.onResponseReceived(response);
+      }
+
+      // no more requests can join the group
+      private void release()
+      {
+         if (queued_.get(key) == this)
+            queued_.remove(key);
+         if (inFlight_.get(key) == this)
+            inFlight_.remove(key);
+      }
+
+      private ArrayList<Call> detachCalls()
+      {
+         ArrayList<Call> detached = new ArrayList<Call>(calls);
+         calls.clear();
+         for (Call call : detached)
+            call.request.group_ = null;
+         return detached;
+      }
+
+      final String key;
+      final String method;
+      final JSONArray params;
+      final JSONObject kwparams;
+      final ArrayList<Call> calls = new ArrayList<Call>();
+      boolean canRetry;
+      boolean cancelled = false;
+      BatchedRequest transport = null;
+   }
+
+   private final RemoteServer server_;
+   private final LinkedHashMap<String, Group> queued_ =
+                                          new LinkedHashMap<String, Group>();
+   private final HashMap<String, Group> inFlight_ =
+                                          new HashMap<String, Group>();
+   private boolean flushScheduled_ = false;
+}
@@ -26,6 +26,7 @@ import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
 import org.rstudio.studio.client.workbench.events.*;
 import org.rstudio.studio.client.workbench.model.ClientState;
+import org.rstudio.studio.client.workbench.model.ClientStateStore;
 import org.rstudio.studio.client.workbench.model.WorkbenchServerOperations;
 
 public class ClientStateUpdater extends TimeBufferedCommand
@@ -45,6 +46,10 @@ public class ClientStateUpdater extends TimeBufferedCommand
     * (on request [though in fact also on a timer, just a shorter one]). Any
     * component can request that SaveClientStateEvent be fired: simply fire
     * PushClientStateEvent on the EventBus.
+    *
+    * Participants may put values whether or not they've changed; only
+    * values which differ from those last sent to the server are sent (see
+    * ClientStateStore), so an idle session sends nothing.
     */
    @Inject
    public ClientStateUpdater(EventBus events,
@@ -101,7 +106,8 @@ public class ClientStateUpdater extends TimeBufferedCommand
          return;
       }
 
-      if (state.isEmpty())
+      final ClientState changes = store_.getChanges(state);
+      if (changes == null)
       {
          onComplete(shouldSchedulePassive);
          return;
@@ -110,19 +116,21 @@ public class ClientStateUpdater extends TimeBufferedCommand
       try
       {
          server_.updateClientState(
-               state.getTemporaryData(),
-               state.getPersistentData(),
-               state.getProjectPersistentData(),
+               changes.getTemporaryData(),
+               changes.getPersistentData(),
+               changes.getProjectPersistentData(),
                new ServerRequestCallback<Void>() {
                   @Override
                   public void onError(ServerError error)
                   {
+                     store_.onSendFailed(changes);
                      onComplete(shouldSchedulePassive);
                   }
 
                   @Override
                   public void onResponseReceived(Void response)
                   {
+                     store_.onSent(changes);
                      onComplete(shouldSchedulePassive);
                   }
                });
@@ -133,6 +141,7 @@ public class ClientStateUpdater extends TimeBufferedCommand
          Debug.logException(ex);
          
          // complete (ensure barrier token is released)
+         store_.onSendFailed(changes);
          onComplete(shouldSchedulePassive);
       }
    }
@@ -152,5 +161,6 @@ public class ClientStateUpdater extends TimeBufferedCommand
                                                      : 350;
    private final EventBus events_;
    private final WorkbenchServerOperations server_;
+   private final ClientStateStore store_ = new ClientStateStore();
    private Token barrierToken_;
 }
@@ -18,12 +18,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.events.SessionInfoPartEvent;
 import org.rstudio.studio.client.server.VoidServerRequestCallback;
 import org.rstudio.studio.client.workbench.events.ListChangedEvent;
 import org.rstudio.studio.client.workbench.events.ListChangedHandler;
 import org.rstudio.studio.client.workbench.events.SessionInitEvent;
 import org.rstudio.studio.client.workbench.events.SessionInitHandler;
 import org.rstudio.studio.client.workbench.model.Session;
+import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.model.WorkbenchLists;
 import org.rstudio.studio.client.workbench.model.WorkbenchListsServerOperations;
 
@@ -53,15 +55,22 @@ public class WorkbenchListManager
          @Override
          public void onSessionInit(SessionInitEvent sie)
          {
-            WorkbenchLists lists = session_.getSessionInfo().getLists();
-            updateList(FILE_MRU, lists);
-            updateList(PROJECT_MRU, lists);
-            updateList(PLOT_PUBLISH_MRU, lists);
-            updateList(HELP_HISTORY, lists);
-            updateList(USER_DICTIONARY, lists);
+            SessionInfo sessionInfo = session_.getSessionInfo();
+            if (!sessionInfo.isPartDeferred(SessionInfo.PART_LISTS))
+               updateLists(sessionInfo.getLists());
          }  
       });
       
+      events.addHandler(SessionInfoPartEvent.TYPE,
+                        new SessionInfoPartEvent.Handler() {
+         @Override
+         public void onSessionInfoPart(SessionInfoPartEvent event)
+         {
+            if (event.getName().equals(SessionInfo.PART_LISTS))
+               updateLists(event.<WorkbenchLists>getValue());
+         }
+      });
+      
       events.addHandler(ListChangedEvent.TYPE, new ListChangedHandler() {
          @Override
          public void onListChanged(ListChangedEvent event)
@@ -97,6 +106,15 @@ public class WorkbenchListManager
       return listContexts_.get(PLOT_PUBLISH_MRU);
    }
    
+   private void updateLists(WorkbenchLists lists)
+   {
+      updateList(FILE_MRU, lists);
+      updateList(PROJECT_MRU, lists);
+      updateList(PLOT_PUBLISH_MRU, lists);
+      updateList(HELP_HISTORY, lists);
+      updateList(USER_DICTIONARY, lists);
+   }
+   
    private void updateList(String name, WorkbenchLists lists)
    {
       updateList(name, lists.getList(name));
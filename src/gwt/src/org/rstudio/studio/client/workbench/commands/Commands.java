@@ -332,8 +332,10 @@ public abstract class
    public abstract AppCommand helpKeyboardShortcuts();
    public abstract AppCommand showRequestLog();
    public abstract AppCommand logFocusedElement();
+   public abstract AppCommand togglePerformanceHud();
    public abstract AppCommand debugDumpContents();
    public abstract AppCommand debugImportDump();
+   public abstract AppCommand debugDumpHandlers();
    public abstract AppCommand refreshSuperDevMode();
    public abstract AppCommand viewShortcuts();
    
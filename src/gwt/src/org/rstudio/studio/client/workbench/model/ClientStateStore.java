@@ -0,0 +1,136 @@
+/*
+ * ClientStateStore.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Tracks the client state values which have been sent to the server, so
+ * that only values which have actually changed are sent.
+ *
+ * Each value (identified by its scope, group and name) has a hash of its
+ * JSON representation and a version, which is incremented whenever a
+ * participant puts a value with a different hash. A value is dirty until
+ * the server has acknowledged its current version; values which fail to
+ * send remain dirty and are sent again with the next update.
+ */
+public class ClientStateStore
+{
+   public ClientStateStore()
+   {
+      entries_ = JavaScriptObject.createObject();
+   }
+
+   /**
+    * Records the values put into state by participants, and returns the
+    * dirty values which need to be sent (and aren't already being sent), or
+    * null if there's nothing to send.
+    */
+   public ClientState getChanges(ClientState state)
+   {
+      ClientState changes = ClientState.create();
+      if (!collectChanges(entries_, state, changes))
+         return null;
+      return changes;
+   }
+
+   /**
+    * Marks the values in changes (as returned by getChanges) as sent. Values
+    * which were changed again while the update was in flight remain dirty.
+    */
+   public native void onSent(ClientState changes) /*-{
+      var entries = this.@org.rstudio.studio.client.workbench.model.ClientStateStore::entries_;
+      for (var key in changes.versions) {
+         var entry = entries[key];
+         if (entry.version === changes.versions[key]) {
+            entry.sentHash = entry.hash;
+            entry.value = null;
+         }
+         entry.sendingVersion = -1;
+      }
+   }-*/;
+
+   /**
+    * The values in changes (as returned by getChanges) failed to send; they
+    * will be sent again with the next update.
+    */
+   public native void onSendFailed(ClientState changes) /*-{
+      var entries = this.@org.rstudio.studio.client.workbench.model.ClientStateStore::entries_;
+      for (var key in changes.versions)
+         entries[key].sendingVersion = -1;
+   }-*/;
+
+   private static native boolean collectChanges(JavaScriptObject entries,
+                                                ClientState state,
+                                                ClientState changes) /*-{
+      var hash = function(s) {
+         var h = 0;
+         for (var i = 0; i < s.length; i++)
+            h = ((h << 5) - h + s.charCodeAt(i)) | 0;
+         return h + ":" + s.length;
+      };
+
+      // record the values put by participants
+      var scopes = [state.temporary, state.persistent, state.project_persistent];
+      for (var persist = 0; persist < scopes.length; persist++) {
+         var scope = scopes[persist];
+         for (var group in scope) {
+            for (var name in scope[group]) {
+               var value = scope[group][name];
+               var json = JSON.stringify(value);
+               var valueHash = hash(json === undefined ? "undefined" : json);
+
+               var key = persist + "/" + group + "/" + name;
+               var entry = entries[key];
+               if (!entry) {
+                  entry = entries[key] = {
+                     persist: persist,
+                     group: group,
+                     name: name,
+                     version: 0,
+                     hash: null,
+                     sentHash: null,
+                     sendingVersion: -1
+                  };
+               }
+
+               if (entry.hash !== valueHash) {
+                  entry.hash = valueHash;
+                  entry.value = value;
+                  entry.version++;
+               }
+            }
+         }
+      }
+
+      // send the dirty values
+      changes.versions = {};
+      var any = false;
+      for (var key in entries) {
+         var entry = entries[key];
+         if (entry.hash === entry.sentHash ||
+             entry.version === entry.sendingVersion)
+            continue;
+
+         changes.set(entry.group, entry.name, entry.value, entry.persist);
+         changes.versions[key] = entry.version;
+         entry.sendingVersion = entry.version;
+         any = true;
+      }
+      return any;
+   }-*/;
+
+   private final JavaScriptObject entries_;
+}
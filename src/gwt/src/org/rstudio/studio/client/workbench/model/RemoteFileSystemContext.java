@@ -14,7 +14,6 @@
  */
 package org.rstudio.studio.client.workbench.model;
 
-import com.google.gwt.core.client.JsArray;
 import com.google.gwt.resources.client.ImageResource;
 import com.google.inject.Inject;
 import org.rstudio.core.client.MessageDisplay;
@@ -73,9 +72,8 @@ public class RemoteFileSystemContext extends PosixFileSystemContext
                @Override
                public void onResponseReceived(final DirectoryListing response)
                { 
-                  final JsArray<FileSystemItem> files = response.getFiles();
-                  for (int i = 0; i < files.length(); i++)
-                     fsi.add(files.get(i));
+                  for (int i = 0; i < response.getFileCount(); i++)
+                     fsi.add(response.getFile(i));
                   
                   workingDir_ = newPath;
                   contents_ = fsi.toArray(new FileSystemItem[0]);
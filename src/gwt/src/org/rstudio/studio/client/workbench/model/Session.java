@@ -16,6 +16,7 @@ package org.rstudio.studio.client.workbench.model;
 
 import com.google.inject.Inject;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.events.SessionInfoPartEvent;
 import org.rstudio.studio.client.workbench.events.PushClientStateEvent;
 
 public class Session
@@ -24,6 +25,18 @@ public class Session
    public Session(EventBus events)
    {
       events_ = events;
+      
+      // merge the parts of the session info which arrive after client_init
+      events_.addHandler(SessionInfoPartEvent.TYPE,
+                         new SessionInfoPartEvent.Handler()
+      {
+         @Override
+         public void onSessionInfoPart(SessionInfoPartEvent event)
+         {
+            if (sessionInfo_ != null)
+               sessionInfo_.setPart(event.getName(), event.getValue());
+         }
+      });
    }
 
    public SessionInfo getSessionInfo()
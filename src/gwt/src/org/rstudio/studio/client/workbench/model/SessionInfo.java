@@ -400,4 +400,34 @@ public class SessionInfo extends JavaScriptObject
    public final native RVersionsInfo getRVersionsInfo() /*-{
       return this.r_versions_info;
    }-*/;
+   
+   public final native boolean getEventStreamingAvailable() /*-{
+      return !!this.event_streaming_available;
+   }-*/;
+   
+   public final native boolean getRpcBatchingAvailable() /*-{
+      return !!this.rpc_batching_available;
+   }-*/;
+   
+   // The heavier parts of the session info are sent after client_init (as
+   // SessionInfoPartEvents); a deferred part is null until it arrives.
+   public final native boolean isPartDeferred(String name) /*-{
+      var parts = this.deferred_parts;
+      return !!parts && parts.indexOf(name) !== -1;
+   }-*/;
+   
+   public final native void setPart(String name, JavaScriptObject value) /*-{
+      this[name] = value;
+      var parts = this.deferred_parts;
+      var index = parts ? parts.indexOf(name) : -1;
+      if (index !== -1)
+         parts.splice(index, 1);
+   }-*/;
+   
+   public final static String PART_CONSOLE_HISTORY = "console_history";
+   public final static String PART_CONSOLE_ACTIONS = "console_actions";
+   public final static String PART_LISTS = "lists";
+   public final static String PART_FIND_IN_FILES_STATE = "find_in_files_state";
+   public final static String PART_MARKERS_STATE = "markers_state";
+   public final static String PART_BUILD_STATE = "build_state";
 }
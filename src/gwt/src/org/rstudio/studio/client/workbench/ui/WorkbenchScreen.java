@@ -19,6 +19,8 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Document;
+import com.google.gwt.event.logical.shared.CloseEvent;
+import com.google.gwt.event.logical.shared.CloseHandler;
 import com.google.gwt.event.logical.shared.ResizeEvent;
 import com.google.gwt.event.logical.shared.ResizeHandler;
 import com.google.gwt.event.logical.shared.SelectionEvent;
@@ -30,6 +32,8 @@ import com.google.gwt.user.client.ui.*;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+import java.util.LinkedHashMap;
+
 import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.SerializedCommand;
 import org.rstudio.core.client.SerializedCommandQueue;
@@ -46,6 +50,7 @@ import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.application.events.ChangeFontSizeEvent;
 import org.rstudio.studio.client.application.events.ChangeFontSizeHandler;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.ui.PerformanceHud;
 import org.rstudio.studio.client.application.ui.appended.ApplicationEndedPopupPanel;
 import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.workbench.FileMRUList;
@@ -377,6 +382,34 @@ public class WorkbenchScreen extends Composite
       globalDisplay_.openRStudioLink("using_version_control");
    }
    
+   @Handler
+   void onTogglePerformanceHud()
+   {
+      if (performanceHud_ != null)
+      {
+         RootPanel.get().remove(performanceHud_);
+         performanceHud_ = null;
+         return;
+      }
+      
+      LinkedHashMap<String, Widget> panes = new LinkedHashMap<String, Widget>();
+      panes.put("Console", paneManager_.getConsole());
+      panes.put("Source", paneManager_.getSourceLogicalWindow().getNormal());
+      panes.put("Environment", paneManager_.getTab(Tab.Environment).asWidget());
+      panes.put("Files", paneManager_.getTab(Tab.Files).asWidget());
+      
+      performanceHud_ = new PerformanceHud(panes);
+      performanceHud_.addCloseHandler(new CloseHandler<PerformanceHud>()
+      {
+         public void onClose(CloseEvent<PerformanceHud> event)
+         {
+            RootPanel.get().remove(performanceHud_);
+            performanceHud_ = null;
+         }
+      });
+      RootPanel.get().add(performanceHud_);
+   }
+   
    public Widget asWidget()
    {
       return this;
@@ -394,6 +427,7 @@ public class WorkbenchScreen extends Composite
 
    private final MainSplitPanel tabsPanel_ ;
    private PaneManager paneManager_;
+   private PerformanceHud performanceHud_;
 
   
 
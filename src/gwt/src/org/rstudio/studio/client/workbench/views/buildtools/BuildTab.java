@@ -21,6 +21,7 @@ import com.google.inject.Inject;
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.core.client.command.Handler;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.events.SessionInfoPartEvent;
 import org.rstudio.studio.client.workbench.commands.Commands;
 import org.rstudio.studio.client.workbench.events.SessionInitEvent;
 import org.rstudio.studio.client.workbench.events.SessionInitHandler;
@@ -95,13 +96,26 @@ public class BuildTab extends DelayLoadWorkbenchTab<BuildPresenter>
             BuildCommands.setBuildCommandState(commands, sessionInfo);
 
             // initialize from build state if necessary
-            BuildState buildState = sessionInfo.getBuildState();
-            if (buildState != null)
-               shim.initialize(buildState);           
+            if (!sessionInfo.isPartDeferred(SessionInfo.PART_BUILD_STATE))
+               initialize(shim, sessionInfo.getBuildState());
          }
       });
       
+      eventBus.addHandler(SessionInfoPartEvent.TYPE,
+                          new SessionInfoPartEvent.Handler() {
+         @Override
+         public void onSessionInfoPart(SessionInfoPartEvent event)
+         {
+            if (event.getName().equals(SessionInfo.PART_BUILD_STATE))
+               initialize(shim, event.<BuildState>getValue());
+         }
+      });
+   }
    
+   private static void initialize(Shim shim, BuildState buildState)
+   {
+      if (buildState != null)
+         shim.initialize(buildState);
    }
    
    @Override
@@ -31,6 +31,7 @@ import org.rstudio.core.client.command.KeyboardHelper;
 import org.rstudio.core.client.command.KeyboardShortcut;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.events.SessionInfoPartEvent;
 import org.rstudio.studio.client.common.CommandLineHistory;
 import org.rstudio.studio.client.common.debugging.ErrorManager;
 import org.rstudio.studio.client.common.debugging.events.UnhandledErrorEvent;
@@ -175,15 +176,25 @@ public class Shell implements ConsoleInputHandler,
          }
       };
 
-      JsArrayString history = sessionInfo.getConsoleHistory();
-      if (history != null)
-         setHistory(history);
-
-      RpcObjectList<ConsoleAction> actions = sessionInfo.getConsoleActions();
-      if (actions != null)
+      // the history and console actions may arrive after client_init
+      eventBus_.addHandler(SessionInfoPartEvent.TYPE,
+                           new SessionInfoPartEvent.Handler()
       {
-         view_.playbackActions(actions);
-      }
+         @Override
+         public void onSessionInfoPart(SessionInfoPartEvent event)
+         {
+            if (event.getName().equals(SessionInfo.PART_CONSOLE_HISTORY))
+               initHistory(event.<JsArrayString>getValue());
+            else if (event.getName().equals(SessionInfo.PART_CONSOLE_ACTIONS))
+               initActions(event.<RpcObjectList<ConsoleAction>>getValue());
+         }
+      });
+
+      if (!sessionInfo.isPartDeferred(SessionInfo.PART_CONSOLE_HISTORY))
+         initHistory(sessionInfo.getConsoleHistory());
+
+      if (!sessionInfo.isPartDeferred(SessionInfo.PART_CONSOLE_ACTIONS))
+         initActions(sessionInfo.getConsoleActions());
 
       if (sessionInfo.getResumed())
       {
@@ -192,6 +203,18 @@ public class Shell implements ConsoleInputHandler,
       }
    }
 
+   private void initHistory(JsArrayString history)
+   {
+      if (history != null)
+         setHistory(history);
+   }
+   
+   private void initActions(RpcObjectList<ConsoleAction> actions)
+   {
+      if (actions != null)
+         view_.playbackActions(actions);
+   }
+
    public Display getDisplay()
    {
       return view_ ;
@@ -29,6 +29,7 @@ import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
 import org.rstudio.studio.client.common.codetools.Completions;
+import org.rstudio.studio.client.common.codetools.FunctionSignature;
 import org.rstudio.studio.client.common.codetools.RCompletionType;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.common.icons.code.CodeIcons;
@@ -64,6 +65,8 @@ public class CompletionRequester
 {
    private CodeToolsServerOperations server_ ;
    private UIPrefs uiPrefs_;
+   private RCompletionIndex index_;
+   private SignatureCache signatures_;
    private final NavigableSourceEditor editor_ ;
    private final SnippetHelper snippets_ ;
 
@@ -83,10 +86,15 @@ public class CompletionRequester
    }
    
    @Inject
-   void initialize(CodeToolsServerOperations server, UIPrefs uiPrefs)
+   void initialize(CodeToolsServerOperations server,
+                   UIPrefs uiPrefs,
+                   RCompletionIndex index,
+                   SignatureCache signatures)
    {
       server_ = server;
       uiPrefs_ = uiPrefs;
+      index_ = index;
+      signatures_ = signatures;
    }
    
    private boolean usingCache(
@@ -352,18 +360,7 @@ public class CompletionRequester
       if (usingCache(token, isHelp, callback))
          return;
       
-      doGetCompletions(
-            token,
-            assocData,
-            dataType,
-            numCommas,
-            functionCallString,
-            chainDataName,
-            chainAdditionalArgs,
-            chainExcludeArgs,
-            chainExcludeArgsFromObject,
-            filePath,
-            documentId,
+      ServerRequestCallback<Completions> responseCallback =
             new ServerRequestCallback<Completions>()
       {
          @Override
@@ -431,7 +428,79 @@ public class CompletionRequester
 
             callback.onResponseReceived(result);
          }
-      }) ;
+      };
+      
+      if (canCompleteLocally(token, assocData, dataType))
+      {
+         // complete the arguments of the enclosing call if we already know
+         // its signature
+         FunctionSignature function = null;
+         if (!dataType.isEmpty() &&
+             dataType.get(0) == AutocompletionContext.TYPE_FUNCTION)
+         {
+            function = signatures_.getCachedSignature(assocData.get(0), "");
+         }
+         
+         responseCallback.onResponseReceived(
+               index_.getCompletions(token, function));
+         return;
+      }
+      
+      index_.refreshIfStale();
+      doGetCompletions(
+            token,
+            assocData,
+            dataType,
+            numCommas,
+            functionCallString,
+            chainDataName,
+            chainAdditionalArgs,
+            chainExcludeArgs,
+            chainExcludeArgsFromObject,
+            filePath,
+            documentId,
+            responseCallback);
+   }
+   
+   // Completions of a symbol at the top level are answered from the
+   // completion index (outside of package projects). Completions within a call may include the call's
+   // arguments (or the names of an object), which only R knows, so they're
+   // only answered from the index when R is busy.
+   private boolean canCompleteLocally(String token,
+                                      List<String> assocData,
+                                      List<Integer> dataType)
+   {
+      if (!index_.isAvailable())
+         return false;
+      
+      if (StringUtil.isNullOrEmpty(token) || RE_EXTRACTION.test(token))
+         return false;
+      
+      if (rnwContext_ != null &&
+          rnwContext_.getRnwOptionsStart(token, token.length()) >= 0)
+         return false;
+      
+      if (assocData.isEmpty())
+         return true;
+      
+      if (!index_.isRBusy())
+         return false;
+      
+      for (int type : dataType)
+      {
+         switch (type)
+         {
+            case AutocompletionContext.TYPE_UNKNOWN:
+            case AutocompletionContext.TYPE_FUNCTION:
+            case AutocompletionContext.TYPE_SINGLE_BRACKET:
+            case AutocompletionContext.TYPE_DOUBLE_BRACKET:
+            case AutocompletionContext.TYPE_ARGUMENT:
+               break;
+            default:
+               return false;
+         }
+      }
+      return true;
    }
    
    private ArrayList<QualifiedName>
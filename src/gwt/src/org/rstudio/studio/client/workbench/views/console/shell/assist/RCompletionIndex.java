@@ -0,0 +1,442 @@
+/*
+ * RCompletionIndex.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.console.shell.assist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
+import org.rstudio.studio.client.common.codetools.CompletionIndexData;
+import org.rstudio.studio.client.common.codetools.CompletionIndexData.PackageExports;
+import org.rstudio.studio.client.common.codetools.Completions;
+import org.rstudio.studio.client.common.codetools.FunctionSignature;
+import org.rstudio.studio.client.common.codetools.RCompletionType;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.WorkbenchContext;
+import org.rstudio.studio.client.workbench.model.Session;
+import org.rstudio.studio.client.workbench.model.SessionInfo;
+import org.rstudio.studio.client.workbench.views.console.events.ConsolePromptEvent;
+import org.rstudio.studio.client.workbench.views.console.events.ConsolePromptHandler;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStateChangedEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStateChangedHandler;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedHandler;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayBoolean;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.storage.client.Storage;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * An index of the symbols R can complete without evaluating anything: the
+ * exports of the attached packages, the objects in the global environment
+ * (and active frame), and the installed packages. Top-level completions are
+ * answered from the index, without a round trip to R, except in package
+ * projects: there R also completes from the package's source and NAMESPACE
+ * imports, which the index doesn't have.
+ *
+ * Package exports are keyed by package name and version, and are kept in
+ * browser storage, so they're only fetched from R once per package version.
+ * The packages are refreshed (lazily, on the next completion request) when
+ * a package is attached or installed, and the objects in the environment
+ * each time R returns to the prompt; R only inspects the objects that were
+ * assigned since the last refresh. While R is busy the index answers from
+ * what it last knew.
+ */
+@Singleton
+public class RCompletionIndex
+{
+   @Inject
+   public RCompletionIndex(EventBus events,
+                           CodeToolsServerOperations server,
+                           WorkbenchContext workbenchContext,
+                           Session session)
+   {
+      server_ = server;
+      workbenchContext_ = workbenchContext;
+      session_ = session;
+      storage_ = Storage.getLocalStorageIfSupported();
+
+      events.addHandler(ConsolePromptEvent.TYPE, new ConsolePromptHandler()
+      {
+         @Override
+         public void onConsolePrompt(ConsolePromptEvent event)
+         {
+            globalsStale_ = true;
+         }
+      });
+
+      events.addHandler(PackageStatusChangedEvent.TYPE,
+                        new PackageStatusChangedHandler()
+      {
+         @Override
+         public void onPackageStatusChanged(PackageStatusChangedEvent event)
+         {
+            packagesStale_ = true;
+         }
+      });
+
+      events.addHandler(PackageStateChangedEvent.TYPE,
+                        new PackageStateChangedHandler()
+      {
+         @Override
+         public void onPackageStateChanged(PackageStateChangedEvent event)
+         {
+            packagesStale_ = true;
+         }
+      });
+   }
+
+   public boolean isRBusy()
+   {
+      return workbenchContext_.isServerBusy();
+   }
+
+   // can the index answer completion requests? (it can if it's up to date
+   // and we're not in a package project, or if R is busy and so can't answer
+   // them itself)
+   public boolean isAvailable()
+   {
+      if (data_ == null)
+         return false;
+      else if (isRBusy())
+         return true;
+      else
+         return !globalsStale_ && !packagesStale_ && !isPackageProject();
+   }
+
+   public void refreshIfStale()
+   {
+      if (!(globalsStale_ || packagesStale_) || refreshing_ || isRBusy())
+         return;
+
+      // (if R returns to the prompt while we're refreshing, the index is
+      // stale again)
+      final boolean includePackages = packagesStale_ || installed_ == null;
+      globalsStale_ = false;
+      packagesStale_ = false;
+      refreshing_ = true;
+      server_.getCompletionIndex(
+            getKnownPackages(),
+            includePackages,
+            new ServerRequestCallback<CompletionIndexData>()
+            {
+               @Override
+               public void onResponseReceived(CompletionIndexData data)
+               {
+                  refreshing_ = false;
+                  update(data, includePackages);
+               }
+
+               @Override
+               public void onError(ServerError error)
+               {
+                  refreshing_ = false;
+                  globalsStale_ = true;
+                  packagesStale_ |= includePackages;
+                  Debug.logError(error);
+               }
+            });
+   }
+
+   // top-level completions for token, as R would produce them (outside of
+   // package projects)
+   public Completions getCompletions(String token)
+   {
+      return getCompletions(token, null);
+   }
+
+   // as above, preceded by the arguments of the function being called (if
+   // its signature is known)
+   public Completions getCompletions(String token, FunctionSignature function)
+   {
+      String tokenLower = token.toLowerCase();
+      boolean includeHidden = token.startsWith(".");
+
+      // arguments of the enclosing call
+      ArrayList<Candidate> arguments = new ArrayList<Candidate>();
+      JsArrayString args = function != null ? function.getArgs() : null;
+      for (int i = 0; args != null && i < args.length(); i++)
+      {
+         String arg = args.get(i);
+         if (!arg.equals("...") && arg.toLowerCase().startsWith(tokenLower))
+            arguments.add(new Candidate(arg + " = ", function.getName(),
+                                        RCompletionType.ARGUMENT));
+      }
+
+      // objects on the search path (and in the active frame)
+      ArrayList<Candidate> candidates = new ArrayList<Candidate>();
+      addCandidates(candidates, data_.getFrame(), data_.getFrameTypes(),
+                    "", tokenLower, includeHidden);
+      addCandidates(candidates, data_.getGlobals(), data_.getGlobalTypes(),
+                    ".GlobalEnv", tokenLower, includeHidden);
+      for (PackageExports pkg : attached_)
+      {
+         addCandidates(candidates, pkg.getExports(), pkg.getTypes(),
+                       "package:" + pkg.getName(), tokenLower, includeHidden);
+      }
+      for (String keyword : KEYWORDS)
+      {
+         if (keyword.toLowerCase().startsWith(tokenLower))
+            candidates.add(new Candidate(keyword, "base",
+                                         RCompletionType.KEYWORD));
+      }
+      Collections.sort(candidates, new Comparator<Candidate>()
+      {
+         @Override
+         public int compare(Candidate lhs, Candidate rhs)
+         {
+            int result = lhs.name.compareToIgnoreCase(rhs.name);
+            return result != 0 ? result : lhs.name.compareTo(rhs.name);
+         }
+      });
+
+      // prefer TRUE and FALSE when completing T and F
+      String preferred = token.equals("T") ? "TRUE" :
+                         token.equals("F") ? "FALSE" : null;
+      for (int i = 0; preferred != null && i < candidates.size(); i++)
+      {
+         if (candidates.get(i).name.equals(preferred))
+         {
+            candidates.add(0, candidates.remove(i));
+            break;
+         }
+      }
+
+      // installed packages
+      for (int i = 0; i < installed_.length(); i++)
+      {
+         String pkg = installed_.get(i);
+         if (pkg.toLowerCase().startsWith(tokenLower))
+            candidates.add(new Candidate(pkg + "::", pkg,
+                                         RCompletionType.PACKAGE));
+      }
+
+      // completions starting with a letter or number come first
+      JsArrayString results = JsArrayString.createArray().cast();
+      JsArrayString packages = JsArrayString.createArray().cast();
+      JsArrayBoolean quote = JsArrayBoolean.createArray().cast();
+      JsArrayInteger types = JsArrayInteger.createArray().cast();
+      for (Candidate argument : arguments)
+      {
+         results.push(argument.name);
+         packages.push(argument.source);
+         quote.push(false);
+         types.push(argument.type);
+      }
+      for (int pass = 0; pass < 2; pass++)
+      {
+         for (Candidate candidate : candidates)
+         {
+            if (startsWithAlnum(candidate.name) != (pass == 0))
+               continue;
+            results.push(candidate.name);
+            packages.push(candidate.source);
+            quote.push(false);
+            types.push(candidate.type);
+         }
+      }
+
+      return Completions.createCompletions(
+            token, results, packages, quote, types, "", false, false, true);
+   }
+
+   private boolean isPackageProject()
+   {
+      String type = session_.getSessionInfo().getBuildToolsType();
+      return type.equals(SessionInfo.BUILD_TOOLS_PACKAGE);
+   }
+
+   private void update(CompletionIndexData data, boolean includesPackages)
+   {
+      data_ = data;
+      if (!includesPackages)
+         return;
+
+      ArrayList<PackageExports> attached = new ArrayList<PackageExports>();
+      JsArray<PackageExports> packages = data.getPackages();
+      for (int i = 0; i < packages.length(); i++)
+      {
+         PackageExports pkg = packages.get(i);
+         if (pkg.hasExports())
+         {
+            exports_.put(pkg.getKey(), pkg);
+            store(pkg);
+         }
+
+         PackageExports exports = getExports(pkg.getKey());
+         if (exports != null)
+            attached.add(exports);
+         else
+            packagesStale_ = true; // (removed from storage since we asked)
+      }
+
+      attached_ = attached;
+      installed_ = data.getInstalledPackages();
+   }
+
+   private void addCandidates(ArrayList<Candidate> candidates,
+                              JsArrayString names,
+                              JsArrayInteger types,
+                              String source,
+                              String tokenLower,
+                              boolean includeHidden)
+   {
+      if (names == null)
+         return;
+
+      for (int i = 0; i < names.length(); i++)
+      {
+         String name = names.get(i);
+         if (!includeHidden && name.startsWith("."))
+            continue;
+         if (name.toLowerCase().startsWith(tokenLower))
+            candidates.add(new Candidate(name, source, types.get(i)));
+      }
+   }
+
+   private static boolean startsWithAlnum(String name)
+   {
+      if (name.length() == 0)
+         return false;
+      char ch = name.charAt(0);
+      return (ch >= 'a' && ch <= 'z') ||
+             (ch >= 'A' && ch <= 'Z') ||
+             (ch >= '0' && ch <= '9');
+   }
+
+   // the packages (name@version) whose exports we have
+   private JsArrayString getKnownPackages()
+   {
+      JsArrayString known = JsArrayString.createArray().cast();
+      for (String key : exports_.keySet())
+         known.push(key);
+
+      if (storage_ != null)
+      {
+         for (int i = 0; i < storage_.getLength(); i++)
+         {
+            String key = storage_.key(i);
+            if (key != null && key.startsWith(STORAGE_PREFIX))
+            {
+               String pkg = key.substring(STORAGE_PREFIX.length());
+               if (!exports_.containsKey(pkg))
+                  known.push(pkg);
+            }
+         }
+      }
+      return known;
+   }
+
+   private PackageExports getExports(String key)
+   {
+      PackageExports exports = exports_.get(key);
+      if (exports == null && storage_ != null)
+      {
+         String json = storage_.getItem(STORAGE_PREFIX + key);
+         if (json != null)
+         {
+            try
+            {
+               exports = parse(json).cast();
+               exports_.put(key, exports);
+            }
+            catch (Exception e)
+            {
+               storage_.removeItem(STORAGE_PREFIX + key);
+            }
+         }
+      }
+      return exports;
+   }
+
+   private void store(PackageExports pkg)
+   {
+      if (storage_ == null)
+         return;
+
+      // remove other versions of the package
+      String prefix = STORAGE_PREFIX + pkg.getName() + "@";
+      for (int i = storage_.getLength() - 1; i >= 0; i--)
+      {
+         String key = storage_.key(i);
+         if (key != null && key.startsWith(prefix))
+            storage_.removeItem(key);
+      }
+
+      try
+      {
+         storage_.setItem(STORAGE_PREFIX + pkg.getKey(), stringify(pkg));
+      }
+      catch (Exception e)
+      {
+         // storage is full (or disabled); we'll fetch the exports again
+         // next session
+         Debug.log("Unable to store completions for " + pkg.getKey());
+      }
+   }
+
+   private static native String stringify(JavaScriptObject object) /*-{
+      return JSON.stringify(object);
+   }-*/;
+
+   private static native JavaScriptObject parse(String json) /*-{
+      return JSON.parse(json);
+   }-*/;
+
+   private static class Candidate
+   {
+      Candidate(String name, String source, int type)
+      {
+         this.name = name;
+         this.source = source;
+         this.type = type;
+      }
+
+      final String name;
+      final String source;
+      final int type;
+   }
+
+   private final CodeToolsServerOperations server_;
+   private final WorkbenchContext workbenchContext_;
+   private final Session session_;
+   private final Storage storage_;
+
+   private final HashMap<String, PackageExports> exports_ =
+         new HashMap<String, PackageExports>();
+   private ArrayList<PackageExports> attached_ =
+         new ArrayList<PackageExports>();
+   private CompletionIndexData data_;
+   private JsArrayString installed_;
+   private boolean globalsStale_ = true;
+   private boolean packagesStale_ = true;
+   private boolean refreshing_ = false;
+
+   private static final String STORAGE_PREFIX = "rstudio.completionIndex.";
+   private static final String[] KEYWORDS = new String[] {
+      "NULL", "NA", "TRUE", "FALSE", "T", "F", "Inf", "NaN",
+      "NA_integer_", "NA_real_", "NA_character_", "NA_complex_"
+   };
+}
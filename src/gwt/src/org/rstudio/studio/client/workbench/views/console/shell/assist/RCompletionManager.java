@@ -41,6 +41,7 @@ import org.rstudio.core.client.command.KeyboardShortcut;
 import org.rstudio.core.client.events.SelectionCommitEvent;
 import org.rstudio.core.client.events.SelectionCommitHandler;
 import org.rstudio.core.client.files.FileSystemItem;
+import org.rstudio.core.client.regex.Match;
 import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.events.EventBus;
@@ -48,6 +49,7 @@ import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.common.GlobalProgressDelayer;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
+import org.rstudio.studio.client.common.codetools.FunctionSignature;
 import org.rstudio.studio.client.common.codetools.RCompletionType;
 import org.rstudio.studio.client.common.filetypes.DocumentMode;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
@@ -77,6 +79,8 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.ace.RInfixD
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Token;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.TokenCursor;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedHandler;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.PasteEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.r.RCompletionToolTip;
 import org.rstudio.studio.client.workbench.views.source.events.CodeBrowserNavigationEvent;
@@ -211,6 +215,29 @@ public class RCompletionManager implements CompletionManager
          }
       });
       
+      // fetch the signatures of the functions called in the visible part
+      // of the document (after the cursor or view moves), so signature
+      // tooltips can be shown without waiting for R
+      if (!isConsole_)
+      {
+         docDisplay_.addCursorChangedHandler(new CursorChangedHandler()
+         {
+            @Override
+            public void onCursorChanged(CursorChangedEvent event)
+            {
+               prefetchSignaturesTimer_.schedule(PREFETCH_SIGNATURES_DELAY_MS);
+            }
+         });
+         docDisplay_.addEditorFocusHandler(new FocusHandler()
+         {
+            @Override
+            public void onFocus(FocusEvent event)
+            {
+               prefetchSignaturesTimer_.schedule(PREFETCH_SIGNATURES_DELAY_MS);
+            }
+         });
+      }
+      
       popup_.addAttachHandler(new AttachEvent.Handler()
       {
          private boolean wasSigtipShowing_ = false;
@@ -244,13 +271,15 @@ public class RCompletionManager implements CompletionManager
                           FileTypeRegistry fileTypeRegistry,
                           EventBus eventBus,
                           HelpStrategy helpStrategy,
-                          UIPrefs uiPrefs)
+                          UIPrefs uiPrefs,
+                          SignatureCache signatures)
    {
       globalDisplay_ = globalDisplay;
       fileTypeRegistry_ = fileTypeRegistry;
       eventBus_ = eventBus;
       helpStrategy_ = helpStrategy;
       uiPrefs_ = uiPrefs;
+      signatures_ = signatures;
    }
 
    public void close()
@@ -2095,17 +2124,21 @@ public class RCompletionManager implements CompletionManager
       
       // We want to find the cursor position, and place the popup
       // above the cursor.
-      server_.getArgs(
+      signatures_.getSignature(
             qualifiedName.name,
             qualifiedName.source,
-            new ServerRequestCallback<String>()
+            new ServerRequestCallback<FunctionSignature>()
             {
 
                @Override
-               public void onResponseReceived(String args)
+               public void onResponseReceived(FunctionSignature signature)
                {
-                  if (!StringUtil.isNullOrEmpty(args))
-                     doDisplaySignatureToolTip(qualifiedName.name + args);
+                  if (signature != null &&
+                      !StringUtil.isNullOrEmpty(signature.getSignature()))
+                  {
+                     doDisplaySignatureToolTip(
+                           qualifiedName.name + signature.getSignature());
+                  }
                }
 
                @Override
@@ -2117,6 +2150,39 @@ public class RCompletionManager implements CompletionManager
    }
    
    
+   private void prefetchSignatures()
+   {
+      if (!(docDisplay_ instanceof AceEditor))
+         return;
+      
+      AceEditor editor = (AceEditor) docDisplay_;
+      int firstRow = Math.max(0, editor.getFirstVisibleRow());
+      int lastRow = Math.min(editor.getRowCount() - 1,
+                             editor.getLastVisibleRow());
+      
+      ArrayList<String> names = new ArrayList<String>();
+      for (int row = firstRow; row <= lastRow; row++)
+      {
+         String line = editor.getLine(row);
+         for (Match match = RE_FUNCTION_CALL.match(line, 0);
+              match != null;
+              match = match.nextMatch())
+         {
+            // skip qualified calls (foo::bar(), x$f()) and keywords
+            int index = match.getIndex();
+            char prev = index > 0 ? line.charAt(index - 1) : ' ';
+            if (prev == ':' || prev == '$' || prev == '@')
+               continue;
+            
+            String name = match.getGroup(1);
+            if (!KEYWORDS.contains(name) && !names.contains(name))
+               names.add(name);
+         }
+      }
+      
+      signatures_.prefetch(names);
+   }
+   
    private void doDisplaySignatureToolTip(String signature)
    {
       if (sigTip_.isShowing())
@@ -2213,6 +2279,20 @@ public class RCompletionManager implements CompletionManager
    private final RnwCompletionContext rnwContext_;
    
    private RCompletionToolTip sigTip_;
+   private SignatureCache signatures_;
+   private final Timer prefetchSignaturesTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         prefetchSignatures();
+      }
+   };
+   private static final int PREFETCH_SIGNATURES_DELAY_MS = 500;
+   private static final Pattern RE_FUNCTION_CALL =
+         Pattern.create("([A-Za-z.][A-Za-z0-9._]*)\\s*\\(", "");
+   private static final List<String> KEYWORDS = Arrays.asList(
+         "if", "for", "while", "function", "switch", "repeat");
    private NativeEvent nativeEvent_;
    
    private QualifiedName lastSelectedItem_;
@@ -0,0 +1,328 @@
+/*
+ * SignatureCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.console.shell.assist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
+import org.rstudio.studio.client.common.codetools.FunctionSignature;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.WorkbenchContext;
+import org.rstudio.studio.client.workbench.views.console.events.ConsolePromptEvent;
+import org.rstudio.studio.client.workbench.views.console.events.ConsolePromptHandler;
+import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentObjectAssignedEvent;
+import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentObjectRemovedEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedHandler;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Caches the signatures (formals) of R functions, for signature tooltips
+ * and argument completions. Signatures are fetched in batches, and cached
+ * by function name and source until the package they come from is loaded
+ * or unloaded (i.e. possibly changes version). Functions which don't come
+ * from a package namespace (e.g. those in the global environment) may be
+ * redefined by any command, so they are dropped at each console prompt (and
+ * when the environment pane sees them assigned or removed). Names which
+ * aren't functions are cached too (as null) so they aren't fetched again
+ * until the next prompt.
+ * Since loading or unloading any package changes what the search path
+ * resolves to, all of the signatures looked up on the search path are
+ * dropped then. The least recently used signatures are dropped once the
+ * cache is full.
+ */
+@Singleton
+public class SignatureCache
+{
+   @Inject
+   public SignatureCache(EventBus events,
+                         CodeToolsServerOperations server,
+                         WorkbenchContext workbenchContext)
+   {
+      server_ = server;
+      workbenchContext_ = workbenchContext;
+
+      events.addHandler(PackageStatusChangedEvent.TYPE,
+                        new PackageStatusChangedHandler()
+      {
+         @Override
+         public void onPackageStatusChanged(PackageStatusChangedEvent event)
+         {
+            String pkg = event.getPackageStatus().getName();
+            Iterator<Map.Entry<String, FunctionSignature>> it =
+                  cache_.entrySet().iterator();
+            while (it.hasNext())
+            {
+               Map.Entry<String, FunctionSignature> entry = it.next();
+               String key = entry.getKey();
+               FunctionSignature signature = entry.getValue();
+               if (key.startsWith(getKey("", "")) ||
+                   key.startsWith(getKey("", pkg)) ||
+                   (signature != null && signature.getPackage().equals(pkg)))
+               {
+                  it.remove();
+               }
+            }
+         }
+      });
+
+      // the environment pane only reports changes to the environment it's
+      // monitoring, so we can't rely on it to tell us about the global
+      // environment
+      events.addHandler(ConsolePromptEvent.TYPE, new ConsolePromptHandler()
+      {
+         @Override
+         public void onConsolePrompt(ConsolePromptEvent event)
+         {
+            invalidateNonPackage();
+         }
+      });
+
+      events.addHandler(EnvironmentObjectAssignedEvent.TYPE,
+                        new EnvironmentObjectAssignedEvent.Handler()
+      {
+         @Override
+         public void onEnvironmentObjectAssigned(
+               EnvironmentObjectAssignedEvent event)
+         {
+            invalidate(event.getObjectInfo().getName());
+         }
+      });
+
+      events.addHandler(EnvironmentObjectRemovedEvent.TYPE,
+                        new EnvironmentObjectRemovedEvent.Handler()
+      {
+         @Override
+         public void onEnvironmentObjectRemoved(
+               EnvironmentObjectRemovedEvent event)
+         {
+            invalidate(event.getObjectName());
+         }
+      });
+   }
+
+   // the cached signature for the function, or null (if it isn't cached
+   // or isn't a function)
+   public FunctionSignature getCachedSignature(String name, String source)
+   {
+      return cache_.get(getKey(name, source));
+   }
+
+   // get the signature for the function (which will be null if it isn't a
+   // function, or R is busy and the signature isn't cached)
+   public void getSignature(String name,
+                            String source,
+                            final ServerRequestCallback<FunctionSignature> callback)
+   {
+      String key = getKey(name, source);
+      if (cache_.containsKey(key))
+      {
+         callback.onResponseReceived(cache_.get(key));
+         return;
+      }
+
+      if (workbenchContext_.isServerBusy())
+      {
+         callback.onResponseReceived(null);
+         return;
+      }
+
+      ArrayList<String> names = new ArrayList<String>();
+      ArrayList<String> sources = new ArrayList<String>();
+      names.add(name);
+      sources.add(source);
+      request(names, sources, callback);
+   }
+
+   // fetch the signatures of any of the functions (on the search path)
+   // which aren't cached
+   public void prefetch(List<String> names)
+   {
+      if (workbenchContext_.isServerBusy())
+         return;
+
+      ArrayList<String> missing = new ArrayList<String>();
+      ArrayList<String> sources = new ArrayList<String>();
+      for (String name : names)
+      {
+         String key = getKey(name, "");
+         if (cache_.containsKey(key) || pending_.containsKey(key) ||
+             missing.contains(name))
+            continue;
+
+         missing.add(name);
+         sources.add("");
+         if (missing.size() == MAX_BATCH_SIZE)
+            break;
+      }
+
+      if (!missing.isEmpty())
+         request(missing, sources, null);
+   }
+
+   private void request(final ArrayList<String> names,
+                        final ArrayList<String> sources,
+                        ServerRequestCallback<FunctionSignature> callback)
+   {
+      // if this signature is already being fetched, wait for that request
+      if (names.size() == 1)
+      {
+         List<ServerRequestCallback<FunctionSignature>> callbacks =
+               pending_.get(getKey(names.get(0), sources.get(0)));
+         if (callbacks != null)
+         {
+            if (callback != null)
+               callbacks.add(callback);
+            return;
+         }
+      }
+
+      JsArrayString jsNames = JsArrayString.createArray().cast();
+      JsArrayString jsSources = JsArrayString.createArray().cast();
+      for (int i = 0; i < names.size(); i++)
+      {
+         jsNames.push(names.get(i));
+         jsSources.push(sources.get(i));
+
+         ArrayList<ServerRequestCallback<FunctionSignature>> callbacks =
+               new ArrayList<ServerRequestCallback<FunctionSignature>>();
+         if (callback != null)
+            callbacks.add(callback);
+         pending_.put(getKey(names.get(i), sources.get(i)), callbacks);
+      }
+
+      server_.getSignatures(
+            jsNames,
+            jsSources,
+            new ServerRequestCallback<JsArray<FunctionSignature>>()
+            {
+               @Override
+               public void onResponseReceived(
+                     JsArray<FunctionSignature> signatures)
+               {
+                  for (int i = 0; i < names.size(); i++)
+                  {
+                     FunctionSignature signature =
+                           i < signatures.length() ? signatures.get(i) : null;
+                     String key = getKey(names.get(i), sources.get(i));
+                     put(key, signature);
+                     for (ServerRequestCallback<FunctionSignature> callback :
+                          pending_.remove(key))
+                        callback.onResponseReceived(signature);
+                  }
+               }
+
+               @Override
+               public void onError(ServerError error)
+               {
+                  Debug.logError(error);
+                  for (int i = 0; i < names.size(); i++)
+                  {
+                     String key = getKey(names.get(i), sources.get(i));
+                     for (ServerRequestCallback<FunctionSignature> callback :
+                          pending_.remove(key))
+                        callback.onError(error);
+                  }
+               }
+            });
+   }
+
+   private void put(String key, FunctionSignature signature)
+   {
+      cache_.put(key, signature);
+
+      // the function can also be found by its package (this is how
+      // completions refer to it)
+      if (signature != null && signature.getPackage().length() > 0)
+         cache_.put(getKey(signature.getName(), signature.getPackage()),
+                    signature);
+   }
+
+   private void invalidate(String name)
+   {
+      Iterator<Map.Entry<String, FunctionSignature>> it =
+            cache_.entrySet().iterator();
+      while (it.hasNext())
+      {
+         Map.Entry<String, FunctionSignature> entry = it.next();
+         FunctionSignature signature = entry.getValue();
+         if (signature == null ? entry.getKey().endsWith(getKey(name, "")) :
+                                 signature.getName().equals(name))
+         {
+            it.remove();
+         }
+      }
+   }
+
+   // drop the functions which aren't from a package, along with the names
+   // looked up on the search path which weren't functions
+   private void invalidateNonPackage()
+   {
+      Iterator<Map.Entry<String, FunctionSignature>> it =
+            cache_.entrySet().iterator();
+      while (it.hasNext())
+      {
+         Map.Entry<String, FunctionSignature> entry = it.next();
+         FunctionSignature signature = entry.getValue();
+         if (signature == null ? entry.getKey().startsWith(getKey("", "")) :
+                                 signature.getPackage().length() == 0)
+         {
+            it.remove();
+         }
+      }
+   }
+
+   private static String getKey(String name, String source)
+   {
+      if (source == null)
+         source = "";
+      else if (source.startsWith("package:"))
+         source = source.substring("package:".length());
+      return source + "::" + name;
+   }
+
+   private final CodeToolsServerOperations server_;
+   private final WorkbenchContext workbenchContext_;
+
+   private final LinkedHashMap<String, FunctionSignature> cache_ =
+         new LinkedHashMap<String, FunctionSignature>(16, 0.75f, true)
+   {
+      @Override
+      protected boolean removeEldestEntry(
+            Map.Entry<String, FunctionSignature> eldest)
+      {
+         return size() > MAX_SIZE;
+      }
+   };
+
+   private final HashMap<String, List<ServerRequestCallback<FunctionSignature>>>
+         pending_ =
+         new HashMap<String, List<ServerRequestCallback<FunctionSignature>>>();
+
+   private static final int MAX_SIZE = 1000;
+   private static final int MAX_BATCH_SIZE = 50;
+}
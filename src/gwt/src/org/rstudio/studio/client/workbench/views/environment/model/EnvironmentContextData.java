@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.workbench.views.environment.model;
 
+import org.rstudio.core.client.jsonrpc.RpcColumnarList;
+
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 
@@ -41,10 +43,28 @@ public class EnvironmentContextData extends JavaScriptObject
       return this.function_code;
    }-*/;
   
-   public final native JsArray<RObject> environmentList() /*-{
+   // the list may arrive in the columnar encoding (see RemoteServer), in
+   // which case it's expanded into records on first access
+   public final JsArray<RObject> environmentList()
+   {
+      JavaScriptObject list = environmentListNative();
+      if (RpcColumnarList.isColumnar(list))
+      {
+         list = list.<RpcColumnarList<RObject>>cast().toJsArray();
+         setEnvironmentListNative(list);
+      }
+      return list == null ? null : list.<JsArray<RObject>>cast();
+   }
+
+   private final native JavaScriptObject environmentListNative() /*-{
       return this.environment_list;
    }-*/;
 
+   private final native void setEnvironmentListNative(
+         JavaScriptObject list) /*-{
+      this.environment_list = list;
+   }-*/;
+
    public final native String environmentName() /*-{
       return this.environment_name;
    }-*/;
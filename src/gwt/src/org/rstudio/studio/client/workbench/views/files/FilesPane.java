@@ -134,7 +134,7 @@ public class FilesPane extends WorkbenchPane implements Files.Display
             }
                
             filePathToolbar_.setPath(directory.getPath(), lastBrowseable);
-            filesList_.displayFiles(directory, response.getFiles()); 
+            filesList_.displayFiles(directory, response); 
          }
          public void onError(ServerError error)
          {
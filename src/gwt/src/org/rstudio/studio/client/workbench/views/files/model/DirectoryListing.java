@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.workbench.views.files.model;
 
 import org.rstudio.core.client.files.FileSystemItem;
+import org.rstudio.core.client.jsonrpc.RpcColumnarList;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
@@ -29,7 +30,60 @@ public class DirectoryListing extends JavaScriptObject
       return this.is_parent_browseable;
    }-*/;
    
-   public final native JsArray<FileSystemItem> getFiles() /*-{
+   // the files may arrive in the columnar encoding (see RemoteServer), in
+   // which case each file is read directly from the columns
+   public final int getFileCount()
+   {
+      JavaScriptObject files = getFilesNative();
+      if (RpcColumnarList.isColumnar(files))
+         return files.<RpcColumnarList<FileSystemItem>>cast().getLength();
+      else
+         return files.<JsArray<FileSystemItem>>cast().length();
+   }
+
+   public final FileSystemItem getFile(int index)
+   {
+      JavaScriptObject files = getFilesNative();
+      if (!RpcColumnarList.isColumnar(files))
+         return files.<JsArray<FileSystemItem>>cast().get(index);
+
+      RpcColumnarList<FileSystemItem> columns = files.cast();
+      return createFile(columns.getString("path", index),
+                        columns.getString("raw_path", index),
+                        columns.getBoolean("dir", index),
+                        columns.getNumber("length", index),
+                        columns.getNumber("lastModified", index),
+                        columns.getBoolean("exists", index),
+                        columns.getObject("git_status", index),
+                        columns.getObject("svn_status", index));
+   }
+   
+   private final native JavaScriptObject getFilesNative() /*-{
       return this.files;
    }-*/;
+
+   private static native FileSystemItem createFile(String path,
+                                                   String rawPath,
+                                                   boolean dir,
+                                                   double length,
+                                                   double lastModified,
+                                                   boolean exists,
+                                                   JavaScriptObject gitStatus,
+                                                   JavaScriptObject svnStatus)
+   /*-{
+      var file = {
+         path: path,
+         dir: dir,
+         length: length,
+         exists: exists,
+         lastModified: lastModified
+      };
+      if (rawPath != null)
+         file.raw_path = rawPath;
+      if (gitStatus != null)
+         file.git_status = gitStatus;
+      if (svnStatus != null)
+         file.svn_status = svnStatus;
+      return file;
+   }-*/;
 }
@@ -28,6 +28,7 @@ import org.rstudio.core.client.widget.OperationWithInput;
 import org.rstudio.studio.client.common.filetypes.FileIconResources;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.workbench.views.files.Files;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListing;
 import org.rstudio.studio.client.workbench.views.files.model.FileChange;
 
 import com.google.gwt.cell.client.CheckboxCell;
@@ -336,7 +337,7 @@ public class FilesList extends Composite
    
    
    public void displayFiles(FileSystemItem containingPath, 
-                            JsArray<FileSystemItem> files)
+                            DirectoryListing files)
    {
       // clear the selection
       selectNone();
@@ -346,7 +347,7 @@ public class FilesList extends Composite
       parentPath_ = containingPath_.getParentPath();
       
       // set page size (+1 for parent path)
-      filesCellTable_.setPageSize(files.length() + 1);
+      filesCellTable_.setPageSize(files.getFileCount() + 1);
       
       // get underlying list
       List<FileSystemItem> fileList = dataProvider_.getList();
@@ -357,8 +358,8 @@ public class FilesList extends Composite
          fileList.add(parentPath_);
       
       // add files to table
-      for (int i=0; i<files.length(); i++)
-         fileList.add(files.get(i));
+      for (int i=0; i<files.getFileCount(); i++)
+         fileList.add(files.getFile(i));
            
       // apply sort list
       applyColumnSortList();
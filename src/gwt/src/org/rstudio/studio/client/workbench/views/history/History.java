@@ -57,16 +57,20 @@ import org.rstudio.studio.client.workbench.views.console.events.SendToConsoleEve
 import org.rstudio.studio.client.workbench.views.history.History.Display.Mode;
 import org.rstudio.studio.client.workbench.views.history.events.FetchCommandsEvent;
 import org.rstudio.studio.client.workbench.views.history.events.FetchCommandsHandler;
+import org.rstudio.studio.client.workbench.views.history.events.FetchSearchResultsEvent;
+import org.rstudio.studio.client.workbench.views.history.events.FetchSearchResultsHandler;
 import org.rstudio.studio.client.workbench.views.history.events.HistoryEntriesAddedEvent;
 import org.rstudio.studio.client.workbench.views.history.events.HistoryEntriesAddedHandler;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
+import org.rstudio.studio.client.workbench.views.history.model.HistorySearchIndex;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryServerOperations;
 import org.rstudio.studio.client.workbench.views.source.events.InsertSourceEvent;
 
 import java.util.ArrayList;
 
 public class History extends BasePresenter implements SelectionCommitHandler<Void>,
-                                                      FetchCommandsHandler
+                                                      FetchCommandsHandler,
+                                                      FetchSearchResultsHandler
 {
    public interface SearchBoxDisplay extends HasValueChangeHandlers<String>
    {
@@ -120,6 +124,10 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
       void dismissSearchResults();
       void showSearchResults(String query,
                              ArrayList<HistoryEntry> entries);
+      void addSearchResults(ArrayList<HistoryEntry> entries);
+      void setMoreSearchResults(boolean moreSearchResults);
+      HandlerRegistration addFetchSearchResultsHandler(
+                                       FetchSearchResultsHandler handler);
       void showContext(String command,
                        ArrayList<HistoryEntry> entries,
                        long highlightOffset,
@@ -152,6 +160,9 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
          final String query = searchQuery_;
          if (searchQuery_ != null && searchQuery_.length() > 0)
          {
+            if (canAnswerLocally(query))
+               return;
+
             server_.searchHistoryArchive(
                   searchQuery_, COMMAND_CHUNK_SIZE,
                   new SimpleRequestCallback<RpcObjectList<HistoryEntry>>()
@@ -163,8 +174,10 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
                         if (!query.equals(searchQuery_))
                            return;
 
-                        ArrayList<HistoryEntry> entries = toList(response);
-                        view_.showSearchResults(query, entries);
+                        searchIndex_.reset(query,
+                                           toList(response),
+                                           COMMAND_CHUNK_SIZE);
+                        showSearchResults(query);
                      }
                   });
          }
@@ -180,7 +193,13 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
          }
          else
          {
-            nudge();
+            // a query which narrows the one we have results for can be
+            // answered immediately from those results
+            if (searchIndex_.canAnswer(query))
+               showSearchResults(query);
+
+            if (!canAnswerLocally(query))
+               nudge();
          }
       }
 
@@ -190,6 +209,20 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
          searchQuery_ = null;
       }
 
+      public String getQuery()
+      {
+         return searchQuery_;
+      }
+
+      // the local results suffice if the index has every match for the
+      // query, or at least a full page of them (more are fetched on demand)
+      private boolean canAnswerLocally(String query)
+      {
+         return searchIndex_.canAnswer(query) &&
+                (searchIndex_.isComplete() ||
+                 searchResults_.size() >= COMMAND_CHUNK_SIZE);
+      }
+
       private String searchQuery_;
    }
 
@@ -215,6 +248,7 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
 
       view_.addSelectionCommitHandler(this);
       view_.addFetchCommandsHandler(this);
+      view_.addFetchSearchResultsHandler(this);
 
       server_ = server;
       events_.addHandler(ConsoleResetHistoryEvent.TYPE, new ConsoleResetHistoryHandler()
@@ -223,6 +257,7 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
          public void onConsoleResetHistory(ConsoleResetHistoryEvent event)
          {
             view_.bringToFront();
+            searchIndex_.clear();
             
             // convert to HistoryEntry
             ArrayList<HistoryEntry> commands = toRecentCommandsList(
@@ -267,9 +302,19 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
       {
          public void onHistoryEntriesAdded(HistoryEntriesAddedEvent event)
          {
-            view_.addRecentCommands(toList(event.getEntries()), false);
+            ArrayList<HistoryEntry> entries = toList(event.getEntries());
+            view_.addRecentCommands(entries, false);
             view_.truncateRecentCommands(
                         session_.getSessionInfo().getConsoleHistoryCapacity());
+            
+            // show new matches for the search that's being displayed
+            String query = searchCommand_.getQuery();
+            if (searchIndex_.onEntriesAdded(entries) &&
+                query != null &&
+                searchIndex_.canAnswer(query))
+            {
+               showSearchResults(query);
+            }
          }
       });
 
@@ -588,6 +633,37 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
             });
    }
 
+   private void showSearchResults(String query)
+   {
+      searchResults_ = searchIndex_.search(query);
+      int count = Math.min(searchResults_.size(), COMMAND_CHUNK_SIZE);
+      view_.showSearchResults(
+            query,
+            new ArrayList<HistoryEntry>(searchResults_.subList(0, count)));
+      searchResultsShown_ = count;
+      view_.setMoreSearchResults(hasMoreSearchResults());
+   }
+
+   private boolean hasMoreSearchResults()
+   {
+      return searchResultsShown_ < searchResults_.size() ||
+             !searchIndex_.isComplete();
+   }
+
+   private void showMoreSearchResults()
+   {
+      int count = Math.min(searchResults_.size() - searchResultsShown_,
+                           COMMAND_CHUNK_SIZE);
+      if (count > 0)
+      {
+         view_.addSearchResults(new ArrayList<HistoryEntry>(
+               searchResults_.subList(searchResultsShown_,
+                                      searchResultsShown_ + count)));
+         searchResultsShown_ += count;
+      }
+      view_.setMoreSearchResults(hasMoreSearchResults());
+   }
+
    private ArrayList<HistoryEntry> toList(RpcObjectList<HistoryEntry> response)
    {
       ArrayList<HistoryEntry> entries = new ArrayList<HistoryEntry>();
@@ -621,6 +697,53 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
       onHistorySendToConsole();
    }
 
+   public void onFetchSearchResults(FetchSearchResultsEvent event)
+   {
+      final String query = searchCommand_.getQuery();
+      if (query == null || fetchingMoreSearchResults_)
+         return;
+
+      // render the next page of results we already have
+      if (searchResultsShown_ < searchResults_.size())
+      {
+         showMoreSearchResults();
+         return;
+      }
+
+      if (searchIndex_.isComplete())
+         return;
+
+      // extend the index with the next chunk of archive matches
+      final String indexQuery = searchIndex_.getQuery();
+      final int maxEntries = searchIndex_.size() + COMMAND_CHUNK_SIZE;
+      fetchingMoreSearchResults_ = true;
+      server_.searchHistoryArchive(
+            indexQuery, maxEntries,
+            new SimpleRequestCallback<RpcObjectList<HistoryEntry>>()
+            {
+               @Override
+               public void onResponseReceived(
+                     RpcObjectList<HistoryEntry> response)
+               {
+                  fetchingMoreSearchResults_ = false;
+                  if (!query.equals(searchCommand_.getQuery()) ||
+                      !indexQuery.equals(searchIndex_.getQuery()))
+                     return;
+
+                  searchIndex_.extend(toList(response), maxEntries);
+                  searchResults_ = searchIndex_.search(query);
+                  showMoreSearchResults();
+               }
+
+               @Override
+               public void onError(ServerError error)
+               {
+                  super.onError(error);
+                  fetchingMoreSearchResults_ = false;
+               }
+            });
+   }
+
    public void onFetchCommands(FetchCommandsEvent event)
    {
       if (fetchingMoreCommands_)
@@ -673,6 +796,14 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
    private static final int COMMAND_CHUNK_SIZE = 300;
    private static final int CONTEXT_LINES = 50;
    private boolean fetchingMoreCommands_ = false;
+
+   // matches for the current search query (searchResultsShown_ of which
+   // have been rendered) and the archive matches they were filtered from
+   private final HistorySearchIndex searchIndex_ = new HistorySearchIndex();
+   private ArrayList<HistoryEntry> searchResults_ =
+                                          new ArrayList<HistoryEntry>();
+   private int searchResultsShown_ = 0;
+   private boolean fetchingMoreSearchResults_ = false;
    private final Display view_;
    private final EventBus events_;
    private final GlobalDisplay globalDisplay_;
@@ -0,0 +1,199 @@
+/*
+ * HistorySearchIndex.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.history.model;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.StringUtil;
+
+// Client-side index of the history archive entries matching the most
+// recent server-side search (newest first). Queries which narrow that
+// search (every one of its terms is contained in a term of the new query)
+// can be answered by filtering the index locally rather than asking the
+// server to rescan the archive.
+//
+// Matching mirrors the server (search_history_archive): the query is split
+// into terms on whitespace, with each punctuation character a term of its
+// own, and an entry matches if it contains every term.
+//
+// If the server truncated the results at the requested maximum then the
+// index is incomplete; local answers are then a correct prefix of the full
+// result list and more entries must be paged in from the server.
+public class HistorySearchIndex
+{
+   public void reset(String query,
+                     ArrayList<HistoryEntry> entries,
+                     int requested)
+   {
+      query_ = query;
+      terms_ = tokenize(query);
+      entries_ = new ArrayList<HistoryEntry>(entries);
+      complete_ = entries.size() < requested;
+   }
+
+   // extend the index with the results of a server search for the same
+   // query with a larger maximum (only entries older than the oldest one
+   // we already have are added)
+   public void extend(ArrayList<HistoryEntry> entries, int requested)
+   {
+      long oldest = entries_.isEmpty() ?
+                        Long.MAX_VALUE :
+                        entries_.get(entries_.size() - 1).getIndex();
+      for (int i = 0; i < entries.size(); i++)
+      {
+         HistoryEntry entry = entries.get(i);
+         if (entry.getIndex() < oldest)
+            entries_.add(entry);
+      }
+      complete_ = entries.size() < requested;
+   }
+
+   public void clear()
+   {
+      query_ = null;
+      terms_ = null;
+      entries_ = null;
+      complete_ = false;
+   }
+
+   public String getQuery()
+   {
+      return query_;
+   }
+
+   public int size()
+   {
+      return entries_ != null ? entries_.size() : 0;
+   }
+
+   public boolean isComplete()
+   {
+      return complete_;
+   }
+
+   // can the results for this query be computed from the index?
+   public boolean canAnswer(String query)
+   {
+      if (entries_ == null)
+         return false;
+
+      ArrayList<String> newTerms = tokenize(query);
+      for (String term : terms_)
+      {
+         boolean contained = false;
+         for (String newTerm : newTerms)
+         {
+            if (newTerm.contains(term))
+            {
+               contained = true;
+               break;
+            }
+         }
+         if (!contained)
+            return false;
+      }
+      return true;
+   }
+
+   public ArrayList<HistoryEntry> search(String query)
+   {
+      ArrayList<HistoryEntry> results = new ArrayList<HistoryEntry>();
+      if (entries_ == null)
+         return results;
+
+      ArrayList<String> terms = tokenize(query);
+      for (int i = 0; i < entries_.size(); i++)
+      {
+         HistoryEntry entry = entries_.get(i);
+         if (matches(entry.getCommand(), terms))
+            results.add(entry);
+      }
+      return results;
+   }
+
+   // keep the index current as commands are executed (entries arrive
+   // oldest first, the index is kept newest first). returns true if any
+   // of the entries were added to the index.
+   public boolean onEntriesAdded(ArrayList<HistoryEntry> entries)
+   {
+      if (entries_ == null)
+         return false;
+
+      boolean added = false;
+      for (int i = 0; i < entries.size(); i++)
+      {
+         HistoryEntry entry = entries.get(i);
+         if (matches(entry.getCommand(), terms_))
+         {
+            entries_.add(0, entry);
+            added = true;
+         }
+      }
+      return added;
+   }
+
+   private static boolean matches(String command, ArrayList<String> terms)
+   {
+      if (command == null)
+         return false;
+
+      for (String term : terms)
+      {
+         if (!command.contains(term))
+            return false;
+      }
+      return true;
+   }
+
+   public static ArrayList<String> tokenize(String query)
+   {
+      ArrayList<String> terms = new ArrayList<String>();
+      StringBuilder term = new StringBuilder();
+      for (int i = 0; i < query.length(); i++)
+      {
+         char ch = query.charAt(i);
+         if (StringUtil.isWhitespace(ch) || isPunct(ch))
+         {
+            if (term.length() > 0)
+            {
+               terms.add(term.toString());
+               term.setLength(0);
+            }
+            if (isPunct(ch))
+               terms.add(String.valueOf(ch));
+         }
+         else
+         {
+            term.append(ch);
+         }
+      }
+      if (term.length() > 0)
+         terms.add(term.toString());
+      return terms;
+   }
+
+   private static boolean isPunct(char ch)
+   {
+      return PUNCTUATION.indexOf(ch) != -1;
+   }
+
+   private static final String PUNCTUATION =
+                                 "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+
+   private String query_;
+   private ArrayList<String> terms_;
+   private ArrayList<HistoryEntry> entries_;
+   private boolean complete_;
+}
@@ -42,6 +42,8 @@ import org.rstudio.studio.client.workbench.views.history.HasHistory;
 import org.rstudio.studio.client.workbench.views.history.History.SearchBoxDisplay;
 import org.rstudio.studio.client.workbench.views.history.events.FetchCommandsEvent;
 import org.rstudio.studio.client.workbench.views.history.events.FetchCommandsHandler;
+import org.rstudio.studio.client.workbench.views.history.events.FetchSearchResultsEvent;
+import org.rstudio.studio.client.workbench.views.history.events.FetchSearchResultsHandler;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
 import org.rstudio.studio.client.workbench.views.history.view.HistoryEntryItemCodec.TimestampMode;
 
@@ -170,6 +172,19 @@ public class HistoryPane extends WorkbenchPane
             new Widget[] {
                   new SmallButton(commands_.historyDismissResults())
             });
+      searchResults_.addScrollHandler(new ScrollHandler()
+      {
+         public void onScroll(ScrollEvent event)
+         {
+            // page in more results as the end of the list comes into view
+            if (moreSearchResults_ &&
+                searchResults_.isScrolledNearBottom(LOAD_MORE_THRESHOLD_PX))
+            {
+               moreSearchResults_ = false;
+               fireEvent(new FetchSearchResultsEvent());
+            }
+         }
+      });
       mainPanel_.add(searchResults_);
       mainPanel_.setWidgetTopBottom(searchResults_, 0, Unit.PX, 0, Unit.PX);
       mainPanel_.setWidgetLeftRight(searchResults_, 0, Unit.PX, 0, Unit.PX);
@@ -509,6 +524,16 @@ public class HistoryPane extends WorkbenchPane
          searchResults_.highlightRows(0, 1);
    }
 
+   public void addSearchResults(ArrayList<HistoryEntry> entries)
+   {
+      searchResults_.addItems(entries, false);
+   }
+
+   public void setMoreSearchResults(boolean moreSearchResults)
+   {
+      moreSearchResults_ = moreSearchResults;
+   }
+
    public void dismissContext()
    {
       setMode(Mode.SearchResults);
@@ -553,6 +578,12 @@ public class HistoryPane extends WorkbenchPane
       return addHandler(handler, FetchCommandsEvent.TYPE);
    }
 
+   public HandlerRegistration addFetchSearchResultsHandler(
+                                       FetchSearchResultsHandler handler)
+   {
+      return addHandler(handler, FetchSearchResultsEvent.TYPE);
+   }
+
    @Override
    protected Toolbar createMainToolbar()
    {
@@ -636,5 +667,8 @@ public class HistoryPane extends WorkbenchPane
    private Styles styles_ = ((Resources) GWT.create(Resources.class)).styles();
    private LayoutPanel mainPanel_;
    private Mode mode_ = Mode.Recent;
+   private boolean moreSearchResults_ = false;
+
+   private static final int LOAD_MORE_THRESHOLD_PX = 200;
   
 }
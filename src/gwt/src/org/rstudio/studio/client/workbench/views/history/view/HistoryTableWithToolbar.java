@@ -20,6 +20,7 @@ import com.google.gwt.event.dom.client.HasAllKeyHandlers;
 import com.google.gwt.event.dom.client.KeyDownHandler;
 import com.google.gwt.event.dom.client.KeyPressHandler;
 import com.google.gwt.event.dom.client.KeyUpHandler;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.DockLayoutPanel;
@@ -80,6 +81,18 @@ public class HistoryTableWithToolbar extends Composite
       historyTable_.addItems(entries, top);
    }
 
+   public HandlerRegistration addScrollHandler(ScrollHandler handler)
+   {
+      return scrollPanel_.addScrollHandler(handler);
+   }
+
+   public boolean isScrolledNearBottom(int threshold)
+   {
+      int bottom = scrollPanel_.getVerticalScrollPosition() +
+                   scrollPanel_.getOffsetHeight();
+      return bottom >= scrollPanel_.getWidget().getOffsetHeight() - threshold;
+   }
+
    public ArrayList<String> getSelectedValues()
    {
       return historyTable_.getSelectedValues();
@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.workbench.views.output.find;
 
 import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.TableCellElement;
 import com.google.gwt.dom.client.TableRowElement;
 import org.rstudio.core.client.CodeNavigationTarget;
@@ -23,12 +24,42 @@ import org.rstudio.core.client.widget.HeaderBreaksItemCodec;
 import org.rstudio.studio.client.workbench.views.output.find.FindOutputResources.Styles;
 import org.rstudio.studio.client.workbench.views.output.find.model.FindResult;
 
+import java.util.HashMap;
+
 public class FindOutputCodec
       extends HeaderBreaksItemCodec<FindResult, CodeNavigationTarget, Object>
 {
-   public FindOutputCodec(FindOutputResources resources)
+   public FindOutputCodec(FindOutputResources resources,
+                          FindResultsModel model)
    {
       styles_ = resources.styles();
+      model_ = model;
+   }
+
+   // updates the header (match count) for the file, if it's shown
+   public void updateHeader(String file)
+   {
+      TableRowElement header = headers_.get(file);
+      if (header != null)
+         header.getCells().getItem(0).setInnerText(model_.getHeaderText(file));
+   }
+
+   // call when the table is cleared
+   public void clearHeaders()
+   {
+      headers_.clear();
+   }
+
+   // the file whose header is (or contains) the element, or null
+   public String getHeaderFile(Element element)
+   {
+      while (element != null &&
+             !element.getTagName().equalsIgnoreCase("tr"))
+         element = element.getParentElement();
+
+      if (element == null || !element.hasAttribute(DATA_HEADER))
+         return null;
+      return element.getAttribute(DATA_HEADER);
    }
 
    @Override
@@ -51,6 +82,20 @@ public class FindOutputCodec
       tr.setAttribute(DATA_FILE, entry.getFile());
       tr.setAttribute(DATA_LINE, entry.getLine() + "");
 
+      if (entry.getCollapsedCount() > 0)
+      {
+         // the file's results are collapsed (selecting this row navigates
+         // to the first of them)
+         TableCellElement td = Document.get().createTDElement();
+         td.setClassName(styles_.collapsedRow());
+         td.setColSpan(2);
+         int count = entry.getCollapsedCount();
+         td.setInnerText(count + (count == 1 ? " match" : " matches") +
+                         " hidden");
+         tr.appendChild(td);
+         return tr;
+      }
+
       TableCellElement td1 = Document.get().createTDElement();
       td1.setClassName(styles_.line());
       td1.setInnerText(entry.getLine() + ":\u00A0");
@@ -77,13 +122,16 @@ public class FindOutputCodec
    @Override
    protected int addBreak(TableRowElement row)
    {
+      String file = row.getAttribute(DATA_FILE);
       TableRowElement tr = Document.get().createTRElement();
       tr.setClassName(styles_.headerRow());
+      tr.setAttribute(DATA_HEADER, file);
 
       TableCellElement td = Document.get().createTDElement();
       td.setColSpan(2);
-      td.setInnerText(row.getAttribute(DATA_FILE));
+      td.setInnerText(model_.getHeaderText(file));
       tr.appendChild(td);
+      headers_.put(file, tr);
 
       row.getParentElement().insertBefore(tr, row);
       return 1;
@@ -117,7 +165,11 @@ public class FindOutputCodec
    }
 
    private Styles styles_;
+   private final FindResultsModel model_;
+   private final HashMap<String, TableRowElement> headers_ =
+         new HashMap<String, TableRowElement>();
 
    private static final String DATA_FILE = "data-file";
    private static final String DATA_LINE = "data-line";
+   private static final String DATA_HEADER = "data-header";
 }
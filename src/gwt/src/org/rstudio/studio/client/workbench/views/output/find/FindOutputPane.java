@@ -15,14 +15,18 @@
 package org.rstudio.studio.client.workbench.views.output.find;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.*;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.SimplePanel;
+import com.google.gwt.user.client.ui.SuggestOracle;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
 import org.rstudio.core.client.CodeNavigationTarget;
@@ -38,6 +42,7 @@ import org.rstudio.studio.client.workbench.ui.WorkbenchPane;
 import org.rstudio.studio.client.workbench.views.output.find.model.FindResult;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 
 public class FindOutputPane extends WorkbenchPane
@@ -67,6 +72,26 @@ public class FindOutputPane extends WorkbenchPane
 
       toolbar.addRightWidget(stopSearch_);
 
+      // narrows the results shown, without searching again
+      refine_ = new SearchWidget(new SuggestOracle() {
+         @Override
+         public void requestSuggestions(Request request, Callback callback)
+         {
+            // no suggestions
+            callback.onSuggestionsReady(
+                  request,
+                  new Response(new ArrayList<Suggestion>()));
+         }
+      });
+      refine_.addValueChangeHandler(new ValueChangeHandler<String>() {
+         @Override
+         public void onValueChange(ValueChangeEvent<String> event)
+         {
+            model_.setFilter(event.getValue().trim());
+            render();
+         }
+      });
+      toolbar.addRightWidget(refine_);
 
       return toolbar;
    }
@@ -79,8 +104,9 @@ public class FindOutputPane extends WorkbenchPane
       FindOutputResources resources = GWT.create(FindOutputResources.class);
       resources.styles().ensureInjected();
 
+      codec_ = new FindOutputCodec(resources, model_);
       table_ = new FastSelectTable<FindResult, CodeNavigationTarget, Object>(
-            new FindOutputCodec(resources),
+            codec_,
             resources.styles().selectedRow(),
             true,
             false);
@@ -94,6 +120,16 @@ public class FindOutputPane extends WorkbenchPane
             if (event.getNativeButton() != NativeEvent.BUTTON_LEFT)
                return;
 
+            // clicking a file's header collapses (or expands) its results
+            String file = codec_.getHeaderFile(
+                  Element.as(event.getNativeEvent().getEventTarget()));
+            if (file != null)
+            {
+               model_.toggleCollapsed(file);
+               render();
+               return;
+            }
+
             if (dblClick_.checkForDoubleClick(event.getNativeEvent()))
                fireSelectionCommitted();
          }
@@ -133,19 +169,31 @@ public class FindOutputPane extends WorkbenchPane
    @Override
    public void addMatches(ArrayList<FindResult> findResults)
    {
-      int matchesToAdd = Math.min(findResults.size(), MAX_COUNT - matchCount_);
+      ArrayList<FindResult> added = model_.addResults(findResults);
 
-      if (matchesToAdd > 0)
+      if (added.size() > 0)
       {
-         matchCount_ += matchesToAdd;
-         
-         if (matchCount_ > 0 && container_.getWidget() != scrollPanel_)
+         if (container_.getWidget() != scrollPanel_)
             container_.setWidget(scrollPanel_);
-            
-         table_.addItems(findResults.subList(0, matchesToAdd), false);
+
+         if (model_.isFiltered() || model_.hasCollapsed())
+         {
+            render();
+         }
+         else
+         {
+            table_.addItems(added, false);
+
+            // update the counts of files which already had results
+            HashSet<String> files = new HashSet<String>();
+            for (FindResult result : added)
+               files.add(result.getFile());
+            for (String file : files)
+               codec_.updateHeader(file);
+         }
       }
       
-      if (matchesToAdd != findResults.size())
+      if (model_.isOverflow())
          showOverflow();
    }
 
@@ -154,19 +202,49 @@ public class FindOutputPane extends WorkbenchPane
    {
       context_.reset();
       table_.clear();
+      codec_.clearHeaders();
+      model_.clear();
+      model_.setFilter(null);
+      refine_.setText("", false);
       overflow_ = false;
-      matchCount_ = 0;
       statusPanel_.setStatusText("");
       container_.setWidget(statusPanel_);
    }
+
+   @Override
+   public boolean canNarrowMatches(FindInFilesDialog.State current,
+                                   FindInFilesDialog.State next)
+   {
+      return model_.canNarrow(current, next);
+   }
+
+   @Override
+   public void narrowMatches(FindInFilesDialog.State next)
+   {
+      ArrayList<FindResult> narrowed = model_.narrow(next);
+      clearMatches();
+      addMatches(narrowed);
+      showSearchCompleted();
+   }
    
    @Override
    public void showSearchCompleted()
    {
-      if (matchCount_ == 0)
+      if (model_.getCount() == 0)
          statusPanel_.setStatusText("(No results found)");
    }
 
+   // shows the results from the model (e.g. after the filter changes)
+   private void render()
+   {
+      table_.clear();
+      codec_.clearHeaders();
+      overflow_ = false;
+      table_.addItems(model_.getVisibleResults(), false);
+      if (model_.isOverflow())
+         showOverflow();
+   }
+
    @Override
    public void ensureVisible(boolean activate)
    {
@@ -206,6 +284,7 @@ public class FindOutputPane extends WorkbenchPane
    @Override
    public void showOverflow()
    {
+      model_.setOverflow();
       if (overflow_)
          return;
       overflow_ = true;
@@ -258,17 +337,16 @@ public class FindOutputPane extends WorkbenchPane
       
    }
    
+   private final FindResultsModel model_ = new FindResultsModel();
+   private FindOutputCodec codec_;
    private FastSelectTable<FindResult, CodeNavigationTarget, Object> table_;
    private FindResultContext context_;
    private final Commands commands_;
    private Label searchLabel_;
    private ToolbarButton stopSearch_;
+   private SearchWidget refine_;
    private SimplePanel container_;
    private ScrollPanel scrollPanel_;
    private StatusPanel statusPanel_;
    private boolean overflow_ = false;
-   private int matchCount_;
-
-   // This must be the same as MAX_COUNT in SessionFind.cpp
-   private static final int MAX_COUNT = 1000;
 }
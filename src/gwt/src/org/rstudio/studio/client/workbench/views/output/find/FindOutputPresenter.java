@@ -58,6 +58,12 @@ public class FindOutputPresenter extends BasePresenter
    {
       void addMatches(ArrayList<FindResult> findResults);
       void clearMatches();
+      
+      // can the results of the (completed) search for current be narrowed
+      // to those of a search for next, without searching again?
+      boolean canNarrowMatches(FindInFilesDialog.State current,
+                               FindInFilesDialog.State next);
+      void narrowMatches(FindInFilesDialog.State next);
       void ensureVisible(boolean activate);
 
       HasClickHandlers getStopSearchButton();
@@ -144,6 +150,7 @@ public class FindOutputPresenter extends BasePresenter
             if (event.getHandle().equals(currentFindHandle_))
             {
                currentFindHandle_ = null;
+               resultsComplete_ = resultsState_ != null;
                view_.setStopSearchButtonVisible(false);
                view_.showSearchCompleted();
             }
@@ -194,7 +201,22 @@ public class FindOutputPresenter extends BasePresenter
          {
             dialogState_ = input;
 
+            // if the new search can only find a subset of the results we
+            // have, then find them in those results
+            if (resultsComplete_ &&
+                view_.canNarrowMatches(resultsState_, input))
+            {
+               resultsState_ = input;
+               view_.narrowMatches(input);
+               updateSearchLabel(input.getQuery(),
+                                 input.getPath(),
+                                 input.isRegex());
+               view_.ensureVisible(true);
+               return;
+            }
+
             stopAndClear();
+            resultsState_ = input;
 
             FileSystemItem searchPath =
                                       FileSystemItem.createDir(input.getPath());
@@ -264,6 +286,8 @@ public class FindOutputPresenter extends BasePresenter
    private void stopAndClear()
    {
       stop();
+      resultsState_ = null;
+      resultsComplete_ = false;
       view_.clearMatches();
       view_.clearSearchLabel();
    }
@@ -281,6 +305,10 @@ public class FindOutputPresenter extends BasePresenter
 
    private String currentFindHandle_;
 
+   // the search whose results are shown, and whether it completed
+   private FindInFilesDialog.State resultsState_;
+   private boolean resultsComplete_ = false;
+
    private FindInFilesDialog.State dialogState_;
 
    private final Display view_;
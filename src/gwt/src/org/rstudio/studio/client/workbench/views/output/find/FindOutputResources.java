@@ -27,6 +27,7 @@ public interface FindOutputResources extends ClientBundle
       String lineValue();
       String selectedRow();
       String overflowWarning();
+      String collapsedRow();
    }
 
    @Source("FindOutput.css")
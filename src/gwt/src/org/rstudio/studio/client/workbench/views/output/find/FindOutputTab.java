@@ -18,10 +18,12 @@ import com.google.gwt.core.client.GWT;
 import com.google.inject.Inject;
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.events.SessionInfoPartEvent;
 import org.rstudio.studio.client.workbench.commands.Commands;
 import org.rstudio.studio.client.workbench.events.SessionInitEvent;
 import org.rstudio.studio.client.workbench.events.SessionInitHandler;
 import org.rstudio.studio.client.workbench.model.Session;
+import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.ui.DelayLoadTabShim;
 import org.rstudio.studio.client.workbench.ui.DelayLoadWorkbenchTab;
 import org.rstudio.studio.client.workbench.views.output.find.events.FindInFilesEvent;
@@ -53,10 +55,21 @@ public class FindOutputTab extends DelayLoadWorkbenchTab<FindOutputPresenter>
          @Override
          public void onSessionInit(SessionInitEvent sie)
          {
-            FindInFilesState state =
-                                 session.getSessionInfo().getFindInFilesState();
-            if (state.isTabVisible())
-               shim.initialize(state);
+            SessionInfo sessionInfo = session.getSessionInfo();
+            if (!sessionInfo.isPartDeferred(
+                                 SessionInfo.PART_FIND_IN_FILES_STATE))
+               initialize(shim, sessionInfo.getFindInFilesState());
+         }
+      });
+      
+      events.addHandler(SessionInfoPartEvent.TYPE,
+                        new SessionInfoPartEvent.Handler()
+      {
+         @Override
+         public void onSessionInfoPart(SessionInfoPartEvent event)
+         {
+            if (event.getName().equals(SessionInfo.PART_FIND_IN_FILES_STATE))
+               initialize(shim, event.<FindInFilesState>getValue());
          }
       });
 
@@ -65,6 +78,12 @@ public class FindOutputTab extends DelayLoadWorkbenchTab<FindOutputPresenter>
       events.addHandler(FindInFilesEvent.TYPE, shim);
    }
 
+   private static void initialize(Shim shim, FindInFilesState state)
+   {
+      if (state.isTabVisible())
+         shim.initialize(state);
+   }
+
    @Override
    public boolean closeable()
    {
@@ -0,0 +1,311 @@
+/*
+ * FindResultsModel.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.output.find;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+import org.rstudio.core.client.regex.Pattern;
+import org.rstudio.studio.client.workbench.views.output.find.model.FindResult;
+
+import com.google.gwt.core.client.JsArrayInteger;
+
+/**
+ * The results of a find in files operation, grouped by file. The results
+ * shown can be refined (narrowed to those whose line or path matches a
+ * filter) and the results for a file collapsed, without searching again.
+ */
+public class FindResultsModel
+{
+   public void clear()
+   {
+      files_.clear();
+      collapsed_.clear();
+      count_ = 0;
+      overflow_ = false;
+   }
+
+   // adds results (up to MAX_COUNT in all), returning those added
+   public ArrayList<FindResult> addResults(ArrayList<FindResult> results)
+   {
+      int toAdd = Math.min(results.size(), MAX_COUNT - count_);
+      if (toAdd < results.size())
+         overflow_ = true;
+
+      ArrayList<FindResult> added = new ArrayList<FindResult>();
+      for (int i = 0; i < toAdd; i++)
+      {
+         FindResult result = results.get(i);
+         ArrayList<FindResult> fileResults = files_.get(result.getFile());
+         if (fileResults == null)
+         {
+            fileResults = new ArrayList<FindResult>();
+            files_.put(result.getFile(), fileResults);
+         }
+         fileResults.add(result);
+         added.add(result);
+      }
+      count_ += toAdd;
+      return added;
+   }
+
+   public int getCount()
+   {
+      return count_;
+   }
+
+   // were there more results than we keep?
+   public boolean isOverflow()
+   {
+      return overflow_;
+   }
+
+   public void setOverflow()
+   {
+      overflow_ = true;
+   }
+
+   // a filter is either text to look for (ignoring case), or a regular
+   // expression between slashes; results whose line or path matches are
+   // shown
+   public void setFilter(String filter)
+   {
+      filter_ = null;
+      filterText_ = null;
+      if (filter == null || filter.length() == 0)
+         return;
+
+      if (filter.length() > 2 && filter.startsWith("/") && filter.endsWith("/"))
+      {
+         try
+         {
+            filter_ = Pattern.create(
+                  filter.substring(1, filter.length() - 1), "i");
+            return;
+         }
+         catch (Exception e)
+         {
+            // not a valid regular expression; look for the text instead
+         }
+      }
+      filterText_ = filter.toLowerCase();
+   }
+
+   public boolean isFiltered()
+   {
+      return filter_ != null || filterText_ != null;
+   }
+
+   public boolean matchesFilter(FindResult result)
+   {
+      if (filter_ != null)
+         return filter_.test(result.getLineValue()) ||
+                filter_.test(result.getFile());
+      if (filterText_ != null)
+         return result.getLineValue().toLowerCase().contains(filterText_) ||
+                result.getFile().toLowerCase().contains(filterText_);
+      return true;
+   }
+
+   public boolean isCollapsed(String file)
+   {
+      return collapsed_.contains(file);
+   }
+
+   public boolean hasCollapsed()
+   {
+      return !collapsed_.isEmpty();
+   }
+
+   public void toggleCollapsed(String file)
+   {
+      if (!collapsed_.remove(file))
+         collapsed_.add(file);
+   }
+
+   // the number of results in the file (that match the filter)
+   public int getCount(String file, boolean filtered)
+   {
+      ArrayList<FindResult> fileResults = files_.get(file);
+      if (fileResults == null)
+         return 0;
+      if (!filtered || !isFiltered())
+         return fileResults.size();
+
+      int count = 0;
+      for (FindResult result : fileResults)
+      {
+         if (matchesFilter(result))
+            count++;
+      }
+      return count;
+   }
+
+   // the header shown above the results for the file
+   public String getHeaderText(String file)
+   {
+      int total = getCount(file, false);
+      String count = isFiltered() ?
+            getCount(file, true) + " of " + total :
+            String.valueOf(total);
+      return (isCollapsed(file) ? "\u25B8 " : "\u25BE ") +
+             file + " (" + count + ")";
+   }
+
+   // the results to show, by file: the results matching the filter, or a
+   // single stand-in (see FindResult.createCollapsed) for collapsed files
+   public ArrayList<FindResult> getVisibleResults()
+   {
+      ArrayList<FindResult> visible = new ArrayList<FindResult>();
+      for (String file : files_.keySet())
+      {
+         ArrayList<FindResult> matching = new ArrayList<FindResult>();
+         for (FindResult result : files_.get(file))
+         {
+            if (matchesFilter(result))
+               matching.add(result);
+         }
+         if (matching.isEmpty())
+            continue;
+
+         if (isCollapsed(file))
+            visible.add(FindResult.createCollapsed(matching.get(0),
+                                                   matching.size()));
+         else
+            visible.addAll(matching);
+      }
+      return visible;
+   }
+
+   // Can the results of the search for current be narrowed to those of a
+   // search for next, rather than searching again? They can if the search
+   // for current completed (with all its results), and next searches the
+   // same files for text which contains the text current searched for.
+   public boolean canNarrow(FindInFilesDialog.State current,
+                            FindInFilesDialog.State next)
+   {
+      if (current == null || overflow_)
+         return false;
+
+      if (current.isRegex() || next.isRegex())
+         return false;
+
+      if (current.isCaseSensitive() && !next.isCaseSensitive())
+         return false;
+
+      if (!current.getPath().equals(next.getPath()) ||
+          !Arrays.equals(current.getFilePatterns(), next.getFilePatterns()))
+         return false;
+
+      if (!canNarrowQuery(current.getQuery(),
+                          next.getQuery(),
+                          current.isCaseSensitive()))
+         return false;
+
+      // lines which were too long are truncated, so we can't tell if they
+      // contain the new text
+      for (ArrayList<FindResult> fileResults : files_.values())
+      {
+         for (FindResult result : fileResults)
+         {
+            if (isTruncated(result.getLineValue()))
+               return false;
+         }
+      }
+      return true;
+   }
+
+   // does every line containing next also contain current? (the lines
+   // we have are trimmed, so we can't tell whether they contain text
+   // which begins or ends with whitespace)
+   static boolean canNarrowQuery(String current,
+                                 String next,
+                                 boolean caseSensitive)
+   {
+      if (!next.trim().equals(next))
+         return false;
+
+      if (!caseSensitive)
+      {
+         current = current.toLowerCase();
+         next = next.toLowerCase();
+      }
+      return next.contains(current);
+   }
+
+   // SessionFind.cpp truncates lines longer than MAX_LINE_LENGTH bytes (to
+   // that many bytes followed by "...")
+   static boolean isTruncated(String line)
+   {
+      return line.length() >= MAX_LINE_LENGTH || line.endsWith("...");
+   }
+
+   // the results which contain the text next searches for (with their
+   // matches marked), see canNarrow
+   public ArrayList<FindResult> narrow(FindInFilesDialog.State next)
+   {
+      String query = next.getQuery();
+      boolean caseSensitive = next.isCaseSensitive();
+      if (!caseSensitive)
+         query = query.toLowerCase();
+
+      ArrayList<FindResult> narrowed = new ArrayList<FindResult>();
+      for (ArrayList<FindResult> fileResults : files_.values())
+      {
+         for (FindResult result : fileResults)
+         {
+            String line = result.getLineValue();
+            if (!caseSensitive)
+               line = line.toLowerCase();
+
+            JsArrayInteger matchOn = JsArrayInteger.createArray().cast();
+            JsArrayInteger matchOff = JsArrayInteger.createArray().cast();
+            int index = line.indexOf(query);
+            while (index != -1 && query.length() > 0)
+            {
+               matchOn.push(index);
+               matchOff.push(index + query.length());
+               index = line.indexOf(query, index + query.length());
+            }
+
+            if (matchOn.length() > 0)
+            {
+               narrowed.add(FindResult.create(result.getFile(),
+                                              result.getLine(),
+                                              result.getLineValue(),
+                                              matchOn,
+                                              matchOff));
+            }
+         }
+      }
+      return narrowed;
+   }
+
+   private final LinkedHashMap<String, ArrayList<FindResult>> files_ =
+         new LinkedHashMap<String, ArrayList<FindResult>>();
+   private final HashSet<String> collapsed_ = new HashSet<String>();
+   private int count_ = 0;
+   private boolean overflow_ = false;
+   private Pattern filter_ = null;
+   private String filterText_ = null;
+
+   // This must be the same as MAX_COUNT in SessionFind.cpp
+   public static final int MAX_COUNT = 1000;
+
+   // lines longer than this (in bytes) are truncated (see SessionFind.cpp)
+   static final int MAX_LINE_LENGTH = 300;
+}
@@ -15,8 +15,10 @@
 package org.rstudio.studio.client.workbench.views.output.find.events;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.event.shared.EventHandler;
 import com.google.gwt.event.shared.GwtEvent;
+import org.rstudio.core.client.jsonrpc.RpcColumnarList;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
 import org.rstudio.studio.client.workbench.views.output.find.model.FindResult;
 import java.util.ArrayList;
@@ -39,7 +41,30 @@ public class FindResultEvent extends GwtEvent<FindResultEvent.Handler>
          return this.handle;
       }-*/;
 
-      public native final RpcObjectList<FindResult> getResults() /*-{
+      // the results arrive in the columnar encoding if the find was begun
+      // with it (see RemoteServer)
+      public final ArrayList<FindResult> getResults()
+      {
+         JavaScriptObject results = getResultsNative();
+         if (!RpcColumnarList.isColumnar(results))
+            return results.<RpcObjectList<FindResult>>cast().toArrayList();
+
+         RpcColumnarList<FindResult> columns = results.cast();
+         int length = columns.getLength();
+         ArrayList<FindResult> list = new ArrayList<FindResult>(length);
+         for (int i = 0; i < length; i++)
+         {
+            list.add(FindResult.create(
+                  columns.getString("file", i),
+                  (int) columns.getNumber("line", i),
+                  columns.getString("lineValue", i),
+                  columns.getObject("matchOn", i).<JsArrayInteger>cast(),
+                  columns.getObject("matchOff", i).<JsArrayInteger>cast()));
+         }
+         return list;
+      }
+
+      private native final JavaScriptObject getResultsNative() /*-{
          return this.results;
       }-*/;
    }
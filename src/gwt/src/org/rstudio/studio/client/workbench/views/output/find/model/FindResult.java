@@ -34,6 +34,31 @@ public class FindResult extends JavaScriptObject
       });
    }-*/;
 
+   public static native FindResult create(String file,
+                                          int line,
+                                          String lineValue,
+                                          JsArrayInteger matchOn,
+                                          JsArrayInteger matchOff) /*-{
+      return ({
+         file: file,
+         line: line,
+         lineValue: lineValue,
+         matchOn: matchOn,
+         matchOff: matchOff
+      });
+   }-*/;
+
+   // stands in for the results in a file whose results are collapsed
+   public static native FindResult createCollapsed(FindResult first,
+                                                   int count) /*-{
+      return ({
+         file: first.file,
+         line: first.line,
+         lineValue: "",
+         collapsedCount: count
+      });
+   }-*/;
+
    protected FindResult() {}
 
    public native final String getFile() /*-{
@@ -48,6 +73,10 @@ public class FindResult extends JavaScriptObject
       return this.lineValue;
    }-*/;
 
+   public native final int getCollapsedCount() /*-{
+      return this.collapsedCount || 0;
+   }-*/;
+
    public final ArrayList<Integer> getMatchOns()
    {
       return getJavaArray("matchOn");
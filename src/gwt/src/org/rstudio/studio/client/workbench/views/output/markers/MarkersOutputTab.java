@@ -20,10 +20,12 @@ import com.google.inject.Inject;
 
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.application.events.SessionInfoPartEvent;
 import org.rstudio.studio.client.workbench.commands.Commands;
 import org.rstudio.studio.client.workbench.events.SessionInitEvent;
 import org.rstudio.studio.client.workbench.events.SessionInitHandler;
 import org.rstudio.studio.client.workbench.model.Session;
+import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.ui.DelayLoadTabShim;
 import org.rstudio.studio.client.workbench.ui.DelayLoadWorkbenchTab;
 import org.rstudio.studio.client.workbench.views.output.markers.events.MarkersChangedEvent;
@@ -56,8 +58,20 @@ public class MarkersOutputTab extends DelayLoadWorkbenchTab<MarkersOutputPresent
          @Override
          public void onSessionInit(SessionInitEvent sie)
          {
-            MarkersState state = session.getSessionInfo().getMarkersState();
-            shim_.initialize(state);
+            SessionInfo sessionInfo = session.getSessionInfo();
+            if (!sessionInfo.isPartDeferred(SessionInfo.PART_MARKERS_STATE))
+               shim_.initialize(sessionInfo.getMarkersState());
+         }
+      });
+      
+      events.addHandler(SessionInfoPartEvent.TYPE,
+                        new SessionInfoPartEvent.Handler()
+      {
+         @Override
+         public void onSessionInfoPart(SessionInfoPartEvent event)
+         {
+            if (event.getName().equals(SessionInfo.PART_MARKERS_STATE))
+               shim_.initialize(event.<MarkersState>getValue());
          }
       });
 
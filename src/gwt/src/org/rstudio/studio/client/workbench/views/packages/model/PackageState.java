@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.packages.model;
 
+import org.rstudio.core.client.jsonrpc.RpcColumnarList;
 import org.rstudio.studio.client.packrat.model.PackratContext;
 import org.rstudio.studio.client.packrat.model.PackratPackageAction;
 
@@ -26,10 +27,28 @@ public class PackageState extends JavaScriptObject
    {
    }
    
-   public final native JsArray<PackageInfo> getPackageList() /*-{
+   // the list may arrive in the columnar encoding (see RemoteServer), in
+   // which case it's expanded into records (which the packages table needs,
+   // including packrat's extra fields) on first access
+   public final JsArray<PackageInfo> getPackageList()
+   {
+      JavaScriptObject list = getPackageListNative();
+      if (RpcColumnarList.isColumnar(list))
+      {
+         list = list.<RpcColumnarList<PackageInfo>>cast().toJsArray();
+         setPackageListNative(list);
+      }
+      return list.cast();
+   }
+   
+   private final native JavaScriptObject getPackageListNative() /*-{
       return this.package_list;
    }-*/;
    
+   private final native void setPackageListNative(JavaScriptObject list) /*-{
+      this.package_list = list;
+   }-*/;
+   
    public final native PackratContext getPackratContext() /*-{
       return this.packrat_context;
    }-*/;
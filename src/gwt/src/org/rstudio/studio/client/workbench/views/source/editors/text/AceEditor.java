@@ -1829,6 +1829,21 @@ public class AceEditor implements DocDisplay,
       widget_.getEditor().setReadOnly(readOnly);
    }
 
+   public boolean isReadOnly()
+   {
+      return widget_.getEditor().getReadOnly();
+   }
+
+   public int getFirstVisibleRow()
+   {
+      return widget_.getEditor().getFirstVisibleRow();
+   }
+
+   public int getLastVisibleRow()
+   {
+      return widget_.getEditor().getLastVisibleRow();
+   }
+
    public HandlerRegistration addCursorChangedHandler(final CursorChangedHandler handler)
    {
       return widget_.addCursorChangedHandler(handler);
@@ -388,35 +388,55 @@ public class TextEditingTarget implements
       events_ = events;
       globalDisplay_ = globalDisplay;
       fileDialogs_ = fileDialogs;
-      fileTypeRegistry_ = fileTypeRegistry;
-      fileTypeCommands_ = fileTypeCommands;
-      consoleDispatcher_ = consoleDispatcher;
-      workbenchContext_ = workbenchContext;
-      session_ = session;
-      synctex_ = synctex;
-      fontSizeManager_ = fontSizeManager;
-      breakpointManager_ = breakpointManager;
-      sourceBuildHelper_ = sourceBuildHelper;
-
-      docDisplay_ = docDisplay;
-      dirtyState_ = new DirtyState(docDisplay_, false);
-      lintManager_ = new LintManager(this, cppCompletionContext_);
-      prefs_ = prefs;
-      codeExecution_ = new EditingTargetCodeExecution(docDisplay_, this);
-      compilePdfHelper_ = new TextEditingTargetCompilePdfHelper(docDisplay_);
-      rmarkdownHelper_ = new TextEditingTargetRMarkdownHelper();
-      cppHelper_ = new TextEditingTargetCppHelper(cppCompletionContext_, 
-                                                  docDisplay_);
-      presentationHelper_ = new TextEditingTargetPresentationHelper(
-                                                                  docDisplay_);
-      reformatHelper_ = new TextEditingTargetReformatHelper(docDisplay_);
-      renameHelper_ = new TextEditingTargetRenameHelper(docDisplay_);
-      
-      docDisplay_.setRnwCompletionContext(compilePdfHelper_);
-      docDisplay_.setCppCompletionContext(cppCompletionContext_);
-      docDisplay_.setRCompletionContext(rContext_);
-      scopeHelper_ = new TextEditingTargetScopeHelper(docDisplay_);
       
+      // attribute the handlers we (and our helpers) add to this editor, so
+      // that any not removed when it's dismissed are reported
+      ownerName_ = events_.createOwnerName("TextEditingTarget");
+      events_.beginOwner(ownerName_);
+      try
+      {
+         fileTypeRegistry_ = fileTypeRegistry;
+         fileTypeCommands_ = fileTypeCommands;
+         consoleDispatcher_ = consoleDispatcher;
+         workbenchContext_ = workbenchContext;
+         session_ = session;
+         synctex_ = synctex;
+         fontSizeManager_ = fontSizeManager;
+         breakpointManager_ = breakpointManager;
+         sourceBuildHelper_ = sourceBuildHelper;
+
+         docDisplay_ = docDisplay;
+         dirtyState_ = new DirtyState(docDisplay_, false);
+         lintManager_ = new LintManager(this, cppCompletionContext_);
+         prefs_ = prefs;
+         codeExecution_ = new EditingTargetCodeExecution(docDisplay_, this);
+         documentFacts_ = new TextEditingTargetDocumentFacts(docDisplay_);
+         compilePdfHelper_ = new TextEditingTargetCompilePdfHelper(
+                                                               docDisplay_,
+                                                               documentFacts_);
+         rmarkdownHelper_ = new TextEditingTargetRMarkdownHelper();
+         cppHelper_ = new TextEditingTargetCppHelper(cppCompletionContext_, 
+                                                     docDisplay_);
+         presentationHelper_ = new TextEditingTargetPresentationHelper(
+                                                               docDisplay_);
+         reformatHelper_ = new TextEditingTargetReformatHelper(docDisplay_);
+         renameHelper_ = new TextEditingTargetRenameHelper(docDisplay_);
+      
+         docDisplay_.setRnwCompletionContext(compilePdfHelper_);
+         docDisplay_.setCppCompletionContext(cppCompletionContext_);
+         docDisplay_.setRCompletionContext(rContext_);
+         scopeHelper_ = new TextEditingTargetScopeHelper(docDisplay_);
+
+         initializeEditor();
+      }
+      finally
+      {
+         events_.endOwner(ownerName_);
+      }
+   }
+   
+   private void initializeEditor()
+   {
       addRecordNavigationPositionHandler(releaseOnDismiss_, 
                                          docDisplay_, 
                                          events_, 
@@ -583,7 +603,7 @@ public class TextEditingTarget implements
          }
       });
       
-      events_.addHandler(
+      releaseOnDismiss_.add(events_.addHandler(
             ShinyApplicationStatusEvent.TYPE, 
             new ShinyApplicationStatusEvent.Handler()
             {
@@ -610,9 +630,9 @@ public class TextEditingTarget implements
                      view_.onShinyApplicationStateChanged(state);
                   }
                }
-            });
+            }));
       
-      events_.addHandler(
+      releaseOnDismiss_.add(events_.addHandler(
             BreakpointsSavedEvent.TYPE, 
             new BreakpointsSavedEvent.Handler()
       {         
@@ -654,9 +674,9 @@ public class TextEditingTarget implements
             }
             updateBreakpointWarningBar();
          }
-      });
+      }));
       
-      events_.addHandler(ConvertToShinyDocEvent.TYPE, 
+      releaseOnDismiss_.add(events_.addHandler(ConvertToShinyDocEvent.TYPE, 
                          new ConvertToShinyDocEvent.Handler()
       {
          @Override
@@ -673,9 +693,9 @@ public class TextEditingTarget implements
                renderRmd();
             }
          }
-      });
+      }));
       
-      events_.addHandler(RSConnectDeployInitiatedEvent.TYPE, 
+      releaseOnDismiss_.add(events_.addHandler(RSConnectDeployInitiatedEvent.TYPE, 
             new RSConnectDeployInitiatedEvent.Handler()
             {
                @Override
@@ -707,9 +727,9 @@ public class TextEditingTarget implements
                      addAdditionalResourceFiles(settings.getAdditionalFiles());
                   }
                }
-            });
+            }));
       
-      events_.addHandler(
+      releaseOnDismiss_.add(events_.addHandler(
             SetEditorCommandBindingsEvent.TYPE,
             new SetEditorCommandBindingsEvent.Handler()
             {
@@ -720,9 +740,9 @@ public class TextEditingTarget implements
                         event.getId(),
                         event.getKeySequences());
                }
-            });
+            }));
       
-      events_.addHandler(
+      releaseOnDismiss_.add(events_.addHandler(
             ResetEditorCommandsEvent.TYPE,
             new ResetEditorCommandsEvent.Handler()
             {
@@ -731,9 +751,9 @@ public class TextEditingTarget implements
                {
                   getDocDisplay().resetCommands();
                }
-            });
+            }));
       
-      events_.addHandler(DocTabDragStateChangedEvent.TYPE, 
+      releaseOnDismiss_.add(events_.addHandler(DocTabDragStateChangedEvent.TYPE, 
             new DocTabDragStateChangedEvent.Handler()
             {
                
@@ -744,9 +764,9 @@ public class TextEditingTarget implements
                   docDisplay_.setDragEnabled(e.getState() == 
                         DocTabDragStateChangedEvent.STATE_NONE);
                }
-            });
+            }));
       
-      events_.addHandler(
+      releaseOnDismiss_.add(events_.addHandler(
             AceAfterCommandExecutedEvent.TYPE,
             new AceAfterCommandExecutedEvent.Handler()
             {
@@ -769,7 +789,7 @@ public class TextEditingTarget implements
                      }
                   }
                }
-            });
+            }));
    }
    
    static {
@@ -1205,6 +1225,22 @@ public class TextEditingTarget implements
                           FileSystemContext fileContext,
                           FileType type,
                           Provider<String> defaultNameProvider)
+   {
+      events_.beginOwner(ownerName_);
+      try
+      {
+         initializeDocument(document, fileContext, type, defaultNameProvider);
+      }
+      finally
+      {
+         events_.endOwner(ownerName_);
+      }
+   }
+   
+   private void initializeDocument(SourceDocument document,
+                                   FileSystemContext fileContext,
+                                   FileType type,
+                                   Provider<String> defaultNameProvider)
    {
       id_ = document.getId();
       fileContext_ = fileContext;
@@ -2449,6 +2485,7 @@ public class TextEditingTarget implements
       
       while (releaseOnDismiss_.size() > 0)
          releaseOnDismiss_.remove(0).removeHandler();
+      events_.ownerDismissed(ownerName_);
       
       docDisplay_.endCollabSession();
 
@@ -3434,7 +3471,7 @@ public class TextEditingTarget implements
    
    private String getRmdFrontMatter()
    {
-      return YamlFrontMatter.getFrontMatter(docDisplay_.getCode());
+      return documentFacts_.getFrontMatter();
    }
    
    private void applyRmdFrontMatter(String yaml)
@@ -4232,13 +4269,8 @@ public class TextEditingTarget implements
          return;
       }
       
-      String code = docDisplay_.getCode();
-      if (code != null && code.trim().length() > 0)
+      if (!documentFacts_.isBlank())
       {
-         // R 2.14 prints a warning when sourcing a file with no trailing \n
-         if (!code.endsWith("\n"))
-            code = code + "\n";
-
          boolean sweave = 
             fileType_.canCompilePDF() || 
             fileType_.canKnitToHTML() ||
@@ -4256,6 +4288,11 @@ public class TextEditingTarget implements
          
          if ((dirtyState_.getValue() || sweave) && !saveWhenSourcing)
          {
+            // R 2.14 prints a warning when sourcing a file with no trailing \n
+            String code = docDisplay_.getCode();
+            if (!code.endsWith("\n"))
+               code = code + "\n";
+            
             server_.saveActiveDocument(code, 
                                        sweave,
                                        compilePdfHelper_.getActiveRnwWeaveName(),
@@ -4366,14 +4403,7 @@ public class TextEditingTarget implements
 
    private boolean activeCodeIsAscii()
    {
-      String code = docDisplay_.getCode();
-      for (int i=0; i< code.length(); i++)
-      {
-         if (code.charAt(i) > 127)
-            return false;
-      }
-      
-      return true;
+      return documentFacts_.isAscii();
    }
 
    @Handler
@@ -4395,9 +4425,10 @@ public class TextEditingTarget implements
    {
       // last ditch extended type detection
       String extendedType = extendedType_;
-      extendedType = rmarkdownHelper_.detectExtendedType(docDisplay_.getCode(),
-                                                         extendedType, 
-                                                         fileType_);
+      extendedType = rmarkdownHelper_.detectExtendedType(
+                                      documentFacts_.hasRMarkdownV1Marker(),
+                                      extendedType, 
+                                      fileType_);
       
       if (extendedType == SourceDocument.XT_RMARKDOWN)
          renderRmd();
@@ -5705,11 +5736,13 @@ public class TextEditingTarget implements
    private TextFileType fileType_;
    private String id_;
    private HandlerRegistration commandHandlerReg_;
+   private final String ownerName_;
    private ArrayList<HandlerRegistration> releaseOnDismiss_ =
          new ArrayList<HandlerRegistration>();
    private final DirtyState dirtyState_;
    private HandlerManager handlers_ = new HandlerManager(this);
    private FileSystemContext fileContext_;
+   private final TextEditingTargetDocumentFacts documentFacts_;
    private final TextEditingTargetCompilePdfHelper compilePdfHelper_;
    private final TextEditingTargetRMarkdownHelper rmarkdownHelper_;
    private final TextEditingTargetCppHelper cppHelper_;
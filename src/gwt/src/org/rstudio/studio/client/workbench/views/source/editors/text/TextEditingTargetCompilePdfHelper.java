@@ -46,9 +46,12 @@ import java.util.HashMap;
 public class TextEditingTargetCompilePdfHelper
       implements RnwCompletionContext
 { 
-   public TextEditingTargetCompilePdfHelper(DocDisplay docDisplay)
+   public TextEditingTargetCompilePdfHelper(
+                              DocDisplay docDisplay,
+                              TextEditingTargetDocumentFacts documentFacts)
    {
       docDisplay_ = docDisplay;
+      documentFacts_ = documentFacts;
       RStudioGinjector.INSTANCE.injectMembers(this);
    }
    
@@ -114,7 +117,7 @@ public class TextEditingTargetCompilePdfHelper
       RnwWeave rnwWeave = getActiveRnwWeave();
       if ( (rnwWeave != null) && rnwWeave.getInjectConcordance())
       {
-         if (!hasConcordanceDirective(docDisplay_.getCode()))
+         if (!documentFacts_.hasConcordanceDirective())
          {    
             InputEditorSelection doc = docDisplay_.search(
                                           "\\\\begin{document}",
@@ -143,7 +146,7 @@ public class TextEditingTargetCompilePdfHelper
       ArrayList<TexMagicComment> magicComments = null;
       if (fileType.canCompilePDF())
       {
-         magicComments = TexMagicComment.parseComments(docDisplay_.getCode());
+         magicComments = documentFacts_.getMagicComments();
          String latexProgramDirective = 
                            detectLatexProgramDirective(magicComments);
            
@@ -260,7 +263,7 @@ public class TextEditingTargetCompilePdfHelper
    public FileSystemItem getTargetFile(FileSystemItem editorFile)
    {
       ArrayList<TexMagicComment> magicComments = 
-                  TexMagicComment.parseComments(docDisplay_.getCode());
+                  documentFacts_.getMagicComments();
       String root = StringUtil.notNull(detectRootDirective(magicComments));
       if (root.length() > 0)
       {
@@ -296,7 +299,7 @@ public class TextEditingTargetCompilePdfHelper
 
       RnwWeave weave = null;
       ArrayList<TexMagicComment> magicComments = 
-            TexMagicComment.parseComments(docDisplay_.getCode());
+            documentFacts_.getMagicComments();
       RnwWeaveDirective rnwWeaveDirective = detectRnwWeaveDirective(
                                                              magicComments);
       if (rnwWeaveDirective != null)
@@ -348,7 +351,7 @@ public class TextEditingTargetCompilePdfHelper
          return "knitr";
 
       RnwWeaveDirective rnwWeaveDirective = detectRnwWeaveDirective(
-                         TexMagicComment.parseComments(docDisplay_.getCode()));
+                         documentFacts_.getMagicComments());
       if (rnwWeaveDirective != null)
       {
          RnwWeave rnwWeave = rnwWeaveDirective.getRnwWeave();
@@ -360,28 +363,6 @@ public class TextEditingTargetCompilePdfHelper
                            prefs_.defaultSweaveEngine().getValue()).getName();
    }
    
-   private boolean hasConcordanceDirective(String code)
-   {
-      Iterable<String> lines = StringUtil.getLineIterator(code);
-      
-      for (String line : lines)
-      {
-         line = line.trim();
-         if (line.length() == 0)
-         {
-            continue;
-         }
-         else if (line.startsWith("\\SweaveOpts"))
-         {
-            Match match = concordancePattern_.match(line, 0);
-            if (match != null)
-               return true;
-         }
-      }
-    
-      return false;  
-   }
-   
    private RnwWeaveDirective detectRnwWeaveDirective(
                                     ArrayList<TexMagicComment> magicComments)
    {
@@ -443,6 +424,7 @@ public class TextEditingTargetCompilePdfHelper
    }
    
    private final DocDisplay docDisplay_;
+   private final TextEditingTargetDocumentFacts documentFacts_;
    
    private UIPrefs prefs_;
    private Session session_;
@@ -450,9 +432,6 @@ public class TextEditingTargetCompilePdfHelper
    private RnwWeaveRegistry rnwWeaveRegistry_;
    private LatexProgramRegistry latexProgramRegistry_;
    
-   private static final Pattern concordancePattern_ = Pattern.create(
-                     "\\\\[\\s]*SweaveOpts[\\s]*{.*concordance[\\s]*=.*}");
-   
    private static HashMap<String, RnwChunkOptions> chunkOptionsCache_ = 
                                     new HashMap<String, RnwChunkOptions>();
 }
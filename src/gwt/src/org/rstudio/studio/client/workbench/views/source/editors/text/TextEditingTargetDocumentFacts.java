@@ -0,0 +1,280 @@
+/*
+ * TextEditingTargetDocumentFacts.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.rstudio.core.client.regex.Pattern;
+import org.rstudio.core.client.tex.TexMagicComment;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+
+// Facts about a document which would otherwise require a copy and scan of
+// the whole buffer (via DocDisplay.getCode) to answer. Per-row facts are
+// kept as flags for each row along with a count of the rows having each
+// flag, and are updated from document deltas (only the edited rows are
+// rescanned). Facts which depend only on the top of the document (the YAML
+// front matter and TeX magic comments) are computed on demand and cached
+// until an edit touches the rows they were computed from.
+//
+// Nothing is computed until the first query, so documents which are never
+// asked about don't pay for the initial scan.
+public class TextEditingTargetDocumentFacts
+{
+   public TextEditingTargetDocumentFacts(DocDisplay docDisplay)
+   {
+      docDisplay_ = docDisplay;
+      docDisplay_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            TextEditingTargetDocumentFacts.this.onDocumentChanged(
+                                                         event.getEvent());
+         }
+      });
+   }
+
+   // does the document consist entirely of whitespace (as String.trim
+   // defines it)?
+   public boolean isBlank()
+   {
+      return getRowCount(NOT_BLANK) == 0;
+   }
+
+   public boolean isAscii()
+   {
+      return getRowCount(NOT_ASCII) == 0;
+   }
+
+   // does the document opt out of R Markdown v2 (see
+   // TextEditingTargetRMarkdownHelper.detectExtendedType)?
+   public boolean hasRMarkdownV1Marker()
+   {
+      return getRowCount(RMARKDOWN_V1) > 0;
+   }
+
+   public boolean hasConcordanceDirective()
+   {
+      return getRowCount(CONCORDANCE) > 0;
+   }
+
+   // the YAML front matter, with the same semantics (and default) as
+   // YamlFrontMatter.getFrontMatter
+   public String getFrontMatter()
+   {
+      int[] rows = getFrontMatterRows();
+      if (rows == null)
+         return "output: html_document\n";
+
+      StringBuilder yaml = new StringBuilder();
+      for (int row = rows[0] + 1; row < rows[1]; row++)
+      {
+         yaml.append(docDisplay_.getLine(row));
+         yaml.append('\n');
+      }
+      return yaml.toString();
+   }
+
+   // the rows of the opening and closing front matter delimiters, or null
+   // if the document has no front matter
+   public int[] getFrontMatterRows()
+   {
+      if (frontMatterScanRow_ < 0)
+      {
+         frontMatterRows_ = null;
+         int rowCount = docDisplay_.getRowCount();
+         int row = 0;
+         while (row < rowCount && docDisplay_.getLine(row).trim().length() == 0)
+            row++;
+
+         if (row < rowCount && FRONTMATTER_BEGIN.match(
+                                    docDisplay_.getLine(row), 0) != null)
+         {
+            int begin = row++;
+            while (row < rowCount && FRONTMATTER_END.match(
+                                       docDisplay_.getLine(row), 0) == null)
+               row++;
+            if (row < rowCount)
+               frontMatterRows_ = new int[] { begin, row };
+         }
+
+         frontMatterScanRow_ = row;
+      }
+
+      return frontMatterRows_;
+   }
+
+   // the TeX magic comments, as TexMagicComment.parseComments would return
+   public ArrayList<TexMagicComment> getMagicComments()
+   {
+      if (magicCommentsScanRow_ < 0)
+      {
+         // magic comments are in the leading run of blank and % lines
+         StringBuilder header = new StringBuilder();
+         int rowCount = docDisplay_.getRowCount();
+         int row = 0;
+         for (; row < rowCount; row++)
+         {
+            String line = docDisplay_.getLine(row).trim();
+            if (line.length() > 0 && !line.startsWith("%"))
+               break;
+            header.append(line);
+            header.append('\n');
+         }
+
+         magicComments_ = TexMagicComment.parseComments(header.toString());
+         magicCommentsScanRow_ = row;
+      }
+
+      return new ArrayList<TexMagicComment>(magicComments_);
+   }
+
+   private int getRowCount(int flag)
+   {
+      ensureIndexed();
+      return counts_[flag];
+   }
+
+   private void ensureIndexed()
+   {
+      if (rows_ != null)
+         return;
+
+      int rowCount = docDisplay_.getRowCount();
+      rows_ = new ArrayList<Integer>(rowCount);
+      for (int i = 0; i < FLAG_COUNT; i++)
+         counts_[i] = 0;
+      for (int row = 0; row < rowCount; row++)
+      {
+         rows_.add(0);
+         setRow(row, computeFlags(docDisplay_.getLine(row)));
+      }
+   }
+
+   private void onDocumentChanged(AceDocumentChangeEventNative event)
+   {
+      Range range = event.getRange();
+      int startRow = range.getStart().getRow();
+      int lines = range.getEnd().getRow() - startRow;
+      boolean insert = event.getAction().startsWith("insert");
+
+      // edits to the top of the document invalidate the facts about it
+      if (startRow <= frontMatterScanRow_)
+         frontMatterScanRow_ = -1;
+      if (startRow <= magicCommentsScanRow_)
+         magicCommentsScanRow_ = -1;
+
+      if (rows_ == null)
+         return;
+
+      if (lines > 0)
+      {
+         int index = Math.min(startRow + 1, rows_.size());
+         if (insert)
+         {
+            rows_.addAll(index, Collections.nCopies(lines, 0));
+         }
+         else
+         {
+            int end = Math.min(index + lines, rows_.size());
+            for (int row = index; row < end; row++)
+               setRow(row, 0);
+            rows_.subList(index, end).clear();
+         }
+      }
+
+      int lastRow = insert ? startRow + lines : startRow;
+      for (int row = startRow; row <= lastRow && row < rows_.size(); row++)
+         setRow(row, computeFlags(docDisplay_.getLine(row)));
+   }
+
+   private void setRow(int row, int flags)
+   {
+      int previous = rows_.get(row);
+      if (previous == flags)
+         return;
+
+      for (int i = 0; i < FLAG_COUNT; i++)
+      {
+         int bit = 1 << i;
+         if ((previous & bit) != 0)
+            counts_[i]--;
+         if ((flags & bit) != 0)
+            counts_[i]++;
+      }
+      rows_.set(row, flags);
+   }
+
+   private static int computeFlags(String line)
+   {
+      int flags = 0;
+      for (int i = 0; i < line.length(); i++)
+      {
+         char ch = line.charAt(i);
+         if (ch > 127)
+         {
+            flags |= (1 << NOT_ASCII) | (1 << NOT_BLANK);
+            break;
+         }
+         else if (ch > ' ')
+         {
+            flags |= 1 << NOT_BLANK;
+         }
+      }
+
+      if (line.contains(RMARKDOWN_V1_MARKER))
+         flags |= 1 << RMARKDOWN_V1;
+
+      String trimmed = line.trim();
+      if (trimmed.startsWith("\\SweaveOpts") &&
+          CONCORDANCE_PATTERN.match(trimmed, 0) != null)
+      {
+         flags |= 1 << CONCORDANCE;
+      }
+
+      return flags;
+   }
+
+   private final DocDisplay docDisplay_;
+
+   // flags for each row (null until the first query)
+   private ArrayList<Integer> rows_ = null;
+   private final int[] counts_ = new int[FLAG_COUNT];
+
+   // the last row examined when computing the cached facts about the top
+   // of the document (-1 if they need to be recomputed)
+   private int frontMatterScanRow_ = -1;
+   private int[] frontMatterRows_ = null;
+   private int magicCommentsScanRow_ = -1;
+   private ArrayList<TexMagicComment> magicComments_ = null;
+
+   private static final int NOT_BLANK = 0;
+   private static final int NOT_ASCII = 1;
+   private static final int RMARKDOWN_V1 = 2;
+   private static final int CONCORDANCE = 3;
+   private static final int FLAG_COUNT = 4;
+
+   private static final String RMARKDOWN_V1_MARKER = "<!-- rmarkdown v1 -->";
+
+   private static final Pattern FRONTMATTER_BEGIN =
+                                          Pattern.create("^---\\s*$");
+   private static final Pattern FRONTMATTER_END =
+                                          Pattern.create("^(---|\\.\\.\\.)\\s*$");
+   private static final Pattern CONCORDANCE_PATTERN = Pattern.create(
+                     "\\\\[\\s]*SweaveOpts[\\s]*{.*concordance[\\s]*=.*}");
+}
@@ -124,10 +124,19 @@ public class TextEditingTargetRMarkdownHelper
    public String detectExtendedType(String contents,
                                     String extendedType,
                                     TextFileType fileType)
+   {
+      return detectExtendedType(hasRMarkdownV1Marker(contents),
+                                extendedType,
+                                fileType);
+   }
+   
+   public String detectExtendedType(boolean hasRMarkdownV1Marker,
+                                    String extendedType,
+                                    TextFileType fileType)
    {
       if (extendedType.length() == 0 && 
           fileType.isMarkdown() &&
-          useRMarkdownV2(contents))
+          useRMarkdownV2(hasRMarkdownV1Marker))
       {
          return "rmarkdown";
       }
@@ -929,10 +938,20 @@ public class TextEditingTargetRMarkdownHelper
    
    private boolean useRMarkdownV2(String contents)
    {
-      return !contents.contains("<!-- rmarkdown v1 -->") && 
+      return useRMarkdownV2(hasRMarkdownV1Marker(contents));
+   }
+   
+   private boolean useRMarkdownV2(boolean hasRMarkdownV1Marker)
+   {
+      return !hasRMarkdownV1Marker && 
               session_.getSessionInfo().getRMarkdownPackageAvailable();
    }
    
+   private boolean hasRMarkdownV1Marker(String contents)
+   {
+      return contents.contains("<!-- rmarkdown v1 -->");
+   }
+   
    private Session session_;
    private GlobalDisplay globalDisplay_;
    private EventBus eventBus_;
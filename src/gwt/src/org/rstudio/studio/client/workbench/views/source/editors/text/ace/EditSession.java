@@ -131,6 +131,16 @@ public class EditSession extends JavaScriptObject
       return this.getDocument();
    }-*/;
 
+   // flush pending deltas to the undo manager as a single undo entry
+   public native final void markUndoGroup() /*-{
+      this.markUndoGroup();
+   }-*/;
+
+   // merge the next undo entry into the previous one
+   public native final void setMergeUndoDeltas(boolean merge) /*-{
+      this.mergeUndoDeltas = merge;
+   }-*/;
+
    public native final void setNewLineMode(String type) /*-{
       this.setNewLineMode(type);
    }-*/;
@@ -0,0 +1,134 @@
+/*
+ * CppCompletionCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.workbench.views.source.editors.text.cpp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.model.CppCompletion;
+
+import com.google.gwt.core.client.JsArray;
+
+// Caches the completions returned for completion positions in a document,
+// so that completing again at the same position (e.g. after the popup was
+// dismissed) doesn't ask clang again. Entries are keyed by document path
+// and position; since the server doesn't tell us the version of the
+// translation unit, an entry is dropped whenever the document is edited
+// anywhere other than the text being completed at its position.
+public class CppCompletionCache
+{
+   public static class Entry
+   {
+      private Entry(String docPath,
+                    CompletionPosition position,
+                    JsArray<CppCompletion> completions)
+      {
+         docPath_ = docPath;
+         position_ = position;
+         completions_ = completions;
+         filterText_ = "";
+         filtered_ = completions;
+      }
+
+      public CompletionPosition getPosition()
+      {
+         return position_;
+      }
+
+      // the completions whose typed text starts with text; these are
+      // narrowed from those for the text last filtered on when possible
+      public JsArray<CppCompletion> filter(String text)
+      {
+         JsArray<CppCompletion> source =
+               text.startsWith(filterText_) ? filtered_ : completions_;
+         if (text.equals(filterText_) && source == filtered_)
+            return filtered_;
+
+         JsArray<CppCompletion> filtered = JsArray.createArray().cast();
+         for (int i = 0; i < source.length(); i++)
+         {
+            CppCompletion completion = source.get(i);
+            if (completion.getTypedText().startsWith(text))
+               filtered.push(completion);
+         }
+
+         filterText_ = text;
+         filtered_ = filtered;
+         return filtered;
+      }
+
+      private final String docPath_;
+      private final CompletionPosition position_;
+      private final JsArray<CppCompletion> completions_;
+
+      private String filterText_;
+      private JsArray<CppCompletion> filtered_;
+   }
+
+   // the cached completions for the position, if any (the completions for
+   // a position with less user text also cover it)
+   public Entry get(String docPath, CompletionPosition position)
+   {
+      for (Entry entry : entries_)
+      {
+         if (entry.docPath_.equals(docPath) &&
+             entry.position_.isSupersetOf(position))
+         {
+            return entry;
+         }
+      }
+      return null;
+   }
+
+   public Entry put(String docPath,
+                    CompletionPosition position,
+                    JsArray<CppCompletion> completions)
+   {
+      Entry entry = new Entry(docPath, position, completions);
+      entries_.add(0, entry);
+      while (entries_.size() > MAX_ENTRIES)
+         entries_.remove(entries_.size() - 1);
+      return entry;
+   }
+
+   public void onDocumentChanged(Range range)
+   {
+      Iterator<Entry> it = entries_.iterator();
+      while (it.hasNext())
+      {
+         // typing at (or after) the completion position on its line doesn't
+         // change what can be completed there; any other edit might
+         Position pos = it.next().position_.getPosition();
+         if (range.getStart().getRow() != pos.getRow() ||
+             range.getEnd().getRow() != pos.getRow() ||
+             range.getStart().getColumn() < pos.getColumn())
+         {
+            it.remove();
+         }
+      }
+   }
+
+   public void clear()
+   {
+      entries_.clear();
+   }
+
+   private final ArrayList<Entry> entries_ = new ArrayList<Entry>();
+
+   private static final int MAX_ENTRIES = 5;
+}
@@ -30,6 +30,7 @@ import org.rstudio.studio.client.workbench.views.console.shell.assist.Completion
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorSelection;
 import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.PasteEvent;
 import org.rstudio.studio.client.workbench.views.source.model.CppServerOperations;
 import org.rstudio.studio.client.workbench.views.source.model.CppSourceLocation;
@@ -71,8 +72,14 @@ public class CppCompletionManager implements CompletionManager
             terminateCompletionRequest();
          }
       });
-      
-      
+      docDisplay_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            completionCache_.onDocumentChanged(event.getEvent().getRange());
+         }
+      });
    }
  
    @Inject
@@ -388,6 +395,16 @@ public class CppCompletionManager implements CompletionManager
       final Invalidation.Token invalidationToken = 
             completionRequestInvalidation_.getInvalidationToken();
       
+      // if we have completions for this position then the document
+      // needn't be updated on the server
+      String docPath = completionContext_.getDocPath();
+      if (completionCache_.get(docPath, completionPosition) != null)
+      {
+         createCompletionRequest(
+               docPath, completionPosition, explicit, invalidationToken);
+         return;
+      }
+      
       completionContext_.withUpdatedDoc(new CommandWithArg<String>() {
 
          @Override
@@ -396,23 +413,34 @@ public class CppCompletionManager implements CompletionManager
             if (invalidationToken.isInvalid())
                return;
             
-            request_ = new CppCompletionRequest(
-               docPath,
-               completionPosition,
-               docDisplay_,
-               invalidationToken,
-               explicit,
-               new Command() {
-                  @Override
-                  public void execute()
-                  {
-                     suggestionTimer_.cancel();
-                  }
-               });
+            createCompletionRequest(
+                  docPath, completionPosition, explicit, invalidationToken);
          }
       });
    }
    
+   private void createCompletionRequest(
+         String docPath,
+         CompletionPosition completionPosition,
+         boolean explicit,
+         Invalidation.Token invalidationToken)
+   {
+      request_ = new CppCompletionRequest(
+         docPath,
+         completionPosition,
+         docDisplay_,
+         invalidationToken,
+         explicit,
+         completionCache_,
+         new Command() {
+            @Override
+            public void execute()
+            {
+               suggestionTimer_.cancel();
+            }
+         });
+   }
+   
    private static class SuggestionTimer
    {
       SuggestionTimer(CppCompletionManager manager, UIPrefs uiPrefs)
@@ -482,6 +510,7 @@ public class CppCompletionManager implements CompletionManager
    private final DocDisplay docDisplay_;
    private final CppCompletionContext completionContext_;
    private CppCompletionRequest request_;
+   private final CppCompletionCache completionCache_ = new CppCompletionCache();
    private SuggestionTimer suggestionTimer_;
    private final InitCompletionFilter initFilter_ ;
    private final CompletionManager rCompletionManager_;
@@ -54,6 +54,7 @@ public class CppCompletionRequest
                                DocDisplay docDisplay, 
                                Invalidation.Token token,
                                boolean explicit,
+                               CppCompletionCache cache,
                                Command onTerminated)
    {
       RStudioGinjector.INSTANCE.injectMembers(this);
@@ -62,9 +63,19 @@ public class CppCompletionRequest
       completionPosition_ = completionPosition;
       invalidationToken_ = token;
       explicit_ = explicit;
+      cache_ = cache;
+      docPath_ = docPath;
       onTerminated_ = onTerminated;
       snippets_ = new SnippetHelper((AceEditor) docDisplay, docPath);
       
+      // use the completions we already have for this position if we can
+      completions_ = cache_.get(docPath, completionPosition_);
+      if (completions_ != null)
+      {
+         updateUI(true);
+         return;
+      }
+      
       Position pos = completionPosition_.getPosition();
       
       server_.getCppCompletions(docPath, 
@@ -110,35 +121,12 @@ public class CppCompletionRequest
       // discover text already entered
       String userTypedText = getUserTypedText();
 
-      // build list of entries (filter on text already entered)
-      JsArray<CppCompletion> filtered = JsArray.createArray().cast();
-      for (int i = 0; i < completions_.length(); i++)
-      {
-         CppCompletion completion = completions_.get(i);
-         String typedText = completion.getTypedText();
-         if ((userTypedText.length() == 0) || 
-               typedText.startsWith(userTypedText))
-         {
-            // be more picky for member scope completions because clang
-            // returns a bunch of noise like constructors, destructors, 
-            // compiler generated assignments, etc.
-            if (completionPosition_.getScope() == 
-                  CompletionPosition.Scope.Member)
-            {
-               if (completion.getType() == CppCompletion.VARIABLE ||
-                     (completion.getType() == CppCompletion.FUNCTION &&
-                     !typedText.startsWith("operator=")))
-               {
-                  filtered.push(completion);
-               }
-
-            }
-            else
-            {
-               filtered.push(completion);
-            }
-         }
-      }
+      // build list of entries (filter on text already entered), showing
+      // only the best matches if there are a great many of them
+      JsArray<CppCompletion> filtered = getTopCompletions(
+            completions_.filter(userTypedText),
+            userTypedText,
+            MAX_COMPLETIONS);
       
       // add in snippets if they are enabled and this is a global scope
       if (uiPrefs_.enableSnippets().getValue() &&
@@ -201,13 +189,85 @@ public class CppCompletionRequest
       if (result == null)
          return;    
        
-      // get the completions
-      completions_ = result.getCompletions();
+      // get the completions (be more picky for member scope completions
+      // because clang returns a bunch of noise like constructors,
+      // destructors, compiler generated assignments, etc.)
+      JsArray<CppCompletion> completions = result.getCompletions();
+      if (completionPosition_.getScope() == CompletionPosition.Scope.Member)
+      {
+         JsArray<CppCompletion> members = JsArray.createArray().cast();
+         for (int i = 0; i < completions.length(); i++)
+         {
+            CppCompletion completion = completions.get(i);
+            if (completion.getType() == CppCompletion.VARIABLE ||
+                  (completion.getType() == CppCompletion.FUNCTION &&
+                  !completion.getTypedText().startsWith("operator=")))
+            {
+               members.push(completion);
+            }
+         }
+         completions = members;
+      }
+      completions_ = cache_.put(docPath_, completionPosition_, completions);
       
       // update the UI
       updateUI(true);
    }
    
+   // the best (at most) max of the completions, in their original order:
+   // those whose typed text is exactly the user's text, then the shortest
+   private static JsArray<CppCompletion> getTopCompletions(
+                                          JsArray<CppCompletion> completions,
+                                          String userTypedText,
+                                          int max)
+   {
+      JsArray<CppCompletion> top = JsArray.createArray().cast();
+      if (completions.length() <= max)
+      {
+         for (int i = 0; i < completions.length(); i++)
+            top.push(completions.get(i));
+         return top;
+      }
+      
+      // count the completions of each rank (0 for exact matches, otherwise
+      // the length of the typed text) to find the lowest rank we can't
+      // include all of
+      int maxRank = 0;
+      for (int i = 0; i < completions.length(); i++)
+         maxRank = Math.max(maxRank, completions.get(i).getTypedText().length());
+      int[] counts = new int[maxRank + 1];
+      for (int i = 0; i < completions.length(); i++)
+         counts[getRank(completions.get(i), userTypedText)]++;
+      
+      int cutoff = 0;
+      int included = 0;
+      while (included + counts[cutoff] <= max)
+         included += counts[cutoff++];
+      
+      int remaining = max - included;
+      for (int i = 0; i < completions.length(); i++)
+      {
+         CppCompletion completion = completions.get(i);
+         int rank = getRank(completion, userTypedText);
+         if (rank < cutoff)
+         {
+            top.push(completion);
+         }
+         else if (rank == cutoff && remaining > 0)
+         {
+            top.push(completion);
+            remaining--;
+         }
+      }
+      return top;
+   }
+   
+   private static int getRank(CppCompletion completion, String userTypedText)
+   {
+      String typedText = completion.getTypedText();
+      return typedText.equals(userTypedText) ? 0 : typedText.length();
+   }
+   
    static Pattern RE_NO_MEMBER_NAMED =
          Pattern.create("^no member named '(.*)' in '(.*)'$");
    
@@ -435,10 +495,15 @@ public class CppCompletionRequest
    private final SnippetHelper snippets_;
    
    private final CompletionPosition completionPosition_;
+   private final CppCompletionCache cache_;
+   private final String docPath_;
    
    private CppCompletionPopupMenu popup_;
-   private JsArray<CppCompletion> completions_;
+   private CppCompletionCache.Entry completions_;
    
    private boolean terminated_ = false;
    private Command onTerminated_ = null;
+   
+   // the most completions shown in the popup
+   private static final int MAX_COMPLETIONS = 500;
 }
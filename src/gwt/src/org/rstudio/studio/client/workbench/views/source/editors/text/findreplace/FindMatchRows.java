@@ -0,0 +1,112 @@
+/*
+ * FindMatchRows.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.findreplace;
+
+import java.util.ArrayList;
+
+// The matches found by a FindSession: [start, end) column pairs for each
+// row of the document (null if the row has none), along with the total
+// number of matches. Rows are inserted and removed as the document is
+// edited so that the matches stay on the same lines.
+class FindMatchRows
+{
+   public void reset(int rowCount)
+   {
+      rows_.clear();
+      count_ = 0;
+      for (int i = 0; i < rowCount; i++)
+         rows_.add(null);
+   }
+
+   public void clear()
+   {
+      rows_.clear();
+      count_ = 0;
+   }
+
+   public int size()
+   {
+      return rows_.size();
+   }
+
+   public int getCount()
+   {
+      return count_;
+   }
+
+   public int[] get(int row)
+   {
+      return rows_.get(row);
+   }
+
+   public void set(int row, int[] matches)
+   {
+      int[] previous = rows_.get(row);
+      if (previous != null)
+         count_ -= previous.length / 2;
+      if (matches != null)
+         count_ += matches.length / 2;
+      rows_.set(row, matches);
+   }
+
+   // insert the given number of (unscanned) rows after the given row
+   public void insertRows(int afterRow, int lines)
+   {
+      int index = Math.min(afterRow + 1, rows_.size());
+      for (int i = 0; i < lines; i++)
+         rows_.add(index, null);
+   }
+
+   // remove the given number of rows following the given row
+   public void removeRows(int afterRow, int lines)
+   {
+      int first = afterRow + 1;
+      int last = Math.min(first + lines, rows_.size());
+      for (int row = first; row < last; row++)
+         set(row, null);
+      for (int row = first; row < last; row++)
+         rows_.remove(first);
+   }
+
+   // index of the match spanning the given columns of a row (or -1 if
+   // there isn't one)
+   public int getMatchIndex(int row, int startColumn, int endColumn)
+   {
+      if (row >= rows_.size())
+         return -1;
+
+      int[] matches = rows_.get(row);
+      if (matches == null)
+         return -1;
+
+      int index = 0;
+      for (int i = 0; i < row; i++)
+      {
+         int[] rowMatches = rows_.get(i);
+         if (rowMatches != null)
+            index += rowMatches.length / 2;
+      }
+
+      for (int i = 0; i < matches.length; i += 2)
+      {
+         if (matches[i] == startColumn && matches[i + 1] == endColumn)
+            return index + i / 2;
+      }
+      return -1;
+   }
+
+   private final ArrayList<int[]> rows_ = new ArrayList<int[]>();
+   private int count_ = 0;
+}
@@ -29,6 +29,7 @@ import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.regex.Match;
 import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.core.client.regex.Pattern.ReplaceOperation;
+import org.rstudio.core.client.widget.ProgressIndicator;
 import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay.AnchoredSelection;
@@ -52,6 +53,7 @@ public class FindReplace
       HasValue<Boolean> getWholeWord();
       HasValue<Boolean> getRegex();
       HasClickHandlers getReplaceAll();
+      void setMatchCount(String matchCount);
       
       void activate(String searchText, 
                     boolean defaultForward, 
@@ -70,6 +72,14 @@ public class FindReplace
       display_ = display;
       globalDisplay_ = globalDisplay;
       errorCaption_ = showingReplace ? "Find/Replace" : "Find";
+      findSession_ = new FindSession(editor_, new FindSession.Observer()
+      {
+         @Override
+         public void onMatchesChanged()
+         {
+            updateMatchCount();
+         }
+      });
       
       HasValue<Boolean> caseSensitive = display_.getCaseSensitive();
       caseSensitive.setValue(defaultCaseSensitive_);
@@ -77,6 +87,7 @@ public class FindReplace
          public void onValueChange(ValueChangeEvent<Boolean> event)
          {
             defaultCaseSensitive_ = event.getValue();
+            updateFindSession();
          }
       });
       
@@ -86,6 +97,7 @@ public class FindReplace
          public void onValueChange(ValueChangeEvent<Boolean> event)
          {
             defaultWholeWord_ = event.getValue();
+            updateFindSession();
          }
       });
       
@@ -95,6 +107,7 @@ public class FindReplace
          public void onValueChange(ValueChangeEvent<Boolean> event)
          {
             defaultRegex_ = event.getValue();
+            updateFindSession();
          }
       });
       
@@ -135,6 +148,9 @@ public class FindReplace
          @Override
          public void onKeyUp(KeyUpEvent event)
          {
+            // keep match highlighting and count in sync with the query
+            updateFindSession();
+            
             // bail on navigational keys
             if (event.getNativeKeyCode() == KeyCodes.KEY_TAB ||
                 event.getNativeKeyCode() == KeyCodes.KEY_ENTER ||
@@ -164,6 +180,7 @@ public class FindReplace
    {
       defaultForward_ = defaultForward;
       display_.activate(searchText, defaultForward, inSelection);
+      updateFindSession();
    }
    
    public void findNext()
@@ -189,6 +206,7 @@ public class FindReplace
    public void notifyClosing()
    {
       clearTargetSelection();
+      findSession_.detach();
    }
 
    private void addClickHandler(HasClickHandlers hasClickHandlers,
@@ -319,6 +337,7 @@ public class FindReplace
          else
          {
             editor_.revealRange(resultRange, false);
+            updateMatchCount();
             return true;
          }
       }
@@ -358,6 +377,40 @@ public class FindReplace
       find(defaultForward_ ? FindType.Forward : FindType.Reverse);
    }
 
+   private void updateFindSession()
+   {
+      findSession_.setQuery(display_.getFindValue().getValue(),
+                            display_.getRegex().getValue(),
+                            display_.getCaseSensitive().getValue(),
+                            display_.getWholeWord().getValue());
+   }
+   
+   private void updateMatchCount()
+   {
+      if (!findSession_.isActive())
+      {
+         display_.setMatchCount("");
+         return;
+      }
+      
+      // wait for the scan to finish rather than show a partial count
+      if (!findSession_.isComplete())
+         return;
+      
+      int count = findSession_.getMatchCount();
+      if (count == 0)
+      {
+         display_.setMatchCount("No results");
+         return;
+      }
+      
+      int index = findSession_.getMatchIndex(editor_.getSelectionRange());
+      if (index >= 0)
+         display_.setMatchCount((index + 1) + " of " + count);
+      else
+         display_.setMatchCount(count + (count == 1 ? " match" : " matches"));
+   }
+
    private Pattern createPattern()
    {
       boolean caseSensitive = display_.getCaseSensitive().getValue();
@@ -376,74 +429,86 @@ public class FindReplace
    private void replaceAll()
    {
       String code = null; 
+      Position origin = null;
       if (targetSelection_ != null)
       {
          Range range = targetSelection_.getRange();
          code = editor_.getCode(range.getStart(), range.getEnd());
+         origin = range.getStart();
       }
       else
       {
          code = editor_.getCode();
+         origin = Position.create(0, 0);
       }
 
       boolean regex = display_.getRegex().getValue();
       String find = display_.getFindValue().getValue();
       String repl = display_.getReplaceValue().getValue();
 
-      int occurrences = 0;
-      if (find.length() > 0)
+      if (find.length() == 0)
       {
-         Pattern pattern = createPattern();
-         StringBuilder result = new StringBuilder();
-
-         int pos = 0; // pointer into original string
-         for (Match m = pattern.match(code, 0);
-              m != null;
-              m = m.nextMatch())
+         showOccurrencesReplaced(0);
+         return;
+      }
+      
+      Pattern pattern = createPattern();
+      ReplaceAllOperation operation = new ReplaceAllOperation(editor_, origin);
+      for (Match m = pattern.match(code, 0);
+           m != null;
+           m = m.nextMatch())
+      {
+         // Record the replacement for this match
+         operation.add(m.getIndex(),
+                       m.getValue(),
+                       regex ? substitute(m, repl, code) : repl);
+         
+         // If the data matched is an empty string (which can happen for
+         // regexps that don't consume characters such as ^ or $), then we
+         // didn't advance the state of the underlying RegExp object, and
+         // we'll loop forever (see case 4191). Bail out.
+         if (m.getValue().length() == 0)
          {
-            occurrences++;
-
-            // Add everything between the end of the last match, and this one
-            int index = m.getIndex();
-            result.append(code, pos, index);
-
-            // Add the replacement value
-            if (regex)
-               result.append(substitute(m, repl, code));
-            else
-               result.append(repl);
-
-            // Point to the end of this match
-            pos = index + m.getValue().length();
-            
-            // If the data matched is an empty string (which can happen for
-            // regexps that don't consume characters such as ^ or $), then we
-            // didn't advance the state of the underlying RegExp object, and
-            // we'll loop forever (see case 4191). Bail out.
-            if (m.getValue().length() == 0)
-            {
-               break;
-            }
+            break;
+         }
+      }
+      
+      final ProgressIndicator indicator = operation.getCount() > 
+                                             REPLACE_PROGRESS_THRESHOLD ?
+            globalDisplay_.getProgressIndicator(errorCaption_) :
+            null;
+      
+      operation.execute(new ReplaceAllOperation.Observer()
+      {
+         @Override
+         public void onProgress(int replaced, int total)
+         {
+            if (indicator != null)
+               indicator.onProgress("Replacing occurrences (" + replaced +
+                                    " of " + total + ")...");
          }
-         result.append(code, pos, code.length());
-
-         String newCode = result.toString();
          
-         // either replace all or replace just the target range
-         if (targetSelection_ != null)
+         @Override
+         public void onCompleted(int total)
          {
-            // restore and then replace the selection
-            editor_.setSelectionRange(targetSelection_.getRange());
-            editor_.replaceSelection(newCode, false);
+            if (indicator != null)
+               indicator.onCompleted();
             
-            // reset the target selection
-            resetTargetSelection();
+            // the target selection is anchored so it tracks the edits;
+            // reset it to cover the replaced text
+            if (targetSelection_ != null)
+            {
+               editor_.setSelectionRange(targetSelection_.getRange());
+               resetTargetSelection();
+            }
+            
+            showOccurrencesReplaced(total);
          }
-         else
-         {
-            editor_.replaceCode(newCode);
-         }      
-      }
+      });
+   }
+   
+   private void showOccurrencesReplaced(int occurrences)
+   {
       globalDisplay_.showMessage(GlobalDisplay.MSG_INFO,
                                  errorCaption_,
                                  occurrences + " occurrences replaced.");
@@ -519,7 +584,10 @@ public class FindReplace
       });
    }
 
+   private static final int REPLACE_PROGRESS_THRESHOLD = 2000;
+
    private final AceEditor editor_;
+   private final FindSession findSession_;
    private final Display display_;
    private final GlobalDisplay globalDisplay_;
    private final String errorCaption_;
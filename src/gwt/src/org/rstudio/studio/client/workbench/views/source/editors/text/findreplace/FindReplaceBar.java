@@ -52,6 +52,7 @@ public class FindReplaceBar extends Composite implements Display, RequiresResize
       String optionsPanel();
       String checkboxLabel();
       String closeButton();
+      String matchCount();
    }
    
    public FindReplaceBar(boolean showReplace, final boolean defaultForward)
@@ -74,6 +75,8 @@ public class FindReplaceBar extends Composite implements Display, RequiresResize
       findReplacePanel.add(btnFindNext_ = new SmallButton(cmds.findNext()));
       findReplacePanel.add(btnFindPrev_ = new SmallButton(cmds.findPrevious()));
       findReplacePanel.add(btnSelectAll_ = new SmallButton(cmds.findSelectAll()));
+      findReplacePanel.add(lblMatchCount_ = new Label());
+      lblMatchCount_.addStyleName(RES.styles().matchCount());
       
       findReplacePanel.add(txtReplace_ = new FindTextBox("Replace"));
       txtReplace_.addStyleName(RES.styles().replaceTextBox());
@@ -253,6 +256,11 @@ public class FindReplaceBar extends Composite implements Display, RequiresResize
    }
 
 
+   public void setMatchCount(String matchCount)
+   {
+      lblMatchCount_.setText(matchCount);
+   }
+
    public HasClickHandlers getCloseButton()
    {
       return btnClose_;
@@ -337,6 +345,7 @@ public class FindReplaceBar extends Composite implements Display, RequiresResize
    private SmallButton btnFindNext_;
    private SmallButton btnFindPrev_;
    private SmallButton btnSelectAll_;
+   private Label lblMatchCount_;
    private SmallButton btnReplace_;
    private SmallButton btnReplaceAll_;
    private CheckBox chkWholeWord_;
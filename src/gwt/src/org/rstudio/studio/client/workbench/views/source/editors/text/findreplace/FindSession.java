@@ -0,0 +1,391 @@
+/*
+ * FindSession.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.findreplace;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+
+import org.rstudio.core.client.HandlerRegistrations;
+import org.rstudio.core.client.regex.Match;
+import org.rstudio.core.client.regex.Pattern;
+import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.EditSession;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
+
+// Maintains the list of matches for the query in the find bar so that
+// they can be counted and highlighted. Matches are kept per row and:
+//
+//  - are computed in time-sliced chunks (so typing in the find bar never
+//    blocks on a scan of a large document);
+//  - when the query grows (e.g. "fo" -> "foo") only rows which matched the
+//    previous query are rescanned;
+//  - are updated from document deltas (only the edited rows are rescanned);
+//  - are drawn as markers for the visible rows only.
+//
+// Matches are found line by line, so regular expressions which span lines
+// aren't highlighted or counted.
+public class FindSession
+{
+   public interface Observer
+   {
+      void onMatchesChanged();
+   }
+
+   public FindSession(AceEditor editor, Observer observer)
+   {
+      editor_ = editor;
+      session_ = editor.getSession();
+      observer_ = observer;
+
+      registrations_.add(editor.addDocumentChangedHandler(
+            new DocumentChangedEvent.Handler()
+            {
+               @Override
+               public void onDocumentChanged(DocumentChangedEvent event)
+               {
+                  FindSession.this.onDocumentChanged(event.getEvent());
+               }
+            }));
+
+      registrations_.add(editor.addRenderFinishedHandler(
+            new RenderFinishedEvent.Handler()
+            {
+               @Override
+               public void onRenderFinished(RenderFinishedEvent event)
+               {
+                  updateMarkers(false);
+               }
+            }));
+   }
+
+   public void setQuery(String query,
+                        boolean regex,
+                        boolean caseSensitive,
+                        boolean wholeWord)
+   {
+      if (query.length() == 0)
+      {
+         clear();
+         return;
+      }
+
+      Pattern pattern;
+      try
+      {
+         String flags = caseSensitive ? "g" : "ig";
+         String source = regex ? query : Pattern.escape(query);
+         if (wholeWord)
+            source = "\\b" + source + "\\b";
+         pattern = Pattern.create(source, flags);
+      }
+      catch (Throwable e)
+      {
+         // invalid regex (typically one being typed)
+         clear();
+         return;
+      }
+
+      if (query.equals(query_) &&
+          regex == regex_ &&
+          caseSensitive == caseSensitive_ &&
+          wholeWord == wholeWord_)
+      {
+         return;
+      }
+
+      // a longer literal query can only match where the current one does
+      // (provided we know everywhere that the current one does)
+      boolean narrowing =
+            isComplete() &&
+            !regex && !regex_ &&
+            !wholeWord && !wholeWord_ &&
+            caseSensitive == caseSensitive_ &&
+            (caseSensitive ? query.contains(query_) :
+                             query.toLowerCase().contains(query_.toLowerCase()));
+
+      query_ = query;
+      regex_ = regex;
+      caseSensitive_ = caseSensitive;
+      wholeWord_ = wholeWord;
+      pattern_ = pattern;
+
+      if (!narrowing)
+         rows_.reset(session_.getLength());
+
+      narrowing_ = narrowing;
+      scanRow_ = 0;
+      dirtyRows_.clear();
+      scheduleScan();
+   }
+
+   public void clear()
+   {
+      query_ = null;
+      pattern_ = null;
+      rows_.clear();
+      dirtyRows_.clear();
+      scanRow_ = 0;
+      generation_++;
+      scanScheduled_ = false;
+      removeMarkers();
+      observer_.onMatchesChanged();
+   }
+
+   public void detach()
+   {
+      clear();
+      registrations_.removeHandler();
+   }
+
+   public boolean isActive()
+   {
+      return pattern_ != null;
+   }
+
+   public boolean isComplete()
+   {
+      return pattern_ != null &&
+             scanRow_ >= rows_.size() &&
+             dirtyRows_.isEmpty();
+   }
+
+   public int getMatchCount()
+   {
+      return rows_.getCount();
+   }
+
+   // index of the match spanning the range (or -1 if there isn't one)
+   public int getMatchIndex(Range range)
+   {
+      Position start = range.getStart();
+      Position end = range.getEnd();
+      if (start.getRow() != end.getRow())
+         return -1;
+
+      return rows_.getMatchIndex(start.getRow(),
+                                 start.getColumn(),
+                                 end.getColumn());
+   }
+
+   private void scheduleScan()
+   {
+      final int generation = ++generation_;
+      scanScheduled_ = true;
+      Scheduler.get().scheduleIncremental(new RepeatingCommand()
+      {
+         @Override
+         public boolean execute()
+         {
+            if (generation != generation_)
+               return false;
+
+            boolean more = scan(SLICE_MS);
+            if (!more)
+            {
+               scanScheduled_ = false;
+               updateMarkers(true);
+               observer_.onMatchesChanged();
+            }
+            return more;
+         }
+      });
+   }
+
+   // scan for up to the given time; returns true if there is more to do
+   private boolean scan(int millis)
+   {
+      Duration duration = new Duration();
+
+      while (!dirtyRows_.isEmpty())
+      {
+         int row = dirtyRows_.first();
+         dirtyRows_.remove(row);
+         if (row < rows_.size())
+            rows_.set(row, findMatches(session_.getLine(row)));
+         if (duration.elapsedMillis() > millis)
+            return true;
+      }
+
+      while (scanRow_ < rows_.size())
+      {
+         int row = scanRow_++;
+
+         // when narrowing only rows which matched the previous query
+         // can match this one
+         if (narrowing_ && rows_.get(row) == null)
+            continue;
+
+         rows_.set(row, findMatches(session_.getLine(row)));
+         if ((row & 0x3F) == 0 && duration.elapsedMillis() > millis)
+            return scanRow_ < rows_.size();
+      }
+
+      narrowing_ = false;
+      return false;
+   }
+
+   private int[] findMatches(String line)
+   {
+      int[] matches = null;
+      int count = 0;
+      for (Match m = pattern_.match(line, 0); m != null; m = m.nextMatch())
+      {
+         int length = m.getValue().length();
+         if (length == 0)
+            break;
+
+         if (matches == null)
+            matches = new int[4];
+         else if (count * 2 == matches.length)
+         {
+            int[] grown = new int[matches.length * 2];
+            System.arraycopy(matches, 0, grown, 0, matches.length);
+            matches = grown;
+         }
+         matches[count * 2] = m.getIndex();
+         matches[count * 2 + 1] = m.getIndex() + length;
+         count++;
+      }
+
+      if (matches == null || matches.length == count * 2)
+         return matches;
+
+      int[] trimmed = new int[count * 2];
+      System.arraycopy(matches, 0, trimmed, 0, trimmed.length);
+      return trimmed;
+   }
+
+   private void onDocumentChanged(AceDocumentChangeEventNative event)
+   {
+      if (pattern_ == null)
+         return;
+
+      String action = event.getAction();
+      Range range = event.getRange();
+      int startRow = range.getStart().getRow();
+      int lines = range.getEnd().getRow() - startRow;
+      boolean insert = action.startsWith("insert");
+
+      if (lines > 0)
+      {
+         if (insert)
+            rows_.insertRows(startRow, lines);
+         else
+            rows_.removeRows(startRow, lines);
+
+         // keep the scan position and pending rows on the same lines
+         int delta = insert ? lines : -lines;
+         if (scanRow_ > startRow)
+            scanRow_ = Math.max(startRow + 1, scanRow_ + delta);
+
+         TreeSet<Integer> dirty = new TreeSet<Integer>();
+         for (Integer row : dirtyRows_)
+            dirty.add(row > startRow ? Math.max(startRow, row + delta) : row);
+         dirtyRows_.clear();
+         dirtyRows_.addAll(dirty);
+      }
+
+      dirtyRows_.add(startRow);
+      if (insert)
+      {
+         for (int i = 1; i <= lines; i++)
+            dirtyRows_.add(startRow + i);
+      }
+
+      if (!scanScheduled_)
+         scheduleScan();
+   }
+
+   private void updateMarkers(boolean force)
+   {
+      if (pattern_ == null)
+         return;
+
+      int firstRow = editor_.getFirstVisibleRow();
+      int lastRow = editor_.getLastVisibleRow();
+      if (!force && firstRow == markerFirstRow_ && lastRow == markerLastRow_)
+         return;
+
+      removeMarkers();
+      markerFirstRow_ = firstRow;
+      markerLastRow_ = lastRow;
+
+      for (int row = Math.max(0, firstRow);
+           row <= lastRow && row < rows_.size();
+           row++)
+      {
+         int[] matches = rows_.get(row);
+         if (matches == null)
+            continue;
+
+         for (int i = 0; i < matches.length; i += 2)
+         {
+            Range range = Range.fromPoints(
+                  Position.create(row, matches[i]),
+                  Position.create(row, matches[i + 1]));
+            markerIds_.add(session_.addMarker(range,
+                                              MARKER_CLASS,
+                                              "text",
+                                              false));
+            if (markerIds_.size() >= MAX_MARKERS)
+               return;
+         }
+      }
+   }
+
+   private void removeMarkers()
+   {
+      for (Integer markerId : markerIds_)
+         session_.removeMarker(markerId);
+      markerIds_.clear();
+      markerFirstRow_ = -1;
+      markerLastRow_ = -1;
+   }
+
+   private final AceEditor editor_;
+   private final EditSession session_;
+   private final Observer observer_;
+   private final HandlerRegistrations registrations_ =
+                                          new HandlerRegistrations();
+
+   private String query_;
+   private boolean regex_;
+   private boolean caseSensitive_;
+   private boolean wholeWord_;
+   private Pattern pattern_;
+
+   private final FindMatchRows rows_ = new FindMatchRows();
+   private final TreeSet<Integer> dirtyRows_ = new TreeSet<Integer>();
+   private int scanRow_ = 0;
+   private boolean narrowing_ = false;
+   private boolean scanScheduled_ = false;
+   private int generation_ = 0;
+
+   private final ArrayList<Integer> markerIds_ = new ArrayList<Integer>();
+   private int markerFirstRow_ = -1;
+   private int markerLastRow_ = -1;
+
+   private static final int SLICE_MS = 10;
+   private static final int MAX_MARKERS = 500;
+   private static final String MARKER_CLASS = "ace_selected-word";
+}
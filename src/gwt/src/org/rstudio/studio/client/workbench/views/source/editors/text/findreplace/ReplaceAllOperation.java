@@ -0,0 +1,159 @@
+/*
+ * ReplaceAllOperation.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.findreplace;
+
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+
+import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Document;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.EditSession;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+
+// Applies the replacements for a Replace All as individual range edits
+// (rather than replacing the whole buffer) so that text, tokens, folds and
+// anchors outside of the matches are left alone. Edits are applied last to
+// first so that the ranges of the edits still to be applied stay valid, and
+// all of them form a single undo entry. Large batches are applied in chunks
+// (with the editor read-only in between) so that progress can be reported.
+public class ReplaceAllOperation
+{
+   public interface Observer
+   {
+      void onProgress(int replaced, int total);
+      void onCompleted(int total);
+   }
+
+   // origin is the document position of offset 0 of the searched text
+   public ReplaceAllOperation(AceEditor editor, Position origin)
+   {
+      editor_ = editor;
+      session_ = editor.getSession();
+      document_ = session_.getDocument();
+      row_ = origin.getRow();
+      rowOffset_ = -origin.getColumn();
+   }
+
+   // add an edit at an offset into the searched text; edits must be added
+   // in document order
+   public void add(int offset, String value, String replacement)
+   {
+      Position start = toPosition(offset);
+      Position end = value.indexOf('\n') == -1 && value.indexOf('\r') == -1 ?
+            Position.create(start.getRow(),
+                            start.getColumn() + value.length()) :
+            toPosition(offset + value.length());
+
+      count_++;
+      if (!value.equals(replacement))
+         edits_.add(new Edit(Range.fromPoints(start, end), replacement));
+   }
+
+   public int getCount()
+   {
+      return count_;
+   }
+
+   public void execute(final Observer observer)
+   {
+      // don't merge the replacements with any pending typing
+      session_.markUndoGroup();
+
+      if (edits_.size() <= CHUNK_SIZE)
+      {
+         applyEdits(edits_.size() - 1, 0);
+         session_.markUndoGroup();
+         observer.onCompleted(count_);
+         return;
+      }
+
+      final boolean readOnly = editor_.isReadOnly();
+      editor_.setReadOnly(true);
+      Scheduler.get().scheduleIncremental(new RepeatingCommand()
+      {
+         @Override
+         public boolean execute()
+         {
+            int last = edits_.size() - 1 - applied_;
+            int first = Math.max(0, last - CHUNK_SIZE + 1);
+
+            session_.setMergeUndoDeltas(applied_ > 0);
+            applyEdits(last, first);
+            session_.markUndoGroup();
+            applied_ += last - first + 1;
+
+            if (applied_ < edits_.size())
+            {
+               observer.onProgress(applied_, edits_.size());
+               return true;
+            }
+
+            editor_.setReadOnly(readOnly);
+            observer.onCompleted(count_);
+            return false;
+         }
+      });
+   }
+
+   private void applyEdits(int last, int first)
+   {
+      for (int i = last; i >= first; i--)
+      {
+         Edit edit = edits_.get(i);
+         session_.replace(edit.range, edit.replacement);
+      }
+   }
+
+   // offsets increase monotonically, so convert them by walking forward
+   // from the row of the previous one (rowOffset_ is the offset at which
+   // row_ begins)
+   private Position toPosition(int offset)
+   {
+      Position position = document_.indexToPosition(offset - rowOffset_, row_);
+      if (position.getRow() != row_)
+      {
+         rowOffset_ += document_.positionToIndex(
+               Position.create(position.getRow(), 0), row_);
+         row_ = position.getRow();
+      }
+      return position;
+   }
+
+   private static class Edit
+   {
+      Edit(Range range, String replacement)
+      {
+         this.range = range;
+         this.replacement = replacement;
+      }
+
+      final Range range;
+      final String replacement;
+   }
+
+   private final AceEditor editor_;
+   private final EditSession session_;
+   private final Document document_;
+   private final ArrayList<Edit> edits_ = new ArrayList<Edit>();
+   private int count_ = 0;
+   private int applied_ = 0;
+   private int row_;
+   private int rowOffset_;
+
+   private static final int CHUNK_SIZE = 2000;
+}
@@ -16,6 +16,8 @@ package org.rstudio.studio.client.workbench.views.source.model;
 
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.event.logical.shared.CloseEvent;
+import com.google.gwt.event.logical.shared.CloseHandler;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -30,6 +32,7 @@ import org.rstudio.core.client.TimeBufferedCommand;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.patch.SubstringDiff;
 import org.rstudio.core.client.widget.ProgressIndicator;
+import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.server.ServerError;
@@ -132,6 +135,18 @@ public class DocUpdateSentinel
          }
       });
 
+      // keep the contents last synced with the server in the document
+      // cache, so they needn't be sent again when the page is reloaded
+      cacheHandlerReg_ = Window.addCloseHandler(new CloseHandler<Window>()
+      {
+         @Override
+         public void onClose(CloseEvent<Window> event)
+         {
+            RStudioGinjector.INSTANCE.getSourceDocumentCache().put(
+                                                               sourceDoc_);
+         }
+      });
+
       // Desktop only
       lastChanceSaveHandlerReg_ = events.addHandler(
             LastChanceSaveEvent.TYPE,
@@ -601,6 +616,7 @@ public class DocUpdateSentinel
    {
       bufferedCommand_.suspend();
       closeHandlerReg_.removeHandler();
+      cacheHandlerReg_.removeHandler();
       lastChanceSaveHandlerReg_.removeHandler();
    }
 
@@ -662,5 +678,6 @@ public class DocUpdateSentinel
    private final EventBus eventBus_;
    private final TimeBufferedCommand bufferedCommand_;
    private final HandlerRegistration closeHandlerReg_;
+   private final HandlerRegistration cacheHandlerReg_;
    private HandlerRegistration lastChanceSaveHandlerReg_;
 }
@@ -74,6 +74,14 @@ public class SourceDocument extends JavaScriptObject
       this.contents = contents;
    }-*/;
 
+   /**
+    * True if the server omitted the contents because the client has them
+    * cached (see SourceDocumentCache).
+    */
+   public native final boolean isContentsCached() /*-{
+      return !!this.contents_cached;
+   }-*/;
+
    /**
     * True if changes have been saved to the ID that have not been persisted
     * to the file.
@@ -0,0 +1,308 @@
+/*
+ * SourceDocumentCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import java.util.HashSet;
+
+import org.rstudio.core.client.Debug;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.storage.client.Storage;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps the contents of source documents in browser storage, keyed by the
+ * hash the server computes for them, so that they needn't be sent again
+ * when the workbench is reloaded. client_init lists the cached documents
+ * (as hash:length keys, the length being in UTF-8 bytes as the server
+ * counts it), and the server leaves out the contents of documents whose
+ * hash and length both match (marking them contents_cached);
+ * restoreContents then fills them in from the cache. As in the server's
+ * dirty check, the length guards against collisions of the 32-bit hash.
+ *
+ * Contents are added when the window is closed (see DocUpdateSentinel),
+ * and the least recently used are evicted to keep the cache within
+ * MAX_CHARS.
+ */
+@Singleton
+public class SourceDocumentCache
+{
+   @Inject
+   public SourceDocumentCache()
+   {
+      storage_ = Storage.getLocalStorageIfSupported();
+      index_ = storage_ != null ? parseIndex(storage_.getItem(INDEX_KEY)) :
+                                  JavaScriptObject.createObject();
+      if (storage_ != null)
+         reconcile();
+   }
+
+   // the keys (hash:length) of the cached documents
+   public JsArrayString getCachedKeys()
+   {
+      JsArrayString keys = JsArrayString.createArray().cast();
+      JsArrayString hashes = getHashes(index_);
+      for (int i = 0; i < hashes.length(); i++)
+      {
+         String hash = hashes.get(i);
+         keys.push(hash + ":" + getBytes(index_, hash));
+      }
+      return keys;
+   }
+
+   // fills in the contents of documents the server didn't send; returns
+   // false if any of them are no longer in the cache
+   public boolean restoreContents(JsArray<SourceDocument> docs)
+   {
+      boolean restored = true;
+      for (int i = 0; i < docs.length(); i++)
+      {
+         SourceDocument doc = docs.get(i);
+         if (!doc.isContentsCached())
+            continue;
+
+         String hash = doc.getHash();
+         String contents = storage_ != null && hasEntry(index_, hash) ?
+               storage_.getItem(CONTENTS_PREFIX + hash) : null;
+         if (contents == null)
+         {
+            restored = false;
+            continue;
+         }
+
+         // the server matched the length in the index; make sure the
+         // stored contents still agree with it
+         int bytes = utf8Length(contents);
+         if (bytes != getBytes(index_, hash))
+         {
+            storage_.removeItem(CONTENTS_PREFIX + hash);
+            removeEntry(index_, hash);
+            restored = false;
+            continue;
+         }
+
+         doc.setContents(contents);
+         setEntry(index_, hash, contents.length(), bytes, now());
+      }
+
+      writeIndex();
+      return restored;
+   }
+
+   // caches the document's contents (which must match its hash, i.e. be
+   // the contents last synced with the server)
+   public void put(SourceDocument doc)
+   {
+      String hash = doc.getHash();
+      String contents = doc.getContents();
+      if (storage_ == null || hash == null || contents == null)
+         return;
+
+      // note that a different document with the same hash is left alone
+      // (the server won't match it since its length differs)
+      int bytes = utf8Length(contents);
+      if (hasEntry(index_, hash))
+      {
+         if (getBytes(index_, hash) == bytes)
+         {
+            setEntry(index_, hash, contents.length(), bytes, now());
+            writeIndex();
+         }
+         return;
+      }
+
+      if (contents.length() > MAX_DOCUMENT_CHARS)
+         return;
+
+      evict(MAX_CHARS - contents.length());
+      try
+      {
+         storage_.setItem(CONTENTS_PREFIX + hash, contents);
+         setEntry(index_, hash, contents.length(), bytes, now());
+      }
+      catch (Exception e)
+      {
+         // storage is full; the document will be sent again
+         Debug.log("Unable to cache document " + doc.getId());
+      }
+      writeIndex();
+   }
+
+   // evicts the least recently used documents until the cache holds no
+   // more than maxChars
+   private void evict(int maxChars)
+   {
+      JsArrayString hashes = getHashes(index_);
+      int total = 0;
+      for (int i = 0; i < hashes.length(); i++)
+         total += getSize(index_, hashes.get(i));
+
+      while (total > maxChars)
+      {
+         String oldest = getLeastRecentlyUsed(index_);
+         if (oldest == null)
+            break;
+
+         total -= getSize(index_, oldest);
+         storage_.removeItem(CONTENTS_PREFIX + oldest);
+         removeEntry(index_, oldest);
+      }
+   }
+
+   // another window (e.g. a source window) may have written the index
+   // after we did, so drop index entries without contents and contents
+   // without index entries
+   private void reconcile()
+   {
+      HashSet<String> stored = new HashSet<String>();
+      for (int i = storage_.getLength() - 1; i >= 0; i--)
+      {
+         String key = storage_.key(i);
+         if (key == null || !key.startsWith(CONTENTS_PREFIX))
+            continue;
+
+         String hash = key.substring(CONTENTS_PREFIX.length());
+         if (hasEntry(index_, hash))
+            stored.add(hash);
+         else
+            storage_.removeItem(key);
+      }
+
+      JsArrayString hashes = getHashes(index_);
+      for (int i = 0; i < hashes.length(); i++)
+      {
+         if (!stored.contains(hashes.get(i)))
+            removeEntry(index_, hashes.get(i));
+      }
+      writeIndex();
+   }
+
+   private void writeIndex()
+   {
+      if (storage_ == null)
+         return;
+
+      try
+      {
+         storage_.setItem(INDEX_KEY, stringify(index_));
+      }
+      catch (Exception e)
+      {
+         Debug.log("Unable to write document cache index");
+      }
+   }
+
+   private static double now()
+   {
+      return (double) System.currentTimeMillis();
+   }
+
+   private static native JavaScriptObject parseIndex(String json) /*-{
+      try {
+         var index = json ? JSON.parse(json) : null;
+         if (index && typeof index === "object")
+            return index;
+      } catch (e) {
+      }
+      return {};
+   }-*/;
+
+   private static native String stringify(JavaScriptObject object) /*-{
+      return JSON.stringify(object);
+   }-*/;
+
+   private static native JsArrayString getHashes(JavaScriptObject index) /*-{
+      var hashes = [];
+      for (var hash in index)
+         if (index.hasOwnProperty(hash))
+            hashes.push(hash);
+      return hashes;
+   }-*/;
+
+   private static native boolean hasEntry(JavaScriptObject index,
+                                          String hash) /*-{
+      return index.hasOwnProperty(hash);
+   }-*/;
+
+   private static native int getSize(JavaScriptObject index, String hash) /*-{
+      return index[hash].size;
+   }-*/;
+
+   // the length of the entry's contents in UTF-8 bytes (-1 if unknown)
+   private static native int getBytes(JavaScriptObject index,
+                                      String hash) /*-{
+      var bytes = index[hash].bytes;
+      return typeof bytes === "number" ? bytes : -1;
+   }-*/;
+
+   private static native void setEntry(JavaScriptObject index,
+                                       String hash,
+                                       int size,
+                                       int bytes,
+                                       double used) /*-{
+      index[hash] = { size: size, bytes: bytes, used: used };
+   }-*/;
+
+   // the length of the string when encoded as UTF-8 (which is how the
+   // server measures the contents)
+   private static native int utf8Length(String s) /*-{
+      var bytes = 0;
+      for (var i = 0; i < s.length; i++) {
+         var c = s.charCodeAt(i);
+         if (c < 0x80)
+            bytes += 1;
+         else if (c < 0x800)
+            bytes += 2;
+         else if (c >= 0xD800 && c <= 0xDBFF && i + 1 < s.length &&
+                  (s.charCodeAt(i + 1) & 0xFC00) === 0xDC00) {
+            bytes += 4;
+            i++;
+         }
+         else
+            bytes += 3;
+      }
+      return bytes;
+   }-*/;
+
+   private static native void removeEntry(JavaScriptObject index,
+                                          String hash) /*-{
+      delete index[hash];
+   }-*/;
+
+   private static native String getLeastRecentlyUsed(
+                                             JavaScriptObject index) /*-{
+      var oldest = null;
+      for (var hash in index) {
+         if (index.hasOwnProperty(hash) &&
+             (oldest === null || index[hash].used < index[oldest].used))
+            oldest = hash;
+      }
+      return oldest;
+   }-*/;
+
+   private final Storage storage_;
+   private final JavaScriptObject index_;
+
+   private static final String INDEX_KEY = "rstudio.documentCache.index";
+   private static final String CONTENTS_PREFIX = "rstudio.documentCache.contents.";
+
+   // browsers allow around 5MB of local storage per origin (stored as UTF-16,
+   // so ~2.5M characters), which is shared with the rest of the application
+   private static final int MAX_CHARS = 1500000;
+   private static final int MAX_DOCUMENT_CHARS = MAX_CHARS / 4;
+}
@@ -12,6 +12,7 @@
  */
 package org.rstudio.studio.client.workbench.views.viewer;
 
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
 
@@ -19,6 +20,7 @@ import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Size;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.URIUtils;
+import org.rstudio.core.client.widget.IncrementalFrameRefresher;
 import org.rstudio.core.client.widget.RStudioFrame;
 import org.rstudio.core.client.widget.Toolbar;
 import org.rstudio.core.client.widget.ToolbarButton;
@@ -161,9 +163,31 @@ public class ViewerPane extends WorkbenchPane implements ViewerPresenter.Display
    }
 
    @Override
-   public void previewRmd(RmdPreviewParams params)
+   public void previewRmd(RmdPreviewParams params, boolean refresh)
    {
-      navigate(params.getOutputUrl(), true);
+      // when refreshing an HTML document, patch the parts of the page that
+      // changed (falling back to a reload if that isn't possible)
+      final String url = params.getOutputUrl();
+      boolean canPatch = !params.isShinyDocument() &&
+                         params.getResult().isHtml() &&
+                         !params.getResult().isHtmlPresentation();
+      if (refresh && canPatch && url.equals(unmodifiedUrl_))
+      {
+         frameRefresher_.refresh(frame_, url, new Command()
+         {
+            @Override
+            public void execute()
+            {
+               navigate(url, true);
+            }
+         });
+      }
+      else
+      {
+         navigate(url, true);
+         if (canPatch)
+            frameRefresher_.onNavigated(url);
+      }
       publishButton_.setManuallyHidden(false);
       publishButton_.setRmdPreview(params);
       rmdPreviewParams_ = params;
@@ -266,6 +290,8 @@ public class ViewerPane extends WorkbenchPane implements ViewerPresenter.Display
    private RStudioFrame frame_;
    private String unmodifiedUrl_;
    private RmdPreviewParams rmdPreviewParams_;
+   private final IncrementalFrameRefresher frameRefresher_ =
+                                       new IncrementalFrameRefresher();
    private final Commands commands_;
    private final GlobalDisplay globalDisplay_;
    private final EventBus events_;
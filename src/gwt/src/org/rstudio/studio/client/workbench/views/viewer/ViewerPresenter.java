@@ -70,7 +70,7 @@ public class ViewerPresenter extends BasePresenter
    {
       void navigate(String url);
       void setExportEnabled(boolean exportEnabled);
-      void previewRmd(RmdPreviewParams params);
+      void previewRmd(RmdPreviewParams params, boolean refresh);
       void previewShiny(ShinyApplicationParams params);
       String getUrl();
       String getTitle();
@@ -177,7 +177,7 @@ public class ViewerPresenter extends BasePresenter
       rmdPreviewParams_ = event.getParams();
       if (Desktop.isDesktop())
          Desktop.getFrame().setViewerUrl(event.getParams().getOutputUrl());
-      display_.previewRmd(event.getParams());
+      display_.previewRmd(event.getParams(), event.isRefresh());
    }
    
    @Override
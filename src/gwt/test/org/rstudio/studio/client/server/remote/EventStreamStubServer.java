@@ -0,0 +1,324 @@
+/*
+ * EventStreamStubServer.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+// Local stand-in for the session's event service, for exercising
+// HttpStreamingEventTransport (and the get_events fallback) without an R
+// session. Generates console_output events at a fixed rate and serves:
+//
+//   events/stream_events  persistent chunked stream, one json-rpc line/batch
+//   events/ack_events     releases events up to the acknowledged id
+//   events/get_events     classic long-poll (for comparison)
+//   /                     harness page reporting per-event delivery latency
+//
+// Each event carries the server timestamp at which it was queued so that
+// the harness page can report end to end latency. Usage:
+//
+//   java org.rstudio.studio.client.server.remote.EventStreamStubServer \
+//        [port] [events-per-second]
+//
+public class EventStreamStubServer
+{
+   public static void main(String[] args) throws Exception
+   {
+      int port = args.length > 0 ? Integer.parseInt(args[0]) : 8788;
+      int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+      new EventStreamStubServer(port, rate).start();
+   }
+
+   public EventStreamStubServer(int port, int eventsPerSecond)
+   {
+      port_ = port;
+      eventsPerSecond_ = eventsPerSecond;
+   }
+
+   public void start() throws IOException
+   {
+      HttpServer server = HttpServer.create(new InetSocketAddress(port_), 0);
+      server.createContext("/events/stream_events", new StreamHandler());
+      server.createContext("/events/ack_events", new AckHandler());
+      server.createContext("/events/get_events", new PollHandler());
+      server.createContext("/", new HarnessHandler());
+      server.setExecutor(Executors.newCachedThreadPool());
+      server.start();
+
+      Thread generator = new Thread(new Runnable() {
+         public void run()
+         {
+            generateEvents();
+         }
+      });
+      generator.setDaemon(true);
+      generator.start();
+
+      System.out.println("Event stream stub listening on port " + port_ +
+                         " (" + eventsPerSecond_ + " events/sec)");
+   }
+
+   private void generateEvents()
+   {
+      long intervalNanos = 1000000000L / Math.max(1, eventsPerSecond_);
+      try
+      {
+         while (true)
+         {
+            synchronized (events_)
+            {
+               int id = nextEventId_++;
+               events_.add(new Event(id,
+                     "{\"id\":" + id + "," +
+                     "\"type\":\"console_output\"," +
+                     "\"data\":\"line " + id + "\\n\"," +
+                     "\"ts\":" + System.currentTimeMillis() + "}"));
+               events_.notifyAll();
+            }
+            Thread.sleep(intervalNanos / 1000000L,
+                         (int)(intervalNanos % 1000000L));
+         }
+      }
+      catch (InterruptedException e)
+      {
+      }
+   }
+
+   // collect all events after lastEventId (waiting up to timeoutMs for at
+   // least one to arrive) as a json array
+   private String takeEvents(int lastEventId, long timeoutMs)
+         throws InterruptedException
+   {
+      synchronized (events_)
+      {
+         long deadline = System.currentTimeMillis() + timeoutMs;
+         while (lastEventId >= nextEventId_ - 1)
+         {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+               break;
+            events_.wait(remaining);
+         }
+
+         StringBuilder json = new StringBuilder("[");
+         for (Event event : events_)
+         {
+            if (event.id <= lastEventId)
+               continue;
+            if (json.length() > 1)
+               json.append(',');
+            json.append(event.json);
+         }
+         return json.append(']').toString();
+      }
+   }
+
+   private void releaseEvents(int lastEventId)
+   {
+      synchronized (events_)
+      {
+         for (Iterator<Event> it = events_.iterator(); it.hasNext(); )
+         {
+            if (it.next().id <= lastEventId)
+               it.remove();
+         }
+      }
+   }
+
+   private class StreamHandler implements HttpHandler
+   {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+         int lastEventId = readLastEventId(exchange);
+         releaseEvents(lastEventId);
+
+         exchange.getResponseHeaders().set("Content-Type",
+                                           "application/json");
+         exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+         exchange.sendResponseHeaders(200, 0);
+         OutputStream out = exchange.getResponseBody();
+         try
+         {
+            // recycle the connection after a while (as a proxy might)
+            long endTime = System.currentTimeMillis() + kStreamDurationMs;
+            while (System.currentTimeMillis() < endTime)
+            {
+               String events = takeEvents(lastEventId, kHeartbeatMs);
+               lastEventId = lastIdOf(events, lastEventId);
+               out.write(("{\"result\":" + events + "}\n").getBytes("UTF-8"));
+               out.flush();
+            }
+         }
+         catch (InterruptedException e)
+         {
+         }
+         catch (IOException e)
+         {
+            // client went away
+         }
+         finally
+         {
+            exchange.close();
+         }
+      }
+   }
+
+   private class AckHandler implements HttpHandler
+   {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+         releaseEvents(readLastEventId(exchange));
+         respond(exchange, "{\"result\":null,\"ep\":\"false\"}");
+      }
+   }
+
+   private class PollHandler implements HttpHandler
+   {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+         int lastEventId = readLastEventId(exchange);
+         releaseEvents(lastEventId);
+         try
+         {
+            String events = takeEvents(lastEventId, kHeartbeatMs);
+            respond(exchange, "{\"result\":" + events + ",\"ep\":\"false\"}");
+         }
+         catch (InterruptedException e)
+         {
+            exchange.close();
+         }
+      }
+   }
+
+   private class HarnessHandler implements HttpHandler
+   {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+         exchange.getResponseHeaders().set("Content-Type", "text/html");
+         byte[] body = kHarnessHtml.getBytes("UTF-8");
+         exchange.sendResponseHeaders(200, body.length);
+         exchange.getResponseBody().write(body);
+         exchange.close();
+      }
+   }
+
+   private static void respond(HttpExchange exchange, String json)
+         throws IOException
+   {
+      byte[] body = json.getBytes("UTF-8");
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+   }
+
+   private static int readLastEventId(HttpExchange exchange)
+         throws IOException
+   {
+      InputStream in = exchange.getRequestBody();
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      for (int n; (n = in.read(buffer)) != -1; )
+         body.write(buffer, 0, n);
+
+      Matcher matcher = kParamsPattern.matcher(body.toString("UTF-8"));
+      return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+   }
+
+   private static int lastIdOf(String events, int defaultId)
+   {
+      Matcher matcher = kIdPattern.matcher(events);
+      int lastId = defaultId;
+      while (matcher.find())
+         lastId = Integer.parseInt(matcher.group(1));
+      return lastId;
+   }
+
+   private static class Event
+   {
+      Event(int id, String json)
+      {
+         this.id = id;
+         this.json = json;
+      }
+
+      final int id;
+      final String json;
+   }
+
+   private final int port_;
+   private final int eventsPerSecond_;
+   private final List<Event> events_ = new ArrayList<Event>();
+   private int nextEventId_ = 0;
+
+   private static final long kHeartbeatMs = 15000;
+   private static final long kStreamDurationMs = 60000;
+
+   private static final Pattern kParamsPattern =
+         Pattern.compile("\"params\"\\s*:\\s*\\[\\s*(-?\\d+)");
+   private static final Pattern kIdPattern =
+         Pattern.compile("\\{\"id\":(\\d+),");
+
+   // mirrors the parsing and ack logic of HttpStreamingEventTransport
+   private static final String kHarnessHtml =
+      "<!DOCTYPE html><html><body><pre id='stats'></pre><script>\n" +
+      "var last = -1, count = 0, total = 0, max = 0, acked = -1;\n" +
+      "function open() {\n" +
+      "  var xhr = new XMLHttpRequest(), offset = 0;\n" +
+      "  xhr.open('POST', 'events/stream_events', true);\n" +
+      "  xhr.onprogress = function() {\n" +
+      "    var text = xhr.responseText, nl;\n" +
+      "    while ((nl = text.indexOf('\\n', offset)) != -1) {\n" +
+      "      var events = JSON.parse(text.substring(offset, nl)).result;\n" +
+      "      offset = nl + 1;\n" +
+      "      var now = Date.now();\n" +
+      "      for (var i = 0; i < events.length; i++) {\n" +
+      "        var lag = now - events[i].ts;\n" +
+      "        total += lag; max = Math.max(max, lag); count++;\n" +
+      "        last = events[i].id;\n" +
+      "      }\n" +
+      "    }\n" +
+      "  };\n" +
+      "  xhr.onload = open;\n" +
+      "  xhr.send(JSON.stringify({method: 'stream_events', params: [last]}));\n" +
+      "}\n" +
+      "setInterval(function() {\n" +
+      "  if (last > acked) {\n" +
+      "    var ack = new XMLHttpRequest();\n" +
+      "    ack.open('POST', 'events/ack_events', true);\n" +
+      "    ack.send(JSON.stringify({method: 'ack_events', params: [last]}));\n" +
+      "    acked = last;\n" +
+      "  }\n" +
+      "  document.getElementById('stats').textContent =\n" +
+      "    'events: ' + count + '\\nmean latency ms: ' +\n" +
+      "    (count ? (total / count).toFixed(2) : '-') +\n" +
+      "    '\\nmax latency ms: ' + max;\n" +
+      "}, 1000);\n" +
+      "open();\n" +
+      "</script></body></html>";
+}
@@ -0,0 +1,61 @@
+/*
+ * FindResultsModelTest.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.output.find;
+
+import junit.framework.TestCase;
+
+public class FindResultsModelTest extends TestCase
+{
+   public void testCanNarrowQuery() throws Exception
+   {
+      assertTrue(FindResultsModel.canNarrowQuery("foo", "foobar", true));
+      assertTrue(FindResultsModel.canNarrowQuery("foo", "a foo", true));
+      assertTrue(FindResultsModel.canNarrowQuery("foo", "FOOBAR", false));
+      assertFalse(FindResultsModel.canNarrowQuery("foo", "FOOBAR", true));
+      assertFalse(FindResultsModel.canNarrowQuery("foo", "fo", true));
+   }
+
+   public void testCanNarrowQueryWithWhitespace() throws Exception
+   {
+      // the lines searched were trimmed, so a match at the start or end of
+      // a line may have lost the whitespace the query needs
+      assertFalse(FindResultsModel.canNarrowQuery("foo", "foo ", true));
+      assertFalse(FindResultsModel.canNarrowQuery("foo", " foo", true));
+      assertFalse(FindResultsModel.canNarrowQuery("foo", "foo\t", false));
+      assertTrue(FindResultsModel.canNarrowQuery("foo ", "foo b", true));
+   }
+
+   public void testIsTruncated() throws Exception
+   {
+      assertFalse(FindResultsModel.isTruncated("x <- foo(1)"));
+      assertFalse(FindResultsModel.isTruncated(repeat('a', 299)));
+
+      // truncated to 300 bytes plus "..."
+      assertTrue(FindResultsModel.isTruncated(repeat('a', 300) + "..."));
+      assertTrue(FindResultsModel.isTruncated(
+            repeat('a', FindResultsModel.MAX_LINE_LENGTH)));
+
+      // lines of multibyte characters are truncated at fewer characters
+      assertTrue(FindResultsModel.isTruncated(repeat('\u00E9', 150) + "..."));
+   }
+
+   private static String repeat(char c, int count)
+   {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < count; i++)
+         builder.append(c);
+      return builder.toString();
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * FindMatchRowsTest.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.findreplace;
+
+import junit.framework.TestCase;
+
+public class FindMatchRowsTest extends TestCase
+{
+   public void setUp() throws Exception
+   {
+      // six rows, every other one with matches (1 + 2 + 3 in total)
+      rows_ = new FindMatchRows();
+      rows_.reset(6);
+      rows_.set(1, new int[] { 0, 3 });
+      rows_.set(3, new int[] { 0, 3, 5, 8 });
+      rows_.set(5, new int[] { 0, 3, 5, 8, 10, 13 });
+   }
+
+   public void testCount() throws Exception
+   {
+      assertEquals(6, rows_.size());
+      assertEquals(6, rows_.getCount());
+
+      rows_.set(3, new int[] { 2, 5 });
+      assertEquals(5, rows_.getCount());
+
+      rows_.set(3, null);
+      assertEquals(4, rows_.getCount());
+   }
+
+   public void testRemoveRowsWithMatches() throws Exception
+   {
+      // delete from the end of row 0 through to the end of row 3 (rows 1-3
+      // are joined onto row 0)
+      rows_.removeRows(0, 3);
+      assertEquals(3, rows_.size());
+      assertEquals(3, rows_.getCount());
+      assertNull(rows_.get(0));
+      assertNull(rows_.get(1));
+      assertEquals(6, rows_.get(2).length);
+   }
+
+   public void testRemoveRowsPastEnd() throws Exception
+   {
+      rows_.removeRows(2, 10);
+      assertEquals(3, rows_.size());
+      assertEquals(1, rows_.getCount());
+   }
+
+   public void testInsertRows() throws Exception
+   {
+      rows_.insertRows(1, 2);
+      assertEquals(8, rows_.size());
+      assertEquals(6, rows_.getCount());
+      assertNotNull(rows_.get(1));
+      assertNull(rows_.get(2));
+      assertNull(rows_.get(3));
+      assertEquals(4, rows_.get(5).length);
+   }
+
+   public void testMatchIndex() throws Exception
+   {
+      assertEquals(0, rows_.getMatchIndex(1, 0, 3));
+      assertEquals(2, rows_.getMatchIndex(3, 5, 8));
+      assertEquals(5, rows_.getMatchIndex(5, 10, 13));
+      assertEquals(-1, rows_.getMatchIndex(2, 0, 3));
+      assertEquals(-1, rows_.getMatchIndex(3, 0, 8));
+
+      rows_.removeRows(0, 2);
+      assertEquals(0, rows_.getMatchIndex(1, 0, 3));
+      assertEquals(4, rows_.getMatchIndex(3, 10, 13));
+   }
+
+   private FindMatchRows rows_;
+}